@@ -0,0 +1,956 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import inet.ipaddr.IPAddress.IPVersion;
+import inet.ipaddr.ipv4.IPv4Address;
+import inet.ipaddr.ipv4.IPv4AddressBitmapSet;
+import inet.ipaddr.ipv6.IPv6Address;
+
+/**
+ * AdaptiveIPAddressCollection is an IPAddressCollection that chooses its backing collection according to its contents and the operations performed on it,
+ * switching between the backing collections transparently.
+ * <p>
+ * The available representations are an {@link IPAddressSeqRangeList}, an {@link IPAddressContainmentTrie},
+ * and for IPv4 addresses, an {@link IPv4AddressBitmapSet}.
+ * The collection counts the changes and the lookups performed on it.
+ * Periodically, it gathers statistics on its contents: the number of sequential ranges, the number of prefix blocks, the number of addresses,
+ * and for IPv4, the number of /16 blocks containing addresses, along with the estimated memory of each representation.
+ * From the statistics and the mix of operations since the previous evaluation, it decides which representation to use:
+ * <ul>
+ * <li>the bitmap set, for large IPv4 collections for which the bitmaps are estimated to be much smaller than the sequential ranges</li>
+ * <li>the containment trie, for large collections that are mostly changed rather than queried, and whose prefix blocks are not much more costly to store than the sequential ranges</li>
+ * <li>the sequential range list otherwise, which is also the representation of a new collection</li>
+ * </ul>
+ * To avoid switching back and forth for a workload near a threshold, a representation is abandoned only when the workload or contents are well beyond the threshold for choosing it.
+ * <p>
+ * Each evaluation is summarized by a {@link Decision}, available from {@link #getLastDecision()},
+ * and supplied to the listener set with {@link #setDecisionListener(Consumer)}, for monitoring.
+ * <p>
+ * The statistics are gathered by a pass over the sequential ranges, so evaluations are performed after a number of operations proportional to the number of ranges,
+ * keeping the amortized cost of the evaluations constant for each operation.
+ * An evaluation can also be triggered with {@link #evaluate()}.
+ * <p>
+ * Changing the collection, including a change of representation triggered by a change, causes any iterators of the collection to throw ConcurrentModificationException.
+ * A change of representation triggered by a lookup does not affect iterators until the next change to the collection.
+ * <p>
+ * An AdaptiveIPAddressCollection may contain either IPv6 addresses, or IPv4 addresses, but not both at the same time.
+ * An attempt to add an address when the collection already contains an address of a different version will throw IllegalArgumentException.
+ * However, once such a collection becomes empty again, it can accept either an IPv6 address or IPv4 address once more.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author scfoley
+ *
+ */
+public class AdaptiveIPAddressCollection implements IPAddressCollection<IPAddress, IPAddressSeqRange> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The representations of the addresses of an AdaptiveIPAddressCollection.
+	 */
+	public static enum Representation {
+		SEQUENTIAL_RANGE_LIST,
+		CONTAINMENT_TRIE,
+		BITMAP
+	}
+
+	// Estimates for a 64-bit JVM with compressed object pointers, matching those of AddressTrieMetrics
+	static final int RANGE_BYTES = 24, // object header, lower and upper references
+		ADDRESS_BYTES = 96, // the address, its section, and the array of segments
+		SEGMENT_BYTES = 36, // each segment and its reference in the array
+		RANGE_LIST_ENTRY_BYTES = 36, // the list reference, and the entries of the range size tree
+		TRIE_NODE_BYTES = 88, // the node and its contained count
+		CONTAINER_BYTES = 40, // the container object, its array, its key and its reference
+		MAX_CONTAINER_DATA_BYTES = 8192; // the size of a bitmap container
+
+	// evaluations are performed no more often than this number of operations
+	static final int MIN_EVALUATION_INTERVAL = 4096;
+
+	// the minimum number of ranges for which the alternatives to the range list are considered
+	static final int MIN_BITMAP_RANGES = 256, MIN_TRIE_RANGES = 1024;
+
+	/**
+	 * Statistics describing the contents of an AdaptiveIPAddressCollection and the operations performed on it,
+	 * along with the representation chosen from them.
+	 * <p>
+	 * For use with a metrics registry, {@link #toMap()} provides the scalar values by name.
+	 * <p>
+	 * Instances are immutable.
+	 *
+	 * @author scfoley
+	 *
+	 */
+	public static class Decision implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The names of the scalar values in the map returned by {@link #toMap()}.
+		 */
+		public static final String RANGE_COUNT = "rangeCount",
+			PREFIX_BLOCK_COUNT = "prefixBlockCount",
+			ADDRESS_COUNT = "addressCount",
+			CONTAINER_COUNT = "containerCount",
+			AVERAGE_RANGE_SIZE = "averageRangeSize",
+			CONTAINER_DENSITY = "containerDensity",
+			MUTATION_COUNT = "mutationCount",
+			LOOKUP_COUNT = "lookupCount",
+			ESTIMATED_RANGE_LIST_BYTES = "estimatedRangeListBytes",
+			ESTIMATED_TRIE_BYTES = "estimatedTrieBytes",
+			ESTIMATED_BITMAP_BYTES = "estimatedBitmapBytes";
+
+		private final Representation previous, representation;
+		private final String reason;
+		private final IPVersion version;
+		private final int rangeCount, containerCount;
+		private final long prefixBlockCount, mutationCount, lookupCount;
+		private final BigInteger addressCount;
+		private final long rangeListBytes, trieBytes, bitmapBytes;
+
+		Decision(Representation previous, Representation representation, String reason, Statistics stats, long mutationCount, long lookupCount) {
+			this.previous = previous;
+			this.representation = representation;
+			this.reason = reason;
+			this.version = stats.version;
+			this.rangeCount = stats.rangeCount;
+			this.containerCount = stats.containerCount;
+			this.prefixBlockCount = stats.prefixBlockCount;
+			this.addressCount = stats.addressCount;
+			this.rangeListBytes = stats.getRangeListBytes();
+			this.trieBytes = stats.getTrieBytes();
+			this.bitmapBytes = stats.getBitmapBytes();
+			this.mutationCount = mutationCount;
+			this.lookupCount = lookupCount;
+		}
+
+		/**
+		 * The representation in use before this decision.
+		 *
+		 * @return
+		 */
+		public Representation getPreviousRepresentation() {
+			return previous;
+		}
+
+		/**
+		 * The representation chosen by this decision.
+		 *
+		 * @return
+		 */
+		public Representation getRepresentation() {
+			return representation;
+		}
+
+		/**
+		 * Whether this decision changed the representation.
+		 *
+		 * @return
+		 */
+		public boolean isChange() {
+			return previous != representation;
+		}
+
+		/**
+		 * A description of the reason for the decision.
+		 *
+		 * @return
+		 */
+		public String getReason() {
+			return reason;
+		}
+
+		/**
+		 * The IP version of the addresses in the collection, or null if the collection was empty.
+		 *
+		 * @return
+		 */
+		public IPVersion getIPVersion() {
+			return version;
+		}
+
+		/**
+		 * The number of maximal sequential ranges of addresses in the collection.
+		 *
+		 * @return
+		 */
+		public int getRangeCount() {
+			return rangeCount;
+		}
+
+		/**
+		 * The number of prefix blocks in the minimal list of prefix blocks spanning the addresses of the collection.
+		 *
+		 * @return
+		 */
+		public long getPrefixBlockCount() {
+			return prefixBlockCount;
+		}
+
+		/**
+		 * The number of addresses in the collection.
+		 *
+		 * @return
+		 */
+		public BigInteger getAddressCount() {
+			return addressCount;
+		}
+
+		/**
+		 * For IPv4 collections, the number of /16 blocks containing addresses of the collection, which is the number of containers of the bitmap representation.
+		 * For IPv6 collections, zero.
+		 *
+		 * @return
+		 */
+		public int getContainerCount() {
+			return containerCount;
+		}
+
+		/**
+		 * The average number of addresses in each sequential range.
+		 *
+		 * @return
+		 */
+		public double getAverageRangeSize() {
+			return rangeCount == 0 ? 0 : addressCount.doubleValue() / rangeCount;
+		}
+
+		/**
+		 * For IPv4 collections, the fraction of the addresses in the /16 blocks containing addresses of the collection that are in the collection.
+		 * For IPv6 collections, zero.
+		 *
+		 * @return
+		 */
+		public double getContainerDensity() {
+			return containerCount == 0 ? 0 : addressCount.doubleValue() / (containerCount * (double) (1 << 16));
+		}
+
+		/**
+		 * The number of changes to the collection since the previous evaluation.
+		 *
+		 * @return
+		 */
+		public long getMutationCount() {
+			return mutationCount;
+		}
+
+		/**
+		 * The number of lookups in the collection since the previous evaluation.
+		 *
+		 * @return
+		 */
+		public long getLookupCount() {
+			return lookupCount;
+		}
+
+		/**
+		 * An estimate of the memory used by a sequential range list holding the addresses of the collection.
+		 *
+		 * @return
+		 */
+		public long getEstimatedRangeListBytes() {
+			return rangeListBytes;
+		}
+
+		/**
+		 * An estimate of the memory used by a containment trie holding the addresses of the collection.
+		 *
+		 * @return
+		 */
+		public long getEstimatedTrieBytes() {
+			return trieBytes;
+		}
+
+		/**
+		 * An estimate of the memory used by a bitmap set holding the addresses of the collection, or -1 for IPv6 collections.
+		 *
+		 * @return
+		 */
+		public long getEstimatedBitmapBytes() {
+			return bitmapBytes;
+		}
+
+		/**
+		 * Returns the scalar values in a map, keyed by the names {@link #RANGE_COUNT}, {@link #PREFIX_BLOCK_COUNT}, {@link #ADDRESS_COUNT},
+		 * {@link #CONTAINER_COUNT}, {@link #AVERAGE_RANGE_SIZE}, {@link #CONTAINER_DENSITY}, {@link #MUTATION_COUNT}, {@link #LOOKUP_COUNT},
+		 * {@link #ESTIMATED_RANGE_LIST_BYTES}, {@link #ESTIMATED_TRIE_BYTES}, and {@link #ESTIMATED_BITMAP_BYTES},
+		 * suitable for registering as gauges with a metrics registry.
+		 * The returned map is unmodifiable.
+		 *
+		 * @return
+		 */
+		public Map<String, Number> toMap() {
+			Map<String, Number> map = new LinkedHashMap<>();
+			map.put(RANGE_COUNT, rangeCount);
+			map.put(PREFIX_BLOCK_COUNT, prefixBlockCount);
+			map.put(ADDRESS_COUNT, addressCount);
+			map.put(CONTAINER_COUNT, containerCount);
+			map.put(AVERAGE_RANGE_SIZE, getAverageRangeSize());
+			map.put(CONTAINER_DENSITY, getContainerDensity());
+			map.put(MUTATION_COUNT, mutationCount);
+			map.put(LOOKUP_COUNT, lookupCount);
+			map.put(ESTIMATED_RANGE_LIST_BYTES, rangeListBytes);
+			map.put(ESTIMATED_TRIE_BYTES, trieBytes);
+			map.put(ESTIMATED_BITMAP_BYTES, bitmapBytes);
+			return Collections.unmodifiableMap(map);
+		}
+
+		@Override
+		public String toString() {
+			return previous + " -> " + representation + " (" + reason + "), " + toMap();
+		}
+	}
+
+	/**
+	 * The statistics gathered by a single pass over the maximal sequential ranges of a collection.
+	 */
+	static class Statistics {
+		IPVersion version;
+		int rangeCount, containerCount;
+		long prefixBlockCount, containerDataBytes;
+		BigInteger addressCount = BigInteger.ZERO;
+
+		// the key of the /16 block of the last container, and the count of addresses and of runs so far in that container
+		private long containerKey = -1, containerCard;
+		private int containerRuns;
+
+		static Statistics compute(Iterator<? extends IPAddressSeqRange> ranges) {
+			Statistics stats = new Statistics();
+			long ipv4Count = 0;
+			while(ranges.hasNext()) {
+				IPAddressSeqRange rng = ranges.next();
+				stats.rangeCount++;
+				if(rng.isIPv4()) {
+					stats.version = IPVersion.IPV4;
+					long lower = rng.getLower().toIPv4().longValue(), upper = rng.getUpper().toIPv4().longValue();
+					ipv4Count += upper - lower + 1;
+					stats.prefixBlockCount += countPrefixBlocks(lower, upper);
+					stats.addContainerRange(lower, upper);
+				} else {
+					stats.version = IPVersion.IPV6;
+					stats.addressCount = stats.addressCount.add(rng.getCount());
+					stats.prefixBlockCount += rng.spanWithPrefixBlocks().length;
+				}
+			}
+			if(stats.version == IPVersion.IPV4) {
+				stats.addressCount = BigInteger.valueOf(ipv4Count);
+				stats.flushContainer();
+			}
+			return stats;
+		}
+
+		// returns the number of prefix blocks in the minimal list of prefix blocks spanning the range of 32-bit values
+		static int countPrefixBlocks(long lower, long upper) {
+			int count = 0;
+			while(lower <= upper) {
+				long blockSize = lower == 0 ? 1L << IPv4Address.BIT_COUNT : Long.lowestOneBit(lower);
+				while(lower + blockSize - 1 > upper) {
+					blockSize >>>= 1;
+				}
+				lower += blockSize;
+				count++;
+			}
+			return count;
+		}
+
+		private void addContainerRange(long lower, long upper) {
+			long lowerKey = lower >>> 16, upperKey = upper >>> 16;
+			if(lowerKey != containerKey) {
+				flushContainer();
+				containerKey = lowerKey;
+			}
+			if(lowerKey == upperKey) {
+				containerCard += upper - lower + 1;
+				containerRuns++;
+				return;
+			}
+			containerCard += ((lowerKey + 1) << 16) - lower;
+			containerRuns++;
+			flushContainer();
+
+			// the full containers between the first and last, each a single run
+			long fullCount = upperKey - lowerKey - 1;
+			containerCount += fullCount;
+			containerDataBytes += fullCount * (CONTAINER_BYTES + 4);
+
+			containerKey = upperKey;
+			containerCard = upper - (upperKey << 16) + 1;
+			containerRuns = 1;
+		}
+
+		private void flushContainer() {
+			if(containerCard > 0) {
+				containerCount++;
+				containerDataBytes += CONTAINER_BYTES + Math.min(Math.min(2 * containerCard, MAX_CONTAINER_DATA_BYTES), 4L * containerRuns);
+				containerCard = 0;
+				containerRuns = 0;
+			}
+		}
+
+		private int getSegmentCount() {
+			return version == IPVersion.IPV6 ? IPv6Address.SEGMENT_COUNT : IPv4Address.SEGMENT_COUNT;
+		}
+
+		long getRangeListBytes() {
+			return rangeCount * (long) (RANGE_LIST_ENTRY_BYTES + RANGE_BYTES + 2 * (ADDRESS_BYTES + getSegmentCount() * SEGMENT_BYTES));
+		}
+
+		long getTrieBytes() {
+			// a binary trie of n added nodes has at most n - 1 non-added nodes
+			return Math.max(0, 2 * prefixBlockCount - 1) * (TRIE_NODE_BYTES + ADDRESS_BYTES + getSegmentCount() * SEGMENT_BYTES);
+		}
+
+		long getBitmapBytes() {
+			return version == IPVersion.IPV6 ? -1 : containerDataBytes;
+		}
+	}
+
+	private IPAddressCollection<IPAddress, IPAddressSeqRange> collection; // the list or the trie, null when the bitmap is in use
+	private IPv4AddressBitmapSet bitmap; // the bitmap set, null unless the bitmap is in use
+	private Representation representation = Representation.SEQUENTIAL_RANGE_LIST;
+
+	// a collection replaced by a change of representation triggered by a lookup, to be cleared by the next change, so that its iterators fail
+	private transient IPAddressCollection<?, ?> retired;
+
+	private long mutationCount, lookupCount; // since the last evaluation
+	private long nextEvaluation = MIN_EVALUATION_INTERVAL;
+	private int representationChangeCount;
+	private Decision lastDecision;
+
+	private transient Consumer<? super Decision> listener;
+
+	/**
+	 * Constructs an empty collection, backed by a sequential range list.
+	 */
+	public AdaptiveIPAddressCollection() {
+		collection = new IPAddressSeqRangeList();
+	}
+
+	/**
+	 * Constructs a collection with the addresses of the given collection,
+	 * choosing the representation from the contents of the given collection.
+	 *
+	 * @param collection
+	 */
+	public AdaptiveIPAddressCollection(IPAddressCollection<? extends IPAddress, ? extends IPAddressSeqRange> collection) {
+		this.collection = toRangeList(seqRangeIterator(collection));
+		evaluate();
+	}
+
+	/**
+	 * The current representation of the addresses of this collection.
+	 *
+	 * @return
+	 */
+	public Representation getRepresentation() {
+		return representation;
+	}
+
+	/**
+	 * The most recent evaluation of the representation of this collection, or null if none has been performed.
+	 *
+	 * @return
+	 */
+	public Decision getLastDecision() {
+		return lastDecision;
+	}
+
+	/**
+	 * The number of times the representation of this collection has changed.
+	 *
+	 * @return
+	 */
+	public int getRepresentationChangeCount() {
+		return representationChangeCount;
+	}
+
+	/**
+	 * Sets a listener to receive the decision of each evaluation of the representation of this collection, or null to remove the listener.
+	 * The listener is called after any change of representation.
+	 * The listener must not change this collection.
+	 * The listener is not retained by clones or by serialization.
+	 *
+	 * @param listener
+	 */
+	public void setDecisionListener(Consumer<? super Decision> listener) {
+		this.listener = listener;
+	}
+
+	private IPAddressCollection<? extends IPAddress, ? extends IPAddressSeqRange> getBacking() {
+		return bitmap != null ? bitmap : collection;
+	}
+
+	private static Iterator<? extends IPAddressSeqRange> seqRangeIterator(IPAddressCollection<? extends IPAddress, ? extends IPAddressSeqRange> collection) {
+		if(collection instanceof IPAddressSeqRangeList) {
+			return ((IPAddressSeqRangeList) collection).seqRangeIterator();
+		} else if(collection instanceof IPv4AddressBitmapSet) {
+			return ((IPv4AddressBitmapSet) collection).seqRangeIterator();
+		} else if(collection instanceof AdaptiveIPAddressCollection) {
+			return ((AdaptiveIPAddressCollection) collection).seqRangeIterator();
+		} else if(collection instanceof IPAddressContainmentTrieBase) {
+			return new JoiningIterator(((IPAddressContainmentTrieBase<?, ?>) collection).prefixBlockIterator());
+		}
+		return new JoiningIterator(collection.iterator());
+	}
+
+	/**
+	 * Joins the consecutive addresses or blocks of an iterator in increasing order into maximal sequential ranges.
+	 */
+	private static class JoiningIterator implements Iterator<IPAddressSeqRange> {
+		private final Iterator<? extends IPAddress> blocks;
+		private IPAddressSeqRange next;
+
+		JoiningIterator(Iterator<? extends IPAddress> blocks) {
+			this.blocks = blocks;
+			if(blocks.hasNext()) {
+				next = blocks.next().coverWithSequentialRange();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public IPAddressSeqRange next() {
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			IPAddressSeqRange result = next;
+			next = null;
+			while(blocks.hasNext()) {
+				IPAddressSeqRange rng = blocks.next().coverWithSequentialRange();
+				IPAddressSeqRange joined = result.join(rng);
+				if(joined == null) {
+					next = rng;
+					break;
+				}
+				result = joined;
+			}
+			return result;
+		}
+	}
+
+	private static IPAddressSeqRangeList toRangeList(Iterator<? extends IPAddressSeqRange> ranges) {
+		IPAddressSeqRangeList.Builder builder = new IPAddressSeqRangeList.Builder();
+		while(ranges.hasNext()) {
+			builder.add(ranges.next());
+		}
+		return builder.toList();
+	}
+
+	private static IPAddressContainmentTrie toTrie(Iterator<? extends IPAddressSeqRange> ranges) {
+		IPAddressContainmentTrie trie = new IPAddressContainmentTrie();
+		while(ranges.hasNext()) {
+			trie.add(ranges.next());
+		}
+		return trie;
+	}
+
+	/**
+	 * Returns an iterator of the maximal sequential ranges of addresses in this collection, in increasing order.
+	 * This iterator does not support the remove operation.
+	 *
+	 * @return
+	 */
+	public Iterator<? extends IPAddressSeqRange> seqRangeIterator() {
+		return seqRangeIterator(getBacking());
+	}
+
+	/**
+	 * Returns a sequential range list with the addresses of this collection.
+	 *
+	 * @return
+	 */
+	public IPAddressSeqRangeList toSeqRangeList() {
+		if(bitmap != null) {
+			return bitmap.toSeqRangeList();
+		} else if(collection instanceof IPAddressSeqRangeList) {
+			return ((IPAddressSeqRangeList) collection).clone();
+		}
+		return toRangeList(seqRangeIterator());
+	}
+
+	/**
+	 * Gathers statistics on the contents of this collection, chooses the representation of this collection from them and from the operations
+	 * performed since the previous evaluation, switching to that representation if it differs from the current one, and returns the decision.
+	 *
+	 * @return
+	 */
+	public Decision evaluate() {
+		return evaluate(true);
+	}
+
+	// Called before each operation.  Evaluates when the number of operations since the last evaluation reaches the threshold.
+	private void operation(boolean isMutation) {
+		if(isMutation) {
+			if(retired != null) {
+				retired.clear();
+				retired = null;
+			}
+			mutationCount++;
+		} else {
+			lookupCount++;
+		}
+		if(mutationCount + lookupCount >= nextEvaluation) {
+			evaluate(isMutation);
+		}
+	}
+
+	private Decision evaluate(boolean clearReplaced) {
+		Statistics stats = Statistics.compute(seqRangeIterator());
+		Representation previous = representation, chosen;
+		String reason;
+		long rangeListBytes = stats.getRangeListBytes(), trieBytes = stats.getTrieBytes(), bitmapBytes = stats.getBitmapBytes();
+		boolean isBitmap = previous == Representation.BITMAP, isTrie = previous == Representation.CONTAINMENT_TRIE;
+		if(stats.version == IPVersion.IPV4 && stats.rangeCount >= MIN_BITMAP_RANGES &&
+				// choose the bitmap when it is under half the size of the range list, abandon it once it is no longer smaller
+				(isBitmap ? bitmapBytes < rangeListBytes : 2 * bitmapBytes < rangeListBytes)) {
+			chosen = Representation.BITMAP;
+			reason = "estimated bitmap bytes " + bitmapBytes + " below range list bytes " + rangeListBytes;
+		} else if(stats.rangeCount >= (isTrie ? MIN_TRIE_RANGES / 2 : MIN_TRIE_RANGES) &&
+				trieBytes <= (isTrie ? 8 : 4) * rangeListBytes &&
+				// choose the trie when changes are more than twice the lookups, abandon it when lookups are more than twice the changes
+				(isTrie ? lookupCount <= 2 * mutationCount : mutationCount > 2 * lookupCount)) {
+			chosen = Representation.CONTAINMENT_TRIE;
+			reason = mutationCount + " changes with " + lookupCount + " lookups over " + stats.rangeCount + " ranges";
+		} else {
+			chosen = Representation.SEQUENTIAL_RANGE_LIST;
+			if(stats.rangeCount < MIN_BITMAP_RANGES) {
+				reason = stats.rangeCount + " ranges";
+			} else {
+				reason = lookupCount + " lookups with " + mutationCount + " changes over " + stats.rangeCount + " ranges";
+			}
+		}
+		if(chosen != previous) {
+			switchTo(chosen, clearReplaced);
+		}
+		Decision decision = new Decision(previous, chosen, reason, stats, mutationCount, lookupCount);
+		lastDecision = decision;
+		mutationCount = lookupCount = 0;
+		nextEvaluation = Math.max(MIN_EVALUATION_INTERVAL, stats.rangeCount);
+		if(listener != null) {
+			listener.accept(decision);
+		}
+		return decision;
+	}
+
+	private void switchTo(Representation newRepresentation, boolean clearReplaced) {
+		IPAddressCollection<?, ?> replaced = getBacking();
+		switch(newRepresentation) {
+		case BITMAP:
+			bitmap = new IPv4AddressBitmapSet(replaced);
+			collection = null;
+			break;
+		case CONTAINMENT_TRIE:
+			collection = toTrie(seqRangeIterator());
+			bitmap = null;
+			break;
+		default:
+			collection = toRangeList(seqRangeIterator());
+			bitmap = null;
+		}
+		representation = newRepresentation;
+		representationChangeCount++;
+		if(retired != null) {
+			retired.clear();
+		}
+		if(clearReplaced) {
+			replaced.clear();
+			retired = null;
+		} else {
+			retired = replaced;
+		}
+	}
+
+	// the bitmap holds only IPv4 addresses, when empty it is replaced by a list to accept IPv6 addresses
+	private boolean acceptsIPv6() {
+		if(bitmap == null) {
+			return true;
+		}
+		if(!bitmap.isEmpty()) {
+			throw new IllegalArgumentException(IPAddressSeqRangeList.getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		bitmap = null;
+		collection = new IPAddressSeqRangeList();
+		Representation previous = representation;
+		representation = Representation.SEQUENTIAL_RANGE_LIST;
+		representationChangeCount++;
+		Decision decision = new Decision(previous, representation, "IPv6 addresses added", Statistics.compute(Collections.emptyIterator()), mutationCount, lookupCount);
+		lastDecision = decision;
+		if(listener != null) {
+			listener.accept(decision);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean add(IPAddress addr) {
+		operation(true);
+		if(bitmap != null && addr.isIPv4()) {
+			return bitmap.add(addr.toIPv4());
+		}
+		return acceptsIPv6() && collection.add(addr);
+	}
+
+	@Override
+	public boolean add(IPAddressSeqRange rng) {
+		operation(true);
+		if(bitmap != null && rng.isIPv4()) {
+			return bitmap.add(rng.toIPv4());
+		}
+		return acceptsIPv6() && collection.add(rng);
+	}
+
+	@Override
+	public boolean remove(IPAddress addr) {
+		operation(true);
+		if(bitmap != null) {
+			return addr.isIPv4() && bitmap.remove(addr.toIPv4());
+		}
+		return collection.remove(addr);
+	}
+
+	@Override
+	public boolean remove(IPAddressSeqRange rng) {
+		operation(true);
+		if(bitmap != null) {
+			return rng.isIPv4() && bitmap.remove(rng.toIPv4());
+		}
+		return collection.remove(rng);
+	}
+
+	@Override
+	public void clear() {
+		operation(true);
+		getBacking().clear();
+	}
+
+	@Override
+	public boolean contains(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() && bitmap.contains(addr.toIPv4());
+		}
+		return collection.contains(addr);
+	}
+
+	@Override
+	public boolean contains(IPAddressSeqRange rng) {
+		operation(false);
+		if(bitmap != null) {
+			return rng.isIPv4() && bitmap.contains(rng.toIPv4());
+		}
+		return collection.contains(rng);
+	}
+
+	@Override
+	public boolean overlaps(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() && bitmap.overlaps(addr.toIPv4());
+		}
+		return collection.overlaps(addr);
+	}
+
+	@Override
+	public boolean overlaps(IPAddressSeqRange rng) {
+		operation(false);
+		if(bitmap != null) {
+			return rng.isIPv4() && bitmap.overlaps(rng.toIPv4());
+		}
+		return collection.overlaps(rng);
+	}
+
+	@Override
+	public IPAddress floor(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() ? bitmap.floor(addr.toIPv4()) : null;
+		}
+		return collection.floor(addr);
+	}
+
+	@Override
+	public IPAddress lower(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() ? bitmap.lower(addr.toIPv4()) : null;
+		}
+		return collection.lower(addr);
+	}
+
+	@Override
+	public IPAddress ceiling(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() ? bitmap.ceiling(addr.toIPv4()) : null;
+		}
+		return collection.ceiling(addr);
+	}
+
+	@Override
+	public IPAddress higher(IPAddress addr) {
+		operation(false);
+		if(bitmap != null) {
+			return addr.isIPv4() ? bitmap.higher(addr.toIPv4()) : null;
+		}
+		return collection.higher(addr);
+	}
+
+	@Override
+	public IPAddress getLower() {
+		return getBacking().getLower();
+	}
+
+	@Override
+	public IPAddress getUpper() {
+		return getBacking().getUpper();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return getBacking().isEmpty();
+	}
+
+	@Override
+	public BigInteger getCount() {
+		return getBacking().getCount();
+	}
+
+	@Override
+	public boolean isMultiple() {
+		return getBacking().isMultiple();
+	}
+
+	@Override
+	public boolean includesZero() {
+		return getBacking().includesZero();
+	}
+
+	@Override
+	public boolean includesMax() {
+		return getBacking().includesMax();
+	}
+
+	@Override
+	public boolean isSequential() {
+		return getBacking().isSequential();
+	}
+
+	@Override
+	public IPAddressSeqRange coverWithSequentialRange() {
+		return getBacking().coverWithSequentialRange();
+	}
+
+	@Override
+	public IPAddress coverWithPrefixBlock() {
+		return getBacking().coverWithPrefixBlock();
+	}
+
+	@Override
+	public Iterator<? extends IPAddress> iterator() {
+		return getBacking().iterator();
+	}
+
+	@Override
+	public Spliterator<? extends IPAddress> spliterator() {
+		return getBacking().spliterator();
+	}
+
+	@Override
+	public Stream<? extends IPAddress> stream() {
+		return getBacking().stream();
+	}
+
+	/**
+	 * Clones the collection, with the same representation.
+	 */
+	@Override
+	public AdaptiveIPAddressCollection clone() {
+		try {
+			AdaptiveIPAddressCollection cloned = (AdaptiveIPAddressCollection) super.clone();
+			if(bitmap != null) {
+				cloned.bitmap = bitmap.clone();
+			} else {
+				cloned.collection = collection.clone();
+			}
+			cloned.retired = null;
+			cloned.listener = null;
+			return cloned;
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the given argument is an instance of IPAddressCollection containing the same addresses.
+	 * <p>
+	 * The maximal sequential ranges of the two collections are compared, so the result does not depend on the representation of either collection.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if(this == other) {
+			return true;
+		} else if(other instanceof IPAddressCollection) {
+			Iterator<? extends IPAddressSeqRange> iter = seqRangeIterator(), otherIter = seqRangeIterator((IPAddressCollection<?, ?>) other);
+			while(iter.hasNext()) {
+				if(!otherIter.hasNext() || !iter.next().equals(otherIter.next())) {
+					return false;
+				}
+			}
+			return !otherIter.hasNext();
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a hash code of the maximal sequential ranges of this collection, which does not depend on the representation of the collection,
+	 * and which matches the hash code of an {@link IPAddressSeqRangeList} with the same addresses.
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		Iterator<? extends IPAddressSeqRange> iter = seqRangeIterator();
+		while(iter.hasNext()) {
+			hash = 31 * hash + iter.next().hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the maximal sequential ranges of this collection in the format of {@link IPAddressSeqRangeList#toString()}.
+	 */
+	@Override
+	public String toString() {
+		return toSeqRangeList().toString();
+	}
+}
@@ -38,6 +38,9 @@ import java.io.Serializable;
  * Both offer binary search for containment queries.  
  * Whether one is better than the other may depend on the data set or the underlying processor, 
  * or whether you may need additional operations that are specific to one collection or the other.
+ * <p>
+ * For large IPv4 sets of scattered addresses, such as millions of individual hosts, IPv4AddressBitmapSet is backed by compressed bitmaps,
+ * which are much more compact than the equivalent sequential ranges or prefix blocks.
  * 
  * @author scfoley
  *
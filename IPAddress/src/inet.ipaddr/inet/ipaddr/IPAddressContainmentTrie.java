@@ -38,6 +38,26 @@ public class IPAddressContainmentTrie extends IPAddressContainmentTrieBase<IPAdd
 	
 	private static final long serialVersionUID = 1L;
 
+	@Override
+	public IPAddressContainmentTrie union(IPAddressContainmentTrieBase<IPAddress, IPAddressSeqRange> other) {
+		return (IPAddressContainmentTrie) super.union(other);
+	}
+
+	@Override
+	public IPAddressContainmentTrie intersection(IPAddressContainmentTrieBase<IPAddress, IPAddressSeqRange> other) {
+		return (IPAddressContainmentTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPAddressContainmentTrie difference(IPAddressContainmentTrieBase<IPAddress, IPAddressSeqRange> other) {
+		return (IPAddressContainmentTrie) super.difference(other);
+	}
+
+	@Override
+	public IPAddressContainmentTrie symmetricDifference(IPAddressContainmentTrieBase<IPAddress, IPAddressSeqRange> other) {
+		return (IPAddressContainmentTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPAddressContainmentTrie clone() {
 		return (IPAddressContainmentTrie) super.clone();
@@ -673,6 +673,195 @@ public class IPAddressContainmentTrieBase<T extends IPAddress, R extends IPAddre
 		return false;
 	}
 
+	/**
+	 * Returns a new collection with the addresses in either this collection or the given collection.
+	 * <p>
+	 * The backing tries of the two collections are traversed together.
+	 * Any sub-trie with no counterpart in the other trie, or that lies entirely within a block of the other trie, is handled in its entirety without further comparison.
+	 * <p>
+	 * Since a collection holds addresses of a single IP version, if both collections have addresses and their versions differ,
+	 * then the union and the symmetric difference throw IllegalArgumentException.
+	 * <p>
+	 * Neither collection is modified.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPAddressContainmentTrieBase<T, R> union(IPAddressContainmentTrieBase<T, R> other) {
+		return combine(other, true, true, true);
+	}
+
+	/**
+	 * Returns a new collection with the addresses in both this collection and the given collection.
+	 * <p>
+	 * See {@link #union(IPAddressContainmentTrieBase)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPAddressContainmentTrieBase<T, R> intersection(IPAddressContainmentTrieBase<T, R> other) {
+		return combine(other, false, false, true);
+	}
+
+	/**
+	 * Returns a new collection with the addresses in this collection that are not in the given collection.
+	 * <p>
+	 * See {@link #union(IPAddressContainmentTrieBase)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPAddressContainmentTrieBase<T, R> difference(IPAddressContainmentTrieBase<T, R> other) {
+		return combine(other, true, false, false);
+	}
+
+	/**
+	 * Returns a new collection with the addresses in exactly one of this collection and the given collection.
+	 * <p>
+	 * See {@link #union(IPAddressContainmentTrieBase)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPAddressContainmentTrieBase<T, R> symmetricDifference(IPAddressContainmentTrieBase<T, R> other) {
+		return combine(other, true, true, false);
+	}
+
+	private IPAddressContainmentTrieBase<T, R> combine(IPAddressContainmentTrieBase<T, R> other, boolean keepThis, boolean keepOther, boolean keepBoth) {
+		IPAddressContainmentTrieBase<T, R> result = createEmpty();
+		TrieNode<IPAddress> root = trie.getRoot(), otherRoot = other.trie.getRoot();
+		IPAddress rootKey = root.getKey(), otherRootKey = otherRoot.getKey();
+		if(rootKey == null || otherRootKey == null || rootKey.getBitCount() == otherRootKey.getBitCount()) {
+			combine(rootKey == null ? null : root, otherRootKey == null ? null : otherRoot, keepThis, keepOther, keepBoth, result);
+		} else {
+			// collections of different address versions have no addresses in common, and a collection cannot have the addresses of both
+			if(keepThis && keepOther && !isEmpty() && !other.isEmpty()) {
+				throw new IllegalArgumentException(IPAddressSeqRangeList.getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+			combine(root, null, keepThis, keepOther, keepBoth, result);
+			combine(null, otherRoot, keepThis, keepOther, keepBoth, result);
+		}
+		return result;
+	}
+
+	// The added nodes of the backing tries are disjoint blocks with no sub-nodes.
+	// Once one side has no corresponding node, the other side is either kept or discarded in its entirety.
+	// Once a block on one side covers the sub-trie on the other side, the remainder can be determined from the sub-trie alone.
+	private static <T extends IPAddress, R extends IPAddressSeqRange> void combine(
+			TrieNode<IPAddress> one, TrieNode<IPAddress> two, boolean keepOne, boolean keepTwo, boolean keepBoth, IPAddressContainmentTrieBase<T, R> result) {
+		if(one == null) {
+			if(two != null && keepTwo) {
+				addSubTrie(two, result);
+			}
+			return;
+		} else if(two == null) {
+			if(keepOne) {
+				addSubTrie(one, result);
+			}
+			return;
+		}
+		IPAddress oneKey = one.getKey(), twoKey = two.getKey();
+		Integer onePrefLen = oneKey.getPrefixLength(), twoPrefLen = twoKey.getPrefixLength();
+		int oneBits = onePrefLen == null ? oneKey.getBitCount() : onePrefLen;
+		int twoBits = twoPrefLen == null ? twoKey.getBitCount() : twoPrefLen;
+		int minBits = Math.min(oneBits, twoBits);
+		if(oneKey.toPrefixBlock(minBits).equals(twoKey.toPrefixBlock(minBits))) {
+			if(oneBits <= twoBits && one.isAdded()) { // the block one covers two
+				combineContaining(one, two, keepOne, keepBoth, result);
+			} else if(twoBits <= oneBits && two.isAdded()) { // the block two covers one
+				combineContaining(two, one, keepTwo, keepBoth, result);
+			} else if(oneBits == twoBits) {
+				combine(one.getLowerSubNode(), two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+				combine(one.getUpperSubNode(), two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+			} else if(oneBits < twoBits) { // one contains two
+				if(twoKey.isOneBit(oneBits)) {
+					combine(one.getLowerSubNode(), null, keepOne, keepTwo, keepBoth, result);
+					combine(one.getUpperSubNode(), two, keepOne, keepTwo, keepBoth, result);
+				} else {
+					combine(one.getLowerSubNode(), two, keepOne, keepTwo, keepBoth, result);
+					combine(one.getUpperSubNode(), null, keepOne, keepTwo, keepBoth, result);
+				}
+			} else { // two contains one
+				if(oneKey.isOneBit(twoBits)) {
+					combine(null, two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+					combine(one, two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+				} else {
+					combine(one, two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+					combine(null, two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+				}
+			}
+		} else { // disjoint
+			combine(one, null, keepOne, keepTwo, keepBoth, result);
+			combine(null, two, keepOne, keepTwo, keepBoth, result);
+		}
+	}
+
+	// the added node block contains the sub-trie at node
+	private static <T extends IPAddress, R extends IPAddressSeqRange> void combineContaining(
+			TrieNode<IPAddress> block, TrieNode<IPAddress> node, boolean keepBlock, boolean keepBoth, IPAddressContainmentTrieBase<T, R> result) {
+		if(keepBlock) {
+			if(keepBoth) {
+				addSubTrie(block, result);
+			} else {
+				complement(block.getKey(), node, result);
+			}
+		} else if(keepBoth) {
+			addSubTrie(node, result);
+		}
+	}
+
+	// adds the addresses in the given block that are not in the sub-trie at node, whose key is contained by the block
+	@SuppressWarnings("unchecked")
+	private static <T extends IPAddress, R extends IPAddressSeqRange> void complement(IPAddress block, TrieNode<IPAddress> node, IPAddressContainmentTrieBase<T, R> result) {
+		while(node != null) {
+			IPAddress key = node.getKey();
+			int blockBits = block.getPrefixLength() == null ? block.getBitCount() : block.getPrefixLength();
+			if(key.equals(block)) {
+				if(node.isAdded()) {
+					return;
+				}
+				complement(getHalf(block, blockBits, false), node.getLowerSubNode(), result);
+				block = getHalf(block, blockBits, true);
+				node = node.getUpperSubNode();
+			} else {
+				// the node key is within one half of the block, the other half is not in the sub-trie
+				boolean isUpper = key.isOneBit(blockBits);
+				result.addBlock(getHalf(block, blockBits, !isUpper));
+				block = getHalf(block, blockBits, isUpper);
+			}
+		}
+		result.addBlock((T) block);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends IPAddress> T getHalf(IPAddress block, int blockBits, boolean upper) {
+		IPAddress half = (upper ? block.getUpper() : block.getLower()).withoutPrefixLength().toPrefixBlock(blockBits + 1);
+		if(!half.isMultiple()) {
+			half = half.withoutPrefixLength();
+		}
+		return (T) half;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends IPAddress, R extends IPAddressSeqRange> void addSubTrie(TrieNode<IPAddress> node, IPAddressContainmentTrieBase<T, R> result) {
+		Iterator<? extends TrieNode<IPAddress>> iterator = node.nodeIterator(true);
+		while(iterator.hasNext()) {
+			result.addBlock((T) iterator.next().getKey());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private IPAddressContainmentTrieBase<T, R> createEmpty() {
+		try {
+			IPAddressContainmentTrieBase<T, R> result = (IPAddressContainmentTrieBase<T, R>) super.clone();
+			result.changeTracker = new ChangeTracker();
+			result.trie = new CollectionTrie(result.changeTracker);
+			return result;
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public IPAddressContainmentTrieBase<T, R> clone() {
@@ -18,6 +18,8 @@
 
 package inet.ipaddr;
 
+import java.io.Serializable;
+
 import inet.ipaddr.ipv4.IPv4Address;
 import inet.ipaddr.ipv4.IPv4Address.IPv4AddressConverter;
 import inet.ipaddr.ipv6.IPv6Address;
@@ -66,4 +68,32 @@ public interface IPAddressConverter extends IPv6AddressConverter, IPv4AddressCon
 			return true;
 		}
 	};
+
+	/**
+	 * Converts IPv6 addresses to the IPv4 address embedded in the lowest two segments, for IPv4-mapped addresses ::ffff:0:0/96,
+	 * IPv4-translated addresses ::ffff:0:0:0/96 as in rfc 2765, and addresses with the well-known translation prefix 64:ff9b::/96 as in rfc 6052.
+	 * <p>
+	 * IPv4 addresses are converted to IPv4-mapped IPv6 addresses, as with {@link DefaultAddressConverter}.
+	 * 
+	 * @author scfoley
+	 *
+	 */
+	public static class EmbeddedIPv4AddressConverter extends DefaultAddressConverter implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructs a converter of IPv6 addresses with embedded IPv4 addresses.
+		 */
+		public EmbeddedIPv4AddressConverter() {}
+
+		@Override
+		public boolean isIPv4Convertible(IPAddress address) {
+			if(address.isIPv4()) {
+				return true;
+			}
+			IPv6Address addr = address.toIPv6();
+			return addr.isIPv4Mapped() || addr.isIPv4Translatable() || addr.isWellKnownIPv4Translatable();
+		}
+	}
 }
\ No newline at end of file
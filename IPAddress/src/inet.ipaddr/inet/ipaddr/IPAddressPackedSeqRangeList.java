@@ -0,0 +1,731 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import inet.ipaddr.ipv4.IPv4Address;
+import inet.ipaddr.ipv4.IPv4AddressSeqRange;
+import inet.ipaddr.ipv6.IPv6Address;
+import inet.ipaddr.ipv6.IPv6AddressSeqRange;
+
+/**
+ * IPAddressPackedSeqRangeList is an immutable sorted list of sequential address ranges,
+ * holding the same ranges as the {@link IPAddressSeqRangeList} from which it was created, obtained from {@link IPAddressSeqRangeList#toPackedList()}.
+ * <p>
+ * Rather than a list of {@link IPAddressSeqRange} instances, each with two address instances, the range boundaries are stored in sorted primitive arrays,
+ * a pair of ints for each IPv4 range and four longs for each IPv6 range.
+ * The cumulative range sizes used for lookups by address index are also stored in primitive arrays,
+ * as longs for IPv4, and for IPv6 as pairs of longs holding 128-bit values.
+ * <p>
+ * Lookups are performed by binary search on the primitive values, without creating any objects,
+ * so the list has a much smaller memory footprint and better cache coherency than an IPAddressSeqRangeList.
+ * Address and sequential range instances are created only when they are returned.  Those instances use the default address network.
+ * <p>
+ * The lookup methods match the methods of the same name in {@link IPAddressSeqRangeList}, and return the same results.
+ * Use {@link #toSeqRangeList()} to obtain a modifiable list once more.
+ * <p>
+ * Since an IPAddressPackedSeqRangeList is immutable, it can be shared by any number of threads without synchronization.
+ * {@link IPAddressSeqRangeListHolder} publishes packed lists as snapshots of a list that is changed by other threads.
+ *
+ * @author scfoley
+ *
+ */
+public class IPAddressPackedSeqRangeList implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int IPV4_STRIDE = 2, IPV6_STRIDE = 4;
+
+	// The lower and upper boundaries of each IPv4 range, compared as unsigned values.  Null if the list is IPv6 or empty.
+	private final int ipv4Bounds[];
+
+	// The high and low bits of the lower boundary, followed by the high and low bits of the upper boundary, for each IPv6 range.  Null if the list is IPv4 or empty.
+	private final long ipv6Bounds[];
+
+	// For IPv4, entry i is the total count of addresses in range 0, range 1, ..., range i.
+	// For IPv6, entries 2i and 2i + 1 are the high and low bits of the same total minus one,
+	// which is the address index of the upper boundary of range i, and which cannot overflow 128 bits.
+	private final long rangeSizes[];
+
+	private final int rangeCount;
+
+	IPAddressPackedSeqRangeList(IPAddressSeqRangeList list) {
+		int rangeCount = this.rangeCount = list.getSeqRangeCount();
+		if(rangeCount == 0) {
+			ipv4Bounds = null;
+			ipv6Bounds = null;
+			rangeSizes = null;
+		} else if(list.getSeqRange(0).isIPv4()) {
+			int bounds[] = new int[rangeCount * IPV4_STRIDE];
+			long sizes[] = new long[rangeCount];
+			long total = 0;
+			for(int i = 0, j = 0; i < rangeCount; i++, j += IPV4_STRIDE) {
+				IPv4AddressSeqRange rng = (IPv4AddressSeqRange) list.getSeqRange(i);
+				bounds[j] = rng.getLower().intValue();
+				bounds[j + 1] = rng.getUpper().intValue();
+				total += rng.getIPv4Count();
+				sizes[i] = total;
+			}
+			ipv4Bounds = bounds;
+			ipv6Bounds = null;
+			rangeSizes = sizes;
+		} else {
+			long bounds[] = new long[rangeCount * IPV6_STRIDE];
+			long sizes[] = new long[rangeCount << 1];
+			long totalHigh = -1, totalLow = -1; // the total count minus one
+			for(int i = 0, j = 0; i < rangeCount; i++, j += IPV6_STRIDE) {
+				IPv6AddressSeqRange rng = (IPv6AddressSeqRange) list.getSeqRange(i);
+				long lowerVals[] = rng.getLower().longValues();
+				long upperVals[] = rng.getUpper().longValues();
+				long lowerHigh = bounds[j] = lowerVals[0];
+				long lowerLow = bounds[j + 1] = lowerVals[1];
+				long upperHigh = bounds[j + 2] = upperVals[0];
+				long upperLow = bounds[j + 3] = upperVals[1];
+
+				// the total is incremented by upper - lower + 1
+				long sizeLow = upperLow - lowerLow;
+				long sizeHigh = upperHigh - lowerHigh - (Long.compareUnsigned(upperLow, lowerLow) < 0 ? 1 : 0);
+				long newLow = totalLow + sizeLow;
+				totalHigh += sizeHigh + (Long.compareUnsigned(newLow, totalLow) < 0 ? 1 : 0);
+				totalLow = newLow + 1;
+				if(totalLow == 0) {
+					totalHigh++;
+				}
+				sizes[i << 1] = totalHigh;
+				sizes[(i << 1) + 1] = totalLow;
+			}
+			ipv4Bounds = null;
+			ipv6Bounds = bounds;
+			rangeSizes = sizes;
+		}
+	}
+
+	/**
+	 * Returns true if and only if this range list has no elements within.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return rangeCount == 0;
+	}
+
+	/**
+	 * Returns whether the addresses in this list are IPv4 addresses.  Returns false if the list is empty.
+	 *
+	 * @return
+	 */
+	public boolean isIPv4() {
+		return ipv4Bounds != null;
+	}
+
+	/**
+	 * Returns whether the addresses in this list are IPv6 addresses.  Returns false if the list is empty.
+	 *
+	 * @return
+	 */
+	public boolean isIPv6() {
+		return ipv6Bounds != null;
+	}
+
+	/**
+	 * Returns the number of discontinuous sequential ranges of addresses in this list.
+	 *
+	 * @return
+	 */
+	public int getSeqRangeCount() {
+		return rangeCount;
+	}
+
+	/**
+	 * Returns the sequential range at the given index, the index refers to the sequential ranges in the list, not the contained addresses.
+	 *
+	 * @throws IndexOutOfBoundsException if index is outside the bounds or the existing ranges
+	 * @param rangeIndex
+	 * @return
+	 */
+	public IPAddressSeqRange getSeqRange(int rangeIndex) {
+		if(rangeIndex < 0 || rangeIndex >= rangeCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		if(isIPv4()) {
+			return new IPv4AddressSeqRange((IPv4Address) createBound(rangeIndex, false), (IPv4Address) createBound(rangeIndex, true));
+		}
+		return new IPv6AddressSeqRange((IPv6Address) createBound(rangeIndex, false), (IPv6Address) createBound(rangeIndex, true));
+	}
+
+	/**
+	 * Returns an iterator through the sequential ranges in order.  The ranges are created as they are iterated.
+	 *
+	 * @return
+	 */
+	public Iterator<IPAddressSeqRange> seqRangeIterator() {
+		return new Iterator<IPAddressSeqRange>() {
+			int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < rangeCount;
+			}
+
+			@Override
+			public IPAddressSeqRange next() {
+				if(index >= rangeCount) {
+					throw new NoSuchElementException();
+				}
+				return getSeqRange(index++);
+			}
+		};
+	}
+
+	/**
+	 * Returns the individual address with the lowest numeric value in this sequential range list, or null if the list is empty.
+	 *
+	 * @return
+	 */
+	public IPAddress getLower() {
+		if(isEmpty()) {
+			return null;
+		}
+		return createBound(0, false);
+	}
+
+	/**
+	 * Returns the individual address with the highest numeric value in this sequential range list, or null if the list is empty.
+	 *
+	 * @return
+	 */
+	public IPAddress getUpper() {
+		if(isEmpty()) {
+			return null;
+		}
+		return createBound(rangeCount - 1, true);
+	}
+
+	/**
+	 * Returns the number of individual addresses in this list.
+	 *
+	 * @return
+	 */
+	public BigInteger getCount() {
+		if(isEmpty()) {
+			return BigInteger.ZERO;
+		} else if(isIPv4()) {
+			return BigInteger.valueOf(rangeSizes[rangeCount - 1]);
+		}
+		int index = (rangeCount - 1) << 1;
+		return toUnsignedBigInteger(rangeSizes[index], rangeSizes[index + 1]).add(BigInteger.ONE);
+	}
+
+	/**
+	 * Returns whether this list contains all the addresses in the given address or subnet.
+	 *
+	 * @see IPAddressSeqRangeList#contains(IPAddress)
+	 * @param address
+	 * @return
+	 */
+	public boolean contains(IPAddress address) {
+		return indexOfContainingSeqRange(address) >= 0;
+	}
+
+	/**
+	 * If this list contains all the addresses in the given address or subnet, returns the index of the lowest sequential range in this list containing some elements of the given address or subnet.
+	 * Otherwise, returns a negative number, as described by {@link IPAddressSeqRangeList#indexOfContainingSeqRange(IPAddress)}.
+	 *
+	 * @param address
+	 * @return
+	 */
+	public int indexOfContainingSeqRange(IPAddress address) {
+		if(!versionsMatch(address)) {
+			return -1;
+		}
+		if(address.isSequential()) {
+			return containsSequential(address, address);
+		}
+		Iterator<? extends IPAddress> iterator = address.sequentialBlockIterator();
+		IPAddress next = iterator.next();
+		int result = containsSequential(next, next);
+		if(result >= 0) {
+			while(iterator.hasNext()) {
+				next = iterator.next();
+				int index = containsSequential(next, next);
+				if(index < 0) {
+					return index;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether this list contains all the addresses in the given sequential range.
+	 *
+	 * @param seqRange
+	 * @return
+	 */
+	public boolean contains(IPAddressSeqRange seqRange) {
+		return indexOfContainingSeqRange(seqRange) >= 0;
+	}
+
+	/**
+	 * If this list contains the given sequential range, returns the index of the sequential range in this list containing the given sequential range.
+	 * Otherwise, returns a negative number, as described by {@link IPAddressSeqRangeList#indexOfContainingSeqRange(IPAddressSeqRange)}.
+	 *
+	 * @param seqRange
+	 * @return
+	 */
+	public int indexOfContainingSeqRange(IPAddressSeqRange seqRange) {
+		if(!versionsMatch(seqRange.getLower())) {
+			return -1;
+		}
+		return containsSequential(seqRange.getLower(), seqRange.getUpper());
+	}
+
+	// the lower values of lowerAddr and the upper values of upperAddr are the boundaries of a sequential range
+	private int containsSequential(IPAddress lowerAddr, IPAddress upperAddr) {
+		int index = search(lowerAddr, false);
+		if(index >= 0 && compareBound(index, true, upperAddr, true) < 0) {
+			return -(index + 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns whether this list contains any of the addresses in the given sequential range.
+	 *
+	 * @param seqRange
+	 * @return
+	 */
+	public boolean overlaps(IPAddressSeqRange seqRange) {
+		return indexOfOverlappingSeqRange(seqRange) >= 0;
+	}
+
+	/**
+	 * If this list overlaps with the given sequential range, this returns the index of the lowest sequential range in this list overlapping the given sequential range.
+	 * Otherwise, returns a negative number, as described by {@link IPAddressSeqRangeList#indexOfOverlappingSeqRange(IPAddressSeqRange)}.
+	 *
+	 * @param seqRange
+	 * @return
+	 */
+	public int indexOfOverlappingSeqRange(IPAddressSeqRange seqRange) {
+		if(!versionsMatch(seqRange.getLower())) {
+			return -1;
+		}
+		return overlapsSequential(seqRange.getLower(), seqRange.getUpper());
+	}
+
+	/**
+	 * Returns whether this list contains any of the addresses in the given address or subnet.
+	 *
+	 * @param address
+	 * @return
+	 */
+	public boolean overlaps(IPAddress address) {
+		return indexOfOverlappingSeqRange(address) >= 0;
+	}
+
+	/**
+	 * If this list overlaps with the given address or subnet, this returns the index of the lowest sequential range in this list overlapping addresses from the given address or subnet.
+	 * Otherwise, returns a negative number, as described by {@link IPAddressSeqRangeList#indexOfOverlappingSeqRange(IPAddress)}.
+	 *
+	 * @param address
+	 * @return
+	 */
+	public int indexOfOverlappingSeqRange(IPAddress address) {
+		if(!versionsMatch(address)) {
+			return -1;
+		} else if(address.isSequential()) {
+			return overlapsSequential(address, address);
+		}
+		Iterator<? extends IPAddress> iterator = address.sequentialBlockIterator();
+		IPAddress next = iterator.next();
+		int result = overlapsSequential(next, next);
+		if(result < 0) {
+			while(iterator.hasNext()) {
+				next = iterator.next();
+				int index = overlapsSequential(next, next);
+				if(index >= 0) {
+					return index;
+				} else if(-(index + 1) >= rangeCount) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	// the lower values of lowerAddr and the upper values of upperAddr are the boundaries of a sequential range
+	private int overlapsSequential(IPAddress lowerAddr, IPAddress upperAddr) {
+		int index = search(lowerAddr, false);
+		if(index < 0) {
+			int insertionIndex = -(index + 1);
+			if(insertionIndex < rangeCount && compareBound(insertionIndex, false, upperAddr, true) <= 0) {
+				return insertionIndex;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the highest address in the collection strictly less than all addresses in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public IPAddress lower(IPAddress addr) {
+		if(!versionsMatch(addr)) {
+			return null;
+		}
+		int index = search(addr, false);
+		if(index < 0) {
+			index = -(index + 1);
+		} else if(compareBound(index, false, addr, false) < 0) {
+			return addr.decrement();
+		}
+		if(index == 0) {
+			return null;
+		}
+		return createBound(index - 1, true);
+	}
+
+	/**
+	 * Returns the highest address in the collection less than or equal to the lowest address in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public IPAddress floor(IPAddress addr) {
+		if(!versionsMatch(addr)) {
+			return null;
+		}
+		int index = search(addr, false);
+		if(index < 0) {
+			index = -(index + 1);
+			if(index == 0) {
+				return null;
+			}
+			return createBound(index - 1, true);
+		}
+		return addr.withoutPrefixLength().getLower();
+	}
+
+	/**
+	 * Returns the lowest address in the collection greater than or equal to the highest address in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public IPAddress ceiling(IPAddress addr) {
+		if(!versionsMatch(addr)) {
+			return null;
+		}
+		int index = search(addr, true);
+		if(index < 0) {
+			index = -(index + 1);
+			if(index == rangeCount) {
+				return null;
+			}
+			return createBound(index, false);
+		}
+		return addr.withoutPrefixLength().getUpper();
+	}
+
+	/**
+	 * Returns the lowest address in the collection strictly greater than all addresses in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public IPAddress higher(IPAddress addr) {
+		if(!versionsMatch(addr)) {
+			return null;
+		}
+		int index = search(addr, true);
+		if(index < 0) {
+			index = -(index + 1);
+		} else if(compareBound(index, true, addr, true) > 0) {
+			return addr.incrementBoundary();
+		} else {
+			index++;
+		}
+		if(index == rangeCount) {
+			return null;
+		}
+		return createBound(index, false);
+	}
+
+	/**
+	 * Returns the address at the given index into the list of addresses, with the index of 0 returning the first address.
+	 * <p>
+	 * If the index is negative or larger than {@link #getCount()} - 1, this method throws IndexOutOfBoundsException.
+	 *
+	 * @param addressIndex
+	 * @return
+	 */
+	public IPAddress get(long addressIndex) {
+		if(addressIndex < 0) {
+			throw new IndexOutOfBoundsException();
+		} else if(isIPv4()) {
+			return getIPv4(addressIndex);
+		}
+		return getIPv6(0, addressIndex);
+	}
+
+	/**
+	 * Returns the address at the given index into the list of addresses, with the index of 0 returning the first address.
+	 * <p>
+	 * If the index is negative or larger than {@link #getCount()} - 1, this method throws IndexOutOfBoundsException.
+	 *
+	 * @param addressIndex
+	 * @return
+	 */
+	public IPAddress get(BigInteger addressIndex) {
+		if(addressIndex.signum() < 0) {
+			throw new IndexOutOfBoundsException();
+		} else if(isIPv4()) {
+			if(addressIndex.bitLength() >= Long.SIZE) {
+				throw new IndexOutOfBoundsException();
+			}
+			return getIPv4(addressIndex.longValue());
+		} else if(addressIndex.bitLength() > IPv6Address.BIT_COUNT) {
+			throw new IndexOutOfBoundsException();
+		}
+		return getIPv6(addressIndex.shiftRight(Long.SIZE).longValue(), addressIndex.longValue());
+	}
+
+	private IPAddress getIPv4(long addressIndex) {
+		long sizes[] = rangeSizes;
+		int lowIndex = 0, highIndex = rangeCount - 1;
+		if(highIndex < 0 || addressIndex >= sizes[highIndex]) {
+			throw new IndexOutOfBoundsException();
+		}
+		// find the lowest range whose cumulative size exceeds the index
+		while(lowIndex < highIndex) {
+			int midIndex = (lowIndex + highIndex) >>> 1;
+			if(addressIndex < sizes[midIndex]) {
+				highIndex = midIndex;
+			} else {
+				lowIndex = midIndex + 1;
+			}
+		}
+		long previous = lowIndex == 0 ? 0 : sizes[lowIndex - 1];
+		return new IPv4Address(ipv4Bounds[lowIndex * IPV4_STRIDE] + (int) (addressIndex - previous));
+	}
+
+	private IPAddress getIPv6(long indexHigh, long indexLow) {
+		if(isEmpty() || compareUnsigned(indexHigh, indexLow, rangeSizes, (rangeCount - 1) << 1) > 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		long sizes[] = rangeSizes;
+		int lowIndex = 0, highIndex = rangeCount - 1;
+		// find the lowest range whose upper boundary has an address index at or above the index
+		while(lowIndex < highIndex) {
+			int midIndex = (lowIndex + highIndex) >>> 1;
+			if(compareUnsigned(indexHigh, indexLow, sizes, midIndex << 1) <= 0) {
+				highIndex = midIndex;
+			} else {
+				lowIndex = midIndex + 1;
+			}
+		}
+		if(lowIndex > 0) {
+			// subtract the count of the previous ranges, which is the previous range upper boundary address index plus one
+			int previous = (lowIndex - 1) << 1;
+			long previousLow = sizes[previous + 1] + 1;
+			long previousHigh = sizes[previous] + (previousLow == 0 ? 1 : 0);
+			long newLow = indexLow - previousLow;
+			indexHigh = indexHigh - previousHigh - (Long.compareUnsigned(indexLow, previousLow) < 0 ? 1 : 0);
+			indexLow = newLow;
+		}
+		// add the index within the range to the range lower boundary
+		int boundIndex = lowIndex * IPV6_STRIDE;
+		long lowerLow = ipv6Bounds[boundIndex + 1];
+		long low = lowerLow + indexLow;
+		long high = ipv6Bounds[boundIndex] + indexHigh + (Long.compareUnsigned(low, lowerLow) < 0 ? 1 : 0);
+		return new IPv6Address(high, low);
+	}
+
+	/**
+	 * Returns the distance of the given address from the initial value of this list, as described by {@link IPAddressSeqRangeList#enumerate(IPAddress)}.
+	 * <p>
+	 * Returns null when the argument is a multi-valued subnet, when the address is not in the list but is between the lowest and highest addresses of the list,
+	 * when there are no ranges in this list, or when the address version does not match the addresses in this list.
+	 *
+	 * @param address
+	 * @return
+	 */
+	public BigInteger enumerate(IPAddress address) {
+		if(address.isMultiple() || !versionsMatch(address)) {
+			return null;
+		}
+		int index = search(address, false);
+		if(index < 0) {
+			index = -(index + 1);
+			if(index == rangeCount) {
+				index--;
+			} else if(index > 0) {
+				return null;
+			}
+		}
+		if(isIPv4()) {
+			long previous = index == 0 ? 0 : rangeSizes[index - 1];
+			long value = Integer.toUnsignedLong(address.toIPv4().intValue());
+			return BigInteger.valueOf(previous + value - Integer.toUnsignedLong(ipv4Bounds[index * IPV4_STRIDE]));
+		}
+		long vals[] = address.toIPv6().longValues();
+		int boundIndex = index * IPV6_STRIDE;
+		BigInteger offset = toUnsignedBigInteger(vals[0], vals[1]).subtract(toUnsignedBigInteger(ipv6Bounds[boundIndex], ipv6Bounds[boundIndex + 1]));
+		if(index == 0) {
+			return offset;
+		}
+		int previous = (index - 1) << 1;
+		return toUnsignedBigInteger(rangeSizes[previous], rangeSizes[previous + 1]).add(BigInteger.ONE).add(offset);
+	}
+
+	/**
+	 * Returns a new modifiable {@link IPAddressSeqRangeList} with the same sequential ranges.
+	 *
+	 * @return
+	 */
+	public IPAddressSeqRangeList toSeqRangeList() {
+		IPAddressSeqRangeList list = new IPAddressSeqRangeList(rangeCount);
+		for(int i = 0; i < rangeCount; i++) {
+			list.add(getSeqRange(i));
+		}
+		return list;
+	}
+
+	private boolean versionsMatch(IPAddress addr) {
+		return isIPv4() ? addr.isIPv4() : (isIPv6() && addr.isIPv6());
+	}
+
+	// Returns the index of the range containing the lower or upper value of the given address.
+	// Otherwise, returns -(insertion index) - 1 where insertion index is the index at which the value would fit into the list.
+	private int search(IPAddress addr, boolean upper) {
+		int lowIndex = 0, highIndex = rangeCount - 1;
+		if(isIPv4()) {
+			IPv4Address ipv4Addr = addr.toIPv4();
+			int value = upper ? ipv4Addr.upperIntValue() : ipv4Addr.intValue();
+			int bounds[] = ipv4Bounds;
+			while(lowIndex <= highIndex) {
+				int midIndex = (lowIndex + highIndex) >>> 1;
+				int boundIndex = midIndex * IPV4_STRIDE;
+				if(Integer.compareUnsigned(value, bounds[boundIndex]) < 0) {
+					highIndex = midIndex - 1;
+				} else if(Integer.compareUnsigned(value, bounds[boundIndex + 1]) > 0) {
+					lowIndex = midIndex + 1;
+				} else {
+					return midIndex;
+				}
+			}
+		} else {
+			IPv6Address ipv6Addr = addr.toIPv6();
+			long vals[] = upper ? ipv6Addr.upperLongValues() : ipv6Addr.longValues();
+			long high = vals[0], low = vals[1];
+			long bounds[] = ipv6Bounds;
+			while(lowIndex <= highIndex) {
+				int midIndex = (lowIndex + highIndex) >>> 1;
+				int boundIndex = midIndex * IPV6_STRIDE;
+				if(compareUnsigned(high, low, bounds, boundIndex) < 0) {
+					highIndex = midIndex - 1;
+				} else if(compareUnsigned(high, low, bounds, boundIndex + 2) > 0) {
+					lowIndex = midIndex + 1;
+				} else {
+					return midIndex;
+				}
+			}
+		}
+		return -(lowIndex + 1);
+	}
+
+	// compares the lower or upper boundary of the range at the given index with the lower or upper value of the given address
+	private int compareBound(int rangeIndex, boolean upperBound, IPAddress addr, boolean upper) {
+		if(isIPv4()) {
+			IPv4Address ipv4Addr = addr.toIPv4();
+			int value = upper ? ipv4Addr.upperIntValue() : ipv4Addr.intValue();
+			return Integer.compareUnsigned(ipv4Bounds[rangeIndex * IPV4_STRIDE + (upperBound ? 1 : 0)], value);
+		}
+		IPv6Address ipv6Addr = addr.toIPv6();
+		long vals[] = upper ? ipv6Addr.upperLongValues() : ipv6Addr.longValues();
+		return -compareUnsigned(vals[0], vals[1], ipv6Bounds, rangeIndex * IPV6_STRIDE + (upperBound ? 2 : 0));
+	}
+
+	private IPAddress createBound(int rangeIndex, boolean upper) {
+		if(isIPv4()) {
+			return new IPv4Address(ipv4Bounds[rangeIndex * IPV4_STRIDE + (upper ? 1 : 0)]);
+		}
+		int boundIndex = rangeIndex * IPV6_STRIDE + (upper ? 2 : 0);
+		return new IPv6Address(ipv6Bounds[boundIndex], ipv6Bounds[boundIndex + 1]);
+	}
+
+	// compares the unsigned 128-bit value with the one at the given index of the array
+	private static int compareUnsigned(long high, long low, long vals[], int index) {
+		int result = Long.compareUnsigned(high, vals[index]);
+		if(result == 0) {
+			result = Long.compareUnsigned(low, vals[index + 1]);
+		}
+		return result;
+	}
+
+	static BigInteger toUnsignedBigInteger(long high, long low) {
+		if(high == 0 && low >= 0) {
+			return BigInteger.valueOf(low);
+		}
+		byte bytes[] = new byte[IPv6Address.BYTE_COUNT];
+		for(int i = Long.BYTES - 1; i >= 0; i--) {
+			bytes[i] = (byte) high;
+			bytes[i + Long.BYTES] = (byte) low;
+			high >>>= Byte.SIZE;
+			low >>>= Byte.SIZE;
+		}
+		return new BigInteger(1, bytes);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(other == this) {
+			return true;
+		} else if(other instanceof IPAddressPackedSeqRangeList) {
+			IPAddressPackedSeqRangeList otherList = (IPAddressPackedSeqRangeList) other;
+			return Arrays.equals(ipv4Bounds, otherList.ipv4Bounds) && Arrays.equals(ipv6Bounds, otherList.ipv6Bounds);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return isIPv4() ? Arrays.hashCode(ipv4Bounds) : Arrays.hashCode(ipv6Bounds);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
+		for(int i = 0; i < rangeCount; i++) {
+			if(i > 0) {
+				builder.append(',').append(' ');
+			}
+			builder.append(getSeqRange(i));
+		}
+		builder.append(']');
+		return builder.toString();
+	}
+}
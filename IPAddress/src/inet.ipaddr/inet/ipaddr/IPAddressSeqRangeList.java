@@ -26,6 +26,8 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -39,6 +41,7 @@ import inet.ipaddr.format.util.BigSpliterator;
 import inet.ipaddr.format.validate.ChangeTracker;
 import inet.ipaddr.format.validate.ChangeTracker.Change;
 import inet.ipaddr.ipv4.IPv4AddressSeqRange;
+import inet.ipaddr.ipv6.IPv6AddressSeqRange;
 
 /**
  * IPAddressSeqRangeList maintains a sorted list of sequential address ranges.  
@@ -94,19 +97,18 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 
 	protected RangeList<IPAddressSeqRange> ranges;
 
-	// Caches sum of ranges sizes from range 0 upwards.  
+	// Holds the sizes of the ranges in a Fenwick tree.
 	// Instrumental for better performance in the methods that search by index, and the getCount method.
-	// If entry at index i exists, then it represents the total count of addresses in range 0, range 1, ..., range i.
-	// It is cleared with calls to remove or add addresses.
-	// It is regenerated with calls to getCount(int).
-	protected RangeList<BigInteger> rangeSizes;
+	// Changes to the size of a range, and the insertion or removal of ranges, update the tree in O(log n) time, or truncate the tree at the index of the change.
+	// The truncated tree is extended with calls to getCount(int) and findRange.
+	RangeSizeTree rangeSizeTree;
 
 	protected ChangeTracker changeTracker;
 
 	public IPAddressSeqRangeList() {
 		this.changeTracker = new ChangeTracker();
 		ranges = new RangeList<>(); 
-		rangeSizes = new RangeList<>();
+		rangeSizeTree = new RangeSizeTree(0);
 	}
 
 	/**
@@ -121,7 +123,159 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 	IPAddressSeqRangeList(ChangeTracker changeTracker, int initialCapacity) {
 		this.changeTracker = changeTracker;
 		ranges = new RangeList<>(initialCapacity); 
-		rangeSizes = new RangeList<>(initialCapacity);
+		rangeSizeTree = new RangeSizeTree(initialCapacity);
+	}
+
+	/**
+	 * Builder accumulates addresses, subnets and sequential ranges in any order, and then creates the list with {@link #toList()}.
+	 * <p>
+	 * Adding addresses one at a time to a list inserts and removes ranges in the middle of the list,
+	 * which for n unsorted addresses or ranges requires O(n<sup>2</sup>) shifting of the list elements.
+	 * Instead, the builder sorts all the accumulated ranges at once, and then joins them into the list with a single pass through the sorted ranges,
+	 * which requires O(n log n) time.
+	 * <p>
+	 * The resulting list is the same as the list obtained by adding the same addresses and ranges to an empty list with {@link IPAddressSeqRangeList#add(IPAddress)} and {@link IPAddressSeqRangeList#add(IPAddressSeqRange)}.
+	 * <p>
+	 * As with adding to a list, an attempt to add an address or range of a different version than those already added will throw IllegalArgumentException.
+	 *
+	 * @author scfoley
+	 *
+	 */
+	public static class Builder {
+		private IPAddressSeqRange ranges[];
+		private int size;
+
+		public Builder() {
+			this(10);
+		}
+
+		/**
+		 * Constructs a new builder with the given initial capacity for the number of sequential ranges.
+		 *
+		 * @param initialCapacity
+		 */
+		public Builder(int initialCapacity) {
+			ranges = new IPAddressSeqRange[Math.max(initialCapacity, 1)];
+		}
+
+		/**
+		 * Adds all the addresses in the given subnet, or the single individual address.
+		 *
+		 * @param address
+		 * @return this builder
+		 */
+		public Builder add(IPAddress address) {
+			checkVersion(address);
+			if(address.isSequential()) {
+				addRange(address.coverWithSequentialRange());
+			} else {
+				Iterator<? extends IPAddress> iterator = address.sequentialBlockIterator();
+				do {
+					addRange(iterator.next().coverWithSequentialRange());
+				} while(iterator.hasNext());
+			}
+			return this;
+		}
+
+		/**
+		 * Adds all the addresses in the given sequential range.
+		 *
+		 * @param seqRange
+		 * @return this builder
+		 */
+		public Builder add(IPAddressSeqRange seqRange) {
+			checkVersion(seqRange.getLower());
+			addRange(seqRange);
+			return this;
+		}
+
+		private void addRange(IPAddressSeqRange seqRange) {
+			if(size == ranges.length) {
+				ranges = Arrays.copyOf(ranges, size + (size >> 1) + 1);
+			}
+			ranges[size++] = seqRange;
+		}
+
+		protected void checkVersion(IPAddress address) {
+			if(size > 0 && !versionsMatch(ranges[0], address)) {
+				throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+		}
+
+		// sorts by lower value, using primitive values rather than the address segments
+		private static void sort(IPAddressSeqRange ranges[], int size) {
+			if(size <= 1) {
+				return;
+			} else if(ranges[0].isIPv4()) {
+				// each key is the lower value in the upper 32 bits, and the array index in the lower 32 bits,
+				// with the sign bit flipped so that the signed ordering of the keys matches the unsigned ordering of the values
+				long keys[] = new long[size];
+				for(int i = 0; i < size; i++) {
+					keys[i] = ((((IPv4AddressSeqRange) ranges[i]).getLower().longValue() << Integer.SIZE) | i) ^ Long.MIN_VALUE;
+				}
+				Arrays.parallelSort(keys);
+				IPAddressSeqRange sorted[] = new IPAddressSeqRange[size];
+				for(int i = 0; i < size; i++) {
+					sorted[i] = ranges[(int) keys[i]];
+				}
+				System.arraycopy(sorted, 0, ranges, 0, size);
+			} else {
+				Arrays.parallelSort(ranges, 0, size, (one, two) -> {
+					long oneVals[] = ((IPv6AddressSeqRange) one).getLower().longValues();
+					long twoVals[] = ((IPv6AddressSeqRange) two).getLower().longValues();
+					int result = Long.compareUnsigned(oneVals[0], twoVals[0]);
+					return result == 0 ? Long.compareUnsigned(oneVals[1], twoVals[1]) : result;
+				});
+			}
+		}
+
+		protected IPAddressSeqRangeList createList(int initialCapacity) {
+			return new IPAddressSeqRangeList(initialCapacity);
+		}
+
+		/**
+		 * Creates the list of all the addresses added to this builder.
+		 * <p>
+		 * The builder can continue to be used afterwards, in which case further lists will include the addresses added to this point.
+		 *
+		 * @return
+		 */
+		public IPAddressSeqRangeList toList() {
+			IPAddressSeqRange ranges[] = this.ranges;
+			int size = this.size;
+			sort(ranges, size);
+			int joinedCount = 0;
+			for(int i = 0; i < size; ) {
+				IPAddressSeqRange range = ranges[i];
+				IPAddress currentUpper = range.getUpper();
+				boolean didJoin = false;
+				int j = i + 1;
+				for(; j < size; j++) {
+					IPAddressSeqRange range2 = ranges[j];
+					IPAddress nextLower = range2.getLower();
+					if(compareLowerValues(currentUpper, nextLower) >= 0
+							|| compareLowerValues(currentUpper.increment(), nextLower) == 0) {
+						IPAddress nextUpper = range2.getUpper();
+						if(compareLowerValues(currentUpper, nextUpper) < 0) {
+							currentUpper = nextUpper;
+							didJoin = true;
+						}
+					} else {
+						break;
+					}
+				}
+				// the joined ranges are compacted towards the start of the array, where they remain sorted for the next call to toList
+				ranges[joinedCount++] = didJoin ? range.create(range.getLower(), currentUpper) : range;
+				i = j;
+			}
+			Arrays.fill(ranges, joinedCount, size, null);
+			this.size = joinedCount;
+			IPAddressSeqRangeList list = createList(joinedCount);
+			for(int i = 0; i < joinedCount; i++) {
+				list.ranges.add(ranges[i]);
+			}
+			return list;
+		}
 	}
 
 	@Override
@@ -595,6 +749,18 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 	 * @return
 	 */
 	public IPAddressSeqRangeList complementIntoList() {
+		return complementIntoList(this::complement);
+	}
+
+	/**
+	 * Finds the complement of a list, adding the ranges to the new list, with the given zero and max addresses used when the list does not include them.
+	 */
+	@FunctionalInterface
+	private interface ComplementOperation {
+		void apply(IPAddressSeqRangeList newList, IPAddress zero, IPAddress max);
+	}
+
+	private IPAddressSeqRangeList complementIntoList(ComplementOperation complement) {
 		if(isEmpty()) {
 			return null;
 		}
@@ -609,7 +775,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			max = addr.getNetwork().getNetworkMask(addr.getBitCount(), false);
 		}
 		IPAddressSeqRangeList result = new IPAddressSeqRangeList();
-		complement(result, zero, max);
+		complement.apply(result, zero, max);
 		return result;
 	}
 
@@ -635,6 +801,82 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 		}
 	}
 
+	/**
+	 * Returns a new IPAddressSeqRangeList comprising all the addresses not contained in this list, using the fork/join common pool for large lists.
+	 * <p>
+	 * The result is identical to that of {@link #complementIntoList()}.
+	 * The ranges of this list are divided into partitions whose gaps are found independently, and then the results are concatenated.
+	 * Lists with fewer than tens of thousands of ranges are handled sequentially.
+	 * 
+	 * @return
+	 */
+	public IPAddressSeqRangeList parallelComplementIntoList() {
+		return complementIntoList(this::parallelComplement);
+	}
+
+	protected void parallelComplement(IPAddressSeqRangeList newList, IPAddress zero, IPAddress max) {
+		int partitionCount = getPartitionCount(ranges.size());
+		if(partitionCount <= 1) {
+			complement(newList, zero, max);
+			return;
+		}
+		IPAddressSeqRangeList results[] = new IPAddressSeqRangeList[partitionCount];
+		ForkJoinPool.commonPool().invoke(new ComplementTask(zero, max, results, 0, partitionCount));
+		concatenate(results, newList.ranges);
+	}
+
+	/**
+	 * Finds the gaps preceding the ranges of the partitions from index from inclusive to index to exclusive,
+	 * splitting the partitions between two sub-tasks until a single partition remains.
+	 */
+	@SuppressWarnings("serial")
+	private class ComplementTask extends RecursiveAction {
+		private final IPAddress zero, max;
+		private final IPAddressSeqRangeList results[];
+		private final int from, to;
+
+		ComplementTask(IPAddress zero, IPAddress max, IPAddressSeqRangeList results[], int from, int to) {
+			this.zero = zero;
+			this.max = max;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ComplementTask(zero, max, results, from, mid), new ComplementTask(zero, max, results, mid, to));
+			} else {
+				int rangeCount = ranges.size(), partitionCount = results.length;
+				int fromIndex = (int) (rangeCount * (long) from / partitionCount);
+				int toIndex = (int) (rangeCount * (long) to / partitionCount);
+				IPAddressSeqRangeList result = new IPAddressSeqRangeList(toIndex - fromIndex + 1);
+				RangeList<IPAddressSeqRange> newRanges = result.ranges;
+				IPAddressSeqRange previous;
+				if(fromIndex == 0) {
+					previous = ranges.get(0);
+					if(!previous.includesZero()) {
+						newRanges.add(previous.create(zero, previous.getLower().decrement()));
+					}
+					fromIndex++;
+				} else {
+					previous = ranges.get(fromIndex - 1);
+				}
+				for(int i = fromIndex; i < toIndex; i++) {
+					IPAddressSeqRange rng = ranges.get(i);
+					newRanges.add(rng.create(previous.getUpper().increment(), rng.getLower().decrement()));
+					previous = rng;
+				}
+				if(toIndex == rangeCount && !previous.includesMax()) {
+					newRanges.add(previous.create(previous.getUpper().increment(), max));
+				}
+				results[from] = result;
+			}
+		}
+	}
+
 	/**
 	 * Produces a new IPAddressSeqRangeList that has the addresses in this list that are not in the given list.
 	 * Neither this list nor the given list are altered, instead a new list is created and returned.
@@ -651,7 +893,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 		if(ranges.size() > 0) { // something to remove
 			if(list.ranges.size() == 0 || !versionsMatch(ranges.get(0), list.ranges.get(0))) { // not removing anything
 				result.ranges.addAll(ranges);
-				result.rangeSizes.addAll(rangeSizes);
+				result.rangeSizeTree = rangeSizeTree.clone();
 			} else {
 				removeRanges(list, result);
 			}
@@ -922,7 +1164,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 	protected void join(IPAddressSeqRangeList list, IPAddressSeqRangeList result) {
 		if(ranges.size() == 0) {
 			result.ranges.addAll(list.ranges);
-			result.rangeSizes.addAll(list.rangeSizes);
+			result.rangeSizeTree = list.rangeSizeTree.clone();
 		} else {
 			int thisCount = getSeqRangeCount();
 			int otherCount = list.getSeqRangeCount();
@@ -1065,6 +1307,254 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 		return upperIndex;
 	}
 
+	// The parallel methods divide the lists into partitions of at least this many ranges, and combine smaller lists sequentially
+	static final int MIN_PARTITION_RANGE_COUNT = 8192;
+
+	// The number of partitions for each thread of the fork/join pool, so that threads finishing early can take on more partitions
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+	/**
+	 * Combines a partition of one list with the matching partition of another list, adding the results to the result list.
+	 */
+	@FunctionalInterface
+	private interface PartitionOperation {
+		void apply(IPAddressSeqRangeList partition, IPAddressSeqRangeList otherPartition, IPAddressSeqRangeList result);
+	}
+
+	private static int getPartitionCount(int rangeCount) {
+		return Math.min(ForkJoinPool.getCommonPoolParallelism() * PARTITIONS_PER_THREAD, rangeCount / MIN_PARTITION_RANGE_COUNT);
+	}
+
+	/**
+	 * Divides the two lists at common boundary addresses, so that the partitions of the lists can be combined independently.
+	 * <p>
+	 * The boundaries are the lower addresses of evenly spaced ranges in the larger list.
+	 * Ranges of the smaller list that span a boundary are split at the boundary, with the lower part in the lower partition and the upper part in the upper partition.
+	 */
+	private static class Partitions {
+		final IPAddressSeqRangeList larger, smaller;
+		final int partitionCount;
+
+		// the ranges of partition k of the larger list are those from largerIndices[k] inclusive to largerIndices[k + 1] exclusive
+		final int largerIndices[];
+
+		// The ranges of partition k of the smaller list are those from smallerIndices[k] inclusive to smallerIndices[k + 1] exclusive,
+		// along with the range at smallerIndices[k + 1] if it spans boundary k + 1.
+		final int smallerIndices[];
+		final boolean spansBoundary[];
+
+		Partitions(IPAddressSeqRangeList larger, IPAddressSeqRangeList smaller, int partitionCount) {
+			this.larger = larger;
+			this.smaller = smaller;
+			this.partitionCount = partitionCount;
+			largerIndices = new int[partitionCount + 1];
+			smallerIndices = new int[partitionCount + 1];
+			spansBoundary = new boolean[partitionCount + 1];
+			int largerCount = larger.ranges.size();
+			largerIndices[partitionCount] = largerCount;
+			smallerIndices[partitionCount] = smaller.ranges.size();
+			for(int k = 1, smallerIndex = 0; k < partitionCount; k++) {
+				int largerIndex = (int) (largerCount * (long) k / partitionCount);
+				largerIndices[k] = largerIndex;
+				IPAddress boundary = larger.ranges.get(largerIndex).getLower();
+				smallerIndex = smaller.binarySearchLower(smallerIndex, boundary);
+				if(smallerIndex >= 0) {
+					spansBoundary[k] = compareLowerValues(smaller.ranges.get(smallerIndex).getLower(), boundary) < 0;
+				} else {
+					smallerIndex = -(smallerIndex + 1);
+				}
+				smallerIndices[k] = smallerIndex;
+			}
+		}
+
+		IPAddress getBoundary(int k) {
+			return larger.ranges.get(largerIndices[k]).getLower();
+		}
+
+		IPAddressSeqRangeList getLargerPartition(int k) {
+			return createPartition(larger.ranges.subList(largerIndices[k], largerIndices[k + 1]));
+		}
+
+		IPAddressSeqRangeList getSmallerPartition(int k) {
+			int from = smallerIndices[k], to = smallerIndices[k + 1];
+			if(spansBoundary[k + 1]) {
+				to++;
+			}
+			IPAddressSeqRangeList partition = createPartition(smaller.ranges.subList(from, to));
+			RangeList<IPAddressSeqRange> ranges = partition.ranges;
+			if(spansBoundary[k + 1]) {
+				int last = ranges.size() - 1;
+				ranges.set(last, ranges.get(last).lowerSplit(getBoundary(k + 1)));
+			}
+			if(spansBoundary[k]) {
+				ranges.set(0, ranges.get(0).upperSplit(getBoundary(k)));
+			}
+			return partition;
+		}
+
+		private static IPAddressSeqRangeList createPartition(List<IPAddressSeqRange> ranges) {
+			IPAddressSeqRangeList partition = new IPAddressSeqRangeList(ranges.size());
+			partition.ranges.addAll(ranges);
+			return partition;
+		}
+	}
+
+	/**
+	 * Combines the partitions from index from inclusive to index to exclusive, splitting the partitions between two sub-tasks until a single partition remains.
+	 */
+	@SuppressWarnings("serial")
+	private static class PartitionTask extends RecursiveAction {
+		private final Partitions partitions;
+		private final boolean isLargerFirst;
+		private final PartitionOperation operation;
+		private final IPAddressSeqRangeList results[];
+		private final int from, to;
+
+		PartitionTask(Partitions partitions, boolean isLargerFirst, PartitionOperation operation, IPAddressSeqRangeList results[], int from, int to) {
+			this.partitions = partitions;
+			this.isLargerFirst = isLargerFirst;
+			this.operation = operation;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new PartitionTask(partitions, isLargerFirst, operation, results, from, mid),
+						new PartitionTask(partitions, isLargerFirst, operation, results, mid, to));
+			} else {
+				IPAddressSeqRangeList largerPartition = partitions.getLargerPartition(from);
+				IPAddressSeqRangeList smallerPartition = partitions.getSmallerPartition(from);
+				IPAddressSeqRangeList result = new IPAddressSeqRangeList();
+				if(isLargerFirst) {
+					operation.apply(largerPartition, smallerPartition, result);
+				} else {
+					operation.apply(smallerPartition, largerPartition, result);
+				}
+				results[from] = result;
+			}
+		}
+	}
+
+	/**
+	 * Applies the given operation to this list and the given list, using the fork/join common pool,
+	 * dividing the lists at common boundary addresses, applying the operation to the partitions independently, and concatenating the results into the result list.
+	 * <p>
+	 * Ranges of the results on either side of a boundary that are adjacent to one another are joined at the boundary,
+	 * so that the result list is identical to the result of applying the operation to the full lists.
+	 * If the lists are too small to benefit from partitioning, the operation is applied to the full lists.
+	 *
+	 * @param list
+	 * @param result
+	 * @param operation
+	 */
+	private void parallelCombine(IPAddressSeqRangeList list, IPAddressSeqRangeList result, PartitionOperation operation) {
+		int thisCount = ranges.size(), otherCount = list.ranges.size();
+		int partitionCount = getPartitionCount(thisCount + otherCount);
+		if(partitionCount <= 1 || thisCount == 0 || otherCount == 0 || !versionsMatch(ranges.get(0), list.ranges.get(0))) {
+			operation.apply(this, list, result);
+			return;
+		}
+		boolean isLargerFirst = thisCount >= otherCount;
+		Partitions partitions = isLargerFirst ? new Partitions(this, list, partitionCount) : new Partitions(list, this, partitionCount);
+		IPAddressSeqRangeList results[] = new IPAddressSeqRangeList[partitionCount];
+		ForkJoinPool.commonPool().invoke(new PartitionTask(partitions, isLargerFirst, operation, results, 0, partitionCount));
+		concatenate(results, result.ranges);
+	}
+
+	private static void concatenate(IPAddressSeqRangeList results[], RangeList<IPAddressSeqRange> resultList) {
+		int totalCount = 0;
+		for(IPAddressSeqRangeList partitionResult : results) {
+			totalCount += partitionResult.ranges.size();
+		}
+		resultList.ensureCapacity(resultList.size() + totalCount);
+		for(IPAddressSeqRangeList partitionResult : results) {
+			RangeList<IPAddressSeqRange> partitionRanges = partitionResult.ranges;
+			if(partitionRanges.isEmpty()) {
+				continue;
+			}
+			int lastIndex = resultList.size() - 1;
+			if(lastIndex >= 0) {
+				IPAddressSeqRange last = resultList.get(lastIndex), first = partitionRanges.get(0);
+				if(compareLowerValues(last.getUpper().increment(), first.getLower()) == 0) {
+					// the ranges are adjacent at the boundary
+					resultList.set(lastIndex, last.create(last.getLower(), first.getUpper()));
+					resultList.addAll(partitionRanges.subList(1, partitionRanges.size()));
+					continue;
+				}
+			}
+			resultList.addAll(partitionRanges);
+		}
+	}
+
+	/**
+	 * Creates a list that has all addresses in this list and the provided list, using the fork/join common pool for large lists.
+	 * <p>
+	 * The result is identical to that of {@link #joinIntoList(IPAddressSeqRangeList)}.
+	 * The lists are divided at common boundary addresses into partitions that are joined independently, and then the results are concatenated.
+	 * Lists with fewer than tens of thousands of ranges are joined sequentially.
+	 *
+	 * @param list
+	 * @return
+	 */
+	public IPAddressSeqRangeList parallelJoinIntoList(IPAddressSeqRangeList list) {
+		if(list.getSeqRangeCount() == 0) {
+			return clone();
+		} else if(ranges.size() != 0 && !versionsMatch(ranges.get(0), list.ranges.get(0))) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		IPAddressSeqRangeList result = new IPAddressSeqRangeList();
+		parallelJoin(list, result);
+		return result;
+	}
+
+	protected void parallelJoin(IPAddressSeqRangeList list, IPAddressSeqRangeList result) {
+		parallelCombine(list, result, IPAddressSeqRangeList::join);
+	}
+
+	/**
+	 * Produces a new IPAddressSeqRangeList that is the intersection of this list with the given list, using the fork/join common pool for large lists.
+	 * <p>
+	 * The result is identical to that of {@link #intersectIntoList(IPAddressSeqRangeList)}.
+	 * The lists are divided at common boundary addresses into partitions that are intersected independently, and then the results are concatenated.
+	 * Lists with fewer than tens of thousands of ranges are intersected sequentially.
+	 *
+	 * @param list
+	 * @return
+	 */
+	public IPAddressSeqRangeList parallelIntersectIntoList(IPAddressSeqRangeList list) {
+		IPAddressSeqRangeList result = new IPAddressSeqRangeList();
+		parallelIntersect(list, result);
+		return result;
+	}
+
+	protected void parallelIntersect(IPAddressSeqRangeList list, IPAddressSeqRangeList result) {
+		parallelCombine(list, result, IPAddressSeqRangeList::intersect);
+	}
+
+	/**
+	 * Produces a new IPAddressSeqRangeList that has the addresses in this list that are not in the given list, using the fork/join common pool for large lists.
+	 * <p>
+	 * The result is identical to that of {@link #removeIntoList(IPAddressSeqRangeList)}.
+	 * The lists are divided at common boundary addresses into partitions whose differences are found independently, and then the results are concatenated.
+	 * Lists with fewer than tens of thousands of ranges are handled sequentially.
+	 *
+	 * @param list
+	 * @return
+	 */
+	public IPAddressSeqRangeList parallelRemoveIntoList(IPAddressSeqRangeList list) {
+		IPAddressSeqRangeList result = new IPAddressSeqRangeList();
+		parallelRemove(list, result);
+		return result;
+	}
+
+	protected void parallelRemove(IPAddressSeqRangeList list, IPAddressSeqRangeList result) {
+		parallelCombine(list, result, IPAddressSeqRangeList::remove);
+	}
+
 	/**
 	 * Adds the address, if not already in the list.
 	 * <p>
@@ -1088,17 +1578,11 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 
 	protected void addAddressToEmptyList(IPAddress address) {
 		if(address.isSequential()) {
-			IPAddressSeqRange rng = address.coverWithSequentialRange();
-			ranges.add(rng);
-			rangeSizes.add(rng.getCount());
+			ranges.add(address.coverWithSequentialRange());
 		} else {
 			Iterator<? extends IPAddress> iterator = address.sequentialBlockIterator();
-			BigInteger count = BigInteger.ZERO;
 			do {
-				IPAddressSeqRange rng = iterator.next().coverWithSequentialRange();
-				ranges.add(rng);
-				count = count.add(rng.getCount());
-				rangeSizes.add(count);
+				ranges.add(iterator.next().coverWithSequentialRange());
 			} while(iterator.hasNext());
 		}
 		changeTracker.changed();
@@ -1149,7 +1633,6 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 
 	protected void addRangeToEmptyList(IPAddressSeqRange seqRange) {
 		ranges.add(seqRange);
-		rangeSizes.add(seqRange.getCount());
 		changeTracker.changed();
 	}
 
@@ -1202,21 +1685,28 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				newUpper = ranges.get(upperIndex).getUpper();
 				nextUpperIndex = upperIndex + 1;
 			}
-			ranges.set(lowerIndex, existingRange.create(newLower, newUpper));
+			IPAddressSeqRange newRange = existingRange.create(newLower, newUpper);
+			ranges.set(lowerIndex, newRange);
+			rangeSizeTree.set(lowerIndex, newRange);
 			int nextLowerIndex = lowerIndex + 1;
 			if(nextLowerIndex < nextUpperIndex) {
 				// remove the ranges from lower index inclusive to upper index exclusive
 				ranges.removeRange(nextLowerIndex, nextUpperIndex);
+				rangeSizeTree.remove(nextLowerIndex, nextUpperIndex);
 				upperIndex -= nextUpperIndex - nextLowerIndex;
 			}
 		} else { // spans 0 or 1 existing range
 			if(extendLower) {
 				if(extendUpper) { // spans no existing range, insert the range
-					ranges.add(lowerIndex, rng.coverWithSequentialRange());
+					IPAddressSeqRange newRange = rng.coverWithSequentialRange();
+					ranges.add(lowerIndex, newRange);
+					rangeSizeTree.insert(lowerIndex, newRange);
 				} else { // spans the single range at lowerIndex (which matches upperIndex)
 					IPAddressSeqRange existingRange = ranges.get(upperIndex);
 					IPAddress newLower = lowerCompare.withoutPrefixLength().getLower();
-					ranges.set(lowerIndex, existingRange.create(newLower, existingRange.getUpper()));
+					IPAddressSeqRange newRange = existingRange.create(newLower, existingRange.getUpper());
+					ranges.set(lowerIndex, newRange);
+					rangeSizeTree.set(lowerIndex, newRange);
 				}
 			} else {
 				// nothing to do, the address is contained in the range at lowerIndex
@@ -1224,16 +1714,12 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				return upperIndex;
 			}
 		}
-		clearRangeSizesFrom(lowerIndex);
 		changeTracker.changed();
 		return upperIndex;
 	}
 
 	private void clearRangeSizesFrom(int index) {
-		int size = rangeSizes.size();
-		if(index < size) {
-			rangeSizes.removeRange(index, size);
-		}
+		rangeSizeTree.clearFrom(index);
 	}
 
 	/**
@@ -1318,17 +1804,19 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			upperIntersects = false;
 			upperIndex++;
 		}
-		int lowestChangedIndex = 0;
 		if(lowerIndex < upperIndex) { // spans at least one existing range
 			if(upperIntersects) {
 				// range at upper index gets chopped
 				IPAddressSeqRange existingRange = ranges.get(upperIndex);
 				IPAddress upper = upperCompare.withoutPrefixLength().getUpper();
-				ranges.set(upperIndex, existingRange.create(existingRange.getLower(), upper));
-				lowestChangedIndex = upperIndex++;
+				IPAddressSeqRange newRange = existingRange.create(existingRange.getLower(), upper);
+				ranges.set(upperIndex, newRange);
+				rangeSizeTree.set(upperIndex++, newRange);
 				if(!isLast) {
 					// we need to put back in the remaining in case it might intersect with the next range
-					ranges.add(upperIndex, existingRange.upperSplit(upper.increment()));
+					IPAddressSeqRange remaining = existingRange.upperSplit(upper.increment());
+					ranges.add(upperIndex, remaining);
+					rangeSizeTree.insert(upperIndex, remaining);
 				}
 			}
 			if(lowerIntersects) {
@@ -1336,8 +1824,9 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				IPAddressSeqRange existingRange = ranges.get(lowerIndex);
 				if(compareLowerValues(existingRange.getLower(), lowerCompare) != 0) {
 					IPAddress newLower = lowerCompare.withoutPrefixLength().getLower();
-					ranges.set(lowerIndex, existingRange.upperSplit(newLower));
-					lowestChangedIndex = lowerIndex;
+					IPAddressSeqRange newRange = existingRange.upperSplit(newLower);
+					ranges.set(lowerIndex, newRange);
+					rangeSizeTree.set(lowerIndex, newRange);
 				} //else the whole lower range intersects
 			}
 		} else { // spans 0 or 1 existing range
@@ -1351,11 +1840,13 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 					newLower = existingRange.getLower();
 				}
 				IPAddress upper = upperCompare.withoutPrefixLength().getUpper();
-				ranges.set(upperIndex, existingRange.create(newLower, upper));
-				lowestChangedIndex = upperIndex++;
-				//upperIndex++;
+				IPAddressSeqRange newRange = existingRange.create(newLower, upper);
+				ranges.set(upperIndex, newRange);
+				rangeSizeTree.set(upperIndex++, newRange);
 				if(!isLast) {// need to put back the remaining in case it intersects with ranges to come
-					ranges.add(upperIndex, existingRange.upperSplit(upper.increment())); 
+					IPAddressSeqRange remaining = existingRange.upperSplit(upper.increment());
+					ranges.add(upperIndex, remaining);
+					rangeSizeTree.insert(upperIndex, remaining);
 				}
 			} // else intersects with nothing
 		}
@@ -1363,18 +1854,16 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 		if(startIndex < lowerIndex) {
 			upperIndex -= lowerIndex - startIndex;
 			ranges.removeRange(startIndex, lowerIndex);
+			rangeSizeTree.remove(startIndex, lowerIndex);
 			isChanged = true;
-			lowestChangedIndex = startIndex;
 		}
 		if(isLast && upperIndex < ranges.size()) {
-			ranges.removeRange(upperIndex, ranges.size());
-			if(!isChanged) {
-				lowestChangedIndex = upperIndex;
-			}
+			int size = ranges.size();
+			ranges.removeRange(upperIndex, size);
+			rangeSizeTree.remove(upperIndex, size);
 			isChanged = true;
 		}
 		if(isChanged) {
-			clearRangeSizesFrom(lowestChangedIndex);
 			changeTracker.changed();
 		} else {
 			upperIndex = -(upperIndex + 1); // we've not changed anything, make return value negative to indicate that
@@ -1456,34 +1945,45 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 
 		if(lowerIndex < upperIndex) { // spans at least one existing range
 			if(splitUpper) {
-				ranges.set(upperIndex, existingUpperRange.upperSplit(upperCompare.incrementBoundary()));
+				IPAddressSeqRange newRange = existingUpperRange.upperSplit(upperCompare.incrementBoundary());
+				ranges.set(upperIndex, newRange);
+				rangeSizeTree.set(upperIndex, newRange);
 			}
 			if(splitLower) {
-				ranges.set(lowerIndex, existingRange.lowerSplit(lowerCompare));
+				IPAddressSeqRange newRange = existingRange.lowerSplit(lowerCompare);
+				ranges.set(lowerIndex, newRange);
+				rangeSizeTree.set(lowerIndex, newRange);
 				int nextIndex = lowerIndex + 1;
 				if(nextIndex < upperIndex) {
 					ranges.removeRange(nextIndex, upperIndex);
+					rangeSizeTree.remove(nextIndex, upperIndex);
 					upperIndex -= upperIndex - nextIndex;
 				}
 			} else {
 				ranges.removeRange(lowerIndex, upperIndex);
+				rangeSizeTree.remove(lowerIndex, upperIndex);
 				upperIndex -= upperIndex - lowerIndex;
 			}
 		} else { // spans 0 or 1 existing range
 			if(splitLower) {
 				// splitUpper must also be true
 				// a slab in the middle is removed
-				ranges.set(lowerIndex, existingRange.lowerSplit(lowerCompare));
-				ranges.add(++upperIndex, existingRange.upperSplit(upperCompare.incrementBoundary()));
+				IPAddressSeqRange newRange = existingRange.lowerSplit(lowerCompare);
+				ranges.set(lowerIndex, newRange);
+				rangeSizeTree.set(lowerIndex, newRange);
+				newRange = existingRange.upperSplit(upperCompare.incrementBoundary());
+				ranges.add(++upperIndex, newRange);
+				rangeSizeTree.insert(upperIndex, newRange);
 			} else if(splitUpper) { // spans the single range at lowerIndex
 				// range gets chopped
-				ranges.set(lowerIndex, existingUpperRange.upperSplit(upperCompare.incrementBoundary()));
+				IPAddressSeqRange newRange = existingUpperRange.upperSplit(upperCompare.incrementBoundary());
+				ranges.set(lowerIndex, newRange);
+				rangeSizeTree.set(lowerIndex, newRange);
 			} else { // spans no existing range, nothing to do
 				upperIndex = -(upperIndex + 1);
 				return upperIndex;
 			}
 		}
-		clearRangeSizesFrom(lowerIndex);
 		changeTracker.changed();
 		return upperIndex;
 	}
@@ -1496,7 +1996,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 	public void removeSeqRange(int index) {
 		ranges.removeRange(index, index + 1);
 		changeTracker.changed();
-		clearRangeSizesFrom(index);
+		rangeSizeTree.remove(index, index + 1);
 	}
 
 	/**
@@ -1510,7 +2010,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 	public void removeSeqRanges(int fromIndex, int toIndex) {
 		ranges.removeRange(fromIndex, toIndex);
 		changeTracker.changed();
-		clearRangeSizesFrom(fromIndex);
+		rangeSizeTree.remove(fromIndex, toIndex);
 	}
 
 	private int binarySearchLower(IPAddress key) {
@@ -1673,7 +2173,8 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			@Override
 			public void remove() {
 				iter.remove();
-				clearRangeSizesFrom(index);
+				rangeSizeTree.remove(index, index + 1);
+				index--;
 			}
 		};
 	}
@@ -1948,7 +2449,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				return null;
 			}
 			int lastIndex = rangeCount - 1;
-			BigInteger totalRangeSize = rangeSizes.get(lastIndex); // this is the same as getCount()
+			BigInteger totalRangeSize = getCount(rangeCount);
 			return ranges.get(lastIndex).getUpper().increment(index.subtract(totalRangeSize).add(BigInteger.ONE));
 		} else if(rangeIndex == 0) {
 			IPAddress lower = ranges.get(0).getLower();
@@ -1960,17 +2461,17 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			}
 			IPAddress increment = lower.increment(index);
 			if(remove) {
-				removeAddress(increment, 0, index, BigInteger.ZERO);
+				removeAddress(increment, 0, index);
 			}
 			return increment;
 		}
 		IPAddressSeqRange rng = ranges.get(rangeIndex);
 		IPAddress lower = rng.getLower();
-		BigInteger previousRangesSize = rangeSizes.get(rangeIndex - 1);
+		BigInteger previousRangesSize = getCount(rangeIndex);
 		index = index.subtract(previousRangesSize);
 		IPAddress increment = lower.increment(index);
 		if(remove) {
-			removeAddress(increment, rangeIndex, index, previousRangesSize);
+			removeAddress(increment, rangeIndex, index);
 		}
 		return increment;
 	}
@@ -1993,7 +2494,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				return null;
 			}
 			int lastIndex = rangeCount - 1;
-			long totalRangeSize = rangeSizes.get(lastIndex).longValue();
+			long totalRangeSize = getCount(rangeCount).longValue();
 			return ranges.get(lastIndex).getUpper().increment((index - totalRangeSize) + 1);
 		} else if(rangeIndex == 0) {
 			IPAddress lower = ranges.get(0).getLower();
@@ -2005,16 +2506,16 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			}
 			IPAddress increment = lower.increment(index);
 			if(remove) {
-				removeAddress(increment, 0, BigInteger.valueOf(index), BigInteger.ZERO);
+				removeAddress(increment, 0, BigInteger.valueOf(index));
 			}
 			return increment;
 		}
-		BigInteger previousRangesSize = rangeSizes.get(rangeIndex - 1);
+		BigInteger previousRangesSize = getCount(rangeIndex);
 		index -= previousRangesSize.longValue();
 		IPAddress lower = ranges.get(rangeIndex).getLower();
 		IPAddress increment = lower.increment(index);
 		if(remove) {
-			removeAddress(increment, rangeIndex, BigInteger.valueOf(index), previousRangesSize);
+			removeAddress(increment, rangeIndex, BigInteger.valueOf(index));
 		}
 		return increment;
 	}
@@ -2028,7 +2529,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			}
 			return -1;
 		}
-		return searchForRange(index);
+		return rangeSizeTree.findRange(ranges, index);
 	}
 
 	// finds the range containing the address with the given index
@@ -2039,129 +2540,64 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			}
 			return -1;
 		}
-		return searchForRange(BigInteger.valueOf(index));
-	}
-
-	private int searchForRange(BigInteger index) {
-		// search using the existing range sizes
-		int rangeIndex = binarySearchForRange(index);
-		if(rangeIndex >= 0) {
-			return rangeIndex;
-		}
-		// create missing range sizes, and see if we fall in one of those ranges
-		int rangeSzs = rangeSizes.size();
-		BigInteger previousRangeSize = (rangeSzs == 0) ? BigInteger.ZERO : rangeSizes.get(rangeSzs - 1);
-		int i = rangeSzs;
-		int total = ranges.size();
-		for(; i < total; i++) {
-			IPAddressSeqRange rng = ranges.get(i);
-			BigInteger count = rng.getCount().add(previousRangeSize);
-			rangeSizes.add(count);
-			if(index.compareTo(count) < 0) {
-				return i;
-			}
-			previousRangeSize = count;
-		}
-		return total;
-	}
-
-	private int binarySearchForRange(BigInteger index) {
-		ArrayList<BigInteger> rangeSizes = this.rangeSizes;
-		int highIndex = rangeSizes.size();
-		if(highIndex == 0) {
-			return -1;
-		}
-
-		// above the highest
-		BigInteger highSize = rangeSizes.get(highIndex - 1);
-		if(highSize.compareTo(index) <= 0) {
-			return -1;
-		}
-
-		int lowIndex = 0;
-		while(lowIndex <= highIndex) {
-			int midIndex = (lowIndex + highIndex) >>> 1;
-			BigInteger midSize = rangeSizes.get(midIndex);
-			if(index.compareTo(midSize) >= 0) {
-				lowIndex = midIndex + 1;
-			} else if (midIndex == 0 || index.compareTo(rangeSizes.get(midIndex - 1)) >= 0){
-				return midIndex;
-			} else {
-				highIndex = midIndex - 1;
-			}
-		}
-		return -1;
+		return rangeSizeTree.findRange(ranges, index);
 	}
 
 	protected void removeFirstAddress(IPAddress address) {
 		IPAddressSeqRange rng = ranges.get(0);
 		if(rng.isMultiple()) {
 			// the lower side is removed
-			ranges.set(0, rng.upperSplit(address.increment()));
+			IPAddressSeqRange newRange = rng.upperSplit(address.increment());
+			ranges.set(0, newRange);
+			rangeSizeTree.set(0, newRange);
 		} else {
 			ranges.removeRange(0, 1);
+			rangeSizeTree.remove(0, 1);
 		}
-		clearRangeSizesFrom(0);
 		changeTracker.changed();
 	}
 
+	/**
+	 * @deprecated the size of the preceding ranges is no longer required, use {@link #removeAddress(IPAddress, int, BigInteger)}
+	 */
+	@Deprecated
 	protected void removeAddress(IPAddress individualAddress, int rngIndex, BigInteger addressIndexInRange, BigInteger previousRangesSize) {
+		removeAddress(individualAddress, rngIndex, addressIndexInRange);
+	}
+
+	protected void removeAddress(IPAddress individualAddress, int rngIndex, BigInteger addressIndexInRange) {
 		IPAddressSeqRange rng = ranges.get(rngIndex);
-		BigInteger rngSize = rangeSizes.get(rngIndex).subtract(previousRangesSize); // The range size is populated due to the search that got us here
 		if(addressIndexInRange.signum() == 0) {
 			// the lower address is removed
-			if(rngSize.equals(BigInteger.ONE)) {
+			if(!rng.isMultiple()) {
 				// the whole range is just that one address
 				ranges.removeRange(rngIndex, rngIndex + 1);
+				rangeSizeTree.remove(rngIndex, rngIndex + 1);
 			} else {
-				ranges.set(rngIndex, rng.upperSplit(individualAddress.increment()));
+				IPAddressSeqRange newRange = rng.upperSplit(individualAddress.increment());
+				ranges.set(rngIndex, newRange);
+				rangeSizeTree.set(rngIndex, newRange);
 			}
-		} else if(rngSize.compareTo(addressIndexInRange.add(BigInteger.ONE)) == 0) {
+		} else if(compareLowerValues(rng.getUpper(), individualAddress) == 0) {
 			// the upper address is removed
-			ranges.set(rngIndex, rng.lowerSplit(individualAddress));
+			IPAddressSeqRange newRange = rng.lowerSplit(individualAddress);
+			ranges.set(rngIndex, newRange);
+			rangeSizeTree.set(rngIndex, newRange);
 		} else {
 			// a slab in the middle is removed
-			ranges.set(rngIndex, rng.lowerSplit(individualAddress));
-			ranges.add(rngIndex + 1, rng.upperSplit(individualAddress.increment()));
+			IPAddressSeqRange newRange = rng.lowerSplit(individualAddress);
+			ranges.set(rngIndex, newRange);
+			rangeSizeTree.set(rngIndex, newRange);
+			newRange = rng.upperSplit(individualAddress.increment());
+			ranges.add(rngIndex + 1, newRange);
+			rangeSizeTree.insert(rngIndex + 1, newRange);
 		}
-		clearRangeSizesFrom(rngIndex);
 		changeTracker.changed();
 	}
 
 	// gets the count of addresses in the first rangeCount ranges
 	protected BigInteger getCount(int rangeCount) {
-		RangeList<BigInteger> rangeSizes = this.rangeSizes;
-		if(rangeCount > rangeSizes.size()) {
-			// always ensure the capacity of rangeSizes is at least the length of the ranges list
-			rangeSizes.ensureCapacity(ranges.size());
-			int index = rangeSizes.size() - 1;
-			BigInteger count = (index < 0) ? BigInteger.ZERO :  rangeSizes.get(index); 
-			IPAddressSeqRange seqRange = getSeqRange(++index);
-			if(seqRange.isIPv4()) {
-				long ipv4Count = count.longValue();
-				IPv4AddressSeqRange ipv4Range = (IPv4AddressSeqRange) seqRange;
-				ipv4Count += ipv4Range.getIPv4Count();
-				rangeSizes.add(BigInteger.valueOf(ipv4Count));
-				while(++index < rangeCount) {
-					ipv4Range = (IPv4AddressSeqRange) getSeqRange(index);
-					ipv4Count += ipv4Range.getIPv4Count();
-					rangeSizes.add(BigInteger.valueOf(ipv4Count));
-				}
-				count = BigInteger.valueOf(ipv4Count);
-			} else {
-				count = count.add(seqRange.getCount());
-				rangeSizes.add(count);
-				while(++index < rangeCount) {
-					seqRange = getSeqRange(index);
-					count = count.add(seqRange.getCount());
-					rangeSizes.add(count);
-				}
-			}
-			return count;
-		} else if(rangeCount > 0) {
-			return rangeSizes.get(rangeCount - 1);
-		}
-		return BigInteger.ZERO;
+		return rangeSizeTree.getCount(ranges, rangeCount);
 	}
 
 	@Override
@@ -2235,6 +2671,17 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 		return false;
 	}
 
+	/**
+	 * Returns an immutable copy of this list with the range boundaries and range sizes stored in primitive arrays.
+	 * <p>
+	 * The copy is more compact and has faster lookups than this list, making it well-suited to lists that are built once and then searched many times.
+	 *
+	 * @return
+	 */
+	public IPAddressPackedSeqRangeList toPackedList() {
+		return new IPAddressPackedSeqRangeList(this);
+	}
+
 	/**
 	 * Copies the IPAddressSeqRangeList.
 	 */
@@ -2249,7 +2696,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			IPAddressSeqRangeList cloned = (IPAddressSeqRangeList) super.clone();
 			//cloned.set = null;
 			cloned.ranges = (RangeList<IPAddressSeqRange>) cloned.ranges.clone();
-			cloned.rangeSizes = (RangeList<BigInteger>) cloned.rangeSizes.clone();
+			cloned.rangeSizeTree = cloned.rangeSizeTree.clone();
 			cloned.changeTracker = changeTracker;
 			return cloned;
 		} catch (CloneNotSupportedException e) {
@@ -2394,23 +2841,30 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			if(firstOfRange) {
 				if (!currentIterator.hasNext()) {
 					ranges.removeRange(currentRangeIndex, nextRangeIndex--);
+					rangeSizeTree.remove(currentRangeIndex, currentRangeIndex + 1);
 				} else {
-					ranges.set(currentRangeIndex, ranges.get(currentRangeIndex).upperSplit(last.increment()));
+					IPAddressSeqRange newRange = ranges.get(currentRangeIndex).upperSplit(last.increment());
+					ranges.set(currentRangeIndex, newRange);
+					rangeSizeTree.set(currentRangeIndex, newRange);
 				}
 			} else if (!currentIterator.hasNext()) {
 				// last of range
-				IPAddressSeqRange rng = ranges.get(currentRangeIndex);
-				ranges.set(currentRangeIndex, rng.lowerSplit(last));
+				IPAddressSeqRange newRange = ranges.get(currentRangeIndex).lowerSplit(last);
+				ranges.set(currentRangeIndex, newRange);
+				rangeSizeTree.set(currentRangeIndex, newRange);
 			} else {
 				// in the middle of the range
 				IPAddressSeqRange rng = ranges.get(currentRangeIndex);
-				ranges.set(currentRangeIndex, rng.lowerSplit(last));
-				ranges.add(nextRangeIndex, rng.upperSplit(last.increment()));
+				IPAddressSeqRange newRange = rng.lowerSplit(last);
+				ranges.set(currentRangeIndex, newRange);
+				rangeSizeTree.set(currentRangeIndex, newRange);
+				newRange = rng.upperSplit(last.increment());
+				ranges.add(nextRangeIndex, newRange);
+				rangeSizeTree.insert(nextRangeIndex, newRange);
 				nextRangeIndex++;
 			}
 			removedLast = true;
 			last = null;
-			clearRangeSizesFrom(currentRangeIndex);
 			currentChange = changeTracker.getCurrent();
 		}
 	}
@@ -2444,7 +2898,7 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 			} else if(rangeSize == 1) {
 				spliterator = getSpliterator(ranges.get(0));
 			} else {
-				// calculate count before cloning so we clone the populated rangeSizes
+				// calculate count before cloning so we clone the populated rangeSizeTree
 				isBig = fromList.getCount().compareTo(LONG_MAX) > 0;
 				
 				// we clone the existing ranges list, because we alter the list when we split
@@ -2497,25 +2951,26 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				if(currentIterator.hasNext()) {
 					IPAddressSeqRange remaining = ranges.get(--nextRangeIndex).upperSplit(currentIterator.next());
 					ranges.set(nextRangeIndex, remaining);
+					list.rangeSizeTree.set(nextRangeIndex, remaining);
 					count = count.add(remaining.getCount());
 					if(nextRangeIndex > 0) {
 						count = count.subtract(list.getCount(nextRangeIndex));
 						ranges.removeRange(0, nextRangeIndex); // iterated through these already
+						list.rangeSizeTree.remove(0, nextRangeIndex);
 					}
 				} else {
 					count = count.subtract(list.getCount(nextRangeIndex));
 					ranges.removeRange(0, nextRangeIndex);
+					list.rangeSizeTree.remove(0, nextRangeIndex);
 					if(ranges.size() == 0) {
 						// everything has been iterated, nothing is left
 						currentIterator = Collections.emptyIterator();
 						nextRangeIndex = 0;
-						list.clearRangeSizesFrom(0);
 						return null;
 					}
 				}
 				currentIterator = Collections.emptyIterator();
 				nextRangeIndex = 0;
-				list.clearRangeSizesFrom(0);
 
 				// transition to the spliterator with the embedded IPAddressSeqRange spliterator 
 				// if only one range is left,
@@ -2570,12 +3025,9 @@ public class IPAddressSeqRangeList implements IPAddressCollection<IPAddress, IPA
 				spliterator = getSpliterator(list.ranges.get(0));
 				list = null;
 			} else {
-				int newSize = otherRangeIndex;
-				list.ranges.removeRange(newSize, list.ranges.size());
-				// the rangeSizes in this list could remain the same, but truncate anyway to enable garbage collection
-				if(list.rangeSizes.size() > newSize) {
-					list.rangeSizes.removeRange(newSize, list.rangeSizes.size());
-				}
+				int newSize = otherRangeIndex, size = list.ranges.size();
+				list.ranges.removeRange(newSize, size);
+				list.rangeSizeTree.remove(newSize, size);
 			}
 			return other;
 		}
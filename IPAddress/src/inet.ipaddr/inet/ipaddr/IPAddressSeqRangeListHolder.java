@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr;
+
+import java.util.function.Consumer;
+
+/**
+ * IPAddressSeqRangeListHolder holds a sequential range list that is read by many threads and occasionally changed,
+ * publishing the current contents of the list as immutable {@link IPAddressPackedSeqRangeList} snapshots.
+ * <p>
+ * Readers obtain the current snapshot with {@link #getSnapshot()}, without locking,
+ * and query it with the lookup methods of the snapshot, such as {@link IPAddressPackedSeqRangeList#contains(IPAddress)},
+ * {@link IPAddressPackedSeqRangeList#indexOfContainingSeqRange(IPAddress)}, {@link IPAddressPackedSeqRangeList#floor(IPAddress)},
+ * {@link IPAddressPackedSeqRangeList#ceiling(IPAddress)} and {@link IPAddressPackedSeqRangeList#overlaps(IPAddressSeqRange)}.
+ * A snapshot never changes, so a reader performing several lookups will see the same contents for each, regardless of concurrent updates.
+ * <p>
+ * Writers change the list with {@link #update(Consumer)}, which applies a batch of changes to a copy of the list,
+ * and then publishes a new snapshot of the copy.  Updates are serialized with one another.
+ * Readers see either the snapshot preceding a batch or the snapshot following it, never the result of part of a batch.
+ * If a batch throws an exception, the exception is propagated, and both the list and the published snapshot remain unchanged.
+ *
+ * @author scfoley
+ *
+ */
+public class IPAddressSeqRangeListHolder {
+
+	// the list of the current snapshot, accessed only when holding the lock of this holder
+	private IPAddressSeqRangeList list;
+
+	private volatile IPAddressPackedSeqRangeList snapshot;
+
+	/**
+	 * Constructs a holder of an empty list.
+	 */
+	public IPAddressSeqRangeListHolder() {
+		this(new IPAddressSeqRangeList());
+	}
+
+	/**
+	 * Constructs a holder with a copy of the given list.
+	 * The holder copies the list and will not reflect subsequent changes to the given list.
+	 * <p>
+	 * The type of the given list is retained by the copies of the list supplied to {@link #update(Consumer)},
+	 * so an IPv4 or IPv6 list will restrict the addresses that can be added by an update.
+	 *
+	 * @param list
+	 */
+	public IPAddressSeqRangeListHolder(IPAddressSeqRangeList list) {
+		this.list = list.clone();
+		snapshot = this.list.toPackedList();
+	}
+
+	/**
+	 * Returns the current snapshot of the list.
+	 *
+	 * @return
+	 */
+	public IPAddressPackedSeqRangeList getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Returns a modifiable copy of the current contents of the list.
+	 * Changes to the copy are not reflected in the holder, use {@link #update(Consumer)} to change the held list.
+	 *
+	 * @return
+	 */
+	public synchronized IPAddressSeqRangeList getList() {
+		return list.clone();
+	}
+
+	/**
+	 * Applies the given batch of changes to a copy of the list, and then publishes a snapshot of the changed copy, which is returned.
+	 * <p>
+	 * The batch must not retain the list it is given once it completes,
+	 * since any subsequent changes to that list would not be reflected in the published snapshot.
+	 *
+	 * @param batch
+	 * @return the snapshot published
+	 */
+	public synchronized IPAddressPackedSeqRangeList update(Consumer<? super IPAddressSeqRangeList> batch) {
+		IPAddressSeqRangeList newList = list.clone();
+		batch.accept(newList);
+		IPAddressPackedSeqRangeList newSnapshot = newList.toPackedList();
+		list = newList;
+		snapshot = newSnapshot;
+		return newSnapshot;
+	}
+
+	/**
+	 * Replaces the held list with a copy of the given list, and then publishes a snapshot of the copy, which is returned.
+	 *
+	 * @param newList
+	 * @return the snapshot published
+	 */
+	public synchronized IPAddressPackedSeqRangeList set(IPAddressSeqRangeList newList) {
+		newList = newList.clone();
+		IPAddressPackedSeqRangeList newSnapshot = newList.toPackedList();
+		list = newList;
+		snapshot = newSnapshot;
+		return newSnapshot;
+	}
+
+	@Override
+	public String toString() {
+		return snapshot.toString();
+	}
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * IPAddressSeqRangeMerger combines sources of sequential ranges lazily, producing the union, intersection or difference of the sources
+ * one range at a time, as the ranges are requested, without collecting the sources into lists.
+ * <p>
+ * The sources are iterators of sequential ranges sorted by ascending lowest range value, the order of {@link Address#ADDRESS_LOW_VALUE_COMPARATOR}.
+ * The ranges of a source may overlap or be adjacent to one another, so a source may be the ranges of an {@link IPAddressSeqRangeList},
+ * or a sorted feed of ranges that has not been joined.
+ * If a source is not sorted, the results are unspecified.
+ * <p>
+ * The resulting iterators produce the fewest number of ranges, sorted by ascending lowest range value, no two of which overlap or are adjacent,
+ * the same ranges that would be found in an IPAddressSeqRangeList holding the result.
+ * The sources are merged with a heap, so the cost of producing each range is logarithmic in the number of sources.
+ * Ranges are joined as with {@link IPAddressSeqRange#join(IPAddressSeqRange...)}, intersected with {@link IPAddressSeqRange#intersect(IPAddressSeqRange)},
+ * and subtracted with {@link IPAddressSeqRange#subtract(IPAddressSeqRange)}, so ranges of different IP versions do not overlap, and IPv4 ranges precede IPv6 ranges.
+ * <p>
+ * The sources are advanced by the resulting iterators, and must not be used elsewhere while the resulting iterators are in use.
+ * The resulting iterators do not support the remove operation.
+ *
+ * @author scfoley
+ *
+ */
+public class IPAddressSeqRangeMerger {
+
+	private static final Comparator<Cursor> LOWER_COMPARATOR = (one, two) -> Address.ADDRESS_LOW_VALUE_COMPARATOR.compare(one.current, two.current);
+	private static final Comparator<Cursor> UPPER_COMPARATOR = (one, two) -> Address.ADDRESS_HIGH_VALUE_COMPARATOR.compare(one.current, two.current);
+
+	private IPAddressSeqRangeMerger() {}
+
+	/**
+	 * Returns an iterator of the joined ranges of the given sources, the ranges with the addresses in any of the sources.
+	 *
+	 * @param sources
+	 * @return
+	 */
+	@SafeVarargs
+	public static Iterator<IPAddressSeqRange> union(Iterator<? extends IPAddressSeqRange>... sources) {
+		ArrayList<Iterator<? extends IPAddressSeqRange>> list = new ArrayList<>(sources.length);
+		for(Iterator<? extends IPAddressSeqRange> src : sources) {
+			list.add(src);
+		}
+		return union(list);
+	}
+
+	/**
+	 * Returns an iterator of the joined ranges of the given sources, the ranges with the addresses in any of the sources.
+	 *
+	 * @param sources
+	 * @return
+	 */
+	public static Iterator<IPAddressSeqRange> union(Collection<? extends Iterator<? extends IPAddressSeqRange>> sources) {
+		return new UnionIterator(sources);
+	}
+
+	/**
+	 * Returns an iterator of the intersection of the given sources, the ranges with the addresses in every one of the sources.
+	 * If there are no sources, the intersection is empty.
+	 *
+	 * @param sources
+	 * @return
+	 */
+	@SafeVarargs
+	public static Iterator<IPAddressSeqRange> intersection(Iterator<? extends IPAddressSeqRange>... sources) {
+		ArrayList<Iterator<? extends IPAddressSeqRange>> list = new ArrayList<>(sources.length);
+		for(Iterator<? extends IPAddressSeqRange> src : sources) {
+			list.add(src);
+		}
+		return intersection(list);
+	}
+
+	/**
+	 * Returns an iterator of the intersection of the given sources, the ranges with the addresses in every one of the sources.
+	 * If there are no sources, the intersection is empty.
+	 *
+	 * @param sources
+	 * @return
+	 */
+	public static Iterator<IPAddressSeqRange> intersection(Collection<? extends Iterator<? extends IPAddressSeqRange>> sources) {
+		return new IntersectionIterator(sources);
+	}
+
+	/**
+	 * Returns an iterator of the difference of the given source and the given subtracted sources,
+	 * the ranges with the addresses in the source that are in none of the subtracted sources.
+	 *
+	 * @param source
+	 * @param subtracted
+	 * @return
+	 */
+	@SafeVarargs
+	public static Iterator<IPAddressSeqRange> difference(Iterator<? extends IPAddressSeqRange> source, Iterator<? extends IPAddressSeqRange>... subtracted) {
+		ArrayList<Iterator<? extends IPAddressSeqRange>> list = new ArrayList<>(subtracted.length);
+		for(Iterator<? extends IPAddressSeqRange> src : subtracted) {
+			list.add(src);
+		}
+		return difference(source, list);
+	}
+
+	/**
+	 * Returns an iterator of the difference of the given source and the given subtracted sources,
+	 * the ranges with the addresses in the source that are in none of the subtracted sources.
+	 *
+	 * @param source
+	 * @param subtracted
+	 * @return
+	 */
+	public static Iterator<IPAddressSeqRange> difference(Iterator<? extends IPAddressSeqRange> source, Collection<? extends Iterator<? extends IPAddressSeqRange>> subtracted) {
+		return new DifferenceIterator(source, subtracted);
+	}
+
+	private static int compareLowerValues(IPAddress one, IPAddress two) {
+		return AddressComparator.compareSegmentValues(false, one.getSection(), two.getSection());
+	}
+
+	// a source and its current range
+	private static class Cursor {
+		private final Iterator<? extends IPAddressSeqRange> source;
+		IPAddressSeqRange current;
+
+		Cursor(Iterator<? extends IPAddressSeqRange> source) {
+			this.source = source;
+		}
+
+		boolean advance() {
+			while(source.hasNext()) {
+				current = source.next();
+				if(current != null) {
+					return true;
+				}
+			}
+			current = null;
+			return false;
+		}
+	}
+
+	// produces the next range lazily, with null indicating there are no more ranges
+	private static abstract class LookaheadIterator implements Iterator<IPAddressSeqRange> {
+		private IPAddressSeqRange next;
+		private boolean hasLookahead;
+
+		abstract IPAddressSeqRange findNext();
+
+		@Override
+		public boolean hasNext() {
+			if(!hasLookahead) {
+				next = findNext();
+				hasLookahead = true;
+			}
+			return next != null;
+		}
+
+		@Override
+		public IPAddressSeqRange next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			hasLookahead = false;
+			IPAddressSeqRange result = next;
+			next = null;
+			return result;
+		}
+	}
+
+	/**
+	 * Merges the sources with a heap ordered by the lowest values of the current ranges of the sources,
+	 * joining each range taken from the heap with the following ranges that it overlaps or is adjacent to.
+	 */
+	private static class UnionIterator extends LookaheadIterator {
+		private final PriorityQueue<Cursor> heap;
+
+		UnionIterator(Collection<? extends Iterator<? extends IPAddressSeqRange>> sources) {
+			heap = new PriorityQueue<>(Math.max(1, sources.size()), LOWER_COMPARATOR);
+			for(Iterator<? extends IPAddressSeqRange> source : sources) {
+				Cursor cursor = new Cursor(source);
+				if(cursor.advance()) {
+					heap.add(cursor);
+				}
+			}
+		}
+
+		private void advance(Cursor cursor) {
+			if(cursor.advance()) {
+				heap.add(cursor);
+			}
+		}
+
+		@Override
+		IPAddressSeqRange findNext() {
+			Cursor cursor = heap.poll();
+			if(cursor == null) {
+				return null;
+			}
+			IPAddressSeqRange range = cursor.current;
+			IPAddress upper = range.getUpper();
+			boolean extended = false;
+			advance(cursor);
+			while(!heap.isEmpty()) {
+				IPAddressSeqRange nextRange = heap.peek().current;
+				IPAddress nextLower = nextRange.getLower();
+				if(!IPAddressSeqRange.versionsMatch(nextLower, upper) ||
+						(compareLowerValues(upper, nextLower) < 0 && !upper.increment().equals(nextLower))) {
+					break;
+				}
+				IPAddress nextUpper = nextRange.getUpper();
+				if(compareLowerValues(upper, nextUpper) < 0) {
+					upper = nextUpper;
+					extended = true;
+				}
+				advance(heap.poll());
+			}
+			return extended ? range.create(range.getLower(), upper) : range;
+		}
+	}
+
+	/**
+	 * Merges the joined ranges of the sources with a heap ordered by the highest values of the current ranges of the sources.
+	 * The range with the highest lowest value and the range with the lowest highest value bound the addresses common to all the current ranges,
+	 * so their intersection, if any, is the next range.  The source of the range with the lowest highest value is then advanced.
+	 */
+	private static class IntersectionIterator extends LookaheadIterator {
+		private final PriorityQueue<Cursor> heap;
+		private IPAddressSeqRange maxLowerRange;
+		private boolean isDone;
+
+		IntersectionIterator(Collection<? extends Iterator<? extends IPAddressSeqRange>> sources) {
+			heap = new PriorityQueue<>(Math.max(1, sources.size()), UPPER_COMPARATOR);
+			isDone = sources.isEmpty();
+			for(Iterator<? extends IPAddressSeqRange> source : sources) {
+				Cursor cursor = new Cursor(new UnionIterator(Collections.singletonList(source)));
+				if(!cursor.advance()) {
+					isDone = true;
+					break;
+				}
+				heap.add(cursor);
+				updateMaxLower(cursor.current);
+			}
+		}
+
+		private void updateMaxLower(IPAddressSeqRange range) {
+			if(maxLowerRange == null || Address.ADDRESS_LOW_VALUE_COMPARATOR.compare(range, maxLowerRange) > 0) {
+				maxLowerRange = range;
+			}
+		}
+
+		@Override
+		IPAddressSeqRange findNext() {
+			while(!isDone) {
+				Cursor minUpperCursor = heap.poll();
+				IPAddressSeqRange result = maxLowerRange.intersect(minUpperCursor.current);
+				if(minUpperCursor.advance()) {
+					updateMaxLower(minUpperCursor.current);
+					heap.add(minUpperCursor);
+				} else {
+					isDone = true;
+				}
+				if(result != null) {
+					return result;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Subtracts the joined ranges of the subtracted sources from the joined ranges of the source,
+	 * advancing through the subtracted ranges as the source ranges advance.
+	 */
+	private static class DifferenceIterator extends LookaheadIterator {
+		private final Iterator<IPAddressSeqRange> source, subtracted;
+
+		// the remaining part of the current source range, and the current subtracted range
+		private IPAddressSeqRange current, currentSubtracted;
+
+		DifferenceIterator(Iterator<? extends IPAddressSeqRange> source, Collection<? extends Iterator<? extends IPAddressSeqRange>> subtracted) {
+			this.source = new UnionIterator(Collections.singletonList(source));
+			this.subtracted = new UnionIterator(subtracted);
+			if(this.subtracted.hasNext()) {
+				currentSubtracted = this.subtracted.next();
+			}
+		}
+
+		@Override
+		IPAddressSeqRange findNext() {
+			while(true) {
+				if(current == null) {
+					if(!source.hasNext()) {
+						return null;
+					}
+					current = source.next();
+				}
+				// skip the subtracted ranges below the current range
+				boolean overlaps = false;
+				while(currentSubtracted != null &&
+						!(overlaps = currentSubtracted.overlaps(current)) &&
+						Address.ADDRESS_LOW_VALUE_COMPARATOR.compare(currentSubtracted, current) < 0) {
+					currentSubtracted = subtracted.hasNext() ? subtracted.next() : null;
+				}
+				IPAddressSeqRange result;
+				if(!overlaps) {
+					result = current;
+					current = null;
+					return result;
+				}
+				// the part below the subtracted range is a result, the part above it may overlap the next subtracted range
+				result = null;
+				IPAddressSeqRange remaining[] = current.subtract(currentSubtracted);
+				current = null;
+				for(IPAddressSeqRange rng : remaining) {
+					if(Address.ADDRESS_LOW_VALUE_COMPARATOR.compare(rng, currentSubtracted) < 0) {
+						result = rng;
+					} else {
+						current = rng;
+					}
+				}
+				if(result != null) {
+					return result;
+				}
+			}
+		}
+	}
+}
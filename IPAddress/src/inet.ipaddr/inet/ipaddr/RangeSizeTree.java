@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import inet.ipaddr.ipv4.IPv4AddressSeqRange;
+import inet.ipaddr.ipv6.IPv6Address;
+import inet.ipaddr.ipv6.IPv6AddressSeqRange;
+
+/**
+ * RangeSizeTree holds the sizes of the sequential ranges of an {@link IPAddressSeqRangeList} in a Fenwick tree, also known as a binary indexed tree,
+ * so that the count of addresses in the ranges below any range index, and the range containing any address index, can be found in O(log n) time,
+ * and the size of a range can be changed in O(log n) time.
+ * <p>
+ * The tree is populated lazily.  Sizes and tree nodes are valid for the ranges below a given index,
+ * and a change to the list of ranges that is not tracked by the tree, such as the insertion of a range, truncates the tree at the index of the change.
+ * The tree is extended from the ranges of the list when required by a lookup.
+ * Changes to the size of a range, and the insertion and removal of ranges, are tracked with {@link #set(int, IPAddressSeqRange)},
+ * {@link #insert(int, IPAddressSeqRange)} and {@link #remove(int, int)},
+ * so that only the tree nodes above the change must be recalculated, without revisiting the ranges of the list.
+ * <p>
+ * Sizes are unsigned 128-bit values held in pairs of longs, the high bits followed by the low bits.
+ * Each range size is stored as the size minus one, so that the total of all the stored sizes is at most 2<sup>128</sup> - 1.
+ *
+ * @author scfoley
+ *
+ */
+class RangeSizeTree implements Cloneable, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// The size minus one of each range, with entries for the ranges below sizesCount being valid.
+	// Range i is at index 2i.
+	private long sizes[];
+	private int sizesCount;
+
+	// The Fenwick tree, with nodes from 1 to treeCount being valid, where treeCount <= sizesCount.
+	// Node k at index 2k holds the total of the stored sizes of the ranges from k - (k & -k) to k - 1.
+	private long tree[];
+	private int treeCount;
+
+	RangeSizeTree(int initialCapacity) {
+		sizes = new long[initialCapacity << 1];
+		tree = new long[(initialCapacity + 1) << 1];
+	}
+
+	private void ensureCapacity(int rangeCount) {
+		if(sizes.length < rangeCount << 1) {
+			int newCapacity = Math.max(rangeCount, (sizes.length >> 1) + (sizes.length >> 2) + 1);
+			sizes = Arrays.copyOf(sizes, newCapacity << 1);
+			tree = Arrays.copyOf(tree, (newCapacity + 1) << 1);
+		}
+	}
+
+	/**
+	 * Truncates the tree at the given range index, for a change to the ranges at or above the index.
+	 */
+	void clearFrom(int rangeIndex) {
+		if(rangeIndex < sizesCount) {
+			sizesCount = rangeIndex;
+			if(rangeIndex < treeCount) {
+				treeCount = rangeIndex;
+			}
+		}
+	}
+
+	/**
+	 * Updates the tree for the replacement of the range at the given index with the given range.
+	 */
+	void set(int rangeIndex, IPAddressSeqRange rng) {
+		if(rangeIndex < sizesCount) {
+			int index = rangeIndex << 1;
+			long oldHigh = sizes[index], oldLow = sizes[index + 1];
+			storeSize(rangeIndex, rng);
+			if(rangeIndex < treeCount) {
+				long newLow = sizes[index + 1];
+				long deltaLow = newLow - oldLow;
+				long deltaHigh = sizes[index] - oldHigh - (Long.compareUnsigned(newLow, oldLow) < 0 ? 1 : 0);
+				long tree[] = this.tree;
+				for(int k = rangeIndex + 1; k <= treeCount; k += k & -k) {
+					int nodeIndex = k << 1;
+					long low = tree[nodeIndex + 1];
+					long sumLow = low + deltaLow;
+					tree[nodeIndex] += deltaHigh + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+					tree[nodeIndex + 1] = sumLow;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the tree for the insertion of the given range at the given index.
+	 */
+	void insert(int rangeIndex, IPAddressSeqRange rng) {
+		if(rangeIndex <= sizesCount) {
+			ensureCapacity(sizesCount + 1);
+			int index = rangeIndex << 1;
+			System.arraycopy(sizes, index, sizes, index + 2, (sizesCount << 1) - index);
+			sizesCount++;
+			storeSize(rangeIndex, rng);
+		}
+		if(rangeIndex < treeCount) {
+			treeCount = rangeIndex;
+		}
+	}
+
+	/**
+	 * Updates the tree for the removal of the ranges from fromIndex inclusive to toIndex exclusive.
+	 */
+	void remove(int fromIndex, int toIndex) {
+		if(toIndex <= sizesCount) {
+			System.arraycopy(sizes, toIndex << 1, sizes, fromIndex << 1, (sizesCount - toIndex) << 1);
+			sizesCount -= toIndex - fromIndex;
+		} else if(fromIndex < sizesCount) {
+			sizesCount = fromIndex;
+		}
+		if(fromIndex < treeCount) {
+			treeCount = fromIndex;
+		}
+	}
+
+	private void storeSize(int rangeIndex, IPAddressSeqRange rng) {
+		int index = rangeIndex << 1;
+		if(rng.isIPv4()) {
+			sizes[index] = 0;
+			sizes[index + 1] = ((IPv4AddressSeqRange) rng).getIPv4Count() - 1;
+		} else {
+			IPv6AddressSeqRange ipv6Range = (IPv6AddressSeqRange) rng;
+			long lowerVals[] = ipv6Range.getLower().longValues();
+			long upperVals[] = ipv6Range.getUpper().longValues();
+			long lowerLow = lowerVals[1], upperLow = upperVals[1];
+			sizes[index] = upperVals[0] - lowerVals[0] - (Long.compareUnsigned(upperLow, lowerLow) < 0 ? 1 : 0);
+			sizes[index + 1] = upperLow - lowerLow;
+		}
+	}
+
+	// extends the tree to include the ranges below the given range count
+	private void fill(List<IPAddressSeqRange> ranges, int rangeCount) {
+		if(treeCount >= rangeCount) {
+			return;
+		}
+		ensureCapacity(ranges.size());
+		for(int i = sizesCount; i < rangeCount; i++) {
+			storeSize(i, ranges.get(i));
+		}
+		if(rangeCount > sizesCount) {
+			sizesCount = rangeCount;
+		}
+		long sizes[] = this.sizes, tree[] = this.tree;
+		for(int k = treeCount + 1; k <= rangeCount; k++) {
+			// node k is the size of range k - 1 plus the nodes of its sub-trees k - 1, k - 1 - lowbit(k - 1), ... down to k - lowbit(k)
+			int nodeIndex = k << 1, sizeIndex = (k - 1) << 1;
+			long high = sizes[sizeIndex], low = sizes[sizeIndex + 1];
+			int lowest = k - (k & -k);
+			for(int j = k - 1; j > lowest; j -= j & -j) {
+				int subNodeIndex = j << 1;
+				long subLow = tree[subNodeIndex + 1];
+				long sumLow = low + subLow;
+				high += tree[subNodeIndex] + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+				low = sumLow;
+			}
+			tree[nodeIndex] = high;
+			tree[nodeIndex + 1] = low;
+		}
+		treeCount = rangeCount;
+	}
+
+	/**
+	 * Returns the count of addresses in the first rangeCount ranges.
+	 */
+	BigInteger getCount(List<IPAddressSeqRange> ranges, int rangeCount) {
+		if(rangeCount <= 0) {
+			return BigInteger.ZERO;
+		}
+		fill(ranges, rangeCount);
+		long tree[] = this.tree;
+		long high = 0, low = 0;
+		for(int k = rangeCount; k > 0; k -= k & -k) {
+			int nodeIndex = k << 1;
+			long nodeLow = tree[nodeIndex + 1];
+			long sumLow = low + nodeLow;
+			high += tree[nodeIndex] + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+			low = sumLow;
+		}
+		// add back the one subtracted from each range size
+		long sumLow = low + rangeCount;
+		if(Long.compareUnsigned(sumLow, low) < 0) {
+			if(++high == 0) {
+				// the total is 2 to the power of 128, the size of the full IPv6 address space
+				return BigInteger.ONE.shiftLeft(IPv6Address.BIT_COUNT);
+			}
+		}
+		return IPAddressPackedSeqRangeList.toUnsignedBigInteger(high, sumLow);
+	}
+
+	/**
+	 * Returns the index of the range containing the address at the given non-negative address index,
+	 * or the number of ranges if the address index is not less than the count of addresses.
+	 */
+	int findRange(List<IPAddressSeqRange> ranges, BigInteger addressIndex) {
+		if(addressIndex.bitLength() > IPv6Address.BIT_COUNT) {
+			return ranges.size();
+		}
+		return findRange(ranges, addressIndex.shiftRight(Long.SIZE).longValue(), addressIndex.longValue());
+	}
+
+	/**
+	 * Returns the index of the range containing the address at the given non-negative address index,
+	 * or the number of ranges if the address index is not less than the count of addresses.
+	 */
+	int findRange(List<IPAddressSeqRange> ranges, long addressIndex) {
+		return findRange(ranges, 0, addressIndex);
+	}
+
+	private int findRange(List<IPAddressSeqRange> ranges, long indexHigh, long indexLow) {
+		int rangeCount = ranges.size();
+		fill(ranges, rangeCount);
+		long tree[] = this.tree;
+
+		// Descend the tree, finding the largest number of ranges whose total size does not exceed the address index.
+		// The address is in the range following those ranges.
+		// Each node holds the total size of its step ranges, minus step, so we compare the node with the remaining index minus step.
+		int pos = 0;
+		for(int step = Integer.highestOneBit(rangeCount); step > 0; step >>>= 1) {
+			int next = pos + step;
+			if(next <= rangeCount) {
+				long remainingLow = indexLow - step;
+				long remainingHigh = indexHigh - (Long.compareUnsigned(indexLow, step) < 0 ? 1 : 0);
+				if(Long.compareUnsigned(indexHigh, remainingHigh) < 0) {
+					// the remaining index is less than step
+					continue;
+				}
+				int nodeIndex = next << 1;
+				long nodeHigh = tree[nodeIndex], nodeLow = tree[nodeIndex + 1];
+				int cmp = Long.compareUnsigned(nodeHigh, remainingHigh);
+				if(cmp < 0 || (cmp == 0 && Long.compareUnsigned(nodeLow, remainingLow) <= 0)) {
+					pos = next;
+					// the remaining index is reduced by the total size of the node ranges, which is the node value plus step
+					indexLow = remainingLow - nodeLow;
+					indexHigh = remainingHigh - nodeHigh - (Long.compareUnsigned(remainingLow, nodeLow) < 0 ? 1 : 0);
+				}
+			}
+		}
+		return pos;
+	}
+
+	@Override
+	public RangeSizeTree clone() {
+		try {
+			RangeSizeTree cloned = (RangeSizeTree) super.clone();
+			cloned.sizes = sizes.clone();
+			cloned.tree = tree.clone();
+			return cloned;
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+}
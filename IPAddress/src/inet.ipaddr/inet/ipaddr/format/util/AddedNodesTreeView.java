@@ -0,0 +1,271 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrie.TrieNode;
+import inet.ipaddr.format.util.AssociativeAddressTrie.AssociativeTrieNode;
+import inet.ipaddr.format.util.BinaryTreeNode.Indents;
+import inet.ipaddr.format.validate.ChangeTracker.Change;
+
+/**
+ * AddedNodesTreeView provides the same non-binary tree of added nodes as {@link AddedTree}, obtained from {@link AddressTrie#addedNodesTreeView()},
+ * but as a view of the originating trie, rather than a copy.
+ * <p>
+ * Nothing is constructed up-front.  The sub-nodes of each node of the view are found from the originating trie when requested,
+ * by descending from the corresponding trie node through any non-added nodes to the nearest added nodes.
+ * Since each non-added node of a trie has two sub-nodes, the cost of listing the sub-nodes is proportional to the number of sub-nodes listed,
+ * so the cost of traversing or rendering part of the tree is proportional to the part visited, rather than to the size of the trie.
+ * <p>
+ * The view reflects the current state of the trie.
+ * Nodes obtained from the view before the trie is modified can no longer be used,
+ * their methods that traverse the tree will throw {@link java.util.ConcurrentModificationException},
+ * in the same way as the iterators of the trie.  Instead, obtain new nodes from the view with {@link #getRoot()} or {@link #getAddedNode(Address)}.
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ */
+public class AddedNodesTreeView<E extends Address> {
+
+	private final TrieNode<E> root;
+
+	AddedNodesTreeView(TrieNode<E> root) {
+		this.root = root;
+	}
+
+	/**
+	 * AddedNodeView represents a node in an AddedNodesTreeView.
+	 *
+	 * @param <E> the type of the address keys
+	 */
+	public static class AddedNodeView<E extends Address> {
+
+		private final TrieNode<E> node;
+		private final Change change;
+
+		AddedNodeView(TrieNode<E> node, Change change) {
+			this.node = node;
+			this.change = change;
+		}
+
+		/**
+		 * Returns the sub-nodes of this node, which are not the same as the 0, 1 or 2 direct sub-nodes of the originating binary trie.
+		 * Instead, these are all the direct or indirect added sub-nodes of the node in the originating trie,
+		 * as with {@link AddedTree.AddedTreeNode#getSubNodes()}.
+		 * If there are no sub-nodes, then this method returns null.
+		 * <p>
+		 * The sub-nodes are found from the originating trie when this method is called.
+		 */
+		public AddedNodeView<E>[] getSubNodes() {
+			node.changeTracker.changedSince(change);
+			ArrayList<TrieNode<E>> subNodes = new ArrayList<>();
+			addAddedSubNodes(node, subNodes);
+			if(subNodes.size() == 0) {
+				return null;
+			}
+			@SuppressWarnings("unchecked")
+			AddedNodeView<E>[] nodes = (AddedNodeView<E>[]) new AddedNodeView<?>[subNodes.size()];
+			for(int i = 0; i < nodes.length; i++) {
+				nodes[i] = new AddedNodeView<E>(subNodes.get(i), change);
+			}
+			return nodes;
+		}
+
+		/**
+		 * Returns the parent of this node in this tree, which is the nearest added node containing this node in the originating trie,
+		 * or the root of the originating trie if there is no such added node.
+		 * Returns null for the root.
+		 *
+		 * @return
+		 */
+		public AddedNodeView<E> getParent() {
+			node.changeTracker.changedSince(change);
+			TrieNode<E> parent = node.getParent();
+			if(parent == null) {
+				return null;
+			}
+			while(!parent.isAdded()) {
+				TrieNode<E> parentParent = parent.getParent();
+				if(parentParent == null) {
+					break;
+				}
+				parent = parentParent;
+			}
+			return new AddedNodeView<E>(parent, change);
+		}
+
+		/**
+		 * Returns the corresponding node in the originating trie,
+		 * which for associative tries provides the value of the node.
+		 *
+		 * @return
+		 */
+		public TrieNode<E> getTrieNode() {
+			return node;
+		}
+
+		/**
+		 * getKey returns the key of this node, which is the same as the key of the corresponding node in the originating trie.
+		 * @return
+		 */
+		public E getKey() {
+			return node.getKey();
+		}
+
+		/**
+		 * Returns whether the node is an added node in the originating trie.
+		 * This returns true for all nodes except possibly the root.
+		 */
+		public boolean isAdded() {
+			return node.isAdded();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof AddedNodeView && node == ((AddedNodeView<?>) o).node;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(node);
+		}
+
+		/**
+		 * Returns a visual representation of this node including the key.
+		 * If this is the root, it will have an open circle if the root is not an added node.
+		 * Otherwise, the node will have a closed circle.
+		 */
+		@Override
+		public String toString() {
+			return TrieNode.toNodeString(new StringBuilder(50), node.isAdded(), getKey(), getValue(node)).toString();
+		}
+
+		/**
+		 * toTreeString returns a visual representation of the sub-tree originating from this node, with one node per line,
+		 * in the same format as {@link AddedTreeBase.AddedTreeNodeBase#toTreeString()}.
+		 * @return
+		 */
+		public String toTreeString() {
+			node.changeTracker.changedSince(change);
+			return toTreeString(node);
+		}
+
+		private static <E extends Address> Object getValue(TrieNode<E> node) {
+			return node.isAdded() && node instanceof AssociativeTrieNode ? ((AssociativeTrieNode<E, ?>) node).getValue() : null;
+		}
+
+		// adds the added nodes of the sub-tries of the given node that have no added node between them and the given node
+		private static <E extends Address> void addAddedSubNodes(TrieNode<E> node, ArrayList<TrieNode<E>> result) {
+			addAddedNodes(node.getLowerSubNode(), result);
+			addAddedNodes(node.getUpperSubNode(), result);
+		}
+
+		private static <E extends Address> void addAddedNodes(TrieNode<E> node, ArrayList<TrieNode<E>> result) {
+			if(node != null) {
+				if(node.isAdded()) {
+					result.add(node);
+				} else {
+					addAddedSubNodes(node, result);
+				}
+			}
+		}
+
+		private static <E extends Address> String toTreeString(TrieNode<E> root) {
+
+			class IndentsNode {
+				Indents indents;
+				TrieNode<E> node;
+
+				IndentsNode(Indents indents, TrieNode<E> node) {
+					this.indents = indents;
+					this.node = node;
+				}
+			}
+
+			Deque<IndentsNode> stack = new ArrayDeque<>();
+			ArrayList<TrieNode<E>> nextNodes = new ArrayList<>();
+			StringBuilder builder = new StringBuilder();
+			builder.append('\n');
+			TrieNode<E> nextNode = root;
+			String nodeIndent = "", subNodeIndent = "";
+			while(true) {
+				TrieNode.toNodeString(builder.append(nodeIndent), nextNode.isAdded(), nextNode.getKey(), getValue(nextNode)).append('\n');
+				nextNodes.clear();
+				addAddedSubNodes(nextNode, nextNodes);
+				int i = nextNodes.size() - 1;
+				if(i >= 0) {
+					Indents lastIndents = new Indents(
+							subNodeIndent + BinaryTreeNode.RIGHT_ELBOW,
+							subNodeIndent + BinaryTreeNode.BELOW_ELBOWS);
+					stack.addFirst(new IndentsNode(lastIndents, nextNodes.get(i)));
+					if(i > 0) {
+						Indents firstIndents = new Indents(
+								subNodeIndent + BinaryTreeNode.LEFT_ELBOW,
+								subNodeIndent + BinaryTreeNode.IN_BETWEEN_ELBOWS);
+						for(--i; i >= 0; i--) {
+							stack.addFirst(new IndentsNode(firstIndents, nextNodes.get(i)));
+						}
+					}
+				}
+				IndentsNode nextItem = stack.pollFirst();
+				if(nextItem == null) {
+					break;
+				}
+				nextNode = nextItem.node;
+				Indents nextIndents = nextItem.indents;
+				nodeIndent = nextIndents.nodeIndent;
+				subNodeIndent = nextIndents.subNodeInd;
+			}
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Returns the root of this tree, which corresponds to the root of the originating trie.
+	 */
+	public AddedNodeView<E> getRoot() {
+		return new AddedNodeView<E>(root, root.changeTracker.getCurrent());
+	}
+
+	/**
+	 * Returns the node of this tree corresponding to the given added element of the originating trie, or null if the element was not added,
+	 * so that the hierarchy beneath and above that element can be traversed without visiting the rest of the trie.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public AddedNodeView<E> getAddedNode(E addr) {
+		Change change = root.changeTracker.getCurrent();
+		TrieNode<E> node = root.getAddedNode(addr);
+		return node == null ? null : new AddedNodeView<E>(node, change);
+	}
+
+	/**
+	 * Returns a string representation of the tree, which is the same as the string obtained from
+	 * {@link AddressTrie#toAddedNodesTreeString()} of the originating trie.
+	 */
+	@Override
+	public String toString() {
+		return getRoot().toTreeString();
+	}
+}
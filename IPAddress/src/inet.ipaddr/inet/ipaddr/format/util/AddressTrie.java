@@ -18,27 +18,46 @@
 
 package inet.ipaddr.format.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import inet.ipaddr.Address;
+import inet.ipaddr.AddressValueException;
+import inet.ipaddr.AddressComparator.ValueComparator;
 import inet.ipaddr.AddressSegment;
 import inet.ipaddr.AddressSegmentSeries;
 import inet.ipaddr.IPAddress;
 import inet.ipaddr.IPAddressSegment;
 import inet.ipaddr.format.util.AddressTrie.TrieNode.FollowingBits;
 import inet.ipaddr.format.util.AddressTrie.TrieNode.KeyCompareResult;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeEvent;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeType;
 import inet.ipaddr.format.util.AssociativeAddressTrie.AssociativeTrieNode;
+import inet.ipaddr.format.util.AssociativeAddressTrie.ValueCodec;
 import inet.ipaddr.format.util.BinaryTreeNode.BlockSizeNodeIterator;
 import inet.ipaddr.format.util.BinaryTreeNode.Bounds;
 import inet.ipaddr.format.util.BinaryTreeNode.CachingIterator;
@@ -53,6 +72,7 @@ import inet.ipaddr.format.validate.ParsedAddressGrouping;
 import inet.ipaddr.format.validate.ChangeTracker.Change;
 import inet.ipaddr.ipv4.IPv4Address;
 import inet.ipaddr.ipv6.IPv6Address;
+import inet.ipaddr.mac.MACAddress;
 
 /**
  * A compact binary trie (aka compact binary prefix tree, or binary radix trie), for addresses and/or CIDR prefix block subnets.
@@ -1151,6 +1171,101 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 			return result.getContaining();
 		}
 
+		// Returns the node furthest along the path from this node whose key contains the given address or prefix block,
+		// whether an added node or not, or null if this node does not contain it.
+		// All the nodes containing the address or block are this node and its parents.
+		// Unlike the trie operations using OpResult, this does not allocate.
+		TrieNode<E> lastContainingNode(E addr) {
+			if(getKey() == null) { // an IPAddressTrie to which nothing has been added
+				return null;
+			}
+			TrieKeyData keyData = getTrieKeyCache(addr);
+			if(keyData != null) {
+				Integer prefLen = keyData.prefixLength;
+				if(keyData.is32Bits()) {
+					return lastContainingNode(keyData.getUint32Val(), prefLen == null ? IPv4Address.BIT_COUNT : prefLen);
+				} else if(keyData.is128Bits()) {
+					return lastContainingNode(keyData.getUint64HighVal(), keyData.getUint64LowVal(), prefLen == null ? IPv6Address.BIT_COUNT : prefLen);
+				}
+			}
+			int bitCount = addr.getBitCount();
+			TrieNode<E> node = this, last = null;
+			do {
+				E key = node.getKey();
+				if(!key.contains(addr)) {
+					break;
+				}
+				last = node;
+				Integer prefLen = key.getPrefixLength();
+				if(prefLen == null || prefLen >= bitCount) {
+					break;
+				}
+				node = addr.isOneBit(prefLen) ? node.getUpperSubNode() : node.getLowerSubNode();
+			} while(node != null);
+			return last;
+		}
+
+		// for tries with 32-bit key caches, the prefix block of the given length, the given value being the lower value of the block
+		TrieNode<E> lastContainingNode(int value, int bits) {
+			TrieNode<E> node = this, last = null;
+			do {
+				TrieKeyData keyData = getTrieKeyCache(node.getKey());
+				Integer prefLen = keyData.prefixLength;
+				if(prefLen == null) {
+					if(bits == IPv4Address.BIT_COUNT && value == keyData.getUint32Val()) {
+						last = node;
+					}
+					break;
+				} else if(prefLen > bits) {
+					break;
+				}
+				int mask = keyData.getMask32Val();
+				if((value & mask) != (keyData.getUint32Val() & mask)) {
+					break;
+				}
+				last = node;
+				node = (value & keyData.getNextBitMask32Val()) != 0 ? node.getUpperSubNode() : node.getLowerSubNode();
+			} while(node != null);
+			return last;
+		}
+
+		// for tries with 128-bit key caches, the prefix block of the given length, the given values being the lower value of the block
+		TrieNode<E> lastContainingNode(long highValue, long lowValue, int bits) {
+			TrieNode<E> node = this, last = null;
+			do {
+				TrieKeyData keyData = getTrieKeyCache(node.getKey());
+				Integer prefLen = keyData.prefixLength;
+				if(prefLen == null) {
+					if(bits == IPv6Address.BIT_COUNT && highValue == keyData.getUint64HighVal() && lowValue == keyData.getUint64LowVal()) {
+						last = node;
+					}
+					break;
+				} else if(prefLen > bits) {
+					break;
+				}
+				long maskHigh = keyData.getMask64HighVal(), maskLow = keyData.getMask64LowVal();
+				if((highValue & maskHigh) != (keyData.getUint64HighVal() & maskHigh) || 
+						(lowValue & maskLow) != (keyData.getUint64LowVal() & maskLow)) {
+					break;
+				}
+				last = node;
+				long nextBit = (prefLen > 63 ? lowValue : highValue) & keyData.getNextBitMask64Val();
+				node = nextBit != 0 ? node.getUpperSubNode() : node.getLowerSubNode();
+			} while(node != null);
+			return last;
+		}
+
+		// lookups of primitive values require key caches, so this throws if the trie keys have no key caches of the given bit size
+		void checkKeyCacheBits(int bitCount) {
+			E key = getKey();
+			if(key != null) {
+				TrieKeyData keyData = getTrieKeyCache(key);
+				if(keyData == null || (bitCount == IPv4Address.BIT_COUNT ? !keyData.is32Bits() : !keyData.is128Bits())) {
+					throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+				}
+			}
+		}
+
 		@Override
 		public E longestPrefixMatch(E addr) {
 			TrieNode<E> node = longestPrefixMatchNode(addr);
@@ -1221,6 +1336,19 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 
 			E newAddr = result.addr;
 			Operation op = result.op;
+			if(isFrozen()) {
+				switch(op) {
+				case LOOKUP:
+				case CONTAINING:
+				case ALL_CONTAINING:
+				case OVERLAPPING:
+				case NEAR:
+				case CONTAINMENT_NEAR:
+					break;
+				default:
+					throw new UnsupportedOperationException();
+				}
+			}
 
 			TrieKeyData newKeyData = getTrieKeyCache(newAddr);
 
@@ -1843,6 +1971,7 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 			setNodeAdded(true);
 			setContainmentCount(1, getKeyContainedCount());
 			changeTracker.changed();
+			logChange(ChangeType.ADDED);
 		}
 
 		@Override
@@ -2279,15 +2408,52 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		if(bounds == null) {
 			return super.size();
 		}
-		int totalCount = 0;
-		Iterator<? extends TrieNode<E>> iterator = nodeIterator(true);
-		while(iterator.hasNext()) {
-			TrieNode<E> node = iterator.next();
-			if(node.isAdded() && bounds.isInBounds(node.getKey())) {
-				totalCount++;
-			}
+		// the added nodes in bounds are those from the first to the last in bounds, 
+		// so rather than iterating, count them using the sizes of the sub-tries along the paths to those two nodes
+		TrieNode<E> first = firstAddedNode();
+		if(first == null) {
+			return 0;
 		}
-		return totalCount;
+		TrieNode<E> last = lastAddedNode();
+		return last.precedingAddedCount(true) - first.precedingAddedCount(true) + 1;
+	}
+
+	/**
+	 * Returns the shape and estimated memory cost of this trie: the node and added node counts, the depth histogram,
+	 * the average lookup path length, the estimated bytes per node, and the prefix length distribution of the added elements.
+	 * <p>
+	 * The metrics are computed with a single traversal of the nodes, so this operation is linear in the number of nodes.
+	 * 
+	 * @return
+	 */
+	public AddressTrieMetrics getMetrics() {
+		return AddressTrieMetrics.compute(this);
+	}
+
+	/**
+	 * Returns a supplier of the metrics of this trie, suitable for periodic polling by a metrics registry.
+	 * <p>
+	 * The supplier retains the most recent snapshot, and computes a new snapshot with {@link #getMetrics()} only when this trie has changed since then,
+	 * so polling an unchanged trie is a constant-time operation.
+	 * Like the trie itself, the supplier is not thread-safe, and must be called with the same synchronization as the trie.
+	 * 
+	 * @return
+	 */
+	public Supplier<AddressTrieMetrics> metricsSupplier() {
+		return new Supplier<AddressTrieMetrics>() {
+			private AddressTrieMetrics metrics;
+			private Change change;
+
+			@Override
+			public AddressTrieMetrics get() {
+				ChangeTracker tracker = absoluteRoot().changeTracker;
+				if(metrics == null || tracker.isChangedSince(change)) {
+					change = tracker.getCurrent();
+					metrics = getMetrics();
+				}
+				return metrics;
+			}
+		};
 	}
 
 	/**
@@ -2312,7 +2478,7 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		while(iterator.hasNext()) {
 			next = iterator.next();
 			if(next.isAdded() && bounds.isInBounds(next.getKey())) {
-				countMap.put(next, next.containedCount);
+				countMap.put(next, next.getMatchingAddressCount());
 			} else {
 				TrieNode<E> lower = next.getLowerSubNode();
 				BigInteger count;
@@ -2386,184 +2552,1020 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		return node;
 	}
 
-	public static abstract class SubNodesMapping<E extends Address, N extends SubNodesMapping<E, N>> {
-		// subNodes is the list of direct and indirect added sub-nodes in the original trie
-		ArrayList<AssociativeTrieNode<E, N>> subNodes;
-		
-		abstract Object getUnderlyingValue();
-	}
-	
-	protected static class SubNodesMappingBasic<E extends Address> extends SubNodesMapping<E, SubNodesMappingBasic<E>> {
-		
-		@Override
-		Object getUnderlyingValue() {
-			return null;
-		}
-	}
-	
-	
 	/**
-	 * Provides an associative trie in which the root and each added node are mapped to a list of their respective direct added nodes.
-	 * This trie provides an alternative non-binary tree structure of the added nodes.
-	 * It is used by {@link #toAddedNodesTreeString()} to produce a string showing the alternative structure.
-	 * If there are no non-added nodes in this trie, then the alternative tree structure provided by this method is the same as the original trie.
+	 * Adds the given addresses to the trie, returning true if the trie changed as a result.
+	 * <p>
+	 * When the trie is empty, the trie is constructed in linear time directly from the sorted addresses,
+	 * rather than by adding the addresses one at a time, each of which requires matching bits with existing nodes from the root downwards.
+	 * The resulting trie is the same as that produced by adding each address with {@link #add(Address)}.
+	 * <p>
+	 * The addresses need not be sorted, but if they are sorted by lowest address, and then by prefix length from shortest to longest,
+	 * so that prefix blocks precede the blocks and addresses they contain, then no sorting is required.
+	 * Otherwise, a sorted copy of the addresses is used, sorted in parallel.
+	 * When the trie is not empty, each address is added individually.
+	 * <p>
+	 * If any of the given addresses is not a single address nor prefix block, or does not match the bit count of the others and of the trie,
+	 * then this method throws IllegalArgumentException and none of the addresses are added.
+	 * See {@link #add(Address)} for more details.
 	 *
-	 * @return
+	 * @param addrs
+	 * @return whether any of the addresses were not already in the trie
 	 */
-	public abstract AddedTreeBase<E, ? extends SubNodesMapping<E, ? extends SubNodesMapping<E, ?>>> constructAddedNodesTree(); 
-
-	/**
-	* Constructs a trie in which added nodes are mapped to their list of added sub-nodes.
-	* This trie provides an alternative non-binary tree structure of the added nodes.
-	* It is used by ToAddedNodesTreeString to produce a string showing the alternative structure.
-	* If there are no non-added nodes in this trie, 
-	* then the alternative tree structure provided by this method is the same as the original trie.
-	* 
-	* @return
-	*/
-	protected void contructAddedTree(AssociativeAddressTrie<E, SubNodesMappingBasic<E>> emptyTrie) {
-		emptyTrie.addTrie(absoluteRoot()); // does not add values
-		
-		CachingIterator<? extends AssociativeTrieNode<E, SubNodesMappingBasic<E>>, E, 
-				AssociativeTrieNode<E, SubNodesMappingBasic<E>>> cachingIterator =
-				emptyTrie.containingFirstAllNodeIterator(true);
-		
-		while(cachingIterator.hasNext()) {
-			AssociativeTrieNode<E, SubNodesMappingBasic<E>> newNext = cachingIterator.next(), parent;
-			
-			// populate the values from the original trie into the new trie
-			newNext.setValue(new SubNodesMappingBasic<E>());
-			
-			// cache this node with its sub-nodes
-			cachingIterator.cacheWithLowerSubNode(newNext);
-			cachingIterator.cacheWithUpperSubNode(newNext);
-			
-			// the cached object is our parent
-			if(newNext.isAdded()) {
-				parent = cachingIterator.getCached();
-				if(parent != null) {
-					// find added parent, or the root if no added parent
-					// this part would be tricky if we accounted for the bounds,
-					// maybe we'd have to filter on the bounds, and also look for the sub-root
-					while(!parent.isAdded()) {
-						AssociativeTrieNode<E, SubNodesMappingBasic<E>> parentParent = parent.getParent();
-						if(parentParent == null) {
-							break;
-						}
-						parent = parentParent;
-					}
-					// store ourselves with that added parent or root
-					SubNodesMappingBasic<E> mappedNodes = parent.getValue();
-					ArrayList<AssociativeTrieNode<E, SubNodesMappingBasic<E>>> addedSubs = mappedNodes.subNodes;
-					if(addedSubs == null) {
-						addedSubs = new ArrayList<AssociativeTrieNode<E, SubNodesMappingBasic<E>>>(newNext.size() - 1);
-						mappedNodes.subNodes = addedSubs;
-					}
-					addedSubs.add(newNext);
-				} // else root
+	@SuppressWarnings("unchecked")
+	public boolean addAll(E addrs[]) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		absoluteRoot().checkFrozen();
+		int count = addrs.length;
+		E checked[] = addrs.clone();
+		boolean sorted = true;
+		boolean isEmpty = isEmpty();
+
+		// all the addresses are checked before any are added, so that the trie is unchanged when any of them cannot be added
+		int bitCount = isEmpty ? -1 : absoluteRoot().getKey().getBitCount();
+		for(int i = 0; i < count; i++) {
+			E addr = checked[i] = checkBlockOrAddress(addrs[i], true);
+			if(bitCount < 0) {
+				bitCount = addr.getBitCount();
+			} else if(addr.getBitCount() != bitCount) {
+				throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+			if(sorted && i > 0 && BULK_COMPARATOR.compare(checked[i - 1], addr) > 0) {
+				sorted = false;
 			}
 		}
-		SubNodesMappingBasic<E> value = emptyTrie.getRoot().getValue();
-		if(value != null && value.subNodes != null) {
-			value.subNodes.trimToSize();
+		if(count == 0) {
+			return false;
 		}
-		Iterator<? extends AssociativeTrieNode<E, SubNodesMappingBasic<E>>> iter = emptyTrie.allNodeIterator(true);
-		while(iter.hasNext()) {
-			SubNodesMappingBasic<E> list = iter.next().getValue();
-			if(list != null && list.subNodes != null) {
-				list.subNodes.trimToSize();
+		if(!isEmpty) {
+			boolean changed = false;
+			for(E addr : checked) {
+				changed |= add(addr);
 			}
+			return changed;
 		}
-	}
+		if(!sorted) {
+			Arrays.parallelSort(checked, BULK_COMPARATOR);
+		}
+		adjustRoot(checked[0]);
+		TrieNode<E> root = absoluteRoot();
 
-	/**
-	 * Provides a flattened version of the trie showing only the contained added nodes and their containment structure, which is non-binary.
-	 * The root node is included, which may or may not be added.
-	 * <p>
-	 * See {@link #constructAddedNodesTree()}
-	 * 
-	 * @return
-	 */
-	public abstract String toAddedNodesTreeString();
-	
-	protected static <E extends Address, N extends SubNodesMapping<E, N>> String toAddedNodesTreeString(AssociativeAddressTrie<E, N> addedTree) {
-		AssociativeTrieNode<E, N> root = addedTree.absoluteRoot();
-		return toAddedNodesTreeString(root);
-	}
-	
-	protected static <E extends Address, N extends SubNodesMapping<E, N>> String toAddedNodesTreeString(AssociativeTrieNode<E, N> root) {
+		// the path from the root to the most recently added node
+		ArrayList<TrieNode<E>> path = new ArrayList<>();
+		path.add(root);
+		E previous = null;
+		for(E addr : checked) {
+			if(addr.equals(previous)) {
+				continue;
+			}
+			previous = addr;
+			Integer prefLen = addr.getPrefixLength();
+			int addrBits = prefLen == null ? bitCount : prefLen;
+			if(addrBits == 0) {
+				root.setNodeAdded(true);
+				continue;
+			}
 
-		class IndentsNode {
-			Indents indents;
-			AssociativeTrieNode<E, N> node;
+			// The addresses are in pre-order, so the parent of the new node is on the current path.
+			// Back up to the closest node containing the address, finishing the sub-tries of the nodes we back up from.
+			TrieNode<E> parent, lastFinished = null;
+			while(true) {
+				parent = path.get(path.size() - 1);
+				if(parent == root) {
+					break;
+				}
+				E parentKey = parent.getKey();
+				Integer parentPrefLen = parentKey.getPrefixLength();
+				if(parentPrefLen != null && addrBits > parentPrefLen && getMatchingBits(parentKey, addr, parentPrefLen) == parentPrefLen) {
+					break;
+				}
+				path.remove(path.size() - 1);
+				finishBulkNode(parent);
+				lastFinished = parent;
+			}
+			int parentBits = parent.getKey().getPrefixLength();
+			boolean isUpper = addr.isOneBit(parentBits);
+			TrieNode<E> existing = isUpper ? parent.getUpperSubNode() : parent.getLowerSubNode();
+			TrieNode<E> newNode = parent.createNew(addr);
+			newNode.setNodeAdded(true);
+			if(existing == null) {
+				if(isUpper) {
+					parent.setUpper(newNode);
+				} else {
+					parent.setLower(newNode);
+				}
+			} else {
+				// The existing sub-node precedes the new node, so they split at a bit which is 0 in the existing and 1 in the new.
+				// That existing sub-node is the last one we backed up from, so its sub-trie is finished.
+				if(existing != lastFinished) {
+					throw new Error();
+				}
+				int splitBits = getMatchingBits(existing.getKey(), addr, addrBits);
+				E splitKey;
+				if(addr.isIPAddress()) {
+					splitKey = (E) addr.toIPAddress().toPrefixBlock(splitBits);
+				} else {
+					splitKey = (E) addr.setPrefixLength(splitBits).toPrefixBlock();
+				}
+				TrieNode<E> splitNode = parent.createNew(splitKey);
+				if(isUpper) {
+					parent.setUpper(splitNode);
+				} else {
+					parent.setLower(splitNode);
+				}
+				splitNode.setLower(existing);
+				splitNode.setUpper(newNode);
+				path.add(splitNode);
+			}
+			path.add(newNode);
+		}
+		for(int i = path.size() - 1; i >= 0; i--) {
+			finishBulkNode(path.get(i));
+		}
+		root.changeTracker.changed();
+		logAddedNodes();
+		return true;
+	}
 
-			IndentsNode(Indents indents, AssociativeTrieNode<E, N> node) {
-				this.indents = indents;
-				this.node = node;
+	// records all added nodes in the change log, if there is one, following bulk operations on an empty trie which bypass the usual node operations
+	private void logAddedNodes() {
+		if(absoluteRoot().changeTracker instanceof AddressTrieChangeLog) {
+			Iterator<? extends TrieNode<E>> iterator = nodeIterator(true);
+			while(iterator.hasNext()) {
+				iterator.next().logChange(ChangeType.ADDED);
 			}
 		}
-		
-		Deque<IndentsNode> stack = null;
-		StringBuilder builder = new StringBuilder();
-		builder.append('\n');
-		AssociativeTrieNode<E, N> nextNode = root;
-		String nodeIndent = "", subNodeIndent = "";
-		IndentsNode nextItem;
-		while(true) {
-			SubNodesMapping<E, N> nextNodeList = nextNode.getValue();
-			TrieNode.toNodeString(builder.append(nodeIndent), nextNode.isAdded(), nextNode.getKey(), nextNodeList.getUnderlyingValue()).append('\n');
+	}
 
-			ArrayList<AssociativeTrieNode<E, N>> nextNodes = nextNodeList.subNodes;
+	// sorts prefix blocks and addresses in trie pre-order, by lowest address, then by prefix length from shortest to longest
+	private static final Comparator<? super Address> BULK_COMPARATOR = new ValueComparator(true, false, true);
 
-			if(nextNodes != null && nextNodes.size() > 0) {
-				
-				AssociativeTrieNode<E, N> nNode, next;
+	// compares keys in the pre-order of BULK_COMPARATOR
+	static int compareBulkOrder(Address one, Address two) {
+		return BULK_COMPARATOR.compare(one, two);
+	}
 
-				int i = nextNodes.size() - 1;
-				Indents lastIndents = new Indents(
-						subNodeIndent + BinaryTreeNode.RIGHT_ELBOW,
-						subNodeIndent + BinaryTreeNode.BELOW_ELBOWS);
-				nNode = nextNodes.get(i);
-				next = nNode;
-				if(stack == null) {
-					stack = new ArrayDeque<>(root.size());
-				}
-				stack.addFirst(new IndentsNode(lastIndents, next));
-				if(nextNodes.size() > 1) {
-					Indents firstIndents = new Indents(
-							subNodeIndent + BinaryTreeNode.LEFT_ELBOW,
-							subNodeIndent + BinaryTreeNode.IN_BETWEEN_ELBOWS);
-					for(--i; i >= 0; i--) {
-						nNode = nextNodes.get(i);
-						next = nNode;
-						stack.addFirst(new IndentsNode(firstIndents, next));
-					}
-				}
+	// The sub-nodes are finished, so the size and contained count of the node can be assigned.
+	// As with adding nodes individually, the contained count of an added node is the count of its own key, which contains those of its sub-nodes.
+	private static <E extends Address> void finishBulkNode(TrieNode<E> node) {
+		boolean isAdded = node.isAdded();
+		int nodeSize = isAdded ? 1 : 0;
+		BigInteger containedCount = isAdded ? node.getKeyContainedCount() : BigInteger.ZERO;
+		TrieNode<E> lower = node.getLowerSubNode();
+		if(lower != null) {
+			nodeSize += lower.size;
+			if(!isAdded) {
+				containedCount = containedCount.add(lower.containedCount);
 			}
-			if(stack == null) {
-				break;
+		}
+		TrieNode<E> upper = node.getUpperSubNode();
+		if(upper != null) {
+			nodeSize += upper.size;
+			if(!isAdded) {
+				containedCount = containedCount.add(upper.containedCount);
 			}
-			nextItem = stack.pollFirst();
-			if(nextItem == null) {
+		}
+		node.size = nodeSize;
+		node.containedCount = containedCount;
+	}
+
+	// the number of leading bits that match, up to the given maximum
+	static int getMatchingBits(Address one, Address two, int maxBits) {
+		int bitsPerSegment = one.getBitsPerSegment();
+		int matchedBits = 0;
+		for(int i = 0; matchedBits < maxBits; i++) {
+			int segmentMatchedBits = getMatchingBits(one.getSegment(i), two.getSegment(i), bitsPerSegment, bitsPerSegment);
+			matchedBits += segmentMatchedBits;
+			if(segmentMatchedBits < bitsPerSegment) {
 				break;
 			}
-			nextNode = nextItem.node;
-			Indents nextIndents = nextItem.indents;
-			nodeIndent = nextIndents.nodeIndent;
-			subNodeIndent = nextIndents.subNodeInd;
 		}
-		return builder.toString();
+		return Math.min(matchedBits, maxBits);
 	}
 
-	TrieNode<E> addNode(OpResult<E> result, TrieNode<E> fromNode, TrieNode<E> nodeToAdd, boolean withValues) {
-		fromNode.matchBitsFromIndex(fromNode.getKey().getPrefixLength(), result);
-		TrieNode<E> node = result.existingNode;
-		return node == null ? result.inserted : node;
+	// whether the given node key contains the given key, both being prefix blocks or individual addresses
+	static boolean keyContains(Address nodeKey, Address key) {
+		int bitCount = nodeKey.getBitCount();
+		if(bitCount != key.getBitCount()) {
+			return false;
+		}
+		Integer nodePrefLen = nodeKey.getPrefixLength(), prefLen = key.getPrefixLength();
+		int nodeBits = nodePrefLen == null ? bitCount : nodePrefLen;
+		int bits = prefLen == null ? bitCount : prefLen;
+		return nodeBits <= bits && getMatchingBits(nodeKey, key, nodeBits) == nodeBits;
 	}
-	
-	// Note: this method not called from sets or maps, so bounds does not apply
-	TrieNode<E> addTrie(TrieNode<E> tree, boolean withValues) {
-		CachingIterator<? extends TrieNode<E>, E, TrieNode<E>> iterator = 
+
+	// The compact binary trie format, see writeTo
+	private static final int TRIE_DATA_MAGIC = 0x49505472; // "IPTr"
+	private static final int TRIE_DATA_VERSION = 1;
+	private static final int TRIE_DATA_EMPTY = 0, TRIE_DATA_IPV4 = 1, TRIE_DATA_IPV6 = 2, TRIE_DATA_MAC = 3;
+	private static final int TRIE_DATA_HAS_VALUES = 1;
+	private static final int NODE_ADDED = 4, NODE_HAS_LOWER = 2, NODE_HAS_UPPER = 1;
+
+	/**
+	 * Writes this trie to the given stream in a compact binary format, which can be read back with {@link #readFrom(InputStream)} or {@link #readFrom(ByteBuffer)}.
+	 * <p>
+	 * This is much more compact, and much faster to both write and read, than java serialization, which writes the full object graph.
+	 * <p>
+	 * The nodes are written in pre-order, each with three bits indicating whether the node is added and whether it has lower and upper sub-nodes.
+	 * The key of each node is written relative to the key of its parent.  
+	 * The two keys share the bits of the parent prefix, and the next bit is 0 for a lower sub-node and 1 for an upper sub-node,
+	 * so only the difference in prefix length and the remaining bits of the node prefix are written.
+	 * <p>
+	 * The data is buffered and written to the stream in blocks, but the stream is neither flushed nor closed.
+	 * To write to a channel, use {@link java.nio.channels.Channels#newOutputStream(java.nio.channels.WritableByteChannel)}.
+	 * <p>
+	 * The values of an associative trie are not written, see {@link AssociativeAddressTrie#writeTo(OutputStream, AssociativeAddressTrie.ValueCodec)}.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		writeTrie(out, null);
+	}
+
+	/**
+	 * Replaces the contents of this trie with the trie data read from the given stream, data written by {@link #writeTo(OutputStream)}.
+	 * <p>
+	 * The trie is constructed in linear time, without matching bits with existing nodes, since the trie data specifies the trie structure.
+	 * <p>
+	 * The stream is read in blocks, so bytes following the trie data in the stream may also be read.
+	 * To read trie data followed by other data, or to read from a memory-mapped file, use {@link #readFrom(ByteBuffer)}.
+	 * <p>
+	 * If the trie data is for a different type of address, then this method throws IllegalArgumentException, leaving this trie unchanged.
+	 * If the data is otherwise invalid, this trie is left empty.
+	 * The values of an associative trie written with {@link AssociativeAddressTrie#writeTo(OutputStream, AssociativeAddressTrie.ValueCodec)} are skipped.
+	 * 
+	 * @param in
+	 * @throws IOException if the stream could not be read, or the data is not valid trie data
+	 */
+	public void readFrom(InputStream in) throws IOException {
+		readTrie(new TrieInput(in), null);
+	}
+
+	/**
+	 * Replaces the contents of this trie with the trie data read from the given buffer, data written by {@link #writeTo(OutputStream)}.
+	 * <p>
+	 * The buffer position is advanced to the end of the trie data.
+	 * To read a file of trie data, the buffer can be a file region mapped into memory with {@link java.nio.channels.FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)}.
+	 * <p>
+	 * If the trie data is for a different type of address, then this method throws IllegalArgumentException, leaving this trie unchanged.
+	 * If the data is otherwise invalid, this trie is left empty.
+	 * The values of an associative trie written with {@link AssociativeAddressTrie#writeTo(OutputStream, AssociativeAddressTrie.ValueCodec)} are skipped.
+	 * 
+	 * @param buffer
+	 * @throws IOException if the data is not valid trie data
+	 */
+	public void readFrom(ByteBuffer buffer) throws IOException {
+		readTrie(new TrieInput(buffer), null);
+	}
+
+	@SuppressWarnings("unchecked")
+	void writeTrie(OutputStream out, ValueCodec<?> codec) throws IOException {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		TrieNode<E> root = absoluteRoot();
+		E rootKey = root.getKey();
+		TrieOutput output = new TrieOutput(out);
+		DataOutputStream dataOut = new DataOutputStream(output);
+		dataOut.writeInt(TRIE_DATA_MAGIC);
+		dataOut.writeByte(TRIE_DATA_VERSION);
+		if(rootKey == null) {
+			dataOut.writeByte(TRIE_DATA_EMPTY);
+		} else {
+			dataOut.writeByte(getKeyType(rootKey));
+			dataOut.writeByte(rootKey.getBitCount());
+			dataOut.writeByte(codec == null ? 0 : TRIE_DATA_HAS_VALUES);
+			dataOut.writeInt(size());
+			writeNode(root, 0, output);
+			output.alignBits();
+			if(codec != null) {
+				// the values are preceded by their length in bytes, so that they can be skipped when read without a codec
+				ValueCodec<Object> valueCodec = (ValueCodec<Object>) codec;
+				ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+				DataOutputStream valueOut = new DataOutputStream(valueBytes);
+				Iterator<? extends TrieNode<E>> iterator = root.containingFirstIterator(true);
+				while(iterator.hasNext()) {
+					valueCodec.write(((AssociativeTrieNode<E, ?>) iterator.next()).getValue(), valueOut);
+				}
+				dataOut.writeInt(valueBytes.size());
+				valueBytes.writeTo(dataOut);
+			}
+		}
+		output.flushBuffer();
+	}
+
+	// the type of key, as used by createKey
+	static int getKeyType(Address key) {
+		if(key.isIPAddress()) {
+			return key.toIPAddress().isIPv4() ? TRIE_DATA_IPV4 : TRIE_DATA_IPV6;
+		} else if(key.isMACAddress()) {
+			return TRIE_DATA_MAC;
+		}
+		throw new UnsupportedOperationException();
+	}
+
+	private static <E extends Address> void writeNode(TrieNode<E> node, int keyBits, TrieOutput output) throws IOException {
+		TrieNode<E> lower = node.getLowerSubNode(), upper = node.getUpperSubNode();
+		output.writeBits((node.isAdded() ? NODE_ADDED : 0) | (lower != null ? NODE_HAS_LOWER : 0) | (upper != null ? NODE_HAS_UPPER : 0), 3);
+		if(lower != null) {
+			writeSubNode(lower, keyBits, output);
+		}
+		if(upper != null) {
+			writeSubNode(upper, keyBits, output);
+		}
+	}
+
+	private static <E extends Address> void writeSubNode(TrieNode<E> node, int parentBits, TrieOutput output) throws IOException {
+		E key = node.getKey();
+		Integer prefLen = key.getPrefixLength();
+		int keyBits = prefLen == null ? key.getBitCount() : prefLen;
+		output.writeGamma(keyBits - parentBits);
+		// the bit following the parent prefix is implied by whether the node is the lower or upper sub-node
+		byte bytes[] = key.getBytes();
+		for(int i = parentBits + 1; i < keyBits; i++) {
+			output.writeBits((bytes[i >>> 3] >>> (7 - (i & 7))) & 1, 1);
+		}
+		writeNode(node, keyBits, output);
+	}
+
+	void readTrie(TrieInput input, ValueCodec<?> codec) throws IOException {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		TrieNode<E> root = absoluteRoot();
+		root.checkFrozen();
+		DataInputStream dataIn = new DataInputStream(input);
+		if(dataIn.readInt() != TRIE_DATA_MAGIC || dataIn.readUnsignedByte() != TRIE_DATA_VERSION) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		int type = dataIn.readUnsignedByte();
+		if(type == TRIE_DATA_EMPTY) {
+			clear();
+			return;
+		} else if(type > TRIE_DATA_MAC) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		int bitCount = dataIn.readUnsignedByte();
+		int flags = dataIn.readUnsignedByte();
+		int size = dataIn.readInt();
+		if((flags & ~TRIE_DATA_HAS_VALUES) != 0 || size < 0) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		byte bytes[] = new byte[(bitCount + 7) >>> 3];
+		E rootKey;
+		try {
+			rootKey = createKey(type, bytes, bitCount, bitCount);
+		} catch(AddressValueException e) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		if(rootKey.getBitCount() != bitCount) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		// check that the keys fit this trie before discarding the existing contents,
+		// using an empty trie of the same type, whose root may be adjusted to the keys
+		AddressTrie<E> emptyTrie = createNew(null);
+		try {
+			emptyTrie.adjustRoot(rootKey);
+		} catch(ClassCastException e) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		E emptyRootKey = emptyTrie.absoluteRoot().getKey();
+		if(emptyRootKey != null && (emptyRootKey.getBitCount() != bitCount || getKeyType(emptyRootKey) != type)) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		clear();
+		try {
+			adjustRoot(rootKey);
+			readNode(root, 0, bytes, bitCount, type, input, true);
+			if(root.size() != size) {
+				throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+			}
+			input.alignBits();
+			if((flags & TRIE_DATA_HAS_VALUES) != 0) {
+				int valuesLength = dataIn.readInt();
+				if(valuesLength < 0) {
+					throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+				}
+				if(codec == null) {
+					input.skipFully(valuesLength);
+				} else {
+					long valuesEnd = input.getReadCount() + valuesLength;
+					Iterator<? extends TrieNode<E>> iterator = root.containingFirstIterator(true);
+					while(iterator.hasNext()) {
+						@SuppressWarnings("unchecked")
+						AssociativeTrieNode<E, Object> node = (AssociativeTrieNode<E, Object>) iterator.next();
+						node.initValue(codec.read(dataIn));
+					}
+					if(input.getReadCount() != valuesEnd) {
+						throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+					}
+				}
+			}
+			logAddedNodes();
+		} catch(IOException | RuntimeException e) {
+			clear();
+			throw e;
+		} finally {
+			root.changeTracker.changed();
+		}
+	}
+
+	private void readNode(TrieNode<E> node, int keyBits, byte bytes[], int bitCount, int type, TrieInput input, boolean isRoot) throws IOException {
+		int nodeFlags = input.readBits(3);
+		boolean isAdded = (nodeFlags & NODE_ADDED) != 0;
+		// apart from the root, a node that was not added is only in the trie to join two sub-nodes
+		if(!isRoot && !isAdded && (nodeFlags & (NODE_HAS_LOWER | NODE_HAS_UPPER)) != (NODE_HAS_LOWER | NODE_HAS_UPPER)) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		if(isAdded) {
+			node.setNodeAdded(true);
+		}
+		if((nodeFlags & NODE_HAS_LOWER) != 0) {
+			node.setLower(readSubNode(node, keyBits, false, bytes, bitCount, type, input));
+		}
+		if((nodeFlags & NODE_HAS_UPPER) != 0) {
+			node.setUpper(readSubNode(node, keyBits, true, bytes, bitCount, type, input));
+		}
+		finishBulkNode(node);
+	}
+
+	// the bytes hold the bits of the parent prefix, to which we add the bits of the sub-node prefix
+	private TrieNode<E> readSubNode(TrieNode<E> parent, int parentBits, boolean isUpper, byte bytes[], int bitCount, int type, TrieInput input) throws IOException {
+		int keyBits = parentBits + input.readGamma();
+		if(keyBits > bitCount) {
+			throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+		}
+		setBit(bytes, parentBits, isUpper);
+		for(int i = parentBits + 1; i < keyBits; i++) {
+			setBit(bytes, i, input.readBits(1) != 0);
+		}
+		TrieNode<E> node = parent.createNew(createKey(type, bytes.clone(), keyBits, bitCount));
+		readNode(node, keyBits, bytes, bitCount, type, input, false);
+		return node;
+	}
+
+	private static void setBit(byte bytes[], int index, boolean isOne) {
+		int mask = 0x80 >>> (index & 7);
+		if(isOne) {
+			bytes[index >>> 3] |= mask;
+		} else {
+			bytes[index >>> 3] &= ~mask;
+		}
+	}
+
+	// creates the prefix block, or the address when the prefix length is the bit count, as with checkBlockOrAddress
+	@SuppressWarnings("unchecked")
+	static <E extends Address> E createKey(int type, byte bytes[], int prefixLength, int bitCount) {
+		Address key;
+		if(type == TRIE_DATA_IPV4) {
+			IPv4Address addr = new IPv4Address(bytes);
+			key = prefixLength == bitCount ? addr : addr.toPrefixBlock(prefixLength);
+		} else if(type == TRIE_DATA_IPV6) {
+			IPv6Address addr = new IPv6Address(bytes);
+			key = prefixLength == bitCount ? addr : addr.toPrefixBlock(prefixLength);
+		} else {
+			MACAddress addr = new MACAddress(bytes);
+			key = prefixLength == bitCount ? addr : addr.setPrefixLength(prefixLength).toPrefixBlock();
+		}
+		return (E) key;
+	}
+
+	// buffers the trie data written to a stream, allowing for the writing of bits
+	static class TrieOutput extends OutputStream {
+		private final OutputStream out;
+		private final byte buffer[] = new byte[8192];
+		private int count;
+
+		// the bits not yet written, fewer than 8
+		private int bits, bitCount;
+
+		TrieOutput(OutputStream out) {
+			this.out = out;
+		}
+
+		// writes the lowest bits of the given value, up to 24 bits
+		void writeBits(int value, int count) throws IOException {
+			bits = (bits << count) | (value & ((1 << count) - 1));
+			bitCount += count;
+			while(bitCount >= 8) {
+				bitCount -= 8;
+				write(bits >>> bitCount);
+			}
+			bits &= (1 << bitCount) - 1;
+		}
+
+		// Elias gamma coding of a positive value, the bit length less one as zeros, followed by the value
+		void writeGamma(int value) throws IOException {
+			int length = Integer.SIZE - Integer.numberOfLeadingZeros(value);
+			writeBits(0, length - 1);
+			writeBits(value, length);
+		}
+
+		void alignBits() throws IOException {
+			if(bitCount > 0) {
+				writeBits(0, 8 - bitCount);
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if(count == buffer.length) {
+				flushBuffer();
+			}
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte b[], int off, int len) throws IOException {
+			if(len > buffer.length - count) {
+				flushBuffer();
+				if(len > buffer.length) {
+					out.write(b, off, len);
+					return;
+				}
+			}
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
+
+		void flushBuffer() throws IOException {
+			if(count > 0) {
+				out.write(buffer, 0, count);
+				count = 0;
+			}
+		}
+	}
+
+	// reads trie data from either a stream or a buffer, allowing for the reading of bits
+	static class TrieInput extends InputStream {
+		private final InputStream in; // null when reading from a buffer
+		private final ByteBuffer buffer;
+
+		// the bits read but not yet consumed, fewer than 8
+		private int bits, bitCount;
+
+		// the number of bytes read
+		private long readCount;
+
+		TrieInput(InputStream in) {
+			this.in = in;
+			buffer = ByteBuffer.allocate(8192);
+			buffer.limit(0);
+		}
+
+		TrieInput(ByteBuffer buffer) {
+			this.in = null;
+			this.buffer = buffer;
+		}
+
+		private boolean fill() throws IOException {
+			if(in == null) {
+				return false;
+			}
+			int len = in.read(buffer.array(), 0, buffer.capacity());
+			if(len <= 0) {
+				return false;
+			}
+			buffer.position(0);
+			buffer.limit(len);
+			return true;
+		}
+
+		// reads up to 24 bits
+		int readBits(int count) throws IOException {
+			while(bitCount < count) {
+				int b = read();
+				if(b < 0) {
+					throw new EOFException();
+				}
+				bits = (bits << 8) | b;
+				bitCount += 8;
+			}
+			bitCount -= count;
+			int result = bits >>> bitCount;
+			bits &= (1 << bitCount) - 1;
+			return result;
+		}
+
+		int readGamma() throws IOException {
+			int length = 1;
+			while(readBits(1) == 0) {
+				if(++length > Integer.SIZE - 1) {
+					throw new StreamCorruptedException(getMessage("ipaddress.error.invalid.trie.data"));
+				}
+			}
+			return length == 1 ? 1 : ((1 << (length - 1)) | readBits(length - 1));
+		}
+
+		void alignBits() {
+			bits = bitCount = 0;
+		}
+
+		long getReadCount() {
+			return readCount;
+		}
+
+		void skipFully(int len) throws IOException {
+			while(len > 0) {
+				if(!buffer.hasRemaining() && !fill()) {
+					throw new EOFException();
+				}
+				int skipped = Math.min(len, buffer.remaining());
+				buffer.position(buffer.position() + skipped);
+				readCount += skipped;
+				len -= skipped;
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(!buffer.hasRemaining() && !fill()) {
+				return -1;
+			}
+			readCount++;
+			return buffer.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte b[], int off, int len) throws IOException {
+			if(len == 0) {
+				return 0;
+			}
+			if(!buffer.hasRemaining() && !fill()) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			readCount += len;
+			return len;
+		}
+	}
+
+	/**
+	 * Returns a new trie whose elements are those elements in either this trie or the given trie.
+	 * <p>
+	 * The two tries are traversed together, and any sub-trie with no counterpart in the other trie is copied in its entirety without further comparison.
+	 * The new trie is then constructed in linear time, as with {@link #addAll(Address[])}.
+	 * <p>
+	 * For associative tries, each element in the new trie is mapped to the same value as in this trie, or if not in this trie, the same value as in the given trie.
+	 * <p>
+	 * Like all the other trie operations, the elements of the trie are the added prefix blocks and addresses,
+	 * so an element is not considered to be in a trie when it is contained by a larger prefix block in the trie.
+	 * For operations between tries that consider the contained addresses instead, use {@link inet.ipaddr.IPAddressContainmentTrieBase}.
+	 * <p>
+	 * Since a trie holds addresses of a single bit count, if both tries have elements and their bit counts differ, such as IPv4 and IPv6 tries,
+	 * then the union and the symmetric difference throw IllegalArgumentException.
+	 * <p>
+	 * Neither trie is modified.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public AddressTrie<E> union(AddressTrie<E> other) {
+		return combine(other, true, true, true);
+	}
+
+	/**
+	 * Returns a new trie whose elements are those elements in both this trie and the given trie.
+	 * <p>
+	 * Any sub-trie with no counterpart in the other trie is skipped in its entirety.
+	 * See {@link #union(AddressTrie)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public AddressTrie<E> intersection(AddressTrie<E> other) {
+		return combine(other, false, false, true);
+	}
+
+	/**
+	 * Returns a new trie whose elements are those elements in this trie that are not in the given trie.
+	 * <p>
+	 * See {@link #union(AddressTrie)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public AddressTrie<E> difference(AddressTrie<E> other) {
+		return combine(other, true, false, false);
+	}
+
+	/**
+	 * Returns a new trie whose elements are those elements in exactly one of this trie and the given trie.
+	 * <p>
+	 * See {@link #union(AddressTrie)} for more details.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public AddressTrie<E> symmetricDifference(AddressTrie<E> other) {
+		return combine(other, true, true, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private AddressTrie<E> combine(AddressTrie<E> other, boolean keepThis, boolean keepOther, boolean keepBoth) {
+		if(bounds != null || other.bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		TrieNode<E> root = absoluteRoot(), otherRoot = other.absoluteRoot();
+		E rootKey = root.getKey(), otherRootKey = otherRoot.getKey();
+		ArrayList<TrieNode<E>> nodes = new ArrayList<>();
+		if(rootKey == null || otherRootKey == null || rootKey.getBitCount() == otherRootKey.getBitCount()) {
+			combine(rootKey == null ? null : root, otherRootKey == null ? null : otherRoot, keepThis, keepOther, keepBoth, nodes);
+		} else {
+			// tries of different address versions have no elements in common, and a trie cannot have the elements of both
+			if(keepThis && keepOther && !isEmpty() && !other.isEmpty()) {
+				throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+			combine(root, null, keepThis, keepOther, keepBoth, nodes);
+			combine(null, otherRoot, keepThis, keepOther, keepBoth, nodes);
+		}
+		int size = nodes.size();
+		E keys[] = (E[]) new Address[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = nodes.get(i).getKey();
+		}
+		AddressTrie<E> result = createNew(null);
+		result.addAll(keys);
+		result.combined(nodes);
+		return result;
+	}
+
+	// the nodes of this trie were constructed from the given nodes of other tries, in the same order
+	void combined(ArrayList<TrieNode<E>> fromNodes) {}
+
+	// Traverses the two sub-tries together, collecting the added nodes to be kept, in trie pre-order.
+	// Once one side has no corresponding node, the other side is either kept or discarded in its entirety.
+	private static <E extends Address> void combine(
+			TrieNode<E> one, TrieNode<E> two, boolean keepOne, boolean keepTwo, boolean keepBoth, ArrayList<TrieNode<E>> result) {
+		if(one == null) {
+			if(two != null && keepTwo) {
+				addSubTrie(two, result);
+			}
+			return;
+		} else if(two == null) {
+			if(keepOne) {
+				addSubTrie(one, result);
+			}
+			return;
+		}
+		E oneKey = one.getKey(), twoKey = two.getKey();
+		Integer onePrefLen = oneKey.getPrefixLength(), twoPrefLen = twoKey.getPrefixLength();
+		int oneBits = onePrefLen == null ? oneKey.getBitCount() : onePrefLen;
+		int twoBits = twoPrefLen == null ? twoKey.getBitCount() : twoPrefLen;
+		int minBits = Math.min(oneBits, twoBits);
+		int matchingBits = getMatchingBits(oneKey, twoKey, minBits);
+		if(matchingBits == minBits) {
+			if(oneBits == twoBits) {
+				if(one.isAdded()) {
+					if(two.isAdded() ? keepBoth : keepOne) {
+						result.add(one);
+					}
+				} else if(two.isAdded() && keepTwo) {
+					result.add(two);
+				}
+				combine(one.getLowerSubNode(), two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+				combine(one.getUpperSubNode(), two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+			} else if(oneBits < twoBits) { // one contains two
+				if(one.isAdded() && keepOne) {
+					result.add(one);
+				}
+				if(twoKey.isOneBit(oneBits)) {
+					combine(one.getLowerSubNode(), null, keepOne, keepTwo, keepBoth, result);
+					combine(one.getUpperSubNode(), two, keepOne, keepTwo, keepBoth, result);
+				} else {
+					combine(one.getLowerSubNode(), two, keepOne, keepTwo, keepBoth, result);
+					combine(one.getUpperSubNode(), null, keepOne, keepTwo, keepBoth, result);
+				}
+			} else { // two contains one
+				if(two.isAdded() && keepTwo) {
+					result.add(two);
+				}
+				if(oneKey.isOneBit(twoBits)) {
+					combine(null, two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+					combine(one, two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+				} else {
+					combine(one, two.getLowerSubNode(), keepOne, keepTwo, keepBoth, result);
+					combine(null, two.getUpperSubNode(), keepOne, keepTwo, keepBoth, result);
+				}
+			}
+		} else if(twoKey.isOneBit(matchingBits)) { // disjoint, one precedes two
+			combine(one, null, keepOne, keepTwo, keepBoth, result);
+			combine(null, two, keepOne, keepTwo, keepBoth, result);
+		} else { // disjoint, two precedes one
+			combine(null, two, keepOne, keepTwo, keepBoth, result);
+			combine(one, null, keepOne, keepTwo, keepBoth, result);
+		}
+	}
+
+	private static <E extends Address> void addSubTrie(TrieNode<E> node, ArrayList<TrieNode<E>> result) {
+		Iterator<? extends TrieNode<E>> iterator = node.containingFirstIterator(true);
+		while(iterator.hasNext()) {
+			result.add(iterator.next());
+		}
+	}
+
+	public static abstract class SubNodesMapping<E extends Address, N extends SubNodesMapping<E, N>> {
+		// subNodes is the list of direct and indirect added sub-nodes in the original trie
+		ArrayList<AssociativeTrieNode<E, N>> subNodes;
+		
+		abstract Object getUnderlyingValue();
+	}
+	
+	protected static class SubNodesMappingBasic<E extends Address> extends SubNodesMapping<E, SubNodesMappingBasic<E>> {
+		
+		@Override
+		Object getUnderlyingValue() {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Provides an associative trie in which the root and each added node are mapped to a list of their respective direct added nodes.
+	 * This trie provides an alternative non-binary tree structure of the added nodes.
+	 * It is used by {@link #toAddedNodesTreeString()} to produce a string showing the alternative structure.
+	 * If there are no non-added nodes in this trie, then the alternative tree structure provided by this method is the same as the original trie.
+	 *
+	 * @return
+	 */
+	public abstract AddedTreeBase<E, ? extends SubNodesMapping<E, ? extends SubNodesMapping<E, ?>>> constructAddedNodesTree(); 
+
+	/**
+	 * Provides the same non-binary tree structure of the added nodes as {@link #constructAddedNodesTree()},
+	 * but as a view of this trie that is evaluated lazily, rather than a copy constructed in full.
+	 * <p>
+	 * This operation is constant time, and traversing the view costs time proportional to the nodes visited,
+	 * making it suitable for repeatedly rendering or querying parts of the containment hierarchy of a large trie.
+	 * The view reflects subsequent changes to this trie, see {@link AddedNodesTreeView}.
+	 * <p>
+	 * Like {@link #constructAddedNodesTree()}, the view starts from the root of the whole trie, not accounting for any bounds.
+	 *
+	 * @return
+	 */
+	public AddedNodesTreeView<E> addedNodesTreeView() {
+		return new AddedNodesTreeView<E>(absoluteRoot());
+	}
+
+	/**
+	* Constructs a trie in which added nodes are mapped to their list of added sub-nodes.
+	* This trie provides an alternative non-binary tree structure of the added nodes.
+	* It is used by ToAddedNodesTreeString to produce a string showing the alternative structure.
+	* If there are no non-added nodes in this trie, 
+	* then the alternative tree structure provided by this method is the same as the original trie.
+	* 
+	* @return
+	*/
+	protected void contructAddedTree(AssociativeAddressTrie<E, SubNodesMappingBasic<E>> emptyTrie) {
+		emptyTrie.addTrie(absoluteRoot()); // does not add values
+		
+		CachingIterator<? extends AssociativeTrieNode<E, SubNodesMappingBasic<E>>, E, 
+				AssociativeTrieNode<E, SubNodesMappingBasic<E>>> cachingIterator =
+				emptyTrie.containingFirstAllNodeIterator(true);
+		
+		while(cachingIterator.hasNext()) {
+			AssociativeTrieNode<E, SubNodesMappingBasic<E>> newNext = cachingIterator.next(), parent;
+			
+			// populate the values from the original trie into the new trie
+			newNext.setValue(new SubNodesMappingBasic<E>());
+			
+			// cache this node with its sub-nodes
+			cachingIterator.cacheWithLowerSubNode(newNext);
+			cachingIterator.cacheWithUpperSubNode(newNext);
+			
+			// the cached object is our parent
+			if(newNext.isAdded()) {
+				parent = cachingIterator.getCached();
+				if(parent != null) {
+					// find added parent, or the root if no added parent
+					// this part would be tricky if we accounted for the bounds,
+					// maybe we'd have to filter on the bounds, and also look for the sub-root
+					while(!parent.isAdded()) {
+						AssociativeTrieNode<E, SubNodesMappingBasic<E>> parentParent = parent.getParent();
+						if(parentParent == null) {
+							break;
+						}
+						parent = parentParent;
+					}
+					// store ourselves with that added parent or root
+					SubNodesMappingBasic<E> mappedNodes = parent.getValue();
+					ArrayList<AssociativeTrieNode<E, SubNodesMappingBasic<E>>> addedSubs = mappedNodes.subNodes;
+					if(addedSubs == null) {
+						addedSubs = new ArrayList<AssociativeTrieNode<E, SubNodesMappingBasic<E>>>(newNext.size() - 1);
+						mappedNodes.subNodes = addedSubs;
+					}
+					addedSubs.add(newNext);
+				} // else root
+			}
+		}
+		SubNodesMappingBasic<E> value = emptyTrie.getRoot().getValue();
+		if(value != null && value.subNodes != null) {
+			value.subNodes.trimToSize();
+		}
+		Iterator<? extends AssociativeTrieNode<E, SubNodesMappingBasic<E>>> iter = emptyTrie.allNodeIterator(true);
+		while(iter.hasNext()) {
+			SubNodesMappingBasic<E> list = iter.next().getValue();
+			if(list != null && list.subNodes != null) {
+				list.subNodes.trimToSize();
+			}
+		}
+	}
+
+	/**
+	 * Provides a flattened version of the trie showing only the contained added nodes and their containment structure, which is non-binary.
+	 * The root node is included, which may or may not be added.
+	 * <p>
+	 * See {@link #constructAddedNodesTree()}
+	 * 
+	 * @return
+	 */
+	public abstract String toAddedNodesTreeString();
+	
+	protected static <E extends Address, N extends SubNodesMapping<E, N>> String toAddedNodesTreeString(AssociativeAddressTrie<E, N> addedTree) {
+		AssociativeTrieNode<E, N> root = addedTree.absoluteRoot();
+		return toAddedNodesTreeString(root);
+	}
+	
+	protected static <E extends Address, N extends SubNodesMapping<E, N>> String toAddedNodesTreeString(AssociativeTrieNode<E, N> root) {
+
+		class IndentsNode {
+			Indents indents;
+			AssociativeTrieNode<E, N> node;
+
+			IndentsNode(Indents indents, AssociativeTrieNode<E, N> node) {
+				this.indents = indents;
+				this.node = node;
+			}
+		}
+		
+		Deque<IndentsNode> stack = null;
+		StringBuilder builder = new StringBuilder();
+		builder.append('\n');
+		AssociativeTrieNode<E, N> nextNode = root;
+		String nodeIndent = "", subNodeIndent = "";
+		IndentsNode nextItem;
+		while(true) {
+			SubNodesMapping<E, N> nextNodeList = nextNode.getValue();
+			TrieNode.toNodeString(builder.append(nodeIndent), nextNode.isAdded(), nextNode.getKey(), nextNodeList.getUnderlyingValue()).append('\n');
+
+			ArrayList<AssociativeTrieNode<E, N>> nextNodes = nextNodeList.subNodes;
+
+			if(nextNodes != null && nextNodes.size() > 0) {
+				
+				AssociativeTrieNode<E, N> nNode, next;
+
+				int i = nextNodes.size() - 1;
+				Indents lastIndents = new Indents(
+						subNodeIndent + BinaryTreeNode.RIGHT_ELBOW,
+						subNodeIndent + BinaryTreeNode.BELOW_ELBOWS);
+				nNode = nextNodes.get(i);
+				next = nNode;
+				if(stack == null) {
+					stack = new ArrayDeque<>(root.size());
+				}
+				stack.addFirst(new IndentsNode(lastIndents, next));
+				if(nextNodes.size() > 1) {
+					Indents firstIndents = new Indents(
+							subNodeIndent + BinaryTreeNode.LEFT_ELBOW,
+							subNodeIndent + BinaryTreeNode.IN_BETWEEN_ELBOWS);
+					for(--i; i >= 0; i--) {
+						nNode = nextNodes.get(i);
+						next = nNode;
+						stack.addFirst(new IndentsNode(firstIndents, next));
+					}
+				}
+			}
+			if(stack == null) {
+				break;
+			}
+			nextItem = stack.pollFirst();
+			if(nextItem == null) {
+				break;
+			}
+			nextNode = nextItem.node;
+			Indents nextIndents = nextItem.indents;
+			nodeIndent = nextIndents.nodeIndent;
+			subNodeIndent = nextIndents.subNodeInd;
+		}
+		return builder.toString();
+	}
+
+	TrieNode<E> addNode(OpResult<E> result, TrieNode<E> fromNode, TrieNode<E> nodeToAdd, boolean withValues) {
+		fromNode.matchBitsFromIndex(fromNode.getKey().getPrefixLength(), result);
+		TrieNode<E> node = result.existingNode;
+		return node == null ? result.inserted : node;
+	}
+	
+	// Note: this method not called from sets or maps, so bounds does not apply
+	TrieNode<E> addTrie(TrieNode<E> tree, boolean withValues) {
+		CachingIterator<? extends TrieNode<E>, E, TrieNode<E>> iterator = 
 				tree.containingFirstAllNodeIterator(true);
 		TrieNode<E> toAdd = iterator.next();
 		OpResult<E> result = new OpResult<>(toAdd.getKey(), Operation.INSERT);
@@ -2682,6 +3684,135 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		return absoluteRoot().elementsContaining(addr);
 	}
 
+	/**
+	 * Visits the added nodes whose keys contain the given address or prefix block,
+	 * the same nodes listed by {@link #elementsContaining(Address)}, but without allocating.
+	 * <p>
+	 * Rather than copying the containing nodes into a new linked list, as does {@link #elementsContaining(Address)},
+	 * this method walks the path from the root to the address and calls the visitor with each containing added node of this trie.
+	 * When containingFirst is false, the most-specific containing node, the longest prefix match, is visited first,
+	 * and the remaining containing nodes follow in order of decreasing prefix length.
+	 * When containingFirst is true, the order is reversed, the shortest containing prefix is first.
+	 * <p>
+	 * The visitor returns false to end the visit early, in which case this method returns the node for which the visitor returned false.
+	 * For instance, to find the most-specific containing prefix that satisfies a given policy, the visitor can return false for the first such prefix.
+	 * <p>
+	 * The visitor must not modify the trie.
+	 * <p>
+	 * If the argument is not a single address nor prefix block, this method will throw IllegalArgumentException.
+	 * See {@link #containingNodeCursor(boolean)} for a reusable cursor that visits the same nodes with an iterator.
+	 *
+	 * @param addr
+	 * @param containingFirst whether to visit the shortest containing prefix first, rather than the longest
+	 * @param visitor called with each containing added node, returning false to end the visit
+	 * @return the node for which the visitor returned false, or null if the visitor returned true for all containing nodes
+	 */
+	public TrieNode<E> visitElementsContaining(E addr, boolean containingFirst, Predicate<? super TrieNode<E>> visitor) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		addr = checkBlockOrAddress(addr, true);
+		return visitContaining(absoluteRoot().lastContainingNode(addr), containingFirst, visitor);
+	}
+
+	/**
+	 * Visits the added nodes whose keys contain the given IPv4 address, supplied as an unsigned 32-bit int value,
+	 * as with {@link #visitElementsContaining(Address, boolean, Predicate)}.
+	 * <p>
+	 * This avoids constructing an address object for the lookup.
+	 * It is supported by the IPv4 tries of this library, such as {@link inet.ipaddr.ipv4.IPv4AddressTrie}.
+	 * For other tries, this method throws IllegalArgumentException.
+	 *
+	 * @param ipv4Address
+	 * @param containingFirst whether to visit the shortest containing prefix first, rather than the longest
+	 * @param visitor called with each containing added node, returning false to end the visit
+	 * @return the node for which the visitor returned false, or null if the visitor returned true for all containing nodes
+	 */
+	public TrieNode<E> visitElementsContaining(int ipv4Address, boolean containingFirst, Predicate<? super TrieNode<E>> visitor) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		return visitContaining(lastContainingNode(ipv4Address), containingFirst, visitor);
+	}
+
+	/**
+	 * Visits the added nodes whose keys contain the given IPv6 address, supplied as the upper and lower 64 bits of the address,
+	 * as with {@link #visitElementsContaining(Address, boolean, Predicate)}.
+	 * <p>
+	 * This avoids constructing an address object for the lookup.
+	 * It is supported by the IPv6 tries of this library, such as {@link inet.ipaddr.ipv6.IPv6AddressTrie}.
+	 * For other tries, this method throws IllegalArgumentException.
+	 *
+	 * @param ipv6HighBits the upper 64 bits of the IPv6 address
+	 * @param ipv6LowBits the lower 64 bits of the IPv6 address
+	 * @param containingFirst whether to visit the shortest containing prefix first, rather than the longest
+	 * @param visitor called with each containing added node, returning false to end the visit
+	 * @return the node for which the visitor returned false, or null if the visitor returned true for all containing nodes
+	 */
+	public TrieNode<E> visitElementsContaining(long ipv6HighBits, long ipv6LowBits, boolean containingFirst, Predicate<? super TrieNode<E>> visitor) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		return visitContaining(lastContainingNode(ipv6HighBits, ipv6LowBits), containingFirst, visitor);
+	}
+
+	/**
+	 * Returns a cursor for iterating through the added nodes whose keys contain a given address,
+	 * the same nodes visited by {@link #visitElementsContaining(Address, boolean, Predicate)}.
+	 * <p>
+	 * The cursor can be reused for any number of lookups, and does not allocate when positioned at a new address.
+	 * <p>
+	 * A cursor is not thread-safe, and like the iterators of this trie, must not be used concurrently with modifications to the trie.
+	 * Once the trie has been modified, the cursor must be repositioned with one of its reset methods.
+	 *
+	 * @param containingFirst whether to iterate from the shortest containing prefix first, rather than the longest
+	 * @return
+	 */
+	public ContainingNodeCursor<E> containingNodeCursor(boolean containingFirst) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		return new ContainingNodeCursor<E>(this, containingFirst);
+	}
+
+	TrieNode<E> lastContainingNode(int ipv4Address) {
+		TrieNode<E> root = absoluteRoot();
+		root.checkKeyCacheBits(IPv4Address.BIT_COUNT);
+		return root.getKey() == null ? null : root.lastContainingNode(ipv4Address, IPv4Address.BIT_COUNT);
+	}
+
+	TrieNode<E> lastContainingNode(long ipv6HighBits, long ipv6LowBits) {
+		TrieNode<E> root = absoluteRoot();
+		root.checkKeyCacheBits(IPv6Address.BIT_COUNT);
+		return root.getKey() == null ? null : root.lastContainingNode(ipv6HighBits, ipv6LowBits, IPv6Address.BIT_COUNT);
+	}
+
+	// All the nodes containing an address are the last containing node along the path to that address and its parents,
+	// so we need only traverse the parents, either directly, or through recursion to visit from the root first,
+	// whose depth is limited by the bit count.
+	private static <E extends Address> TrieNode<E> visitContaining(TrieNode<E> node, boolean containingFirst, Predicate<? super TrieNode<E>> visitor) {
+		if(containingFirst) {
+			if(node == null) {
+				return null;
+			}
+			TrieNode<E> stopped = visitContaining(node.getParent(), true, visitor);
+			if(stopped != null) {
+				return stopped;
+			}
+			return node.isAdded() && !visitor.test(node) ? node : null;
+		}
+		for(; node != null; node = node.getParent()) {
+			if(node.isAdded() && !visitor.test(node)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public TrieNode<E> addIfNoElementsContaining(E addr) {
 		if(bounds != null) {
@@ -2729,6 +3860,131 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		return absoluteRoot().longestPrefixMatchNode(addr);
 	}
 
+	/**
+	 * Finds the longest prefix match of each of the given addresses, as with {@link #longestPrefixMatchNode(Address)}.
+	 * The matching node for the address at each index of the addresses array is written to the same index of the results array,
+	 * or null is written when there is no match.
+	 * <p>
+	 * The lookups are done in trie order, and each lookup starts from the match of the previous lookup, rather than from the root,
+	 * whenever that match contains the next address.
+	 * So for addresses that share prefixes, the traversal of those shared prefixes is done once for all of them, rather than once for each.
+	 * If the addresses are not already in trie order, see {@link #getComparator()}, they are sorted first.
+	 * The given addresses array is not modified.
+	 * <p>
+	 * If any of the given addresses is not a single address nor prefix block, then this method throws IllegalArgumentException.
+	 *
+	 * @param addrs the addresses to look up
+	 * @param results the array to hold the matching nodes, with length at least that of addrs
+	 */
+	public void longestPrefixMatchNodes(E addrs[], TrieNode<E> results[]) {
+		longestPrefixMatchNodes(addrs, (node, index) -> results[index] = node);
+	}
+
+	/**
+	 * Finds the longest prefix match of each of the given addresses, as with {@link #longestPrefixMatch(Address)}.
+	 * The matching element for the address at each index of the addresses array is written to the same index of the results array,
+	 * or null is written when there is no match.
+	 * <p>
+	 * See {@link #longestPrefixMatchNodes(Address[], TrieNode[])} for more details.
+	 *
+	 * @param addrs the addresses to look up
+	 * @param results the array to hold the matching elements, with length at least that of addrs
+	 */
+	public void longestPrefixMatches(E addrs[], E results[]) {
+		longestPrefixMatchNodes(addrs, (node, index) -> results[index] = getNodeKey(node));
+	}
+
+	void longestPrefixMatchNodes(E addrs[], ObjIntConsumer<TrieNode<E>> resultConsumer) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		int count = addrs.length;
+		E checked[] = addrs.clone();
+		Comparator<E> comp = comparator();
+		boolean sorted = true;
+		for(int i = 0; i < count; i++) {
+			E addr = checked[i] = checkBlockOrAddress(addrs[i], true);
+			if(sorted && i > 0 && comp.compare(checked[i - 1], addr) > 0) {
+				sorted = false;
+			}
+		}
+		int order[] = null;
+		if(!sorted) {
+			// sort the addresses together with their original indices, so that no index is boxed
+			order = new int[count];
+			for(int i = 0; i < count; i++) {
+				order[i] = i;
+			}
+			sortWithIndices(checked, order, checked.clone(), order.clone(), 0, count, comp);
+		}
+		TrieNode<E> root = absoluteRoot();
+		if(root.getKey() == null) { // an IPAddressTrie to which nothing has been added
+			for(int i = 0; i < count; i++) {
+				resultConsumer.accept(null, i);
+			}
+			return;
+		}
+		OpResult<E> result = new OpResult<>(null, Operation.LOOKUP);
+		TrieNode<E> start = root;
+		for(int i = 0; i < count; i++) {
+			int index = order == null ? i : order[i];
+			E addr = checked[i];
+
+			// back up to the closest node containing the address, all nodes containing the address are either above or below that node
+			while(start != root && !start.getKey().contains(addr)) {
+				start = start.getParent();
+			}
+			result.clean();
+			start.matchBitsFromIndex(start.getKey().getPrefixLength(), result.reset(addr, Operation.LOOKUP));
+			TrieNode<E> match = result.smallestContaining;
+			if(match == null) {
+				// nothing at or below the start node contains the address, so the match is the closest added node above the start node
+				match = start.getParent();
+				while(match != null && !match.isAdded()) {
+					match = match.getParent();
+				}
+			} else {
+				// the next lookup starts from this match, which must be a prefix block node so that matching resumes at its prefix length
+				start = match.getKey().isPrefixed() ? match : match.getParent();
+			}
+			resultConsumer.accept(match, index);
+		}
+	}
+
+	// merge sorts the keys from fromIndex inclusive to toIndex exclusive, moving the indices with the keys,
+	// using the temporary arrays, which hold the same keys and indices on entry
+	private static <E> void sortWithIndices(E keys[], int indices[], E tmpKeys[], int tmpIndices[], int fromIndex, int toIndex, Comparator<E> comp) {
+		int length = toIndex - fromIndex;
+		if(length < 8) {
+			for(int i = fromIndex + 1; i < toIndex; i++) {
+				E key = keys[i];
+				int index = indices[i];
+				int j = i;
+				for(; j > fromIndex && comp.compare(keys[j - 1], key) > 0; j--) {
+					keys[j] = keys[j - 1];
+					indices[j] = indices[j - 1];
+				}
+				keys[j] = key;
+				indices[j] = index;
+			}
+			return;
+		}
+		int mid = (fromIndex + toIndex) >>> 1;
+		// sort each half of the temporary arrays, using the destination arrays as temporary space, then merge the halves into the destination
+		sortWithIndices(tmpKeys, tmpIndices, keys, indices, fromIndex, mid, comp);
+		sortWithIndices(tmpKeys, tmpIndices, keys, indices, mid, toIndex, comp);
+		for(int i = fromIndex, lower = fromIndex, upper = mid; i < toIndex; i++) {
+			if(upper >= toIndex || (lower < mid && comp.compare(tmpKeys[lower], tmpKeys[upper]) <= 0)) {
+				keys[i] = tmpKeys[lower];
+				indices[i] = tmpIndices[lower++];
+			} else {
+				keys[i] = tmpKeys[upper];
+				indices[i] = tmpIndices[upper++];
+			}
+		}
+	}
+
 	@Override
 	public E shortestPrefixMatch(E addr) {
 		if(bounds != null) {
@@ -3062,7 +4318,7 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 	private Iterator<? extends BinaryTreeNode<E>> containedFirstBoundedIterator(boolean forwardSubNodeOrder, boolean addedNodesOnly) {
 		Iterator<? extends BinaryTreeNode<E>> iterator;
 		if(forwardSubNodeOrder) {
-			BinaryTreeNode<E> startNode = absoluteRoot().firstPostOrderNode();
+			BinaryTreeNode<E> startNode = absoluteRoot().firstPostOrderNode(bounds);
 			iterator = new PostOrderNodeIterator<E, Object>(
 					bounds,
 					true, // forward
@@ -3071,7 +4327,7 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 					null,
 					absoluteRoot().changeTracker);
 		} else {
-			BinaryTreeNode<E> startNode = absoluteRoot().lastPreOrderNode();
+			BinaryTreeNode<E> startNode = absoluteRoot().lastPreOrderNode(bounds);
 			iterator = new PreOrderNodeIterator<E, Object>(
 					bounds,
 					false, // forward
@@ -3487,6 +4743,136 @@ public abstract class AddressTrie<E extends Address> extends AbstractTree<E> {
 		return result;
 	}
 	
+	/**
+	 * Makes this trie permanently unmodifiable, reducing the memory footprint of each node.
+	 * <p>
+	 * This is intended for tries that are built once and then only queried.
+	 * Once frozen, any operation that would modify the trie or its nodes throws {@link UnsupportedOperationException},
+	 * as does any operation on the views returned from {@link #asSet()}, or from {@link AssociativeAddressTrie#asMap()} for associative tries, that would modify the trie.
+	 * <p>
+	 * Since the trie can no longer change, changes are no longer tracked, and the nodes of all frozen tries share the same tracker.
+	 * Iterators, spliterators and streams of a frozen trie will never throw {@link java.util.ConcurrentModificationException}.
+	 * <p>
+	 * Each node of a trie ordinarily stores the count of addresses in its sub-trie as a {@link BigInteger} object, 
+	 * so that {@link TrieNode#getMatchingAddressCount()} is a constant-time operation.  
+	 * A frozen trie stores that count only for the root node, releasing the {@link BigInteger} object from all other nodes,
+	 * so calling {@link TrieNode#getMatchingAddressCount()} on any other node will visit the non-added nodes of its sub-trie.
+	 * Added node counts remain stored as primitive integers, so {@link #size()} and {@link TrieNode#size()} remain constant-time operations.
+	 * <p>
+	 * Clones of a frozen trie are not frozen, and can be modified.
+	 * <p>
+	 * This operation is linear in the number of nodes.
+	 */
+	public void freeze() {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		TrieNode<E> root = absoluteRoot();
+		if(!root.isFrozen()) {
+			root.freezeTree();
+		}
+	}
+
+	/**
+	 * Returns whether this trie has been made unmodifiable with {@link #freeze()}.
+	 * 
+	 * @return
+	 */
+	public boolean isFrozen() {
+		return absoluteRoot().isFrozen();
+	}
+
+	/**
+	 * Starts recording the changes to this trie in a change log that retains the given number of the most recent changes, replacing any existing change log.
+	 * <p>
+	 * With a change log, a copy of this trie, such as a replica in another process, can be kept up to date by applying the changes since the copy was made,
+	 * obtained from {@link AddressTrieChangeLog#getChangesSince(long)}, rather than copying the whole trie again.
+	 * The log can also notify listeners of each change.
+	 * <p>
+	 * Clones of this trie do not share the change log.  Freezing this trie with {@link #freeze()} discards the change log.
+	 * This method should not be called while iterating through the trie.
+	 * <p>
+	 * This operation is linear in the number of nodes.
+	 *
+	 * @param capacity the number of changes retained by the log
+	 * @return the new change log
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public AddressTrieChangeLog<E> enableChangeLog(int capacity) {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		if(capacity <= 0) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.invalid.capacity"));
+		}
+		absoluteRoot().checkFrozen();
+		AddressTrieChangeLog<E> log = new AddressTrieChangeLog<E>(capacity);
+		setChangeTracker(log);
+		return log;
+	}
+
+	/**
+	 * Stops recording the changes to this trie, discarding the change log enabled with {@link #enableChangeLog(int)}, if any.
+	 */
+	public void disableChangeLog() {
+		if(bounds != null) {
+			// should never reach here when there are bounds, since this is not exposed from set/map code
+			throw new Error();
+		}
+		if(getChangeLog() != null) {
+			setChangeTracker(new ChangeTracker());
+		}
+	}
+
+	/**
+	 * Returns the change log enabled with {@link #enableChangeLog(int)}, or null if changes are not being recorded.
+	 *
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public AddressTrieChangeLog<E> getChangeLog() {
+		ChangeTracker tracker = absoluteRoot().changeTracker;
+		return tracker instanceof AddressTrieChangeLog ? (AddressTrieChangeLog<E>) tracker : null;
+	}
+
+	private void setChangeTracker(ChangeTracker tracker) {
+		Iterator<? extends BinaryTreeNode<E>> iterator = absoluteRoot().containingFirstAllNodeIterator(true);
+		while(iterator.hasNext()) {
+			iterator.next().changeTracker = tracker;
+		}
+	}
+
+	/**
+	 * Applies the given changes, obtained from the change log of another trie with {@link AddressTrieChangeLog#getChangesSince(long)}, to this trie.
+	 * <p>
+	 * Added elements are added to this trie and removed elements are removed.
+	 * For associative tries, the values of added nodes and the changed values are also applied.
+	 * <p>
+	 * When this trie matched the other trie at the version from which the changes were obtained, this trie will match the other trie once the changes are applied.
+	 *
+	 * @param changes
+	 */
+	public void applyChanges(List<? extends ChangeEvent<E>> changes) {
+		for(ChangeEvent<E> change : changes) {
+			applyChange(change);
+		}
+	}
+
+	// ** overridden by the valued tries **
+	void applyChange(ChangeEvent<E> change) {
+		switch(change.getType()) {
+			case ADDED:
+				add(change.getKey());
+				break;
+			case REMOVED:
+				remove(change.getKey());
+				break;
+			default:
+		}
+	}
+
 	@Override
 	public AddressTrie<E> clone() {
 		AddressTrie<E> result = (AddressTrie<E>) super.clone();
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.validate.ChangeTracker;
+
+/**
+ * A bounded log of the changes made to an address trie, enabled with {@link AddressTrie#enableChangeLog(int)}.
+ * <p>
+ * Each element added to or removed from the trie, and each change to the value of an added node of an associative trie, is recorded as a {@link ChangeEvent}.
+ * Each event is assigned a version, the number of events logged up to and including that event,
+ * so the version of the log is the number of changes that have been logged.
+ * <p>
+ * The log retains only the most recent events, up to the capacity given when enabling the log.
+ * Use {@link #getChangesSince(long)} to obtain the changes since a given version, which can be applied to a copy of the trie with {@link AddressTrie#applyChanges(List)}.
+ * If the changes since that version are no longer retained, the copy must instead be reloaded in full, for instance with {@link AddressTrie#writeTo(java.io.OutputStream)}.
+ * <p>
+ * Listeners added with {@link #addListener(Consumer)} are notified of each change as it happens.
+ * <p>
+ * Like the trie itself, the log is not thread-safe, and must be accessed with the same synchronization as the trie.
+ * When a log is serialized with its trie, the logged events and the listeners are not serialized, only the version.
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ */
+public class AddressTrieChangeLog<E extends Address> extends ChangeTracker {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The type of a change to an address trie.
+	 *
+	 * @author scfoley
+	 *
+	 */
+	public enum ChangeType {
+		/**
+		 * An element was added to the trie.
+		 */
+		ADDED,
+
+		/**
+		 * An element was removed from the trie.
+		 */
+		REMOVED,
+
+		/**
+		 * The value of an added node was changed.
+		 */
+		VALUE_CHANGED
+	}
+
+	/**
+	 * A change to an address trie.
+	 *
+	 * @author scfoley
+	 *
+	 * @param <E> the type of the address keys
+	 */
+	public static class ChangeEvent<E extends Address> {
+		private final long version;
+		private final ChangeType type;
+		private final E key;
+		private final Object value;
+
+		ChangeEvent(long version, ChangeType type, E key, Object value) {
+			this.version = version;
+			this.type = type;
+			this.key = key;
+			this.value = value;
+		}
+
+		/**
+		 * The version of the log once this change was logged.
+		 *
+		 * @return
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		public ChangeType getType() {
+			return type;
+		}
+
+		/**
+		 * The key of the node that was added, removed, or whose value changed.
+		 *
+		 * @return
+		 */
+		public E getKey() {
+			return key;
+		}
+
+		/**
+		 * The value of the node once the change was made, for an associative trie, or null for a removal or for a trie that is not associative.
+		 * Primitive values of int and long valued tries are boxed.
+		 *
+		 * @return
+		 */
+		public Object getValue() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			String str = version + " " + type + " " + key;
+			return type == ChangeType.REMOVED || value == null ? str : str + " = " + value;
+		}
+	}
+
+	private final int capacity;
+	private transient ChangeEvent<E> events[];
+	private long version, firstVersion; // the retained events have versions firstVersion + 1 to version
+	private transient CopyOnWriteArrayList<Consumer<? super ChangeEvent<E>>> listeners;
+
+	@SuppressWarnings("unchecked")
+	AddressTrieChangeLog(int capacity) {
+		this.capacity = capacity;
+		events = (ChangeEvent<E>[]) new ChangeEvent<?>[capacity];
+	}
+
+	/**
+	 * The maximum number of changes retained by this log.
+	 *
+	 * @return
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * The version of this log, the number of changes logged so far.
+	 *
+	 * @return
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * The oldest version from which the changes are still retained in this log.
+	 *
+	 * @return
+	 */
+	public long getFirstVersion() {
+		return firstVersion;
+	}
+
+	/**
+	 * Returns the changes that followed the given version, in the order they were made,
+	 * or null if some of those changes are no longer retained, or if the given version is later than the current version.
+	 * <p>
+	 * A version obtained from {@link #getVersion()} at the time a copy of the trie was made
+	 * can be used to obtain the changes to apply to that copy with {@link AddressTrie#applyChanges(List)}.
+	 * When this returns null, the copy must be reloaded in full.
+	 *
+	 * @param version
+	 * @return
+	 */
+	public List<ChangeEvent<E>> getChangesSince(long version) {
+		if(version < firstVersion || version > this.version) {
+			return null;
+		}
+		int count = (int) (this.version - version);
+		ArrayList<ChangeEvent<E>> result = new ArrayList<>(count);
+		for(long v = version; v < this.version; v++) {
+			result.add(events[(int) (v % capacity)]);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a listener to be notified of each change.
+	 * <p>
+	 * A listener is called before the change is made visible by the trie,
+	 * so the listener should not access the trie, and it must not modify the trie.
+	 *
+	 * @param listener
+	 */
+	public void addListener(Consumer<? super ChangeEvent<E>> listener) {
+		if(listeners == null) {
+			listeners = new CopyOnWriteArrayList<>();
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener previously added with {@link #addListener(Consumer)}.
+	 *
+	 * @param listener
+	 * @return whether the listener was removed
+	 */
+	public boolean removeListener(Consumer<? super ChangeEvent<E>> listener) {
+		return listeners != null && listeners.remove(listener);
+	}
+
+	@SuppressWarnings("unchecked")
+	void logged(ChangeType type, BinaryTreeNode<?> node) {
+		ChangeEvent<E> event = new ChangeEvent<E>(version + 1, type, (E) node.getKey(), type == ChangeType.REMOVED ? null : node.getChangeValue());
+		events[(int) (version % capacity)] = event;
+		version++;
+		if(version - firstVersion > capacity) {
+			firstVersion++;
+		}
+		if(listeners != null) {
+			for(Consumer<? super ChangeEvent<E>> listener : listeners) {
+				listener.accept(event);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		events = (ChangeEvent<E>[]) new ChangeEvent<?>[capacity];
+		// the events were not serialized
+		firstVersion = version;
+	}
+
+	@Override
+	public String toString() {
+		return "change log version: " + version + ", " + super.toString();
+	}
+}
@@ -394,6 +394,66 @@ public class AddressTrieMap<K extends Address, V> extends AbstractMap<K, V> impl
 		return null;
 	}
 
+	/**
+	 * Merges each of the entries of the given map into this map, with the same result as calling {@link #merge(Address, Object, BiFunction)} for each entry.
+	 * <p>
+	 * Rather than descending the trie independently for each entry, the keys are sorted and the entries are merged in one coordinated traversal of the trie,
+	 * in which each operation starts from the nodes visited by the operation for the previous key.
+	 * This is much faster than individual calls to merge when merging large numbers of entries.
+	 * <p>
+	 * The entries are merged in the sorted order of their keys, which is the order in which the remapping function is called.
+	 * 
+	 * @param map the entries to merge, none of which can have a null value
+	 * @param remappingFunction the function that computes the new value from the existing value and the value in the given map,
+	 * 	or returns null to remove the entry from this map
+	 * @throws NullPointerException if any value in the given map is null
+	 * @throws IllegalArgumentException if any key in the given map is not a single address nor a prefix block subnet
+	 */
+	@SuppressWarnings("unchecked")
+	public void mergeAll(Map<? extends K, ? extends V> map, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		int size = map.size();
+		K keys[] = (K[]) new Address[size];
+		Object values[] = new Object[size];
+		int i = 0;
+		for(Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			V value = entry.getValue();
+			if(value == null) {
+				throw new NullPointerException();
+			}
+			keys[i] = entry.getKey();
+			values[i++] = value;
+		}
+		trie.remapAll(keys, (index, existingValue) -> {
+			V suppliedValue = (V) values[index];
+			V newValue = (existingValue == null) ? suppliedValue : remappingFunction.apply(existingValue, suppliedValue);
+			return newValue == null ? AssociativeAddressTrie.REMAP_ACTION.REMOVE_NODE : newValue;
+		});
+	}
+
+	/**
+	 * Computes the mapping for each of the given keys, with the same result as calling {@link #compute(Address, BiFunction)} for each key.
+	 * <p>
+	 * Rather than descending the trie independently for each key, the keys are sorted and the mappings are computed in one coordinated traversal of the trie,
+	 * in which each operation starts from the nodes visited by the operation for the previous key.
+	 * This is much faster than individual calls to compute when computing large numbers of mappings.
+	 * <p>
+	 * The mappings are computed in the sorted order of the keys, which is the order in which the remapping function is called.
+	 * A key appearing more than once is computed once for each appearance.
+	 * 
+	 * @param keys the keys whose mappings are computed
+	 * @param remappingFunction the function that computes the new value from the key and its existing value, which is null if there is no existing mapping,
+	 * 	or returns null to remove the mapping
+	 * @throws IllegalArgumentException if any of the keys is not a single address nor a prefix block subnet
+	 */
+	@SuppressWarnings("unchecked")
+	public void computeAll(Collection<? extends K> keys, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		K keyArray[] = keys.toArray((K[]) new Address[keys.size()]);
+		trie.remapAll(keyArray, (index, existingValue) -> {
+			V newValue = remappingFunction.apply(keyArray[index], existingValue);
+			return newValue == null ? AssociativeAddressTrie.REMAP_ACTION.REMOVE_NODE : newValue;
+		});
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean containsKey(Object key) {
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrie.TrieNode;
+
+/**
+ * A snapshot of the shape of an address trie, and an estimate of its memory cost, obtained from {@link AddressTrie#getMetrics()}.
+ * <p>
+ * The shape of a trie determines the cost of its operations.  Lookups visit the nodes from the root to the node with the key,
+ * so the cost of a lookup is the depth of that node.  Tries with many non-added nodes, or with deep paths, are more costly to search and to store.
+ * <p>
+ * The depth of the root node is 0, and each sub-node has a depth one more than its parent.
+ * <p>
+ * For use with a metrics registry, {@link #toMap()} provides the scalar metrics by name,
+ * and {@link AddressTrie#metricsSupplier()} provides snapshots that are recomputed only when the trie has changed.
+ * <p>
+ * Instances are immutable.
+ *
+ * @author scfoley
+ *
+ */
+public class AddressTrieMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Estimates for a 64-bit JVM with compressed object pointers
+	static final int NODE_BYTES = 48, // object header, key, parent and sub-node references, size, contained count, change tracker, added flag
+		CONTAINED_COUNT_BYTES = 40, // the BigInteger contained count and its magnitude array
+		KEY_BYTES = 96, // the address, its section, and the array of segments
+		SEGMENT_BYTES = 36; // each segment and its reference in the array
+
+	/**
+	 * The names of the scalar metrics in the map returned by {@link #toMap()}.
+	 */
+	public static final String NODE_COUNT = "nodeCount",
+		ADDED_COUNT = "addedCount",
+		MAX_DEPTH = "maxDepth",
+		AVERAGE_LOOKUP_PATH_LENGTH = "averageLookupPathLength",
+		ESTIMATED_BYTES_PER_NODE = "estimatedBytesPerNode",
+		ESTIMATED_BYTES = "estimatedBytes";
+
+	private final int nodeCount, addedCount;
+	private final int depthCounts[];
+	private final int prefixLengthCounts[];
+	private final long totalAddedPathLength;
+	private final int bytesPerNode;
+
+	AddressTrieMetrics(int nodeCount, int addedCount, int depthCounts[], int prefixLengthCounts[], long totalAddedPathLength, int bytesPerNode) {
+		this.nodeCount = nodeCount;
+		this.addedCount = addedCount;
+		this.depthCounts = depthCounts;
+		this.prefixLengthCounts = prefixLengthCounts;
+		this.totalAddedPathLength = totalAddedPathLength;
+		this.bytesPerNode = bytesPerNode;
+	}
+
+	/**
+	 * Computes the metrics of the given trie with a single pre-order traversal of its nodes.
+	 */
+	static <E extends Address> AddressTrieMetrics compute(AddressTrie<E> trie) {
+		Iterator<? extends TrieNode<E>> iterator = trie.allNodeIterator(true);
+		if(!iterator.hasNext()) {
+			return new AddressTrieMetrics(0, 0, new int[0], new int[0], 0, 0);
+		}
+		int nodeCount = 0, addedCount = 0, maxDepth = -1;
+		long totalAddedPathLength = 0;
+		int depthCounts[] = null, prefixLengthCounts[] = null;
+		int bitCount = 0, segmentCount = 0;
+
+		// In pre-order, each node follows its parent, so the path from the first node to the current node is a stack.
+		// The depth of a node is the depth of its parent plus one.
+		TrieNode<E> path[] = null;
+		int pathLength = 0, pathBaseDepth = 0;
+		do {
+			TrieNode<E> node = iterator.next();
+			E key = node.getKey();
+			if(depthCounts == null) {
+				bitCount = key.getBitCount();
+				segmentCount = key.getSegmentCount();
+				@SuppressWarnings("unchecked")
+				TrieNode<E> newPath[] = (TrieNode<E>[]) new TrieNode<?>[bitCount + 2];
+				path = newPath;
+				depthCounts = new int[bitCount + 2];
+				prefixLengthCounts = new int[bitCount + 1];
+			}
+			TrieNode<E> parent = node.getParent();
+			while(pathLength > 0 && path[pathLength - 1] != parent) {
+				pathLength--;
+			}
+			if(pathLength == 0) {
+				// the first node, or for a bounded trie, a node whose parent is out of bounds
+				int depth = 0;
+				for(; parent != null; parent = parent.getParent()) {
+					depth++;
+				}
+				pathBaseDepth = depth;
+			}
+			int depth = pathBaseDepth + pathLength;
+			path[pathLength++] = node;
+			nodeCount++;
+			depthCounts[depth]++;
+			if(depth > maxDepth) {
+				maxDepth = depth;
+			}
+			if(node.isAdded()) {
+				addedCount++;
+				totalAddedPathLength += depth + 1;
+				Integer prefixLength = key.getPrefixLength();
+				prefixLengthCounts[prefixLength == null ? bitCount : prefixLength]++;
+			}
+		} while(iterator.hasNext());
+		// the nodes of a frozen trie, other than the root, do not store contained counts
+		int bytesPerNode = NODE_BYTES + (trie.isFrozen() ? 0 : CONTAINED_COUNT_BYTES) + KEY_BYTES + segmentCount * SEGMENT_BYTES;
+		return new AddressTrieMetrics(nodeCount, addedCount, Arrays.copyOf(depthCounts, maxDepth + 1), prefixLengthCounts, totalAddedPathLength, bytesPerNode);
+	}
+
+	/**
+	 * The number of nodes in the trie, both added and non-added, matching {@link AddressTrie#nodeSize()}.
+	 *
+	 * @return
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * The number of added nodes in the trie, matching {@link AddressTrie#size()}.
+	 *
+	 * @return
+	 */
+	public int getAddedCount() {
+		return addedCount;
+	}
+
+	/**
+	 * The number of non-added nodes, which are the nodes that join the sub-tries of added nodes.
+	 *
+	 * @return
+	 */
+	public int getNonAddedCount() {
+		return nodeCount - addedCount;
+	}
+
+	/**
+	 * The depth of the deepest node, or -1 if the trie has no nodes.
+	 *
+	 * @return
+	 */
+	public int getMaxDepth() {
+		return depthCounts.length - 1;
+	}
+
+	/**
+	 * Returns the depth histogram, the number of nodes at each depth, indexed by depth, with length one more than the maximum depth.
+	 *
+	 * @return
+	 */
+	public int[] getDepthHistogram() {
+		return depthCounts.clone();
+	}
+
+	/**
+	 * Returns the prefix length distribution, the number of added nodes with each prefix length, indexed by prefix length.
+	 * Added individual addresses are counted at the index of the address bit count.
+	 * The length of the array is one more than the address bit count, or zero if the trie has no nodes.
+	 *
+	 * @return
+	 */
+	public int[] getPrefixLengthDistribution() {
+		return prefixLengthCounts.clone();
+	}
+
+	/**
+	 * The average number of nodes visited by a lookup of an added element, which is one more than the average depth of the added nodes.
+	 * Returns 0 if there are no added nodes.
+	 *
+	 * @return
+	 */
+	public double getAverageLookupPathLength() {
+		return addedCount == 0 ? 0 : totalAddedPathLength / (double) addedCount;
+	}
+
+	/**
+	 * An estimate of the memory used by each node, including its key, on a 64-bit JVM with compressed object references.
+	 * The estimate does not include the values of associative tries.
+	 * For a frozen trie, the estimate does not include the contained address count, which the nodes of a frozen trie do not store, see {@link AddressTrie#freeze()}.
+	 *
+	 * @return
+	 */
+	public int getEstimatedBytesPerNode() {
+		return bytesPerNode;
+	}
+
+	/**
+	 * An estimate of the memory used by all the nodes of the trie, the node count multiplied by {@link #getEstimatedBytesPerNode()}.
+	 *
+	 * @return
+	 */
+	public long getEstimatedBytes() {
+		return nodeCount * (long) bytesPerNode;
+	}
+
+	/**
+	 * Returns the scalar metrics in a map, keyed by the names {@link #NODE_COUNT}, {@link #ADDED_COUNT}, {@link #MAX_DEPTH},
+	 * {@link #AVERAGE_LOOKUP_PATH_LENGTH}, {@link #ESTIMATED_BYTES_PER_NODE}, and {@link #ESTIMATED_BYTES},
+	 * suitable for registering as gauges with a metrics registry.
+	 * The returned map is unmodifiable.
+	 *
+	 * @return
+	 */
+	public Map<String, Number> toMap() {
+		Map<String, Number> map = new LinkedHashMap<>();
+		map.put(NODE_COUNT, nodeCount);
+		map.put(ADDED_COUNT, addedCount);
+		map.put(MAX_DEPTH, getMaxDepth());
+		map.put(AVERAGE_LOOKUP_PATH_LENGTH, getAverageLookupPathLength());
+		map.put(ESTIMATED_BYTES_PER_NODE, bytesPerNode);
+		map.put(ESTIMATED_BYTES, getEstimatedBytes());
+		return Collections.unmodifiableMap(map);
+	}
+
+	@Override
+	public String toString() {
+		return toMap() + ", depth histogram: " + Arrays.toString(depthCounts) + ", prefix lengths: " + Arrays.toString(prefixLengthCounts);
+	}
+}
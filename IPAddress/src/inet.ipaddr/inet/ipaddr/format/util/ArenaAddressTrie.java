@@ -0,0 +1,812 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.AddressSegment;
+import inet.ipaddr.format.util.AddressTrie.TrieNode;
+import inet.ipaddr.format.util.BinaryTreeNode.FrozenChangeTracker;
+import inet.ipaddr.format.validate.ChangeTracker;
+import inet.ipaddr.format.validate.ChangeTracker.Change;
+import inet.ipaddr.ipv4.IPv4AddressTrie;
+import inet.ipaddr.ipv6.IPv6AddressTrie;
+import inet.ipaddr.mac.MACAddressTrie;
+
+/**
+ * An address trie whose nodes are stored in large arrays, rather than as individual objects,
+ * suited to building tries with very large numbers of nodes, querying them, and then discarding them.
+ * <p>
+ * Each node is an index into a set of parallel arrays holding the key bits, prefix lengths, and links of the nodes.
+ * The arrays are allocated in chunks of {@value #CHUNK_SIZE} nodes, so the trie grows without copying,
+ * and a trie of millions of nodes consists of a few hundred array objects, rather than millions of node and address objects.
+ * This greatly reduces both the memory used by the trie and the work of the garbage collector, both while the trie is in use and when it is discarded.
+ * All the nodes are freed at once, when the trie is discarded or with {@link #clear()}.
+ * <p>
+ * The trie has the same structure as an {@link AddressTrie} with the same added elements, and the same rules for keys:
+ * each element must be a single address or a CIDR prefix block, see {@link AddressTrie#add(Address)}.
+ * Elements can be added but not removed individually.
+ * <p>
+ * Address objects are not stored, so keys are created only when requested,
+ * from lookups such as {@link #longestPrefixMatch(Address)}, from iteration, or from the nodes returned by this trie.
+ * Those nodes, instances of {@link ArenaNode}, are lightweight read-only views of the nodes in the arrays,
+ * providing the {@link AddressTrie.TrieNode} API for lookups, iteration, and the other operations that do not modify the trie.
+ * <p>
+ * When the full API of {@link AddressTrie} is required, or the nodes must be modified,
+ * use {@link #addTo(AddressTrie)} to populate an address trie from this trie in linear time,
+ * and {@link #ArenaAddressTrie(AddressTrie)} to do the reverse.
+ * <p>
+ * This trie is not thread-safe.  Its iterators throw {@link java.util.ConcurrentModificationException} when the trie is modified during iteration.
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ */
+public class ArenaAddressTrie<E extends Address> implements Iterable<E> {
+
+	static final int CHUNK_SHIFT = 16;
+
+	/**
+	 * The number of nodes in each chunk of storage.
+	 */
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// The root is node 0, which is never a sub-node, so 0 denotes no sub-node.
+	// The key of each node is stored as 128 bits, left-justified, with the bits following the prefix length all zero.
+	private long keyHigh[][], keyLow[][];
+	private int lower[][], upper[][], parent[][];
+	private int treeSize[][]; // the number of added nodes in the sub-trie
+	private byte prefixLength[][]; // the prefix length, which is the bit count for an individual address
+	private boolean added[][];
+
+	private int nodeCount, size;
+	private int bitCount, keyType;
+
+	private final ChangeTracker changeTracker = new ChangeTracker();
+	private final ViewChangeTracker viewChangeTracker = new ViewChangeTracker(changeTracker);
+
+	/**
+	 * Constructs an empty trie.
+	 */
+	public ArenaAddressTrie() {
+		clear();
+	}
+
+	/**
+	 * Constructs a trie with the added elements of the given trie.
+	 *
+	 * @param trie
+	 */
+	public ArenaAddressTrie(AddressTrie<E> trie) {
+		this();
+		Iterator<? extends AddressTrie.TrieNode<E>> iterator = trie.containingFirstIterator(true);
+		while(iterator.hasNext()) {
+			add(iterator.next().getKey());
+		}
+	}
+
+	/**
+	 * Removes all elements, releasing all the storage of the nodes at once.
+	 */
+	public void clear() {
+		keyHigh = new long[1][];
+		keyLow = new long[1][];
+		lower = new int[1][];
+		upper = new int[1][];
+		parent = new int[1][];
+		treeSize = new int[1][];
+		prefixLength = new byte[1][];
+		added = new boolean[1][];
+		allocateChunk(0);
+		nodeCount = 1; // the root
+		size = 0;
+		bitCount = keyType = -1;
+		changeTracker.changed();
+	}
+
+	private void allocateChunk(int chunk) {
+		if(chunk == keyHigh.length) {
+			int newLength = chunk << 1;
+			keyHigh = Arrays.copyOf(keyHigh, newLength);
+			keyLow = Arrays.copyOf(keyLow, newLength);
+			lower = Arrays.copyOf(lower, newLength);
+			upper = Arrays.copyOf(upper, newLength);
+			parent = Arrays.copyOf(parent, newLength);
+			treeSize = Arrays.copyOf(treeSize, newLength);
+			prefixLength = Arrays.copyOf(prefixLength, newLength);
+			added = Arrays.copyOf(added, newLength);
+		}
+		keyHigh[chunk] = new long[CHUNK_SIZE];
+		keyLow[chunk] = new long[CHUNK_SIZE];
+		lower[chunk] = new int[CHUNK_SIZE];
+		upper[chunk] = new int[CHUNK_SIZE];
+		parent[chunk] = new int[CHUNK_SIZE];
+		treeSize[chunk] = new int[CHUNK_SIZE];
+		prefixLength[chunk] = new byte[CHUNK_SIZE];
+		added[chunk] = new boolean[CHUNK_SIZE];
+	}
+
+	private int newNode(long high, long low, int bits, int parentNode) {
+		int node = nodeCount;
+		int chunk = node >>> CHUNK_SHIFT, index = node & CHUNK_MASK;
+		if(index == 0) {
+			allocateChunk(chunk);
+		}
+		keyHigh[chunk][index] = high & highMask(bits);
+		keyLow[chunk][index] = low & lowMask(bits);
+		prefixLength[chunk][index] = (byte) bits;
+		parent[chunk][index] = parentNode;
+		nodeCount++;
+		return node;
+	}
+
+	private long getKeyHigh(int node) {
+		return keyHigh[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private long getKeyLow(int node) {
+		return keyLow[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private int getPrefixLength(int node) {
+		return prefixLength[node >>> CHUNK_SHIFT][node & CHUNK_MASK] & 0xff;
+	}
+
+	private int getLower(int node) {
+		return lower[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private int getUpper(int node) {
+		return upper[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private int getParent(int node) {
+		return parent[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private int getTreeSize(int node) {
+		return treeSize[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private void setTreeSize(int node, int nodeSize) {
+		treeSize[node >>> CHUNK_SHIFT][node & CHUNK_MASK] = nodeSize;
+	}
+
+	// counts a newly added node in the sub-trie sizes of the given node and the nodes containing it
+	private void incrementTreeSizes(int node) {
+		while(true) {
+			treeSize[node >>> CHUNK_SHIFT][node & CHUNK_MASK]++;
+			if(node == 0) {
+				break;
+			}
+			node = getParent(node);
+		}
+	}
+
+	private boolean isAdded(int node) {
+		return added[node >>> CHUNK_SHIFT][node & CHUNK_MASK];
+	}
+
+	private void setAdded(int node) {
+		added[node >>> CHUNK_SHIFT][node & CHUNK_MASK] = true;
+		size++;
+	}
+
+	private void setParent(int node, int parentNode) {
+		parent[node >>> CHUNK_SHIFT][node & CHUNK_MASK] = parentNode;
+	}
+
+	private void setSubNode(int node, boolean isUpper, int subNode) {
+		(isUpper ? upper : lower)[node >>> CHUNK_SHIFT][node & CHUNK_MASK] = subNode;
+		setParent(subNode, node);
+	}
+
+	private static long highMask(int bits) {
+		return bits == 0 ? 0 : (bits >= Long.SIZE ? -1L : -1L << (Long.SIZE - bits));
+	}
+
+	private static long lowMask(int bits) {
+		return bits <= Long.SIZE ? 0 : (bits >= Long.SIZE << 1 ? -1L : -1L << ((Long.SIZE << 1) - bits));
+	}
+
+	private static boolean isOneBit(long high, long low, int bitIndex) {
+		return bitIndex < Long.SIZE ? (high << bitIndex) < 0 : (low << (bitIndex - Long.SIZE)) < 0;
+	}
+
+	// the number of leading bits that match, up to the given maximum
+	private static int getMatchingBits(long high1, long low1, long high2, long low2, int maxBits) {
+		long diff = high1 ^ high2;
+		int matchingBits;
+		if(diff != 0) {
+			matchingBits = Long.numberOfLeadingZeros(diff);
+		} else {
+			diff = low1 ^ low2;
+			matchingBits = diff != 0 ? Long.SIZE + Long.numberOfLeadingZeros(diff) : Long.SIZE << 1;
+		}
+		return Math.min(matchingBits, maxBits);
+	}
+
+	// Lookups convert the keys to 128 bits.  To avoid allocating, the key values are returned in the given array,
+	// and the prefix length, which is the bit count for an individual address, is returned.
+	private int getKeyBits(E addr, long values[]) {
+		long high = 0, low = 0;
+		int segmentCount = addr.getSegmentCount();
+		int bitsPerSegment = addr.getBitsPerSegment();
+		for(int i = 0; i < segmentCount; i++) {
+			AddressSegment segment = addr.getSegment(i);
+			high = (high << bitsPerSegment) | (low >>> (Long.SIZE - bitsPerSegment));
+			low = (low << bitsPerSegment) | segment.getSegmentValue();
+		}
+		// left-justify
+		int shift = (Long.SIZE << 1) - addr.getBitCount();
+		if(shift >= Long.SIZE) {
+			high = low << (shift - Long.SIZE);
+			low = 0;
+		} else if(shift > 0) {
+			high = (high << shift) | (low >>> (Long.SIZE - shift));
+			low <<= shift;
+		}
+		values[0] = high;
+		values[1] = low;
+		Integer prefLen = addr.getPrefixLength();
+		return prefLen == null ? addr.getBitCount() : prefLen;
+	}
+
+	// a new empty address trie for the keys of this trie, which must not be empty
+	@SuppressWarnings("unchecked")
+	private AddressTrie<E> createTrie() {
+		E rootKey = createKey(0);
+		AddressTrie<? extends Address> trie;
+		if(rootKey.isIPAddress()) {
+			trie = rootKey.toIPAddress().isIPv4() ? new IPv4AddressTrie() : new IPv6AddressTrie();
+		} else {
+			trie = new MACAddressTrie();
+		}
+		return (AddressTrie<E>) trie;
+	}
+
+	private E createKey(int node) {
+		int bytes = (bitCount + 7) >>> 3;
+		byte keyBytes[] = new byte[bytes];
+		long high = getKeyHigh(node), low = getKeyLow(node);
+		for(int i = 0; i < bytes; i++) {
+			keyBytes[i] = (byte) (i < Long.BYTES ? high >>> ((Long.BYTES - 1 - i) << 3) : low >>> (((Long.BYTES << 1) - 1 - i) << 3));
+		}
+		return AddressTrie.createKey(keyType, keyBytes, getPrefixLength(node), bitCount);
+	}
+
+	// checks the argument is a block or address of the same type as the existing keys, returning false if there are no keys
+	private boolean checkKey(E addr) {
+		int addrBitCount = addr.getBitCount();
+		if(addrBitCount > Long.SIZE << 1) {
+			throw new IllegalArgumentException(AbstractTree.getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		if(bitCount < 0) {
+			return false;
+		} else if(addrBitCount != bitCount || AddressTrie.getKeyType(addr) != keyType) {
+			throw new IllegalArgumentException(AbstractTree.getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the given single address or prefix block subnet to this trie.
+	 * <p>
+	 * If the given address is not a single address nor prefix block, then this method throws IllegalArgumentException,
+	 * as does {@link AddressTrie#add(Address)}.
+	 * All elements must have the same address type and bit count.
+	 *
+	 * @param addr
+	 * @return true if the address was not already in the trie
+	 */
+	public boolean add(E addr) {
+		addr = AbstractTree.checkBlockOrAddress(addr, true);
+		if(!checkKey(addr)) {
+			bitCount = addr.getBitCount();
+			keyType = AddressTrie.getKeyType(addr);
+		}
+		long values[] = new long[2];
+		int bits = getKeyBits(addr, values);
+		long high = values[0], low = values[1];
+		int node = 0; // the key of the current node contains the address
+		while(true) {
+			int nodeBits = getPrefixLength(node);
+			if(nodeBits == bits) {
+				if(isAdded(node)) {
+					return false;
+				}
+				changeTracker.changed();
+				setAdded(node);
+				incrementTreeSizes(node);
+				return true;
+			}
+			boolean isUpper = isOneBit(high, low, nodeBits);
+			int subNode = isUpper ? getUpper(node) : getLower(node);
+			if(subNode == 0) {
+				changeTracker.changed();
+				int newNode = newNode(high, low, bits, node);
+				setSubNode(node, isUpper, newNode);
+				setAdded(newNode);
+				incrementTreeSizes(newNode);
+				return true;
+			}
+			int subNodeBits = getPrefixLength(subNode);
+			int matchingBits = getMatchingBits(getKeyHigh(subNode), getKeyLow(subNode), high, low, Math.min(subNodeBits, bits));
+			if(matchingBits == subNodeBits) {
+				// the sub-node contains the address
+				node = subNode;
+				continue;
+			}
+			changeTracker.changed();
+			int newNode = newNode(high, low, bits, node);
+			setAdded(newNode);
+			if(matchingBits == bits) {
+				// the address contains the sub-node
+				setSubNode(newNode, isOneBit(getKeyHigh(subNode), getKeyLow(subNode), bits), subNode);
+				setSubNode(node, isUpper, newNode);
+				setTreeSize(newNode, getTreeSize(subNode));
+			} else {
+				// the address and sub-node differ at the matching bit, so a new non-added node with the matching bits contains both
+				int splitNode = newNode(high, low, matchingBits, node);
+				boolean newIsUpper = isOneBit(high, low, matchingBits);
+				setSubNode(splitNode, newIsUpper, newNode);
+				setSubNode(splitNode, !newIsUpper, subNode);
+				setSubNode(node, isUpper, splitNode);
+				setTreeSize(splitNode, getTreeSize(subNode));
+			}
+			incrementTreeSizes(newNode);
+			return true;
+		}
+	}
+
+	// the node furthest along the path to the given key that contains it, whether added or not
+	private int getLastContainingNode(long high, long low, int bits) {
+		int node = 0, last = 0;
+		while(true) {
+			int nodeBits = getPrefixLength(node);
+			if(nodeBits > bits || getMatchingBits(getKeyHigh(node), getKeyLow(node), high, low, nodeBits) != nodeBits) {
+				return last;
+			}
+			last = node;
+			if(nodeBits == bits) {
+				return last;
+			}
+			node = isOneBit(high, low, nodeBits) ? getUpper(node) : getLower(node);
+			if(node == 0) {
+				return last;
+			}
+		}
+	}
+
+	// returns the matching node, whether added or not, or -1 if none
+	private int findNode(E addr) {
+		addr = AbstractTree.checkBlockOrAddress(addr, true);
+		if(!checkKey(addr)) {
+			return -1;
+		}
+		long values[] = new long[2];
+		int bits = getKeyBits(addr, values);
+		int node = getLastContainingNode(values[0], values[1], bits);
+		return getPrefixLength(node) == bits ? node : -1;
+	}
+
+	// returns the smallest added node containing the address, or -1 if none
+	private int getLongestPrefixMatchNode(E addr) {
+		addr = AbstractTree.checkBlockOrAddress(addr, true);
+		if(!checkKey(addr)) {
+			return -1;
+		}
+		long values[] = new long[2];
+		int bits = getKeyBits(addr, values);
+		int node = getLastContainingNode(values[0], values[1], bits);
+		while(!isAdded(node)) {
+			if(node == 0) {
+				return -1;
+			}
+			node = getParent(node);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns whether the given address or prefix block subnet is in the trie, as an added element.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public boolean contains(E addr) {
+		int node = findNode(addr);
+		return node >= 0 && isAdded(node);
+	}
+
+	/**
+	 * Checks if a part of this trie is contained by the given prefix block subnet or individual address,
+	 * see {@link AddressTrie#elementContains(Address)}.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public boolean elementContains(E addr) {
+		return getLongestPrefixMatchNode(addr) >= 0;
+	}
+
+	/**
+	 * Of all the added subnets or address whose prefix matches the given address, returns the one with the longest prefix,
+	 * see {@link AddressTrie#longestPrefixMatch(Address)}.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public E longestPrefixMatch(E addr) {
+		int node = getLongestPrefixMatchNode(addr);
+		return node < 0 ? null : createKey(node);
+	}
+
+	/**
+	 * Finds the added node whose key is the longest prefix match of the given address,
+	 * see {@link AddressTrie#longestPrefixMatchNode(Address)}.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public ArenaNode<E> longestPrefixMatchNode(E addr) {
+		int node = getLongestPrefixMatchNode(addr);
+		return node < 0 ? null : new ArenaNode<E>(this, node);
+	}
+
+	/**
+	 * Gets the node corresponding to the given address, returns null if not such element exists.
+	 * The node may or may not be an added node.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public ArenaNode<E> getNode(E addr) {
+		int node = findNode(addr);
+		return node < 0 ? null : new ArenaNode<E>(this, node);
+	}
+
+	/**
+	 * Gets the added node corresponding to the given address, returns null if not such element exists.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	public ArenaNode<E> getAddedNode(E addr) {
+		int node = findNode(addr);
+		return node < 0 || !isAdded(node) ? null : new ArenaNode<E>(this, node);
+	}
+
+	/**
+	 * Returns the root node of this trie, or null if nothing has been added to this trie.
+	 *
+	 * @return
+	 */
+	public ArenaNode<E> getRoot() {
+		return bitCount < 0 ? null : new ArenaNode<E>(this, 0);
+	}
+
+	/**
+	 * Returns the number of elements added to this trie.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of nodes in this trie, both added and non-added.
+	 *
+	 * @return
+	 */
+	public int nodeSize() {
+		return nodeCount;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// the next node in the trie order, or -1 if none
+	private int nextNode(int node) {
+		int next = getUpper(node);
+		if(next != 0) {
+			node = next;
+			while((next = getLower(node)) != 0) {
+				node = next;
+			}
+			return node;
+		}
+		while(node != 0) {
+			int parentNode = getParent(node);
+			if(getLower(parentNode) == node) {
+				return parentNode;
+			}
+			node = parentNode;
+		}
+		return -1;
+	}
+
+	private int firstNode() {
+		int node = 0, next;
+		while((next = getLower(node)) != 0) {
+			node = next;
+		}
+		return node;
+	}
+
+	/**
+	 * Iterates through the added elements in the sorted trie order, see {@link AddressTrie#iterator()}.
+	 * <p>
+	 * The keys are created as they are iterated.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private final Change change = changeTracker.getCurrent();
+			private int next = nextAdded(firstNode());
+
+			private int nextAdded(int node) {
+				while(node >= 0 && !isAdded(node)) {
+					node = nextNode(node);
+				}
+				return node;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public E next() {
+				changeTracker.changedSince(change);
+				if(next < 0) {
+					throw new NoSuchElementException();
+				}
+				int current = next;
+				next = nextAdded(nextNode(current));
+				return createKey(current);
+			}
+		};
+	}
+
+	/**
+	 * Adds the elements of this trie to the given trie.
+	 * <p>
+	 * When the given trie is empty, the nodes are created directly from the structure of this trie, in linear time,
+	 * as with {@link AddressTrie#addAll(Address[])}.
+	 *
+	 * @param trie
+	 * @return whether any of the elements were not already in the given trie
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addTo(AddressTrie<E> trie) {
+		if(size == 0) {
+			return false;
+		}
+		// pre-order is the order which requires no sorting by addAll
+		E keys[] = (E[]) new Address[size];
+		int count = 0;
+		int node = 0;
+		while(node >= 0) {
+			if(isAdded(node)) {
+				keys[count++] = createKey(node);
+			}
+			node = nextPreOrderNode(node);
+		}
+		return trie.addAll(keys);
+	}
+
+	// the next node in pre-order, or -1 if none
+	private int nextPreOrderNode(int node) {
+		int next = getLower(node);
+		if(next == 0) {
+			next = getUpper(node);
+			while(next == 0) {
+				if(node == 0) {
+					return -1;
+				}
+				int parentNode = getParent(node);
+				if(getLower(parentNode) == node) {
+					next = getUpper(parentNode);
+				}
+				node = parentNode;
+			}
+		}
+		return next;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder().append('[');
+		Iterator<E> iterator = iterator();
+		while(iterator.hasNext()) {
+			builder.append(iterator.next());
+			if(iterator.hasNext()) {
+				builder.append(", ");
+			}
+		}
+		return builder.append(']').toString();
+	}
+
+	// The change tracker of the views, which are read-only as are the nodes of frozen tries,
+	// but whose iterators detect changes to the arena trie.
+	private static class ViewChangeTracker extends FrozenChangeTracker {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ChangeTracker arenaChangeTracker;
+
+		ViewChangeTracker(ChangeTracker arenaChangeTracker) {
+			this.arenaChangeTracker = arenaChangeTracker;
+		}
+
+		@Override
+		public Change getCurrent() {
+			return arenaChangeTracker.getCurrent();
+		}
+
+		@Override
+		public boolean isChangedSince(Change otherChange) {
+			return arenaChangeTracker.isChangedSince(otherChange);
+		}
+	}
+
+	/**
+	 * A lightweight read-only view of a node of an {@link ArenaAddressTrie}.
+	 * <p>
+	 * The view holds no data of its own, only a reference to the trie and the position of the node,
+	 * so views are cheap to create, and two views of the same node are equal.
+	 * Once requested, the key of the view and the views of its parent and sub-nodes are retained by the view,
+	 * so the views reached from a view form a tree of their own, which is released along with the views.
+	 * <p>
+	 * The methods of {@link AddressTrie.TrieNode} that do not modify the trie, such as lookups, iterators and spliterators, are all available.
+	 * The methods that would modify the trie throw {@link UnsupportedOperationException}, as do the nodes of a frozen trie, see {@link AddressTrie#freeze()}.
+	 * Use {@link #asNewTrie()} to copy the sub-trie of a view to a modifiable address trie.
+	 * <p>
+	 * A view remains valid until the arena trie is modified, after which new views should be obtained from the trie.
+	 * Iterators and spliterators from a view throw {@link java.util.ConcurrentModificationException} when the arena trie is modified.
+	 *
+	 * @author scfoley
+	 *
+	 * @param <E> the type of the address keys
+	 */
+	public static class ArenaNode<E extends Address> extends TrieNode<E> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ArenaAddressTrie<E> trie;
+		private final int node;
+		private E key;
+		private ArenaNode<E> parentView, lowerView, upperView;
+
+		ArenaNode(ArenaAddressTrie<E> trie, int node) {
+			super(null);
+			this.trie = trie;
+			this.node = node;
+			changeTracker = trie.viewChangeTracker;
+			size = trie.getTreeSize(node);
+		}
+
+		/**
+		 * Returns the key of this node, creating it from the stored key bits when first requested.
+		 *
+		 * @return
+		 */
+		@Override
+		public E getKey() {
+			E result = key;
+			if(result == null) {
+				key = result = trie.createKey(node);
+			}
+			return result;
+		}
+
+		@Override
+		public boolean isRoot() {
+			return node == 0;
+		}
+
+		/**
+		 * Returns whether this node was added to the trie, or whether it is an internal node that joins sub-nodes.
+		 *
+		 * @return
+		 */
+		@Override
+		public boolean isAdded() {
+			return trie.isAdded(node);
+		}
+
+		// The views of the parent and sub-nodes are retained, so that the same node is always the same view with the same key.
+		// Iterators and other operations on trie nodes rely upon this, as they do with the nodes of address tries.
+
+		@Override
+		public ArenaNode<E> getParent() {
+			ArenaNode<E> result = parentView;
+			if(result == null && node != 0) {
+				int parentNode = trie.getParent(node);
+				parentView = result = new ArenaNode<E>(trie, parentNode);
+				if(trie.getLower(parentNode) == node) {
+					result.lowerView = this;
+				} else {
+					result.upperView = this;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public ArenaNode<E> getLowerSubNode() {
+			ArenaNode<E> result = lowerView;
+			if(result == null) {
+				int lower = trie.getLower(node);
+				if(lower != 0) {
+					lowerView = result = new ArenaNode<E>(trie, lower);
+					result.parentView = this;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public ArenaNode<E> getUpperSubNode() {
+			ArenaNode<E> result = upperView;
+			if(result == null) {
+				int upper = trie.getUpper(node);
+				if(upper != 0) {
+					upperView = result = new ArenaNode<E>(trie, upper);
+					result.parentView = this;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		protected ArenaNode<E> createNewImpl(E newAddr) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected AddressTrie<E> createNewTree() {
+			return trie.createTrie();
+		}
+
+		/**
+		 * Views cannot be detached from the arena trie, so this throws UnsupportedOperationException.  Use {@link #asNewTrie()} instead.
+		 */
+		@Override
+		public ArenaNode<E> clone() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Views cannot be detached from the arena trie, so this throws UnsupportedOperationException.  Use {@link #asNewTrie()} instead.
+		 */
+		@Override
+		public ArenaNode<E> cloneTree() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -17,7 +17,14 @@
  */
 package inet.ipaddr.format.util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
@@ -26,6 +33,9 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrie.TrieNode.TrieKeyData;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeEvent;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeType;
 import inet.ipaddr.format.util.AddressTrieOps.AssociativeAddressTriePutOps;
 import inet.ipaddr.format.util.BinaryTreeNode.CachingIterator;
 import inet.ipaddr.format.validate.ChangeTracker.Change;
@@ -54,6 +64,21 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Writes and reads the values of an associative trie in the compact binary trie format.
+	 * Values can be null, in which case the codec must be able to write and read null values.
+	 * 
+	 * @see AssociativeAddressTrie#writeTo(OutputStream, ValueCodec)
+	 * @see AssociativeAddressTrie#readFrom(InputStream, ValueCodec)
+	 * 
+	 * @param <V> the type of the values
+	 */
+	public static interface ValueCodec<V> {
+		void write(V value, DataOutput out) throws IOException;
+
+		V read(DataInput in) throws IOException;
+	}
+
 	public static abstract class AssociativeTrieNode<K extends Address, V> extends TrieNode<K> implements Map.Entry<K, V>, AssociativeAddressTrieOps<K, V> {
 
 		private static final long serialVersionUID = 1L;
@@ -71,15 +96,30 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 
 		@Override
 		public V setValue(V value) {
+			checkFrozen();
 			V result = getValue();
 			this.value = value;
+			if(value != result && isAdded()) {
+				logChange(ChangeType.VALUE_CHANGED);
+			}
 			return result;
 		}
 
 		public void clearValue() {
+			checkFrozen();
 			this.value = null;
 		}
 
+		// sets the value without recording the change in the change log
+		void initValue(V value) {
+			this.value = value;
+		}
+
+		@Override
+		Object getChangeValue() {
+			return value;
+		}
+
 		@SuppressWarnings("unchecked")
 		@Override
 		public AssociativeTrieNode<K,V> getUpperSubNode() {
@@ -382,8 +422,9 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		@Override
 		@SuppressWarnings("unchecked")
 		void added(OpResult<K> result) {
-			super.added(result);
+			// the value is assigned first so that it is recorded with the addition in the change log
 			setValue((V) result.newValue);
+			super.added(result);
 		}
 
 		/**
@@ -474,6 +515,16 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		return (AssociativeTrieNode<K, V>) super.getRoot();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	void applyChange(ChangeEvent<K> change) {
+		if(change.getType() == ChangeType.REMOVED) {
+			remove(change.getKey());
+		} else {
+			put(change.getKey(), (V) change.getValue());
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public V put(K addr, V value) {
@@ -678,6 +729,120 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		return (AssociativeTrieNode<K, V>) node;
 	}
 
+	// Remaps a batch of keys, as used by AddressTrieMap.computeAll and AddressTrieMap.mergeAll.
+	// The remapper is given the index of a key in the batch and the existing value of the key,
+	// and returns the new value, or a REMAP_ACTION.
+	@FunctionalInterface
+	interface BatchRemapper<V> {
+		Object remap(int index, V existingValue);
+	}
+
+	// Remaps the given keys in one coordinated traversal of the trie.
+	// The keys are sorted in trie pre-order, so each key is at or near the path to the previous key.
+	// Rather than descending from the root for each key, each operation starts from the node containing the key that is nearest the previous key.
+	void remapAll(K keys[], BatchRemapper<V> remapper) {
+		int count = keys.length;
+		if(count == 0) {
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		K sortedKeys[] = (K[]) new Address[count];
+		for(int i = 0; i < count; i++) {
+			K addr = checkBlockOrAddress(keys[i], true);
+			if(bounds != null) {
+				if(!bounds.isInBounds(addr)) {
+					throwOutOfBounds();
+				}
+			}
+			sortedKeys[i] = addr;
+		}
+		int order[] = getPreOrder(sortedKeys);
+		TrieNode<K> node = absoluteRoot();
+		for(int i = 0; i < count; i++) {
+			int index = order[i];
+			K addr = sortedKeys[index];
+			adjustRoot(addr);
+
+			// climb from the node of the previous operation to the nearest node containing the key, the root contains all keys
+			TrieNode<K> parent;
+			while((parent = node.getParent()) != null && !keyContains(node.getKey(), addr)) {
+				node = parent;
+			}
+			OpResult<K> result = new OpResult<>(addr, Operation.REMAP);
+			result.remapper = (Function<V, Object>) existingValue -> remapper.remap(index, existingValue);
+			node.matchBits(result);
+			TrieNode<K> resultNode = result.existingNode;
+			if(resultNode == null) {
+				resultNode = result.inserted;
+			}
+			// a removal can detach nodes from the trie, so following a removal, or when there is no node for the key, start again from the root
+			node = resultNode != null && result.deleted == null ? resultNode : absoluteRoot();
+		}
+	}
+
+	private static final int PACKED_INDEX_BITS = 26, PACKED_PREFIX_BITS = 6;
+
+	// Returns the indices of the given keys, ordered by the trie pre-order of the keys, see compareBulkOrder.
+	// When the keys have trie key caches, the keys are ordered by their cached bits, which is much faster than comparing the keys themselves.
+	// 32-bit keys are ordered with a primitive sort, with each key packed along with its index into a long.
+	private int[] getPreOrder(K keys[]) {
+		int count = keys.length;
+		TrieNode<K> root = absoluteRoot();
+		TrieKeyData keyData[] = new TrieKeyData[count];
+		boolean is32Bits = count <= 1 << PACKED_INDEX_BITS, is128Bits = true;
+		for(int i = 0; i < count; i++) {
+			TrieKeyData data = root.getTrieKeyCache(keys[i]);
+			if(data == null) {
+				is32Bits = is128Bits = false;
+				break;
+			}
+			keyData[i] = data;
+			is32Bits &= data.is32Bits();
+			is128Bits &= data.is128Bits();
+		}
+		int order[] = new int[count];
+		if(is32Bits) {
+			long packed[] = new long[count];
+			for(int i = 0; i < count; i++) {
+				TrieKeyData data = keyData[i];
+				long bits = data.prefixLength == null ? keys[i].getBitCount() : data.prefixLength;
+				long value = (((data.getUint32Val() & 0xffffffffL) << PACKED_PREFIX_BITS) | bits) << PACKED_INDEX_BITS | i;
+				packed[i] = value ^ Long.MIN_VALUE; // for unsigned ordering of the address values
+			}
+			Arrays.sort(packed);
+			int indexMask = (1 << PACKED_INDEX_BITS) - 1;
+			for(int i = 0; i < count; i++) {
+				order[i] = (int) packed[i] & indexMask;
+			}
+			return order;
+		}
+		Integer boxed[] = new Integer[count];
+		for(int i = 0; i < count; i++) {
+			boxed[i] = i;
+		}
+		if(is128Bits) {
+			Arrays.sort(boxed, (one, two) -> {
+				TrieKeyData oneData = keyData[one], twoData = keyData[two];
+				int result = Long.compareUnsigned(oneData.getUint64HighVal(), twoData.getUint64HighVal());
+				if(result == 0) {
+					result = Long.compareUnsigned(oneData.getUint64LowVal(), twoData.getUint64LowVal());
+					if(result == 0) {
+						int oneBits = oneData.prefixLength == null ? keys[one].getBitCount() : oneData.prefixLength;
+						int twoBits = twoData.prefixLength == null ? keys[two].getBitCount() : twoData.prefixLength;
+						result = Integer.compare(oneBits, twoBits);
+					}
+				}
+				return result;
+			});
+		} else {
+			Arrays.sort(boxed, (one, two) -> compareBulkOrder(keys[one], keys[two]));
+		}
+		for(int i = 0; i < count; i++) {
+			order[i] = boxed[i];
+		}
+		return order;
+	}
+
 	@Override
 	public V get(K addr) {
 		AssociativeTrieNode<K,V> subRoot;
@@ -738,6 +903,21 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		return (AssociativeTrieNode<K, V>) super.longestPrefixMatchNode(addr);
 	}
 
+	/**
+	 * Finds the longest prefix match of each of the given addresses,
+	 * writing the value mapped to the matching element for the address at each index of the addresses array to the same index of the results array.
+	 * Null is written when there is no match, or when the matching element is mapped to null.
+	 * <p>
+	 * See {@link #longestPrefixMatchNodes(Address[], TrieNode[])} for more details.
+	 *
+	 * @param addrs the addresses to look up
+	 * @param results the array to hold the values of the matching elements, with length at least that of addrs
+	 */
+	@SuppressWarnings("unchecked")
+	public void longestPrefixMatchValues(K addrs[], V results[]) {
+		longestPrefixMatchNodes(addrs, (node, index) -> results[index] = node == null ? null : ((AssociativeTrieNode<K, V>) node).getValue());
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public AssociativeTrieNode<K,V> shortestPrefixMatchNode(K addr) {
@@ -770,6 +950,43 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		return (AssociativeAddressTrie<K, V>) super.elementsContainingToTrie(addr);
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public AssociativeAddressTrie<K,V> union(AddressTrie<K> other) {
+		return (AssociativeAddressTrie<K,V>) super.union(other);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public AssociativeAddressTrie<K,V> intersection(AddressTrie<K> other) {
+		return (AssociativeAddressTrie<K,V>) super.intersection(other);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public AssociativeAddressTrie<K,V> difference(AddressTrie<K> other) {
+		return (AssociativeAddressTrie<K,V>) super.difference(other);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public AssociativeAddressTrie<K,V> symmetricDifference(AddressTrie<K> other) {
+		return (AssociativeAddressTrie<K,V>) super.symmetricDifference(other);
+	}
+
+	// copies the values from the nodes of the combined tries, which are in the same order as the nodes of this trie
+	@SuppressWarnings("unchecked")
+	@Override
+	void combined(ArrayList<TrieNode<K>> fromNodes) {
+		Iterator<? extends AssociativeTrieNode<K,V>> iterator = containingFirstIterator(true);
+		for(TrieNode<K> fromNode : fromNodes) {
+			AssociativeTrieNode<K,V> node = iterator.next();
+			if(fromNode instanceof AssociativeTrieNode) {
+				node.setValue(((AssociativeTrieNode<K,V>) fromNode).getValue());
+			}
+		}
+	}
+
 	// creates a new one-node trie with a new root and the given bounds
 	@Override
 	protected abstract AssociativeAddressTrie<K,V> createNew(AddressBounds<K> bounds);
@@ -932,6 +1149,46 @@ public abstract class AssociativeAddressTrie<K extends Address, V> extends Addre
 		return (AssociativeTrieNode<K, V>) super.ceilingAddedNode(addr);
 	}
 
+	/**
+	 * Writes this trie and its values to the given stream in a compact binary format, 
+	 * which can be read back with {@link #readFrom(InputStream, ValueCodec)} or {@link #readFrom(ByteBuffer, ValueCodec)}.
+	 * <p>
+	 * The trie is written as with {@link #writeTo(OutputStream)}, followed by the length in bytes of the values, then the values of the added nodes, written with the given codec.
+	 * 
+	 * @param out
+	 * @param codec
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out, ValueCodec<? super V> codec) throws IOException {
+		writeTrie(out, codec);
+	}
+
+	/**
+	 * Replaces the contents of this trie with the trie data and values read from the given stream, data written by {@link #writeTo(OutputStream, ValueCodec)}.
+	 * <p>
+	 * See {@link #readFrom(InputStream)}.  If the trie data has no values, then the values of the added nodes are null.
+	 * 
+	 * @param in
+	 * @param codec
+	 * @throws IOException if the stream could not be read, or the data is not valid trie data
+	 */
+	public void readFrom(InputStream in, ValueCodec<? extends V> codec) throws IOException {
+		readTrie(new TrieInput(in), codec);
+	}
+
+	/**
+	 * Replaces the contents of this trie with the trie data and values read from the given buffer, data written by {@link #writeTo(OutputStream, ValueCodec)}.
+	 * <p>
+	 * See {@link #readFrom(ByteBuffer)}.  If the trie data has no values, then the values of the added nodes are null.
+	 * 
+	 * @param buffer
+	 * @param codec
+	 * @throws IOException if the data is not valid trie data
+	 */
+	public void readFrom(ByteBuffer buffer, ValueCodec<? extends V> codec) throws IOException {
+		readTrie(new TrieInput(buffer), codec);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public AssociativeAddressTrie<K, V> clone() {
@@ -19,6 +19,7 @@
 package inet.ipaddr.format.util;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -27,11 +28,13 @@ import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
 import inet.ipaddr.Address;
 import inet.ipaddr.IPAddress;
+import inet.ipaddr.IPAddressConverter;
 import inet.ipaddr.format.util.AddressTrie.TrieNode;
 import inet.ipaddr.format.util.AddressTrieOps.AddressTrieAddOps;
 import inet.ipaddr.format.validate.ChangeTracker;
@@ -65,6 +68,8 @@ public abstract class BaseDualIPv4v6Tries<T4 extends AddressTrie<IPv4Address>, T
 	public abstract T6 getIPv6Trie();
 	
 	private ChangeTracker ipv4Tracker, ipv6Tracker;
+
+	private IPAddressConverter dualStackConverter;
 	
 	BaseDualIPv4v6Tries(AddressTrie<IPv4Address> ipv4Trie, AddressTrie<IPv6Address> ipv6Trie) {
 		assignTrackers(ipv4Trie, ipv6Trie);
@@ -257,6 +262,10 @@ public abstract class BaseDualIPv4v6Tries<T4 extends AddressTrie<IPv4Address>, T
 	 * @return
 	 */
 	public boolean elementContains(IPAddress addr) {
+		IPv4Address ipv4Addr = toDualStackIPv4(addr);
+		if(ipv4Addr != null) {
+			return getIPv6Trie().elementContains(addr.toIPv6()) || getIPv4Trie().elementContains(ipv4Addr);
+		}
 		return addressPredicateOp(addr, getIPv4Trie()::elementContains, getIPv6Trie()::elementContains);
 	}
 	
@@ -280,12 +289,142 @@ public abstract class BaseDualIPv4v6Tries<T4 extends AddressTrie<IPv4Address>, T
 		return addressFuncOp(addr, getIPv4Trie()::getAddedNode, getIPv6Trie()::getAddedNode);
 	}
 
+	/**
+	 * Enables or disables dual-stack lookups.
+	 * <p>
+	 * Without dual-stack lookups, which is the default, IPv6 addresses are looked up in the IPv6 trie only, and IPv4 addresses in the IPv4 trie only.
+	 * <p>
+	 * With dual-stack lookups, an IPv6 address which the given converter considers to be IPv4 convertible, as indicated by {@link IPAddressConverter#isIPv4Convertible(IPAddress)},
+	 * is also looked up in the IPv4 trie using the IPv4 address from {@link IPAddressConverter#toIPv4(IPAddress)}.
+	 * This applies to {@link #longestPrefixMatchNode(IPAddress)}, {@link #longestPrefixMatch(IPAddress)}, {@link #longestPrefixMatchNodes(IPAddress[], TrieNode[])},
+	 * {@link #longestPrefixMatches(IPAddress[], IPAddress[])} and {@link #elementContains(IPAddress)}.
+	 * <p>
+	 * For instance, with {@link inet.ipaddr.IPAddressConverter.EmbeddedIPv4AddressConverter}, the IPv4-mapped address ::ffff:1.2.3.4 and the translated address 64:ff9b::1.2.3.4
+	 * will both match the IPv4 element 1.2.0.0/16.
+	 * Longest prefix matches consider the matches in both tries, choosing whichever is the smaller block,
+	 * the one with fewer host bits, choosing the IPv4 match when they are the same size.
+	 * <p>
+	 * For the tries to remain serializable, the converter must be serializable.
+	 *
+	 * @param converter the converter defining which IPv6 addresses map to IPv4 addresses, or null to disable dual-stack lookups
+	 */
+	public void setDualStackConverter(IPAddressConverter converter) {
+		dualStackConverter = converter;
+	}
+
+	/**
+	 * Returns the converter used for dual-stack lookups, or null if dual-stack lookups are not enabled.
+	 * See {@link #setDualStackConverter(IPAddressConverter)}.
+	 *
+	 * @return
+	 */
+	public IPAddressConverter getDualStackConverter() {
+		return dualStackConverter;
+	}
+
+	// returns the IPv4 address to look up for an IPv6 address with dual-stack lookups, otherwise null
+	private IPv4Address toDualStackIPv4(IPAddress addr) {
+		IPAddressConverter converter = dualStackConverter;
+		if(converter != null && addr.isIPv6() && converter.isIPv4Convertible(addr)) {
+			return converter.toIPv4(addr);
+		}
+		return null;
+	}
+
+	// chooses the smaller block of the two matches
+	static <T extends TrieNode<? extends IPAddress>> T longerMatch(T ipv4Match, T ipv6Match) {
+		if(ipv4Match == null) {
+			return ipv6Match;
+		} else if(ipv6Match == null || getHostBits(ipv4Match.getKey()) <= getHostBits(ipv6Match.getKey())) {
+			return ipv4Match;
+		}
+		return ipv6Match;
+	}
+
+	private static int getHostBits(IPAddress key) {
+		Integer prefLen = key.getPrefixLength();
+		return prefLen == null ? 0 : key.getBitCount() - prefLen;
+	}
+
 	public TrieNode<? extends IPAddress> longestPrefixMatchNode(IPAddress addr) {
+		IPv4Address ipv4Addr = toDualStackIPv4(addr);
+		if(ipv4Addr != null) {
+			return longerMatch(getIPv4Trie().longestPrefixMatchNode(ipv4Addr), getIPv6Trie().longestPrefixMatchNode(addr.toIPv6()));
+		}
 		return addressFuncOp(addr, getIPv4Trie()::longestPrefixMatchNode, getIPv6Trie()::longestPrefixMatchNode);
 	}
 
 	public IPAddress longestPrefixMatch(IPAddress addr) {
-		return addressFuncOp(addr, getIPv4Trie()::longestPrefixMatch, getIPv6Trie()::longestPrefixMatch);
+		return AddressTrie.getNodeKey(longestPrefixMatchNode(addr));
+	}
+
+	/**
+	 * Finds the longest prefix match of each of the given addresses, which can be a mix of IPv4 and IPv6 addresses, as with {@link #longestPrefixMatchNode(IPAddress)}.
+	 * The matching node for the address at each index of the addresses array is written to the same index of the results array,
+	 * or null is written when there is no match.
+	 * <p>
+	 * The addresses are separated by version, and then each trie does a single batched look-up, see {@link AddressTrie#longestPrefixMatchNodes(Address[], TrieNode[])}.
+	 * With dual-stack lookups, see {@link #setDualStackConverter(IPAddressConverter)}, IPv4 convertible IPv6 addresses are looked up in both tries.
+	 * The given addresses array is not modified.
+	 *
+	 * @param addrs the addresses to look up
+	 * @param results the array to hold the matching nodes, with length at least that of addrs
+	 */
+	public void longestPrefixMatchNodes(IPAddress addrs[], TrieNode<? extends IPAddress> results[]) {
+		longestPrefixMatchNodes(addrs, (node, index) -> results[index] = node);
+	}
+
+	/**
+	 * Finds the longest prefix match of each of the given addresses, which can be a mix of IPv4 and IPv6 addresses, as with {@link #longestPrefixMatch(IPAddress)}.
+	 * The matching element for the address at each index of the addresses array is written to the same index of the results array,
+	 * or null is written when there is no match.
+	 * <p>
+	 * See {@link #longestPrefixMatchNodes(IPAddress[], TrieNode[])} for more details.
+	 *
+	 * @param addrs the addresses to look up
+	 * @param results the array to hold the matching elements, with length at least that of addrs
+	 */
+	public void longestPrefixMatches(IPAddress addrs[], IPAddress results[]) {
+		longestPrefixMatchNodes(addrs, (node, index) -> results[index] = AddressTrie.getNodeKey(node));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void longestPrefixMatchNodes(IPAddress addrs[], ObjIntConsumer<TrieNode<? extends IPAddress>> resultConsumer) {
+		int count = addrs.length;
+		IPv4Address ipv4Addrs[] = new IPv4Address[count];
+		IPv6Address ipv6Addrs[] = new IPv6Address[count];
+		int ipv4Indices[] = new int[count], ipv6Indices[] = new int[count];
+		int ipv4Count = 0, ipv6Count = 0;
+		for(int i = 0; i < count; i++) {
+			IPAddress addr = addrs[i];
+			if(addr.isIPv4()) {
+				ipv4Indices[ipv4Count] = i;
+				ipv4Addrs[ipv4Count++] = addr.toIPv4();
+			} else if(addr.isIPv6()) {
+				ipv6Indices[ipv6Count] = i;
+				ipv6Addrs[ipv6Count++] = addr.toIPv6();
+				IPv4Address ipv4Addr = toDualStackIPv4(addr);
+				if(ipv4Addr != null) {
+					ipv4Indices[ipv4Count] = i;
+					ipv4Addrs[ipv4Count++] = ipv4Addr;
+				}
+			}
+		}
+		TrieNode<? extends IPAddress> matches[] = (TrieNode<? extends IPAddress>[]) new TrieNode<?>[count];
+		TrieNode<IPv6Address> ipv6Matches[] = (TrieNode<IPv6Address>[]) new TrieNode<?>[ipv6Count];
+		getIPv6Trie().longestPrefixMatchNodes(Arrays.copyOf(ipv6Addrs, ipv6Count), ipv6Matches);
+		for(int i = 0; i < ipv6Count; i++) {
+			matches[ipv6Indices[i]] = ipv6Matches[i];
+		}
+		TrieNode<IPv4Address> ipv4Matches[] = (TrieNode<IPv4Address>[]) new TrieNode<?>[ipv4Count];
+		getIPv4Trie().longestPrefixMatchNodes(Arrays.copyOf(ipv4Addrs, ipv4Count), ipv4Matches);
+		for(int i = 0; i < ipv4Count; i++) {
+			int index = ipv4Indices[i];
+			matches[index] = longerMatch(ipv4Matches[i], matches[index]);
+		}
+		for(int i = 0; i < count; i++) {
+			resultConsumer.accept(matches[i], i);
+		}
 	}
 
 	public TrieNode<? extends IPAddress> addNode(IPAddress addr) {
@@ -664,7 +803,32 @@ public abstract class BaseDualIPv4v6Tries<T4 extends AddressTrie<IPv4Address>, T
 		public Spliterator<T> trySplit() {
 			changedSince();
 			if(current == null) {
+				// Split off whichever prefix is closest to half of the elements: the first spliterator,
+				// a part of the first, or the first along with a part of the second.
+				// Splitting off the first alone can be very uneven when one of the two tries is much larger than the other.
+				long firstSize = first.estimateSize(), secondSize = second.estimateSize();
 				current = second;
+				if(firstSize == 0) {
+					return second.trySplit();
+				} else if(secondSize == 0) {
+					current = first;
+					return first.trySplit();
+				}
+				long half = (firstSize + secondSize) >>> 1;
+				long firstDiff = Math.abs(firstSize - half), firstPartDiff = Math.abs((firstSize >>> 1) - half),
+						secondPartDiff = Math.abs(firstSize + (secondSize >>> 1) - half);
+				if(firstPartDiff < firstDiff && firstPartDiff <= secondPartDiff) {
+					Spliterator<T> firstPart = first.trySplit();
+					if(firstPart != null) {
+						current = null;
+						return firstPart;
+					}
+				} else if(secondPartDiff < firstDiff) {
+					Spliterator<T> secondPart = second.trySplit();
+					if(secondPart != null) {
+						return new DualSpliterator<T>(first, secondPart);
+					}
+				}
 				return first;
 			}
 			return current.trySplit();
@@ -31,6 +31,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeType;
 import inet.ipaddr.format.validate.ChangeTracker;
 import inet.ipaddr.format.validate.ChangeTracker.Change;
 import inet.ipaddr.ipv6.IPv6Address;
@@ -417,6 +418,20 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	// at this point it is just a debugging option
 	static final int SIZE_UNKNOWN = -1;
 
+	// The change tracker shared by the nodes of all frozen trees.
+	// Frozen trees cannot change, so there are no changes to track.
+	static class FrozenChangeTracker extends ChangeTracker {
+
+		private static final long serialVersionUID = 1L;
+
+		static final FrozenChangeTracker FROZEN = new FrozenChangeTracker();
+
+		@Override
+		public void changed() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 	// describes the address or subnet
 	private E item;
 	private BinaryTreeNode<E> parent, lower, upper;
@@ -521,9 +536,11 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	 * A non-added node will only remain in the tree if it needs to in the tree.
 	 */
 	public void setAdded() {
+		checkFrozen();
 		if(!added) {
 			setNodeAdded(true);
 			setContainmentCount(1, getKeyContainedCount());
+			logChange(ChangeType.ADDED);
 		}
 	}
 
@@ -544,16 +561,21 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 			while(iterator.hasNext()) {
 				BinaryTreeNode<E> next = iterator.next();
 				int nodeSize = next.isAdded() ? 1 : 0;
-				BigInteger containedCount = next.isAdded() ? next.getKeyContainedCount() : BigInteger.ZERO;
+				boolean isAdded = next.isAdded();
+				BigInteger containedCount = isAdded ? next.getKeyContainedCount() : BigInteger.ZERO;
 				BinaryTreeNode<E> lower = next.getLowerSubNode();
 				if(lower != null) {
 					nodeSize += lower.size;
-					containedCount = containedCount.add(lower.containedCount);
+					if(!isAdded) { // the count of an added node is the count of its own key, which contains those of its sub-nodes
+						containedCount = containedCount.add(lower.containedCount);
+					}
 				}
 				BinaryTreeNode<E> upper = next.getUpperSubNode();
 				if(upper != null) {
 					nodeSize += upper.size;
-					containedCount = containedCount.add(upper.containedCount);
+					if(!isAdded) {
+						containedCount = containedCount.add(upper.containedCount);
+					}
 				}
 				next.size = nodeSize;
 				next.containedCount = containedCount;
@@ -574,12 +596,56 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 			size();
 		}
 		BigInteger count = containedCount;
-		if(count == null) { // in an empty trie with adjusting roots, it can have no contained count yet
+		if(count == null) {
+			if(isFrozen()) { // frozen trees do not store the counts below the root
+				return calculateMatchingAddressCount();
+			}
+			// in an empty trie with adjusting roots, it can have no contained count yet
 			return containedCount = BigInteger.ZERO;
 		}
 		return count;
 	}
 
+	private BigInteger calculateMatchingAddressCount() {
+		if(isAdded()) {
+			return getKeyContainedCount();
+		}
+		BigInteger count = BigInteger.ZERO;
+		BinaryTreeNode<E> lower = getLowerSubNode();
+		if(lower != null) {
+			count = lower.getMatchingAddressCount();
+		}
+		BinaryTreeNode<E> upper = getUpperSubNode();
+		if(upper != null) {
+			count = count.add(upper.getMatchingAddressCount());
+		}
+		return count;
+	}
+
+	// Releases the counts stored in each node below this one, and stops tracking changes, since there can be no more changes.
+	// Sizes remain stored, so that size() remains a constant-time operation.
+	void freezeTree() {
+		size();
+		BigInteger count = getMatchingAddressCount();
+		Iterator<? extends BinaryTreeNode<E>> iterator = containingFirstAllNodeIterator(true);
+		while(iterator.hasNext()) {
+			BinaryTreeNode<E> next = iterator.next();
+			next.containedCount = null;
+			next.changeTracker = FrozenChangeTracker.FROZEN;
+		}
+		containedCount = count;
+	}
+
+	boolean isFrozen() {
+		return changeTracker instanceof FrozenChangeTracker;
+	}
+
+	void checkFrozen() {
+		if(isFrozen()) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 
 	/**
 	 * Returns the count of all nodes in the tree starting from this node and extending to all sub-nodes.
@@ -596,9 +662,35 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		return totalCount;
 	}
 
+	// the number of added nodes that precede this node in the tree order, or in the reverse order when not forward, 
+	// calculated from the sizes of the sub-tries along the path to the root
+	int precedingAddedCount(boolean forward) {
+		BinaryTreeNode<E> node = this, lower = forward ? getLowerSubNode() : getUpperSubNode();
+		int count = lower == null ? 0 : lower.size();
+		BinaryTreeNode<E> parent = node.getParent();
+		while(parent != null) {
+			if((forward ? parent.getUpperSubNode() : parent.getLowerSubNode()) == node) {
+				lower = forward ? parent.getLowerSubNode() : parent.getUpperSubNode();
+				if(lower != null) {
+					count += lower.size();
+				}
+				if(parent.isAdded()) {
+					count++;
+				}
+			}
+			node = parent;
+			parent = node.getParent();
+		}
+		return count;
+	}
+
 	public boolean containingMaxElements() {
 		BigInteger maxContainedCount = getKeyContainedCount();
-		return maxContainedCount != null && containedCount != null && containedCount.equals(maxContainedCount);
+		BigInteger count = containedCount;
+		if(count == null && isFrozen()) {
+			count = calculateMatchingAddressCount();
+		}
+		return maxContainedCount != null && count != null && count.equals(maxContainedCount);
 	}
 
 	/**
@@ -676,6 +768,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	 * Returns whether one was removed.
 	 */
 	public boolean removeChildren() {
+		checkFrozen();
 		BinaryTreeNode<E> lower = getLowerSubNode();
 		BinaryTreeNode<E> upper = getUpperSubNode();
 		if(lower != null) {
@@ -699,6 +792,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	 * Only added nodes can be removed from the tree.  If this node is not added, this method does nothing.
 	 */
 	public void remove() {
+		checkFrozen();
 		if(!isAdded()) {
 			return;
 		}
@@ -717,6 +811,40 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		setNodeAdded(false);
 		setContainmentCount(-1, getSubNodeContainedCount());
 		changeTracker.changed();
+		logChange(ChangeType.REMOVED);
+	}
+
+	// records a change to this node in the change log of the tree, if the tree has one
+	void logChange(ChangeType type) {
+		ChangeTracker changeTracker = this.changeTracker;
+		if(changeTracker instanceof AddressTrieChangeLog) {
+			((AddressTrieChangeLog<?>) changeTracker).logged(type, this);
+		}
+	}
+
+	// the value recorded in the change log for an added node or a changed value, overridden by the valued tries
+	Object getChangeValue() {
+		return null;
+	}
+
+	// records the removal of this node and its sub-nodes other than the replacement sub-trie in the change log of the tree, if the tree has one
+	private void logReplaced(BinaryTreeNode<E> replacement) {
+		if(changeTracker instanceof AddressTrieChangeLog) {
+			if(isAdded()) {
+				logChange(ChangeType.REMOVED);
+			}
+			logRemoved(getLowerSubNode(), replacement);
+			logRemoved(getUpperSubNode(), replacement);
+		}
+	}
+
+	private static <E> void logRemoved(BinaryTreeNode<E> subNode, BinaryTreeNode<E> replacement) {
+		if(subNode != null && subNode != replacement) {
+			Iterator<? extends BinaryTreeNode<E>> iterator = subNode.nodeIterator(true);
+			while(iterator.hasNext()) {
+				iterator.next().logChange(ChangeType.REMOVED);
+			}
+		}
 	}
 
 	/**
@@ -724,6 +852,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	 * @param replacement
 	 */
 	BinaryTreeNode<E> replaceThis(BinaryTreeNode<E> replacement) {
+		logReplaced(replacement);
 		BinaryTreeNode<E> result = replaceThisRecursive(replacement, 0, null);
 		changeTracker.changed();
 		return result;
@@ -873,6 +1002,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	 * Removes this node and all sub-nodes from the tree, after which isEmpty() will return true.
 	 */
 	public void clear() {
+		checkFrozen();
 		replaceThis(null);
 	}
 
@@ -954,11 +1084,15 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	}
 
 	BinaryTreeNode<E> firstPostOrderNode() {
+		return firstPostOrderNode(null);
+	}
+
+	BinaryTreeNode<E> firstPostOrderNode(Bounds<E> bounds) {
 		BinaryTreeNode<E> next = this, nextNext;
 		while(true) {
-			nextNext = next.getLowerSubNode();
+			nextNext = next.getLowerSubNode(bounds);
 			if(nextNext == null) {
-				nextNext = next.getUpperSubNode();
+				nextNext = next.getUpperSubNode(bounds);
 				if(nextNext == null) {
 					return next;
 				}
@@ -968,11 +1102,15 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	}
 
 	BinaryTreeNode<E> lastPreOrderNode() {
+		return lastPreOrderNode(null);
+	}
+
+	BinaryTreeNode<E> lastPreOrderNode(Bounds<E> bounds) {
 		BinaryTreeNode<E> next = this, nextNext;
 		while(true) {
-			nextNext = next.getUpperSubNode();
+			nextNext = next.getUpperSubNode(bounds);
 			if(nextNext == null) {
-				nextNext = next.getLowerSubNode();
+				nextNext = next.getLowerSubNode(bounds);
 				if(nextNext == null) {
 					return next;
 				}
@@ -981,6 +1119,32 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		}
 	}
 
+	// The sub-nodes for bounded traversals.
+	// When this node is below the lower bound, so is its entire lower sub-trie, which is then skipped.
+	// Likewise, when this node is above the upper bound, its entire upper sub-trie is skipped.
+	// So a bounded traversal descends directly to the bounds, rather than visiting all the nodes outside them.
+	BinaryTreeNode<E> getLowerSubNode(Bounds<E> bounds) {
+		BinaryTreeNode<E> lower = getLowerSubNode();
+		if(lower != null && bounds != null) {
+			E key = getKey();
+			if(key != null && bounds.isBelowLowerBound(key)) {
+				return null;
+			}
+		}
+		return lower;
+	}
+
+	BinaryTreeNode<E> getUpperSubNode(Bounds<E> bounds) {
+		BinaryTreeNode<E> upper = getUpperSubNode();
+		if(upper != null && bounds != null) {
+			E key = getKey();
+			if(key != null && bounds.isAboveUpperBound(key)) {
+				return null;
+			}
+		}
+		return upper;
+	}
+
 	/**
 	 * Returns the node that follows this node following the tree order
 	 * 
@@ -1072,10 +1236,15 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 //4x 5x		7x 8x		11x 12x		14x 15x
 	// this one starts from root, ends at last node, all the way right
 	BinaryTreeNode<E> nextPreOrderNode(BinaryTreeNode<E> end) {
-		BinaryTreeNode<E> next = getLowerSubNode();
+		return nextPreOrderNode(end, null);
+	}
+
+	// with bounds, sub-tries outside the bounds are skipped
+	BinaryTreeNode<E> nextPreOrderNode(BinaryTreeNode<E> end, Bounds<E> bounds) {
+		BinaryTreeNode<E> next = getLowerSubNode(bounds);
 		if(next == null) {
 			// cannot go left/lower
-			next = getUpperSubNode();
+			next = getUpperSubNode(bounds);
 			if(next == null) {
 				// cannot go right/upper
 				BinaryTreeNode<E> current = this;
@@ -1087,7 +1256,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 					}
 					if(current == next.getLowerSubNode()) {
 						// parent is higher
-						BinaryTreeNode<E> nextNext = next.getUpperSubNode();
+						BinaryTreeNode<E> nextNext = next.getUpperSubNode(bounds);
 						if(nextNext != null) {
 							return nextNext;
 						}
@@ -1108,9 +1277,13 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	// this one starts from root, ends at first node, all the way left
 	// this is the mirror image of nextPreOrderNode, so no comments
 	BinaryTreeNode<E> previousPostOrderNode(BinaryTreeNode<E> end) {
-		BinaryTreeNode<E> next = getUpperSubNode();
+		return previousPostOrderNode(end, null);
+	}
+
+	BinaryTreeNode<E> previousPostOrderNode(BinaryTreeNode<E> end, Bounds<E> bounds) {
+		BinaryTreeNode<E> next = getUpperSubNode(bounds);
 		if(next == null) {
-			next = getLowerSubNode();
+			next = getLowerSubNode(bounds);
 			if(next == null) {
 				BinaryTreeNode<E> current = this;
 				next = getParent();
@@ -1119,7 +1292,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 						return null;
 					}
 					if(current == next.getUpperSubNode()) {
-						BinaryTreeNode<E> nextNext = next.getLowerSubNode();
+						BinaryTreeNode<E> nextNext = next.getLowerSubNode(bounds);
 						if(nextNext != null) {
 							next = nextNext;
 							break;
@@ -1143,6 +1316,10 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 	// this one starts from last node, all the way right, ends at root
 	// this is the mirror image of nextPostOrderNode, so no comments
 	BinaryTreeNode<E> previousPreOrderNode(BinaryTreeNode<E> end) {
+		return previousPreOrderNode(end, null);
+	}
+
+	BinaryTreeNode<E> previousPreOrderNode(BinaryTreeNode<E> end, Bounds<E> bounds) {
 		BinaryTreeNode<E> next = getParent();
 		if(next == null || next == end) {
 			return null;
@@ -1150,15 +1327,15 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		if(next.getLowerSubNode() == this) {
 			return next;
 		}
-		BinaryTreeNode<E> nextNext = next.getLowerSubNode();
+		BinaryTreeNode<E> nextNext = next.getLowerSubNode(bounds);
 		if(nextNext == null) {
 			return next;
 		}
 		next = nextNext;
 		while(true) {
-			nextNext = next.getUpperSubNode();
+			nextNext = next.getUpperSubNode(bounds);
 			if(nextNext == null) {
-				nextNext = next.getLowerSubNode();
+				nextNext = next.getLowerSubNode(bounds);
 				if(nextNext == null) {
 					return next;
 				}
@@ -1174,6 +1351,11 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 //1x 2x		4x 5x		8x 9x	11x 12x
 	// this one starts from first node, all the way left, ends at root
 	BinaryTreeNode<E> nextPostOrderNode(BinaryTreeNode<E> end) {
+		return nextPostOrderNode(end, null);
+	}
+
+	// with bounds, sub-tries outside the bounds are skipped
+	BinaryTreeNode<E> nextPostOrderNode(BinaryTreeNode<E> end, Bounds<E> bounds) {
 		BinaryTreeNode<E> next = getParent();
 		if(next == null || next == end) {
 			return null;
@@ -1183,7 +1365,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 			return next;
 		}
 		// we are the lower sub-node
-		BinaryTreeNode<E> nextNext = next.getUpperSubNode();
+		BinaryTreeNode<E> nextNext = next.getUpperSubNode(bounds);
 		if(nextNext == null) {
 			// parent has no upper sub-node, so parent is next
 			return next;
@@ -1192,9 +1374,9 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		next = nextNext;
 		// now go all the way down until we can go no further, favoring left/lower turns over right/upper
 		while(true) {
-			nextNext = next.getLowerSubNode();
+			nextNext = next.getLowerSubNode(bounds);
 			if(nextNext == null) {
-				nextNext = next.getUpperSubNode();
+				nextNext = next.getUpperSubNode(bounds);
 				if(nextNext == null) {
 					return next;
 				}
@@ -1522,11 +1704,11 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 			BinaryOperator<BinaryTreeNode<E>> op = operator;
 			if(op == null) {
 				op = (currentNode, endNode) -> {
-					BinaryTreeNode<E> lower = currentNode.getLowerSubNode();
+					BinaryTreeNode<E> lower = currentNode.getLowerSubNode(bounds);
 					if(lower != null) {
 						queue.add(lower);
 					}
-					BinaryTreeNode<E> upper = currentNode.getUpperSubNode();
+					BinaryTreeNode<E> upper = currentNode.getUpperSubNode(bounds);
 					if(upper != null) {
 						queue.add(upper);
 					}
@@ -1755,7 +1937,14 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		BinaryOperator<BinaryTreeNode<E>> getToNextOperation() {
 			BinaryOperator<BinaryTreeNode<E>> op = operator;
 			if(op == null) {
-				op = isForward ? BinaryTreeNode<E>::nextPostOrderNode : BinaryTreeNode<E>::previousPostOrderNode;
+				if(bounds == null) {
+					op = isForward ? BinaryTreeNode<E>::nextPostOrderNode : BinaryTreeNode<E>::previousPostOrderNode;
+				} else {
+					Bounds<E> bounds = this.bounds;
+					op = isForward ? 
+							(currentNode, endNode) -> currentNode.nextPostOrderNode(endNode, bounds) : 
+							(currentNode, endNode) -> currentNode.previousPostOrderNode(endNode, bounds);
+				}
 				// do the added-only filter first, because it is simpler
 				if(addedOnly) {
 					BinaryOperator<BinaryTreeNode<E>> wrappedOp = op;
@@ -1820,7 +2009,14 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		BinaryOperator<BinaryTreeNode<E>> getToNextOperation() {
 			BinaryOperator<BinaryTreeNode<E>> op = operator;
 			if(op == null) {
-				op = isForward ? BinaryTreeNode<E>::nextPreOrderNode : BinaryTreeNode<E>::previousPreOrderNode;
+				if(bounds == null) {
+					op = isForward ? BinaryTreeNode<E>::nextPreOrderNode : BinaryTreeNode<E>::previousPreOrderNode;
+				} else {
+					Bounds<E> bounds = this.bounds;
+					op = isForward ? 
+							(currentNode, endNode) -> currentNode.nextPreOrderNode(endNode, bounds) : 
+							(currentNode, endNode) -> currentNode.previousPreOrderNode(endNode, bounds);
+				}
 				// do the added-only filter first, because it is simpler
 				if(addedOnly) {
 					BinaryOperator<BinaryTreeNode<E>> wrappedOp = op;
@@ -1948,7 +2144,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		private boolean cacheWithFirstSubNode(C object) {
 			checkCaching();
 			if(current != null) {
-				BinaryTreeNode<E> firstNode = isForward ? current.getLowerSubNode() : current.getUpperSubNode();
+				BinaryTreeNode<E> firstNode = isForward ? current.getLowerSubNode(bounds) : current.getUpperSubNode(bounds);
 				if(firstNode != null) {
 					if((addedOnly && !firstNode.isAdded()) || (bounds != null && !bounds.isInBounds(firstNode.getKey()))) {
 						firstNode = getToNextOperation().apply(firstNode, current);
@@ -1969,14 +2165,14 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		private boolean cacheWithSecondSubNode(C object) {
 			checkCaching();
 			if(current != null) {
-				BinaryTreeNode<E> secondNode = isForward ? current.getUpperSubNode() : current.getLowerSubNode();
+				BinaryTreeNode<E> secondNode = isForward ? current.getUpperSubNode(bounds) : current.getLowerSubNode(bounds);
 				if(secondNode != null) {
 					if((addedOnly && !secondNode.isAdded()) || (bounds != null && !bounds.isInBounds(secondNode.getKey()))) {
 						secondNode = getToNextOperation().apply(secondNode, current);
 					}
 					if(secondNode != null) {
 						// if there is no lower node, we can use the nextCached field since upper is next when no lower sub-node
-						BinaryTreeNode<E> firstNode = isForward ? current.getLowerSubNode() : current.getUpperSubNode();
+						BinaryTreeNode<E> firstNode = isForward ? current.getLowerSubNode(bounds) : current.getUpperSubNode(bounds);
 						if(firstNode == null) {
 							nextKey = secondNode.getKey();
 							nextCached = object;
@@ -2138,6 +2334,10 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 		private long sizeEstimate;
 		private final boolean addedOnly, forward;
 
+		// When iterating added nodes, the position following the last node to be iterated by this spliterator,
+		// counting added nodes from the first in iteration order.  It is calculated from the sub-tree sizes when first splitting.
+		private long endIndex = -1;
+
 		NodeSpliterator(
 				boolean forward,
 				Comparator<? super BinaryTreeNode<E>> comparator,
@@ -2198,6 +2398,83 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 			return forward ? current.nextNode(bound) : current.previousNode(bound);
 		}
 		
+		private BinaryTreeNode<E> getLowerSubNode(BinaryTreeNode<E> node) {
+			return forward ? node.getLowerSubNode() : node.getUpperSubNode();
+		}
+
+		private BinaryTreeNode<E> getUpperSubNode(BinaryTreeNode<E> node) {
+			return forward ? node.getUpperSubNode() : node.getLowerSubNode();
+		}
+
+		private static <E> int getSize(BinaryTreeNode<E> node) {
+			return node == null ? 0 : node.size();
+		}
+
+		// the number of added nodes that precede the given node in iteration order
+		private long getIndex(BinaryTreeNode<E> node) {
+			return node.precedingAddedCount(forward);
+		}
+
+		// the added node preceded by the given number of added nodes in iteration order
+		private BinaryTreeNode<E> getAddedNode(BinaryTreeNode<E> node, long index) {
+			while(node.getParent() != null) {
+				node = node.getParent();
+			}
+			while(true) {
+				int lowerSize = getSize(getLowerSubNode(node));
+				if(index < lowerSize) {
+					node = getLowerSubNode(node);
+				} else {
+					index -= lowerSize;
+					if(node.isAdded()) {
+						if(index == 0) {
+							return node;
+						}
+						index--;
+					}
+					node = getUpperSubNode(node);
+				}
+			}
+		}
+
+		// Splits the added nodes into two halves of equal size, using the sizes of the sub-trees to locate the middle node.
+		// This divides the work evenly regardless of the shape of the tree.
+		private Spliterator<BinaryTreeNode<E>> trySplitBySize(BinaryTreeNode<E> current) {
+			long currentIndex = getIndex(current);
+			long endIndex = this.endIndex;
+			if(endIndex < 0) {
+				// The nodes to iterate are limited by the sub-tree of the root, and also by the end node, if the end node follows the sub-tree.
+				// With sub-trees, the end node is the parent of the sub-tree root, which may precede the sub-tree in iteration order.
+				BinaryTreeNode<E> subTreeRoot = root;
+				endIndex = getIndex(subTreeRoot) - getSize(getLowerSubNode(subTreeRoot)) + subTreeRoot.size();
+				if(end != null) {
+					long index = getIndex(end);
+					if(index > currentIndex && index < endIndex) {
+						endIndex = index;
+					}
+				}
+				this.endIndex = endIndex;
+			}
+			long remaining = endIndex - currentIndex;
+			if(remaining < 2) {
+				return null;
+			}
+			long lowerSize = remaining >>> 1;
+			BinaryTreeNode<E> mid = getAddedNode(current, currentIndex + lowerSize);
+			NodeSpliterator<E> lowerSplit = new NodeSpliterator<>(
+					forward, comparator, Side.BEGINNING, current, mid, lowerSize, changeTracker, addedOnly);
+			lowerSplit.endIndex = currentIndex + lowerSize;
+			position = Side.ENDING;
+			begin = mid;
+			sizeEstimate = remaining - lowerSize;
+			if(iterator != null) {
+				lowerSplit.iterator = iterator;
+				iterator.end = mid;
+			}
+			iterator = null;
+			return lowerSplit;
+		}
+
 		@Override
 		public Spliterator<BinaryTreeNode<E>> trySplit() {
 			if(begin == null) {
@@ -2205,6 +2482,18 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 				return null;
 			}
 			changeTracker.changedSince(currentChange);
+			if(addedOnly && (root != null || endIndex >= 0)) {
+				BinaryTreeNode<E> current;
+				if(iterator == null) {
+					current = begin;
+				} else {
+					current = iterator.next;
+					if(current == null) {
+						return null;
+					}
+				}
+				return trySplitBySize(current);
+			}
 			BinaryTreeNode<E> mid = getMiddle();
 			if(mid == null) {
 				return null;
@@ -2638,7 +2927,7 @@ public class BinaryTreeNode<E> implements TreeOps<E> {
 				rootClone = lower;
 			}
 		}
-		if(recalculateSize && rootClone != null) {
+		if((recalculateSize || isFrozen()) && rootClone != null) { // the nodes of frozen trees do not store counts
 			rootClone.size = SIZE_UNKNOWN;
 			rootClone.size();
 		}
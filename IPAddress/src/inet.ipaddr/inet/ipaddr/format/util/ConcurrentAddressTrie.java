@@ -0,0 +1,965 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrie.TrieNode;
+import inet.ipaddr.format.util.AddressTrieOps.AddressTrieAddOps;
+import inet.ipaddr.format.util.AssociativeAddressTrie.AssociativeTrieNode;
+import inet.ipaddr.format.util.BinaryTreeNode.CachingIterator;
+
+/**
+ * A thread-safe trie that allows any number of threads to read without locking while other threads are modifying it.
+ * <p>
+ * The trie holds a reference to an immutable snapshot.
+ * All lookup and iteration operations use the snapshot that is current at the time of the call,
+ * so they see a consistent trie for the duration of the operation and are never blocked by writers.
+ * <p>
+ * Modifications are serialized amongst writers.  A modification creates a new snapshot and publishes it with a single volatile write.
+ * The nodes of a snapshot are immutable and are not linked to their parent nodes, so a new snapshot copies only the nodes on the path from the root to the modified node,
+ * sharing all other nodes with the previous snapshot.
+ * So adding or removing an element takes time proportional to the depth of the trie, rather than the size of the trie.
+ * Modifications that would not change the trie, such as adding an existing element, do not create a new snapshot.
+ * <p>
+ * The element lookups, such as {@link #contains(Address)}, {@link #longestPrefixMatch(Address)} and {@link #floor(Address)},
+ * and the element iterators from {@link #iterator()} and {@link #descendingIterator()}, operate directly on the snapshot nodes.
+ * The operations that return {@link TrieNode} instances, the spliterators, and {@link #snapshot()},
+ * operate on an {@link AddressTrie} that is created from the snapshot the first time such an operation is called for that snapshot,
+ * and then shared by all subsequent such operations on the same snapshot.
+ * Creating that trie is linear in the size of the trie, so when the trie is modified frequently, prefer the operations that do not return nodes.
+ * <p>
+ * Use {@link #update(Consumer)} to apply a batch of changes through the {@link AddressTrie} API, with a single new snapshot for the batch.
+ * <p>
+ * This is suited for read-mostly workloads, such as routing tables and access lists that are consulted far more often than they are changed.
+ * <p>
+ * The nodes returned from this trie, and the trie returned from {@link #snapshot()}, belong to an immutable trie that has been frozen with {@link AddressTrie#freeze()},
+ * so they cannot be modified.  Use the modification methods of this trie instead.
+ * The iterators returned from {@link #iterator()} and {@link #descendingIterator()} support removal,
+ * which is applied to this trie rather than to the snapshot being iterated.
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ * @param <T> the type of the snapshot tries
+ */
+public class ConcurrentAddressTrie<E extends Address, T extends AddressTrie<E>> implements AddressTrieAddOps<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	// An immutable trie node.  As with the nodes of AddressTrie, a node that is not added has two sub-nodes.
+	// Nodes are shared by the snapshots that contain them, so they are not linked to their parents.
+	private static final class SnapshotNode<E extends Address> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final E key;
+		final int bits; // the prefix length of the key, or the bit count for an individual address
+		final boolean added;
+		final Object value; // for associative tries
+		final SnapshotNode<E> lower, upper;
+		final int size;
+
+		SnapshotNode(E key, int bits, boolean added, Object value, SnapshotNode<E> lower, SnapshotNode<E> upper) {
+			this.key = key;
+			this.bits = bits;
+			this.added = added;
+			this.value = value;
+			this.lower = lower;
+			this.upper = upper;
+			int size = added ? 1 : 0;
+			if(lower != null) {
+				size += lower.size;
+			}
+			if(upper != null) {
+				size += upper.size;
+			}
+			this.size = size;
+		}
+
+		boolean containsKey(Address key, int bits) {
+			return this.bits <= bits && AddressTrie.getMatchingBits(this.key, key, this.bits) == this.bits;
+		}
+
+		boolean isUpper(Address key) {
+			return key.isOneBit(bits);
+		}
+
+		// the sub-node towards the given key, which this node contains
+		SnapshotNode<E> next(Address key) {
+			return isUpper(key) ? upper : lower;
+		}
+
+		// this node with the sub-node towards the given key replaced, or whichever sub-node replaces this node when it is not added and has fewer than two sub-nodes
+		SnapshotNode<E> replace(Address key, SnapshotNode<E> newSub) {
+			if(isUpper(key)) {
+				return upper == newSub ? this : create(this.key, bits, added, value, lower, newSub);
+			}
+			return lower == newSub ? this : create(this.key, bits, added, value, newSub, upper);
+		}
+
+		// creates the node, or when not added, whichever of the sub-nodes replaces it when it has fewer than two
+		static <E extends Address> SnapshotNode<E> create(E key, int bits, boolean added, Object value, SnapshotNode<E> lower, SnapshotNode<E> upper) {
+			if(!added) {
+				if(lower == null) {
+					return upper;
+				} else if(upper == null) {
+					return lower;
+				}
+			}
+			return new SnapshotNode<E>(key, bits, added, value, lower, upper);
+		}
+	}
+
+	// The persistent nodes of a snapshot, along with the frozen trie created from them when first required
+	private static final class Snapshot<E extends Address, T extends AddressTrie<E>> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final SnapshotNode<E> root;
+		transient volatile T trie;
+
+		Snapshot(SnapshotNode<E> root, T trie) {
+			this.root = root;
+			this.trie = trie;
+		}
+	}
+
+	private volatile Snapshot<E, T> snapshot;
+
+	// an empty trie of the snapshot trie type, which is copied to create tries from snapshots, and is never modified
+	private final T emptyTrie;
+
+	/**
+	 * Constructs a concurrent trie whose initial contents are a copy of the given trie.
+	 * <p>
+	 * Subsequent changes to the given trie are not reflected in this trie.
+	 *
+	 * @param trie
+	 */
+	public ConcurrentAddressTrie(T trie) {
+		T initial = copy(trie);
+		emptyTrie = copy(initial);
+		emptyTrie.clear();
+		initial.freeze();
+		snapshot = new Snapshot<E, T>(toSnapshotNode(initial.getRoot()), initial);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Address, T extends AddressTrie<E>> T copy(T trie) {
+		return (T) trie.clone();
+	}
+
+	private static <E extends Address> SnapshotNode<E> toSnapshotNode(TrieNode<E> node) {
+		if(node == null) {
+			return null;
+		}
+		SnapshotNode<E> lower = toSnapshotNode(node.getLowerSubNode());
+		SnapshotNode<E> upper = toSnapshotNode(node.getUpperSubNode());
+		boolean added = node.isAdded();
+		if(!added && (lower == null || upper == null)) {
+			// the root of a trie may have fewer than two sub-nodes, and for an empty trie may have no key
+			return lower == null ? upper : lower;
+		}
+		E key = node.getKey();
+		Object value = node instanceof AssociativeTrieNode ? ((AssociativeTrieNode<?, ?>) node).getValue() : null;
+		return new SnapshotNode<E>(key, getBits(key), added, value, lower, upper);
+	}
+
+	// creates a trie with the given nodes, in linear time, since the keys are added in trie pre-order, the order for bulk construction of AddressTrie#addAll
+	@SuppressWarnings("unchecked")
+	private T toTrie(SnapshotNode<E> root) {
+		T result = copy(emptyTrie);
+		if(root != null) {
+			Address keys[] = new Address[root.size];
+			int i = 0;
+			ArrayDeque<SnapshotNode<E>> stack = new ArrayDeque<>();
+			stack.push(root);
+			do {
+				SnapshotNode<E> node = stack.pop();
+				if(node.added) {
+					keys[i++] = node.key;
+				}
+				if(node.upper != null) {
+					stack.push(node.upper);
+				}
+				if(node.lower != null) {
+					stack.push(node.lower);
+				}
+			} while(!stack.isEmpty());
+			result.addAll((E[]) keys);
+			if(result instanceof AssociativeAddressTrie) {
+				Iterator<? extends TrieNode<E>> nodes = result.nodeIterator(true);
+				SnapshotNodeIterator<E> snapshotNodes = new SnapshotNodeIterator<>(root, true);
+				while(snapshotNodes.hasNext()) {
+					((AssociativeTrieNode<E, Object>) nodes.next()).setValue(snapshotNodes.next().value);
+				}
+			}
+		}
+		return result;
+	}
+
+	// the trie for the given snapshot, which is created the first time it is required
+	private T getTrie(Snapshot<E, T> current) {
+		T result = current.trie;
+		if(result == null) {
+			// readers wait for one another to avoid creating the same trie more than once, but not for writers
+			synchronized(current) {
+				result = current.trie;
+				if(result == null) {
+					result = toTrie(current.root);
+					result.freeze();
+					current.trie = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private T trie() {
+		return getTrie(snapshot);
+	}
+
+	private void publish(SnapshotNode<E> newRoot) {
+		snapshot = new Snapshot<E, T>(newRoot, null);
+	}
+
+	/**
+	 * Returns the current snapshot of this trie.
+	 * <p>
+	 * The returned trie is not affected by subsequent changes to this trie, and cannot be modified, since it is frozen.
+	 * Use {@link AddressTrie#clone()} to obtain a copy that can be modified.
+	 *
+	 * @return
+	 */
+	public T snapshot() {
+		return trie();
+	}
+
+	/**
+	 * Applies a batch of changes with a single new snapshot.
+	 * <p>
+	 * The updater is given a trie with the contents of the current snapshot to modify,
+	 * and once it returns the modified trie becomes the new snapshot, visible to all subsequent reads.
+	 * Creating the trie and the snapshot is linear in the size of the trie, regardless of the number of changes.
+	 * The updater must not retain the trie it is given, nor any of its nodes, since those become part of the new immutable snapshot.
+	 * If the updater throws, the current snapshot remains unchanged.
+	 *
+	 * @param updater
+	 */
+	public synchronized void update(Consumer<? super T> updater) {
+		doUpdate(updater);
+	}
+
+	private T doUpdate(Consumer<? super T> updater) {
+		T newTrie = toTrie(snapshot.root);
+		updater.accept(newTrie);
+		newTrie.freeze();
+		snapshot = new Snapshot<E, T>(toSnapshotNode(newTrie.getRoot()), newTrie);
+		return newTrie;
+	}
+
+	// validates the key, as with the operations of AddressTrie
+	private static <E extends Address> E checkKey(E addr, SnapshotNode<E> root) {
+		addr = AbstractTree.checkBlockOrAddress(addr, true);
+		if(root != null && root.key.getBitCount() != addr.getBitCount()) {
+			throw new IllegalArgumentException(AbstractTree.getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		return addr;
+	}
+
+	private static int getBits(Address key) {
+		Integer prefLen = key.getPrefixLength();
+		return prefLen == null ? key.getBitCount() : prefLen;
+	}
+
+	// returns a new trie root with the given key added, or the same root if the key is already added
+	private static <E extends Address> SnapshotNode<E> add(SnapshotNode<E> node, E key, int bits, Object value) {
+		if(node == null) {
+			return new SnapshotNode<E>(key, bits, true, value, null, null);
+		}
+		int nodeBits = node.bits;
+		int matchingBits = AddressTrie.getMatchingBits(node.key, key, Math.min(nodeBits, bits));
+		if(matchingBits == nodeBits) {
+			if(bits == nodeBits) {
+				return node.added ? node : new SnapshotNode<E>(node.key, nodeBits, true, value, node.lower, node.upper);
+			}
+			return node.replace(key, add(node.next(key), key, bits, value));
+		}
+		if(matchingBits == bits) {
+			// the new node contains the existing node
+			return node.key.isOneBit(bits) ?
+					new SnapshotNode<E>(key, bits, true, value, null, node) :
+					new SnapshotNode<E>(key, bits, true, value, node, null);
+		}
+		// the new node and the existing node are disjoint, so they become the sub-nodes of a new non-added node
+		SnapshotNode<E> newNode = new SnapshotNode<E>(key, bits, true, value, null, null);
+		E splitKey = toPrefixBlock(key, matchingBits);
+		return key.isOneBit(matchingBits) ?
+				new SnapshotNode<E>(splitKey, matchingBits, false, null, node, newNode) :
+				new SnapshotNode<E>(splitKey, matchingBits, false, null, newNode, node);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Address> E toPrefixBlock(E key, int bits) {
+		if(key.isIPAddress()) {
+			return (E) key.toIPAddress().toPrefixBlock(bits);
+		}
+		return (E) key.setPrefixLength(bits).toPrefixBlock();
+	}
+
+	// returns a new trie root with the given key removed, or the same root if the key is not added
+	private static <E extends Address> SnapshotNode<E> remove(SnapshotNode<E> node, E key, int bits) {
+		if(node == null || !node.containsKey(key, bits)) {
+			return node;
+		}
+		if(node.bits == bits) {
+			return node.added ? SnapshotNode.create(node.key, bits, false, null, node.lower, node.upper) : node;
+		}
+		return node.replace(key, remove(node.next(key), key, bits));
+	}
+
+	// returns a new trie root with the sub-trie of keys contained by the given key removed
+	private static <E extends Address> SnapshotNode<E> removeSubTrie(SnapshotNode<E> node, E key, int bits) {
+		if(node == null || isContainedBy(node, key, bits)) {
+			return null;
+		} else if(!node.containsKey(key, bits)) {
+			return node;
+		}
+		return node.replace(key, removeSubTrie(node.next(key), key, bits));
+	}
+
+	// the sub-trie of keys contained by the given key
+	private static <E extends Address> SnapshotNode<E> findSubTrie(SnapshotNode<E> node, E key, int bits) {
+		while(node != null && !isContainedBy(node, key, bits)) {
+			if(!node.containsKey(key, bits)) {
+				return null;
+			}
+			node = node.next(key);
+		}
+		return node;
+	}
+
+	private static <E extends Address> boolean isContainedBy(SnapshotNode<E> node, E key, int bits) {
+		return node.bits >= bits && AddressTrie.getMatchingBits(node.key, key, bits) == bits;
+	}
+
+	// the root of the sub-trie of the added nodes of the trie
+	private static <E extends Address> TrieNode<E> getSubTrieRoot(AddressTrie<E> trie) {
+		TrieNode<E> root = trie.getRoot();
+		if(!root.isAdded()) {
+			if(root.getLowerSubNode() == null) {
+				return root.getUpperSubNode();
+			} else if(root.getUpperSubNode() == null) {
+				return root.getLowerSubNode();
+			}
+		}
+		return root;
+	}
+
+	// the added node containing the given key, the one closest to the root if shortest, otherwise the one furthest from the root
+	private static <E extends Address> SnapshotNode<E> findContaining(SnapshotNode<E> node, E key, int bits, boolean shortest) {
+		SnapshotNode<E> result = null;
+		while(node != null && node.containsKey(key, bits)) {
+			if(node.added) {
+				result = node;
+				if(shortest) {
+					break;
+				}
+			}
+			if(node.bits == bits) {
+				break;
+			}
+			node = node.next(key);
+		}
+		return result;
+	}
+
+	// the added node that is the nearest to the given key in trie order, below the key if below, and matching the key unless exclusive
+	private static <E extends Address> SnapshotNode<E> findNear(SnapshotNode<E> node, E key, boolean below, boolean exclusive) {
+		Comparator<E> comparator = AddressTrie.comparator();
+		// the last node passed on the way down that is on the requested side of the key
+		SnapshotNode<E> nearest = null;
+		while(node != null) {
+			int comp = comparator.compare(key, node.key);
+			if(comp == 0 && node.added && !exclusive) {
+				return node;
+			}
+			if(below ? comp > 0 : comp < 0) {
+				nearest = node;
+				node = below ? node.upper : node.lower;
+			} else {
+				node = below ? node.lower : node.upper;
+			}
+		}
+		if(nearest != null && !nearest.added) {
+			// a non-added node has two sub-nodes, and the nearest added node is the last of the sub-trie on the requested side
+			nearest = below ? nearest.lower : nearest.upper;
+			SnapshotNode<E> next;
+			while((next = below ? nearest.upper : nearest.lower) != null) {
+				nearest = next;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Returns the root of the current snapshot.
+	 *
+	 * @return
+	 */
+	public TrieNode<E> getRoot() {
+		return trie().getRoot();
+	}
+
+	/**
+	 * Returns the number of elements in the current snapshot.
+	 *
+	 * @return
+	 */
+	public int size() {
+		SnapshotNode<E> root = snapshot.root;
+		return root == null ? 0 : root.size;
+	}
+
+	/**
+	 * Returns the number of nodes in the current snapshot.
+	 *
+	 * @return
+	 */
+	public int nodeSize() {
+		return trie().nodeSize();
+	}
+
+	/**
+	 * Returns whether the current snapshot has no elements.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return snapshot.root == null;
+	}
+
+	/**
+	 * Returns the total number of addresses covered by the elements in the current snapshot.
+	 *
+	 * @return
+	 */
+	public BigInteger getMatchingAddressCount() {
+		return trie().getMatchingAddressCount();
+	}
+
+	/**
+	 * Removes all elements.
+	 */
+	public synchronized void clear() {
+		if(snapshot.root != null) {
+			publish(null);
+		}
+	}
+
+	@Override
+	public synchronized boolean add(E addr) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		SnapshotNode<E> newRoot = add(root, addr, getBits(addr), null);
+		if(newRoot == root) {
+			return false;
+		}
+		publish(newRoot);
+		return true;
+	}
+
+	/**
+	 * Adds the given address, as with {@link #add(Address)}, and returns the added node from the trie of the new snapshot.
+	 * <p>
+	 * Returning the node requires creating the trie of the new snapshot, which is linear in the size of the trie,
+	 * so each call takes time linear in the size of the trie, and adding n elements this way takes time quadratic in n.
+	 * Use {@link #add(Address)} or {@link #addAll(Address[])} when the node is not required.
+	 */
+	@Override
+	public synchronized TrieNode<E> addNode(E addr) {
+		add(addr);
+		return trie().getNode(AbstractTree.checkBlockOrAddress(addr, true));
+	}
+
+	/**
+	 * Adds the given addresses with a single new snapshot.
+	 * If any of the addresses cannot be added, as described by {@link #add(Address)}, then none of them are added.
+	 *
+	 * @param addrs
+	 * @return whether any of the addresses were not already in the trie
+	 */
+	public synchronized boolean addAll(E addrs[]) {
+		SnapshotNode<E> root = snapshot.root, newRoot = root;
+		for(E addr : addrs) {
+			addr = checkKey(addr, newRoot);
+			newRoot = add(newRoot, addr, getBits(addr), null);
+		}
+		if(newRoot == root) {
+			return false;
+		}
+		publish(newRoot);
+		return true;
+	}
+
+	/**
+	 * Adds the elements of the given trie with a single new snapshot, as with {@link #update(Consumer)},
+	 * and returns the node of the new snapshot corresponding to the root of the given trie.
+	 * <p>
+	 * Each call takes time linear in the size of this trie, in addition to the size of the given trie.
+	 */
+	@Override
+	public synchronized TrieNode<E> addTrie(TrieNode<E> trie) {
+		return doUpdate(t -> t.addTrie(trie)).getNode(trie.getKey());
+	}
+
+	/**
+	 * Adds the given address if no element contains or matches it, as with {@link AddressTrie#addIfNoElementsContaining(Address)},
+	 * and returns the added node from the trie of the new snapshot.
+	 * <p>
+	 * As with {@link #addNode(Address)}, returning the node requires creating the trie of the new snapshot,
+	 * so each call that adds the address takes time linear in the size of the trie.
+	 */
+	@Override
+	public synchronized TrieNode<E> addIfNoElementsContaining(E addr) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		int bits = getBits(addr);
+		if(findContaining(root, addr, bits, true) != null) {
+			// as with AddressTrie, nothing is returned when an existing element contains or matches the address
+			return null;
+		}
+		publish(add(root, addr, bits, null));
+		return trie().getNode(addr);
+	}
+
+	@Override
+	public synchronized boolean remove(E addr) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		SnapshotNode<E> newRoot = remove(root, addr, getBits(addr));
+		if(newRoot == root) {
+			return false;
+		}
+		publish(newRoot);
+		return true;
+	}
+
+	@Override
+	public TrieNode<E> removeElementsContainedBy(E addr) {
+		return removeSubTrie(addr, false);
+	}
+
+	@Override
+	public TrieNode<E> removeElementsIntersectedBy(E addr) {
+		return removeSubTrie(addr, true);
+	}
+
+	private synchronized TrieNode<E> removeSubTrie(E addr, boolean intersecting) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		int bits = getBits(addr);
+		if(intersecting) {
+			// as with AddressTrie, the added node closest to the root that contains the key is removed along with its sub-trie
+			SnapshotNode<E> containing = findContaining(root, addr, bits, true);
+			if(containing != null) {
+				addr = containing.key;
+				bits = containing.bits;
+			}
+		}
+		SnapshotNode<E> removed = findSubTrie(root, addr, bits);
+		if(removed == null) {
+			return null;
+		}
+		publish(removeSubTrie(root, addr, bits));
+		return getSubTrieRoot(toTrie(removed));
+	}
+
+	@Override
+	public TrieNode<E> getNode(E addr) {
+		return trie().getNode(addr);
+	}
+
+	@Override
+	public boolean elementContains(E addr) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		return findContaining(root, addr, getBits(addr), true) != null;
+	}
+
+	@Override
+	public boolean elementOverlaps(E addr) {
+		SnapshotNode<E> node = snapshot.root;
+		addr = checkKey(addr, node);
+		int bits = getBits(addr);
+		while(node != null) {
+			if(isContainedBy(node, addr, bits)) {
+				// every sub-trie has an added node
+				return true;
+			} else if(!node.containsKey(addr, bits)) {
+				break;
+			} else if(node.added) {
+				return true;
+			}
+			node = node.next(addr);
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(E addr) {
+		SnapshotNode<E> root = snapshot.root;
+		addr = checkKey(addr, root);
+		int bits = getBits(addr);
+		SnapshotNode<E> node = findContaining(root, addr, bits, false);
+		return node != null && node.bits == bits;
+	}
+
+	@Override
+	public TrieNode<E> elementsContainedBy(E addr) {
+		return trie().elementsContainedBy(addr);
+	}
+
+	@Override
+	public TrieNode<E> elementsContaining(E addr) {
+		return trie().elementsContaining(addr);
+	}
+
+	@Override
+	public TrieNode<E> longestPrefixMatchNode(E addr) {
+		return trie().longestPrefixMatchNode(addr);
+	}
+
+	@Override
+	public E longestPrefixMatch(E addr) {
+		return prefixMatch(snapshot.root, addr, false);
+	}
+
+	private static <E extends Address> E prefixMatch(SnapshotNode<E> root, E addr, boolean shortest) {
+		addr = checkKey(addr, root);
+		SnapshotNode<E> node = findContaining(root, addr, getBits(addr), shortest);
+		return node == null ? null : node.key;
+	}
+
+	/**
+	 * Finds the longest prefix match of each of the given addresses, all using the same snapshot.
+	 * See {@link AddressTrie#longestPrefixMatchNodes(Address[], TrieNode[])}.
+	 *
+	 * @param addrs
+	 * @param results
+	 */
+	public void longestPrefixMatchNodes(E addrs[], TrieNode<E> results[]) {
+		trie().longestPrefixMatchNodes(addrs, results);
+	}
+
+	/**
+	 * Finds the longest prefix match of each of the given addresses, all using the same snapshot.
+	 * See {@link AddressTrie#longestPrefixMatches(Address[], Address[])}.
+	 *
+	 * @param addrs
+	 * @param results
+	 */
+	public void longestPrefixMatches(E addrs[], E results[]) {
+		if(results.length < addrs.length) {
+			throw new IllegalArgumentException();
+		}
+		SnapshotNode<E> root = snapshot.root;
+		for(int i = 0; i < addrs.length; i++) {
+			results[i] = prefixMatch(root, addrs[i], false);
+		}
+	}
+
+	@Override
+	public TrieNode<E> shortestPrefixMatchNode(E addr) {
+		return trie().shortestPrefixMatchNode(addr);
+	}
+
+	@Override
+	public E shortestPrefixMatch(E addr) {
+		return prefixMatch(snapshot.root, addr, true);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new SnapshotKeyIterator(snapshot.root, true);
+	}
+
+	@Override
+	public Iterator<E> descendingIterator() {
+		return new SnapshotKeyIterator(snapshot.root, false);
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return trie().spliterator();
+	}
+
+	@Override
+	public Spliterator<E> descendingSpliterator() {
+		return trie().descendingSpliterator();
+	}
+
+	@Override
+	public Iterator<? extends TrieNode<E>> nodeIterator(boolean forward) {
+		return trie().nodeIterator(forward);
+	}
+
+	@Override
+	public Iterator<? extends TrieNode<E>> allNodeIterator(boolean forward) {
+		return trie().allNodeIterator(forward);
+	}
+
+	@Override
+	public Iterator<? extends TrieNode<E>> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return trie().containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public <C> CachingIterator<? extends TrieNode<E>, E, C> containingFirstAllNodeIterator(boolean forwardSubNodeOrder) {
+		return trie().containingFirstAllNodeIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public Iterator<? extends TrieNode<E>> containedFirstIterator(boolean forwardSubNodeOrder) {
+		return trie().containedFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public Iterator<? extends TrieNode<E>> containedFirstAllNodeIterator(boolean forwardSubNodeOrder) {
+		return trie().containedFirstAllNodeIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public Spliterator<? extends TrieNode<E>> nodeSpliterator(boolean forward) {
+		return trie().nodeSpliterator(forward);
+	}
+
+	@Override
+	public Spliterator<? extends TrieNode<E>> allNodeSpliterator(boolean forward) {
+		return trie().allNodeSpliterator(forward);
+	}
+
+	@Override
+	public TrieNode<E> firstNode() {
+		return trie().firstNode();
+	}
+
+	@Override
+	public TrieNode<E> lastNode() {
+		return trie().lastNode();
+	}
+
+	@Override
+	public TrieNode<E> firstAddedNode() {
+		return trie().firstAddedNode();
+	}
+
+	@Override
+	public TrieNode<E> lastAddedNode() {
+		return trie().lastAddedNode();
+	}
+
+	@Override
+	public TrieNode<E> floorAddedNode(E addr) {
+		return trie().floorAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> lowerAddedNode(E addr) {
+		return trie().lowerAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> ceilingAddedNode(E addr) {
+		return trie().ceilingAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> higherAddedNode(E addr) {
+		return trie().higherAddedNode(addr);
+	}
+
+	private static <E extends Address> E near(SnapshotNode<E> root, E addr, boolean below, boolean exclusive) {
+		addr = checkKey(addr, root);
+		SnapshotNode<E> node = findNear(root, addr, below, exclusive);
+		return node == null ? null : node.key;
+	}
+
+	@Override
+	public E floor(E addr) {
+		return near(snapshot.root, addr, true, false);
+	}
+
+	@Override
+	public E lower(E addr) {
+		return near(snapshot.root, addr, true, true);
+	}
+
+	@Override
+	public E ceiling(E addr) {
+		return near(snapshot.root, addr, false, false);
+	}
+
+	@Override
+	public E higher(E addr) {
+		return near(snapshot.root, addr, false, true);
+	}
+
+	@Override
+	public TrieNode<E> containingFloorAddedNode(E addr) {
+		return trie().containingFloorAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> containingLowerAddedNode(E addr) {
+		return trie().containingLowerAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> containingCeilingAddedNode(E addr) {
+		return trie().containingCeilingAddedNode(addr);
+	}
+
+	@Override
+	public TrieNode<E> containingHigherAddedNode(E addr) {
+		return trie().containingHigherAddedNode(addr);
+	}
+
+	/**
+	 * Clones this trie.  Since snapshots are immutable, the clone initially shares the current snapshot with this trie,
+	 * so this is a constant time operation.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public ConcurrentAddressTrie<E, T> clone() {
+		try {
+			return (ConcurrentAddressTrie<E, T>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return trie().hashCode();
+	}
+
+	/**
+	 * Returns whether the given argument is a concurrent trie whose current snapshot has the same set of nodes as the current snapshot of this trie.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if(o == this) {
+			return true;
+		}
+		if(o instanceof ConcurrentAddressTrie) {
+			ConcurrentAddressTrie<?, ?> other = (ConcurrentAddressTrie<?, ?>) o;
+			return trie().equals(other.trie());
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return trie().toString();
+	}
+
+	// iterates through the added nodes of a snapshot in trie order
+	private static class SnapshotNodeIterator<E extends Address> implements Iterator<SnapshotNode<E>> {
+		private final ArrayDeque<SnapshotNode<E>> stack = new ArrayDeque<>();
+		private final boolean forward;
+		private SnapshotNode<E> next;
+
+		SnapshotNodeIterator(SnapshotNode<E> root, boolean forward) {
+			this.forward = forward;
+			push(root);
+			next = nextAdded();
+		}
+
+		// pushes the given node and the sub-nodes that precede it in the iteration order
+		private void push(SnapshotNode<E> node) {
+			while(node != null) {
+				stack.push(node);
+				node = forward ? node.lower : node.upper;
+			}
+		}
+
+		private SnapshotNode<E> nextAdded() {
+			while(!stack.isEmpty()) {
+				SnapshotNode<E> node = stack.pop();
+				push(forward ? node.upper : node.lower);
+				if(node.added) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public SnapshotNode<E> next() {
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			SnapshotNode<E> result = next;
+			next = nextAdded();
+			return result;
+		}
+	}
+
+	private class SnapshotKeyIterator implements Iterator<E> {
+		private final SnapshotNodeIterator<E> iterator;
+		private E current;
+
+		SnapshotKeyIterator(SnapshotNode<E> root, boolean forward) {
+			iterator = new SnapshotNodeIterator<>(root, forward);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public E next() {
+			return current = iterator.next().key;
+		}
+
+		@Override
+		public void remove() {
+			if(current == null) {
+				throw new IllegalStateException(AbstractTree.getMessage("ipaddress.error.no.iterator.element.to.remove"));
+			}
+			ConcurrentAddressTrie.this.remove(current);
+			current = null;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.LongValuedAddressTrie.LongValuedTrieNode;
+
+/**
+ * A thread-safe trie of prefixes with a counter for each prefix,
+ * suited to accumulating counts such as bytes or packets per prefix from many threads at once.
+ * <p>
+ * Each call to {@link #increment(Address, long)} finds the longest prefix match of the given address amongst the prefixes of this trie,
+ * and adds to the counter of the matching prefix.
+ * Neither the lookup nor the addition takes a lock.
+ * The lookup uses an immutable snapshot of the prefixes, frozen with {@link AddressTrie#freeze()},
+ * and each counter is a {@link LongAdder}, which is striped so that threads adding to the same counter do not contend with each other.
+ * So increments scale with the number of threads, even when many threads are adding to the same prefix.
+ * <p>
+ * The prefix structure is expected to be fixed, or to change rarely.
+ * Changes to the prefixes are serialized amongst writers, and each change copies the whole frozen snapshot,
+ * so a change is linear in the number of prefixes.  Use {@link #update(Consumer)} to apply a batch of changes with a single copy.
+ * Counters of prefixes that remain in the trie are retained across changes.
+ * An increment that is concurrent with a change may be applied to the counter of the snapshot preceding the change.
+ * <p>
+ * The counts are exported with {@link #getCounts()}, or with {@link #getCountsAndReset()} for periodic export.
+ * The counters themselves are never reset, which would lose increments concurrent with the reset.
+ * Instead, a reset drains the counters, swapping in a new generation of counts that starts from the drained sums.
+ * So every increment is counted exactly once: an increment concurrent with a reset is either included in the exported counts or in the next export.
+ * However, since increments do not lock, the exported counts are not an atomic point-in-time view of all counters when there are concurrent increments.
+ * <p>
+ * For example:
+ * <pre>
+ * ConcurrentCounterAddressTrie&lt;IPv4Address, IPv4AddressLongValuedTrie&gt; counters = new ConcurrentCounterAddressTrie&lt;&gt;(prefixes);
+ * // from any number of ingest threads
+ * counters.increment(packet.getSourceAddress(), packet.getLength());
+ * // periodically from the exporting thread
+ * IPv4AddressLongValuedTrie bytesPerPrefix = counters.getCountsAndReset();
+ * </pre>
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ * @param <T> the type of the tries holding the prefixes and the exported counts
+ */
+public class ConcurrentCounterAddressTrie<E extends Address, T extends LongValuedAddressTrie<E>> {
+
+	// the count is the amount added to the adder since it was drained
+	private static class Counter {
+		final LongAdder adder;
+		final long drained;
+
+		Counter(LongAdder adder, long drained) {
+			this.adder = adder;
+			this.drained = drained;
+		}
+
+		long getCount() {
+			return adder.sum() - drained;
+		}
+	}
+
+	private static class Counters<E extends Address, T extends LongValuedAddressTrie<E>> {
+		final T trie; // frozen
+		final IdentityHashMap<LongValuedTrieNode<E>, Counter> counters;
+
+		Counters(T trie, IdentityHashMap<LongValuedTrieNode<E>, Counter> counters) {
+			this.trie = trie;
+			this.counters = counters;
+		}
+
+		Counter getCounter(E addr) {
+			LongValuedTrieNode<E> node = trie.getAddedNode(addr);
+			return node == null ? null : counters.get(node);
+		}
+	}
+
+	private volatile Counters<E, T> counters;
+
+	/**
+	 * Constructs a counter trie whose prefixes are the added elements of the given trie,
+	 * with each counter initialized to the value of the corresponding node in the given trie.
+	 * <p>
+	 * Subsequent changes to the given trie are not reflected in this trie.
+	 *
+	 * @param prefixes
+	 */
+	public ConcurrentCounterAddressTrie(T prefixes) {
+		publish(copy(prefixes), null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Address, T extends LongValuedAddressTrie<E>> T copy(T trie) {
+		return (T) trie.clone();
+	}
+
+	/**
+	 * Publishes the given trie as the new snapshot.
+	 * Counters are taken from the previous snapshot for retained prefixes,
+	 * otherwise new counters are created, initialized to the values of the nodes of the given trie.
+	 * The values of the given trie are all reset to zero before it is frozen.
+	 */
+	private void publish(T newTrie, Counters<E, T> previous) {
+		IdentityHashMap<LongValuedTrieNode<E>, Counter> newCounters = new IdentityHashMap<LongValuedTrieNode<E>, Counter>(newTrie.size());
+		Iterator<? extends LongValuedTrieNode<E>> iterator = newTrie.nodeIterator(true);
+		while(iterator.hasNext()) {
+			LongValuedTrieNode<E> node = iterator.next();
+			Counter counter = previous == null ? null : previous.getCounter(node.getKey());
+			if(counter == null) {
+				LongAdder adder = new LongAdder();
+				adder.add(node.getValue());
+				counter = new Counter(adder, 0);
+			}
+			node.setValue(0);
+			newCounters.put(node, counter);
+		}
+		newTrie.freeze();
+		counters = new Counters<E, T>(newTrie, newCounters);
+	}
+
+	/**
+	 * Adds the given delta to the counter of the longest prefix in this trie matching the given address.
+	 * <p>
+	 * This method does not lock and can be called concurrently from any number of threads.
+	 *
+	 * @param addr
+	 * @param delta
+	 * @return whether a prefix matched the address, false if there is no matching prefix and so nothing was counted
+	 */
+	public boolean increment(E addr, long delta) {
+		Counters<E, T> current = counters;
+		LongValuedTrieNode<E> node = current.trie.longestPrefixMatchNode(addr);
+		if(node == null) {
+			return false;
+		}
+		current.counters.get(node).adder.add(delta);
+		return true;
+	}
+
+	/**
+	 * Adds one to the counter of the longest prefix in this trie matching the given address.
+	 * <p>
+	 * Equivalent to <code>increment(addr, 1)</code>.
+	 *
+	 * @param addr
+	 * @return whether a prefix matched the address
+	 */
+	public boolean increment(E addr) {
+		return increment(addr, 1);
+	}
+
+	/**
+	 * Returns the current count for the given prefix, which must match a prefix of this trie exactly,
+	 * or 0 if there is no such prefix.
+	 * <p>
+	 * When there are concurrent increments, the returned count might not include them.
+	 *
+	 * @param prefix
+	 * @return
+	 */
+	public long getCount(E prefix) {
+		Counter counter = counters.getCounter(prefix);
+		return counter == null ? 0 : counter.getCount();
+	}
+
+	/**
+	 * Returns a new modifiable trie with the prefixes of this trie,
+	 * in which the value of each node is the current count for that prefix.
+	 * <p>
+	 * The counters are not changed.
+	 *
+	 * @return
+	 */
+	public T getCounts() {
+		return export(false);
+	}
+
+	/**
+	 * Returns a new modifiable trie with the prefixes of this trie,
+	 * in which the value of each node is the current count for that prefix,
+	 * resetting each counter to zero.
+	 * <p>
+	 * This is intended for periodic export.
+	 * No increment is lost: each increment is either included in the returned trie, or in the trie returned from the next reset.
+	 *
+	 * @return
+	 */
+	public T getCountsAndReset() {
+		return export(true);
+	}
+
+	/**
+	 * Resets all counters to zero.
+	 */
+	public synchronized void reset() {
+		Counters<E, T> current = counters;
+		IdentityHashMap<LongValuedTrieNode<E>, Counter> drainedCounters = new IdentityHashMap<LongValuedTrieNode<E>, Counter>(current.counters.size());
+		for(Entry<LongValuedTrieNode<E>, Counter> entry : current.counters.entrySet()) {
+			LongAdder adder = entry.getValue().adder;
+			drainedCounters.put(entry.getKey(), new Counter(adder, adder.sum()));
+		}
+		counters = new Counters<E, T>(current.trie, drainedCounters);
+	}
+
+	private synchronized T export(boolean reset) {
+		Counters<E, T> current = counters;
+		T result = copy(current.trie);
+		IdentityHashMap<LongValuedTrieNode<E>, Counter> drainedCounters = reset ? new IdentityHashMap<LongValuedTrieNode<E>, Counter>(current.counters.size()) : null;
+		// the copy has the same structure, so the nodes are iterated in the same order
+		Iterator<? extends LongValuedTrieNode<E>> iterator = current.trie.nodeIterator(true);
+		Iterator<? extends LongValuedTrieNode<E>> resultIterator = result.nodeIterator(true);
+		while(iterator.hasNext()) {
+			LongValuedTrieNode<E> node = iterator.next();
+			Counter counter = current.counters.get(node);
+			// each increment is either in the sum or in the sum of the next drain
+			long sum = counter.adder.sum();
+			resultIterator.next().setValue(sum - counter.drained);
+			if(reset) {
+				drainedCounters.put(node, new Counter(counter.adder, sum));
+			}
+		}
+		if(reset) {
+			counters = new Counters<E, T>(current.trie, drainedCounters);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the current snapshot of the prefixes of this trie.
+	 * <p>
+	 * The returned trie is frozen, and the values of its nodes are all zero.  Use {@link #getCounts()} to obtain the counts.
+	 *
+	 * @return
+	 */
+	public T getPrefixes() {
+		return counters.trie;
+	}
+
+	/**
+	 * Returns the number of prefixes in this trie.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return counters.trie.size();
+	}
+
+	/**
+	 * Adds the given prefix with a counter of zero, if not already in this trie.
+	 * <p>
+	 * This operation is linear in the number of prefixes.
+	 *
+	 * @param prefix
+	 * @return whether the prefix was added
+	 */
+	public synchronized boolean addPrefix(E prefix) {
+		Counters<E, T> current = counters;
+		if(current.trie.getAddedNode(prefix) != null) {
+			return false;
+		}
+		T newTrie = copy(current.trie);
+		newTrie.add(prefix);
+		publish(newTrie, current);
+		return true;
+	}
+
+	/**
+	 * Removes the given prefix and its counter, if in this trie.
+	 * <p>
+	 * Subsequent increments for addresses matching the removed prefix will be counted by the longest remaining matching prefix, if any.
+	 * This operation is linear in the number of prefixes.
+	 *
+	 * @param prefix
+	 * @return whether the prefix was removed
+	 */
+	public synchronized boolean removePrefix(E prefix) {
+		Counters<E, T> current = counters;
+		if(current.trie.getAddedNode(prefix) == null) {
+			return false;
+		}
+		T newTrie = copy(current.trie);
+		newTrie.remove(prefix);
+		publish(newTrie, current);
+		return true;
+	}
+
+	/**
+	 * Applies a batch of changes to the prefixes with a single copy of the trie.
+	 * <p>
+	 * The updater is given a copy of the current prefixes to modify.
+	 * The values of the nodes in the copy are zero.
+	 * The counters of prefixes that remain are retained.
+	 * The counters of new prefixes are initialized to the values assigned to them by the updater.
+	 * Once the updater returns, the copy becomes the new snapshot of prefixes.
+	 * The updater must not retain the trie it is given, nor any of its nodes.
+	 * If the updater throws, this trie remains unchanged.
+	 *
+	 * @param updater
+	 */
+	public synchronized void update(Consumer<? super T> updater) {
+		Counters<E, T> current = counters;
+		T newTrie = copy(current.trie);
+		updater.accept(newTrie);
+		publish(newTrie, current);
+	}
+
+	@Override
+	public String toString() {
+		return getCounts().toString();
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrie.TrieNode;
+
+/**
+ * A reusable cursor that iterates through the added nodes of a trie whose keys contain a given address,
+ * obtained from {@link AddressTrie#containingNodeCursor(boolean)}.
+ * <p>
+ * The cursor is positioned at an address with one of the reset methods, after which it iterates through the containing nodes,
+ * the same nodes listed by {@link AddressTrie#elementsContaining(Address)}.
+ * Positioning the cursor does not allocate, so a single cursor can be used for any number of lookups without creating garbage.
+ * <p>
+ * For example, to evaluate policies attached to prefixes, from the most-specific prefix to the least:
+ * <pre>
+ * ContainingNodeCursor&lt;IPv4Address&gt; cursor = trie.containingNodeCursor(false);
+ * for(int addr : addresses) {
+ * 	cursor.reset(addr);
+ * 	while(cursor.hasNext()) {
+ * 		TrieNode&lt;IPv4Address&gt; prefix = cursor.next();
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ * <p>
+ * A cursor is not thread-safe.
+ * Like the iterators of the trie, a cursor must not be used concurrently with modifications to the trie,
+ * and once the trie has been modified, the cursor must be reset before it is used again.
+ *
+ * @author scfoley
+ *
+ * @param <E> the type of the address keys
+ */
+public class ContainingNodeCursor<E extends Address> implements Iterator<TrieNode<E>> {
+
+	private final AddressTrie<E> trie;
+	private final boolean containingFirst;
+
+	// the containing added nodes, from longest prefix to shortest
+	private TrieNode<E> nodes[];
+	private int count, index;
+
+	@SuppressWarnings("unchecked")
+	ContainingNodeCursor(AddressTrie<E> trie, boolean containingFirst) {
+		this.trie = trie;
+		this.containingFirst = containingFirst;
+		E rootKey = trie.absoluteRoot().getKey();
+		// there is at most one containing node for each prefix length, and one for the address itself
+		nodes = (TrieNode<E>[]) new TrieNode<?>[rootKey == null ? 0 : rootKey.getBitCount() + 1];
+	}
+
+	/**
+	 * Positions this cursor at the given address or prefix block,
+	 * so that it iterates through the added nodes whose keys contain it.
+	 * <p>
+	 * If the argument is not a single address nor prefix block, this method will throw IllegalArgumentException.
+	 *
+	 * @param addr
+	 * @return this cursor
+	 */
+	public ContainingNodeCursor<E> reset(E addr) {
+		addr = AbstractTree.checkBlockOrAddress(addr, true);
+		return reset(trie.absoluteRoot().lastContainingNode(addr));
+	}
+
+	/**
+	 * Positions this cursor at the given IPv4 address, supplied as an unsigned 32-bit int value.
+	 * <p>
+	 * This is supported by the IPv4 tries of this library.  For other tries, this method throws IllegalArgumentException.
+	 *
+	 * @param ipv4Address
+	 * @return this cursor
+	 */
+	public ContainingNodeCursor<E> reset(int ipv4Address) {
+		return reset(trie.lastContainingNode(ipv4Address));
+	}
+
+	/**
+	 * Positions this cursor at the given IPv6 address, supplied as the upper and lower 64 bits of the address.
+	 * <p>
+	 * This is supported by the IPv6 tries of this library.  For other tries, this method throws IllegalArgumentException.
+	 *
+	 * @param ipv6HighBits the upper 64 bits of the IPv6 address
+	 * @param ipv6LowBits the lower 64 bits of the IPv6 address
+	 * @return this cursor
+	 */
+	public ContainingNodeCursor<E> reset(long ipv6HighBits, long ipv6LowBits) {
+		return reset(trie.lastContainingNode(ipv6HighBits, ipv6LowBits));
+	}
+
+	private ContainingNodeCursor<E> reset(TrieNode<E> lastContaining) {
+		TrieNode<E> nodes[] = this.nodes;
+		Arrays.fill(nodes, 0, count, null); // do not retain nodes from the previous lookup
+		int count = 0;
+		// all the containing nodes are the last containing node on the path to the address and its parents
+		for(TrieNode<E> node = lastContaining; node != null; node = node.getParent()) {
+			if(node.isAdded()) {
+				if(count == nodes.length) {
+					this.nodes = nodes = Arrays.copyOf(nodes, Math.max(count << 1, 1));
+				}
+				nodes[count++] = node;
+			}
+		}
+		this.count = count;
+		index = 0;
+		return this;
+	}
+
+	/**
+	 * Returns the number of containing nodes at the current position of this cursor,
+	 * including those already iterated.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return index < count;
+	}
+
+	@Override
+	public TrieNode<E> next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int i = index++;
+		return nodes[containingFirst ? count - 1 - i : i];
+	}
+}
@@ -100,8 +100,9 @@ public class DualIPv4v6AssociativeTries<V> extends BaseDualIPv4v6Tries<IPv4Addre
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public AssociativeTrieNode<? extends IPAddress, V> longestPrefixMatchNode(IPAddress addr) {
-		return addressFuncOp(addr, getIPv4Trie()::longestPrefixMatchNode, getIPv6Trie()::longestPrefixMatchNode);
+		return (AssociativeTrieNode<? extends IPAddress, V>) super.longestPrefixMatchNode(addr);
 	}
 	
 	@Override
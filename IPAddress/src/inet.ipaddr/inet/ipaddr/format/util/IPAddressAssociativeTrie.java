@@ -545,6 +545,26 @@ public class IPAddressAssociativeTrie<V> extends AssociativeAddressTrie<IPAddres
 		return o instanceof IPAddressAssociativeTrie && super.equals(o);
 	}
 
+	@Override
+	public IPAddressAssociativeTrie<V> union(AddressTrie<IPAddress> other) {
+		return (IPAddressAssociativeTrie<V>) super.union(other);
+	}
+
+	@Override
+	public IPAddressAssociativeTrie<V> intersection(AddressTrie<IPAddress> other) {
+		return (IPAddressAssociativeTrie<V>) super.intersection(other);
+	}
+
+	@Override
+	public IPAddressAssociativeTrie<V> difference(AddressTrie<IPAddress> other) {
+		return (IPAddressAssociativeTrie<V>) super.difference(other);
+	}
+
+	@Override
+	public IPAddressAssociativeTrie<V> symmetricDifference(AddressTrie<IPAddress> other) {
+		return (IPAddressAssociativeTrie<V>) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPAddressAssociativeTrie<V> clone() {
 		return (IPAddressAssociativeTrie<V>) super.clone();
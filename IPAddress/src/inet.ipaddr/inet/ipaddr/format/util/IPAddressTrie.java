@@ -69,6 +69,7 @@ public class IPAddressTrie extends AddressTrie<IPAddress> {
 	@Override
 	protected void adjustRoot(IPAddress addr) {
 		if(isInitialRoot()) {
+			absoluteRoot().checkFrozen();
 			if(addr.isIPv6()) {
 				absoluteRoot().setIPv6Key();
 			} else {
@@ -547,6 +548,26 @@ public class IPAddressTrie extends AddressTrie<IPAddress> {
 		return (IPAddressTrie) super.clone(tracker);
 	}
 	
+	@Override
+	public IPAddressTrie union(AddressTrie<IPAddress> other) {
+		return (IPAddressTrie) super.union(other);
+	}
+
+	@Override
+	public IPAddressTrie intersection(AddressTrie<IPAddress> other) {
+		return (IPAddressTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPAddressTrie difference(AddressTrie<IPAddress> other) {
+		return (IPAddressTrie) super.difference(other);
+	}
+
+	@Override
+	public IPAddressTrie symmetricDifference(AddressTrie<IPAddress> other) {
+		return (IPAddressTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPAddressTrie clone() {
 		return (IPAddressTrie) super.clone();
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.format.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+import inet.ipaddr.Address;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeEvent;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeType;
+
+/**
+ * An address trie in which each added node is associated with a long value.
+ * <p>
+ * Unlike {@link AssociativeAddressTrie}, the values are stored in primitive fields of the nodes and are never boxed,
+ * reducing the memory used by tries of counters, identifiers and the like, and avoiding allocation when looking up or changing values.
+ * <p>
+ * Use one of the put methods, or {@link #merge(Address, long, LongBinaryOperator)}, to add nodes with values or to change the values of existing nodes.
+ * You can also add to the trie using {@link #add(Address)} and the associated value will be zero.
+ * <p>
+ * Like other tries, these tries are thread-safe when not being modified, but are not thread-safe when a thread is modifying the trie.
+ *
+ * @author scfoley
+ *
+ * @param <K> the type of the address keys
+ */
+public abstract class LongValuedAddressTrie<K extends Address> extends AddressTrie<K> {
+
+	private static final long serialVersionUID = 1L;
+
+	public static abstract class LongValuedTrieNode<K extends Address> extends TrieNode<K> {
+
+		private static final long serialVersionUID = 1L;
+
+		private long value;
+
+		protected LongValuedTrieNode(K item) {
+			super(item);
+		}
+
+		public long getValue() {
+			return value;
+		}
+
+		/**
+		 * Sets the value associated with this node, returning the previous value.
+		 *
+		 * @param value
+		 * @return
+		 */
+		public long setValue(long value) {
+			checkFrozen();
+			long result = this.value;
+			this.value = value;
+			if(value != result && isAdded()) {
+				logChange(ChangeType.VALUE_CHANGED);
+			}
+			return result;
+		}
+
+		@Override
+		Object getChangeValue() {
+			return value;
+		}
+
+		/**
+		 * The node remains in the trie, but is no longer an added node, so its value is reset.
+		 */
+		@Override
+		void removed() {
+			super.removed();
+			value = 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected void replaceThisRoot(BinaryTreeNode<K> replacement) {
+			super.replaceThisRoot(replacement);
+			value = replacement == null ? 0 : ((LongValuedTrieNode<K>) replacement).value;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> getUpperSubNode() {
+			return (LongValuedTrieNode<K>) super.getUpperSubNode();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> getLowerSubNode() {
+			return (LongValuedTrieNode<K>) super.getLowerSubNode();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> getParent() {
+			return (LongValuedTrieNode<K>) super.getParent();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedAddressTrie<K> asNewTrie() {
+			return (LongValuedAddressTrie<K>) super.asNewTrie();
+		}
+
+		/**
+		 * Clones the subtrie starting with this node as root.
+		 * The nodes are cloned, the keys are not cloned.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> cloneTree() {
+			return (LongValuedTrieNode<K>) super.cloneTree();
+		}
+
+		/**
+		 * Clones the node.  Keys are not cloned, but parent node, lower and upper sub-nodes,
+		 * are all set to null.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> clone() {
+			return (LongValuedTrieNode<K>) super.clone();
+		}
+
+		@Override
+		public int hashCode() {
+			return super.hashCode() ^ Long.hashCode(value);
+		}
+
+		/**
+		 * Returns whether the key and mapped value match those of the given node
+		 */
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			} else if(o instanceof LongValuedTrieNode<?>) {
+				return super.equals(o) && value == ((LongValuedTrieNode<?>) o).value;
+			}
+			return false;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<? extends LongValuedTrieNode<K>> nodeIterator(boolean forward) {
+			return (Iterator<? extends LongValuedTrieNode<K>>) super.nodeIterator(forward);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<? extends LongValuedTrieNode<K>> containingFirstIterator(boolean forwardSubNodeOrder) {
+			return (Iterator<? extends LongValuedTrieNode<K>>) super.containingFirstIterator(forwardSubNodeOrder);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> previousAddedNode() {
+			return (LongValuedTrieNode<K>) super.previousAddedNode();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> nextAddedNode() {
+			return (LongValuedTrieNode<K>) super.nextAddedNode();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> firstAddedNode() {
+			return (LongValuedTrieNode<K>) super.firstAddedNode();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public LongValuedTrieNode<K> lastAddedNode() {
+			return (LongValuedTrieNode<K>) super.lastAddedNode();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(80);
+			if(isAdded()) {
+				return toNodeString(builder, true, getKey(), value).toString();
+			}
+			return toNodeString(builder, false, getKey(), null).toString();
+		}
+	}
+
+	protected LongValuedAddressTrie(LongValuedTrieNode<K> root) {
+		super(root);
+	}
+
+	protected LongValuedAddressTrie(LongValuedTrieNode<K> root, AddressBounds<K> bounds) {
+		super(root, bounds);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected LongValuedTrieNode<K> absoluteRoot() {
+		return (LongValuedTrieNode<K>) super.absoluteRoot();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> getRoot() {
+		return (LongValuedTrieNode<K>) super.getRoot();
+	}
+
+	private TrieNode<K> insert(OpResult<K> result) {
+		K addr = checkBlockOrAddress(result.addr, true);
+		if(bounds != null) {
+			if(!bounds.isInBounds(addr)) {
+				throwOutOfBounds();
+			}
+		}
+		adjustRoot(addr);
+		result.addr = addr;
+		absoluteRoot().matchBits(result);
+		TrieNode<K> node = result.existingNode;
+		if(node == null) {
+			node = result.inserted;
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the value associated with the given address or subnet,
+	 * or the given default value if the address or subnet is not added to the trie.
+	 * <p>
+	 * If the given address is not a single address nor prefix block, then this method throws IllegalArgumentException.
+	 *
+	 * @param addr
+	 * @param defaultValue
+	 * @return
+	 */
+	public long getOrDefault(K addr, long defaultValue) {
+		LongValuedTrieNode<K> node = getAddedNode(addr);
+		return node == null ? defaultValue : node.getValue();
+	}
+
+	@Override
+	void applyChange(ChangeEvent<K> change) {
+		if(change.getType() == ChangeType.REMOVED) {
+			remove(change.getKey());
+		} else {
+			put(change.getKey(), (Long) change.getValue());
+		}
+	}
+
+	/**
+	 * Associates the given value with the given address or subnet, adding it to the trie if not already added.
+	 * Returns the previous value, or zero if the address or subnet was not previously added.
+	 * Use {@link #putNew(Address, long)} to determine whether the address or subnet was previously added.
+	 * <p>
+	 * If the given address is not a single address nor prefix block, then this method throws IllegalArgumentException.
+	 *
+	 * @param addr
+	 * @param value
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public long put(K addr, long value) {
+		return ((LongValuedTrieNode<K>) insert(new OpResult<>(addr, Operation.INSERT))).setValue(value);
+	}
+
+	/**
+	 * Associates the given value with the given address or subnet, adding it to the trie if not already added.
+	 * Returns whether the address or subnet was not previously added.
+	 *
+	 * @param addr
+	 * @param value
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean putNew(K addr, long value) {
+		OpResult<K> result = new OpResult<>(addr, Operation.INSERT);
+		((LongValuedTrieNode<K>) insert(result)).setValue(value);
+		return !result.exists;
+	}
+
+	/**
+	 * Associates the given value with the given address or subnet, adding it to the trie if not already added,
+	 * and returning the node for the address or subnet.
+	 *
+	 * @param addr
+	 * @param value
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public LongValuedTrieNode<K> putNode(K addr, long value) {
+		LongValuedTrieNode<K> node = (LongValuedTrieNode<K>) insert(new OpResult<>(addr, Operation.INSERT));
+		node.setValue(value);
+		return node;
+	}
+
+	/**
+	 * If the given address or subnet is not already added, adds it with the given value.
+	 * Otherwise, the existing value is replaced by the result of applying the remapping function to the existing value and the given value.
+	 * Returns the new value.
+	 * <p>
+	 * For example, to count the occurrences of each prefix, use <code>trie.merge(prefix, 1, Long::sum)</code>.
+	 * <p>
+	 * If the given address is not a single address nor prefix block, then this method throws IllegalArgumentException.
+	 *
+	 * @param addr
+	 * @param value
+	 * @param remapper
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public long merge(K addr, long value, LongBinaryOperator remapper) {
+		OpResult<K> result = new OpResult<>(addr, Operation.INSERT);
+		LongValuedTrieNode<K> node = (LongValuedTrieNode<K>) insert(result);
+		if(result.exists) {
+			value = remapper.applyAsLong(node.getValue(), value);
+		}
+		node.setValue(value);
+		return value;
+	}
+
+	/**
+	 * Replaces the value of the given address or subnet, if added to the trie, with the result of applying the remapping function to the existing value.
+	 * Returns the node for the address or subnet, or null if it is not added to the trie, in which case the remapping function is not applied.
+	 * <p>
+	 * If the given address is not a single address nor prefix block, then this method throws IllegalArgumentException.
+	 *
+	 * @param addr
+	 * @param remapper
+	 * @return
+	 */
+	public LongValuedTrieNode<K> remap(K addr, LongUnaryOperator remapper) {
+		LongValuedTrieNode<K> node = getAddedNode(addr);
+		if(node != null) {
+			node.setValue(remapper.applyAsLong(node.getValue()));
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the value of the added node whose prefix block is the longest prefix match for the given address,
+	 * or the given default value if no added node contains the address.
+	 *
+	 * @param addr
+	 * @param defaultValue
+	 * @return
+	 */
+	public long longestPrefixMatchValue(K addr, long defaultValue) {
+		LongValuedTrieNode<K> node = longestPrefixMatchNode(addr);
+		return node == null ? defaultValue : node.getValue();
+	}
+
+	// copies the values from the nodes of the combined tries, which are in the same order as the nodes of this trie
+	@SuppressWarnings("unchecked")
+	@Override
+	void combined(ArrayList<TrieNode<K>> fromNodes) {
+		Iterator<? extends LongValuedTrieNode<K>> iterator = containingFirstIterator(true);
+		for(TrieNode<K> fromNode : fromNodes) {
+			LongValuedTrieNode<K> node = iterator.next();
+			if(fromNode instanceof LongValuedTrieNode) {
+				node.setValue(((LongValuedTrieNode<K>) fromNode).getValue());
+			}
+		}
+	}
+
+	// creates a new one-node trie with a new root and the given bounds
+	@Override
+	protected abstract LongValuedAddressTrie<K> createNew(AddressBounds<K> bounds);
+
+	// create a trie with the same root as this one, but different bounds
+	@Override
+	protected abstract LongValuedAddressTrie<K> createSubTrie(AddressBounds<K> bounds);
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> addNode(K addr) {
+		return (LongValuedTrieNode<K>) super.addNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> getAddedNode(K addr) {
+		return (LongValuedTrieNode<K>) super.getAddedNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> getNode(K addr) {
+		return (LongValuedTrieNode<K>) super.getNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> longestPrefixMatchNode(K addr) {
+		return (LongValuedTrieNode<K>) super.longestPrefixMatchNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<? extends LongValuedTrieNode<K>> nodeIterator(boolean forward) {
+		return (Iterator<? extends LongValuedTrieNode<K>>) super.nodeIterator(forward);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<? extends LongValuedTrieNode<K>> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return (Iterator<? extends LongValuedTrieNode<K>>) super.containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> firstAddedNode() {
+		return (LongValuedTrieNode<K>) super.firstAddedNode();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedTrieNode<K> lastAddedNode() {
+		return (LongValuedTrieNode<K>) super.lastAddedNode();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedAddressTrie<K> union(AddressTrie<K> other) {
+		return (LongValuedAddressTrie<K>) super.union(other);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedAddressTrie<K> intersection(AddressTrie<K> other) {
+		return (LongValuedAddressTrie<K>) super.intersection(other);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedAddressTrie<K> difference(AddressTrie<K> other) {
+		return (LongValuedAddressTrie<K>) super.difference(other);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedAddressTrie<K> symmetricDifference(AddressTrie<K> other) {
+		return (LongValuedAddressTrie<K>) super.symmetricDifference(other);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public LongValuedAddressTrie<K> clone() {
+		return (LongValuedAddressTrie<K>) super.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof LongValuedAddressTrie && super.equals(o);
+	}
+}
@@ -22,6 +22,7 @@ import java.util.Spliterator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import inet.ipaddr.format.util.AddressTrie;
 import inet.ipaddr.format.util.AssociativeAddedTree;
 import inet.ipaddr.format.util.AssociativeAddressTrie;
 import inet.ipaddr.format.util.BinaryTreeNode;
@@ -529,6 +530,26 @@ public class IPv4AddressAssociativeTrie<V> extends AssociativeAddressTrie<IPv4Ad
 		return o instanceof IPv4AddressAssociativeTrie && super.equals(o);
 	}
 
+	@Override
+	public IPv4AddressAssociativeTrie<V> union(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressAssociativeTrie<V>) super.union(other);
+	}
+
+	@Override
+	public IPv4AddressAssociativeTrie<V> intersection(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressAssociativeTrie<V>) super.intersection(other);
+	}
+
+	@Override
+	public IPv4AddressAssociativeTrie<V> difference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressAssociativeTrie<V>) super.difference(other);
+	}
+
+	@Override
+	public IPv4AddressAssociativeTrie<V> symmetricDifference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressAssociativeTrie<V>) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv4AddressAssociativeTrie<V> clone() {
 		return (IPv4AddressAssociativeTrie<V>) super.clone();
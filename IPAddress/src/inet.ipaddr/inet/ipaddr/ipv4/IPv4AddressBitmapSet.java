@@ -0,0 +1,1927 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.ipv4;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import inet.ipaddr.AddressConversionException;
+import inet.ipaddr.IPAddress;
+import inet.ipaddr.IPAddressCollection;
+import inet.ipaddr.IPAddressContainmentTrieBase;
+import inet.ipaddr.IPAddressSeqRange;
+import inet.ipaddr.IPAddressSeqRangeList;
+import inet.ipaddr.format.validate.ChangeTracker;
+import inet.ipaddr.format.validate.ChangeTracker.Change;
+
+/**
+ * IPv4AddressBitmapSet is a collection of IPv4 addresses backed by compressed bitmaps, suited to large sets of scattered addresses,
+ * such as scan results or allowlists of millions of individual hosts, which would otherwise be stored as millions of small sequential ranges or prefix blocks.
+ * <p>
+ * The address space is divided into the 65536 /16 blocks, with a container for each block containing addresses of the set.
+ * Each container holds the lower 16 bits of the addresses of its block, in one of three forms, whichever is most compact for the addresses it holds:
+ * <ul>
+ * <li>a sorted array of 16-bit values, for sparse blocks of up to 4096 addresses</li>
+ * <li>a bitmap of 65536 bits, for dense blocks</li>
+ * <li>a sorted array of runs of consecutive values, for blocks made up of a few sequential ranges</li>
+ * </ul>
+ * The form of a container is chosen again when a large range of addresses is added to or removed from the container,
+ * and when containers are combined by {@link #union(IPAddressCollection)}, {@link #intersection(IPAddressCollection)} and {@link #difference(IPAddressCollection)},
+ * which operate on the containers directly, block by block.
+ * Adding or removing individual addresses and small ranges only changes the form of a container when the current form can no longer hold the addresses efficiently,
+ * so when many of those have been added, calling {@link #optimize()} may reduce the memory footprint further.
+ * <p>
+ * Addresses and sequential ranges returned from this collection are created with the default IPv4 network.
+ * Use {@link #spanWithPrefixBlocks()} or {@link #prefixBlockIterator()} to convert the collection to prefix blocks,
+ * and {@link #toSeqRangeList()} to convert the collection to a sequential range list.
+ *
+ * @author scfoley
+ *
+ */
+public class IPv4AddressBitmapSet implements IPAddressCollection<IPv4Address, IPv4AddressSeqRange> {
+
+	private static final long serialVersionUID = 1L;
+
+	// the number of values in a container, the number of addresses in a /16 block
+	static final int CONTAINER_SIZE = 1 << 16;
+
+	static final int MAX_CONTAINER_VALUE = CONTAINER_SIZE - 1;
+
+	// an array container of this size has the same memory footprint as a bitmap container
+	static final int MAX_ARRAY_SIZE = 4096;
+
+	static final int BITMAP_WORD_COUNT = CONTAINER_SIZE >>> 6;
+
+	private static final long MAX_VALUE = 0xffffffffL;
+
+	private static final int OR = 0, AND = 1, AND_NOT = 2;
+
+	// the upper 16 bits of the addresses in each container, in increasing order, for the containers from 0 to size - 1
+	private char keys[];
+	private Container containers[];
+	private int size;
+
+	// the number of addresses in the set
+	private long count;
+
+	private ChangeTracker changeTracker = new ChangeTracker();
+
+	/**
+	 * Constructs an empty set.
+	 */
+	public IPv4AddressBitmapSet() {
+		keys = new char[4];
+		containers = new Container[4];
+	}
+
+	/**
+	 * Constructs a set with the addresses in the given collection, which must contain IPv4 addresses if not empty.
+	 *
+	 * @param collection
+	 * @throws AddressConversionException if the collection contains IPv6 addresses
+	 */
+	public IPv4AddressBitmapSet(IPAddressCollection<?, ?> collection) throws AddressConversionException {
+		this();
+		addAll(collection);
+	}
+
+	/**
+	 * Container holds the lower 16 bits of the addresses of a /16 block.
+	 * <p>
+	 * The methods that change the values of a container return the container holding the result, which is either the same container,
+	 * or a container of another form when the form of the original container is no longer the most suitable.
+	 */
+	static abstract class Container implements Cloneable, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		abstract int getCardinality();
+
+		abstract boolean contains(int value);
+
+		// whether the container holds all the values from lower to upper inclusive
+		abstract boolean containsRange(int lower, int upper);
+
+		// the lowest value not less than the given value, or -1 if there is none
+		abstract int ceiling(int value);
+
+		// the highest value not greater than the given value, or -1 if there is none
+		abstract int floor(int value);
+
+		// for a value in the container, the highest value for which all values from the given value to that value are in the container
+		abstract int rangeEnd(int value);
+
+		abstract Container add(int value);
+
+		abstract Container add(int lower, int upper);
+
+		abstract Container remove(int lower, int upper);
+
+		// sets the bits of the values in the container
+		abstract void orInto(long words[]);
+
+		abstract int getRunCount();
+
+		// returns the container of the most compact form for the values in this container
+		abstract Container optimize();
+
+		@Override
+		public abstract Container clone();
+
+		int first() {
+			return ceiling(0);
+		}
+
+		int last() {
+			return floor(MAX_CONTAINER_VALUE);
+		}
+
+		long[] toWords() {
+			long words[] = new long[BITMAP_WORD_COUNT];
+			orInto(words);
+			return words;
+		}
+
+		boolean equalValues(Container other) {
+			return getCardinality() == other.getCardinality() && Arrays.equals(toWords(), other.toWords());
+		}
+	}
+
+	/**
+	 * A container holding a sorted array of values.
+	 */
+	static final class ArrayContainer extends Container {
+
+		private static final long serialVersionUID = 1L;
+
+		char values[];
+		int cardinality;
+
+		ArrayContainer(char values[], int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		ArrayContainer(int value) {
+			values = new char[] {(char) value};
+			cardinality = 1;
+		}
+
+		static ArrayContainer fromWords(long words[], int cardinality) {
+			char values[] = new char[cardinality];
+			int j = 0;
+			for(int i = 0; i < BITMAP_WORD_COUNT; i++) {
+				for(long word = words[i]; word != 0; word &= word - 1) {
+					values[j++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+				}
+			}
+			return new ArrayContainer(values, cardinality);
+		}
+
+		@Override
+		int getCardinality() {
+			return cardinality;
+		}
+
+		private int search(int value) {
+			return Arrays.binarySearch(values, 0, cardinality, (char) value);
+		}
+
+		// the index of the lowest value not less than the given value
+		private int lowerBound(int value) {
+			if(value > MAX_CONTAINER_VALUE) {
+				return cardinality;
+			}
+			int index = search(value);
+			return index < 0 ? -(index + 1) : index;
+		}
+
+		@Override
+		boolean contains(int value) {
+			return search(value) >= 0;
+		}
+
+		@Override
+		boolean containsRange(int lower, int upper) {
+			// the values are distinct, so the range is present if the values at the two ends are the ends of the range
+			int index = search(lower);
+			if(index < 0) {
+				return false;
+			}
+			int upperIndex = index + upper - lower;
+			return upperIndex < cardinality && values[upperIndex] == upper;
+		}
+
+		@Override
+		int ceiling(int value) {
+			int index = lowerBound(value);
+			return index < cardinality ? values[index] : -1;
+		}
+
+		@Override
+		int floor(int value) {
+			int index = search(value);
+			if(index < 0) {
+				index = -(index + 1) - 1;
+			}
+			return index >= 0 ? values[index] : -1;
+		}
+
+		@Override
+		int rangeEnd(int value) {
+			// the values are distinct, so values[i] - i is non-decreasing, and is constant for consecutive values,
+			// so we search for the last index with the same difference
+			int index = search(value);
+			int diff = value - index;
+			int low = index + 1, high = cardinality - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				if(values[mid] - mid == diff) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return values[high];
+		}
+
+		@Override
+		Container add(int value) {
+			int index = search(value);
+			if(index >= 0) {
+				return this;
+			}
+			if(cardinality == MAX_ARRAY_SIZE) {
+				long words[] = toWords();
+				words[value >>> 6] |= 1L << value;
+				return new BitmapContainer(words, cardinality + 1);
+			}
+			index = -(index + 1);
+			if(cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, Math.max(4, cardinality + (cardinality >> 1))));
+			}
+			System.arraycopy(values, index, values, index + 1, cardinality - index);
+			values[index] = (char) value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container add(int lower, int upper) {
+			int lowerIndex = lowerBound(lower), upperIndex = lowerBound(upper + 1);
+			int rangeSize = upper - lower + 1;
+			int newCardinality = cardinality - (upperIndex - lowerIndex) + rangeSize;
+			if(newCardinality == cardinality) {
+				// all the range values are present
+				return this;
+			} else if(newCardinality > MAX_ARRAY_SIZE) {
+				long words[] = toWords();
+				setRange(words, lower, upper);
+				return best(words, newCardinality);
+			}
+			char newValues[] = values.length >= newCardinality ? values : Arrays.copyOf(values, newCardinality);
+			System.arraycopy(values, upperIndex, newValues, lowerIndex + rangeSize, cardinality - upperIndex);
+			for(int i = 0; i < rangeSize; i++) {
+				newValues[lowerIndex + i] = (char) (lower + i);
+			}
+			values = newValues;
+			cardinality = newCardinality;
+			return optimize();
+		}
+
+		@Override
+		Container remove(int lower, int upper) {
+			int lowerIndex = lowerBound(lower), upperIndex = lowerBound(upper + 1);
+			if(lowerIndex < upperIndex) {
+				System.arraycopy(values, upperIndex, values, lowerIndex, cardinality - upperIndex);
+				cardinality -= upperIndex - lowerIndex;
+			}
+			return this;
+		}
+
+		// returns the values of this container that are, or are not, in the given container
+		Container filter(Container other, boolean inOther) {
+			char newValues[] = new char[cardinality];
+			int newCardinality = 0;
+			for(int i = 0; i < cardinality; i++) {
+				char value = values[i];
+				if(other.contains(value) == inOther) {
+					newValues[newCardinality++] = value;
+				}
+			}
+			return new ArrayContainer(newValues, newCardinality);
+		}
+
+		static Container or(ArrayContainer one, ArrayContainer two) {
+			char result[] = new char[one.cardinality + two.cardinality];
+			char values1[] = one.values, values2[] = two.values;
+			int i = 0, j = 0, k = 0;
+			while(i < one.cardinality && j < two.cardinality) {
+				char value1 = values1[i], value2 = values2[j];
+				if(value1 <= value2) {
+					result[k++] = value1;
+					i++;
+					if(value1 == value2) {
+						j++;
+					}
+				} else {
+					result[k++] = value2;
+					j++;
+				}
+			}
+			while(i < one.cardinality) {
+				result[k++] = values1[i++];
+			}
+			while(j < two.cardinality) {
+				result[k++] = values2[j++];
+			}
+			return new ArrayContainer(result, k).optimize();
+		}
+
+		@Override
+		void orInto(long words[]) {
+			for(int i = 0; i < cardinality; i++) {
+				int value = values[i];
+				words[value >>> 6] |= 1L << value;
+			}
+		}
+
+		@Override
+		int getRunCount() {
+			int runs = 0;
+			for(int i = 0, previous = -2; i < cardinality; i++) {
+				int value = values[i];
+				if(value != previous + 1) {
+					runs++;
+				}
+				previous = value;
+			}
+			return runs;
+		}
+
+		@Override
+		Container optimize() {
+			int runs = getRunCount();
+			if(isRunsSmaller(runs, cardinality)) {
+				char newRuns[] = new char[runs << 1];
+				for(int i = 0, j = 0; i < cardinality; ) {
+					char start = values[i];
+					int end = rangeEnd(start);
+					newRuns[j++] = start;
+					newRuns[j++] = (char) end;
+					i += end - start + 1;
+				}
+				return new RunContainer(newRuns, runs, cardinality);
+			} else if(values.length > cardinality + (cardinality >> 1) + 4) {
+				values = Arrays.copyOf(values, cardinality);
+			}
+			return this;
+		}
+
+		@Override
+		boolean equalValues(Container other) {
+			if(other instanceof ArrayContainer) {
+				ArrayContainer otherArray = (ArrayContainer) other;
+				return cardinality == otherArray.cardinality && equalPrefixes(values, otherArray.values, cardinality);
+			}
+			return super.equalValues(other);
+		}
+
+		@Override
+		public ArrayContainer clone() {
+			return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+		}
+	}
+
+	/**
+	 * A container holding a bitmap of 65536 bits.
+	 */
+	static final class BitmapContainer extends Container {
+
+		private static final long serialVersionUID = 1L;
+
+		long words[];
+		int cardinality;
+
+		BitmapContainer(long words[], int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		int getCardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		boolean containsRange(int lower, int upper) {
+			int firstWord = lower >>> 6, lastWord = upper >>> 6;
+			long firstMask = -1L << lower, lastMask = -1L >>> (63 - (upper & 63));
+			if(firstWord == lastWord) {
+				long mask = firstMask & lastMask;
+				return (words[firstWord] & mask) == mask;
+			}
+			if((words[firstWord] & firstMask) != firstMask || (words[lastWord] & lastMask) != lastMask) {
+				return false;
+			}
+			for(int i = firstWord + 1; i < lastWord; i++) {
+				if(words[i] != -1L) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		int ceiling(int value) {
+			int i = value >>> 6;
+			long word = words[i] & (-1L << value);
+			while(word == 0) {
+				if(++i == BITMAP_WORD_COUNT) {
+					return -1;
+				}
+				word = words[i];
+			}
+			return (i << 6) + Long.numberOfTrailingZeros(word);
+		}
+
+		@Override
+		int floor(int value) {
+			int i = value >>> 6;
+			long word = words[i] & (-1L >>> (63 - (value & 63)));
+			while(word == 0) {
+				if(--i < 0) {
+					return -1;
+				}
+				word = words[i];
+			}
+			return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+		}
+
+		@Override
+		int rangeEnd(int value) {
+			// find the next clear bit
+			int i = value >>> 6;
+			long word = ~words[i] & (-1L << value);
+			while(word == 0) {
+				if(++i == BITMAP_WORD_COUNT) {
+					return MAX_CONTAINER_VALUE;
+				}
+				word = ~words[i];
+			}
+			return (i << 6) + Long.numberOfTrailingZeros(word) - 1;
+		}
+
+		@Override
+		Container add(int value) {
+			int i = value >>> 6;
+			long word = words[i], newWord = word | (1L << value);
+			if(newWord != word) {
+				words[i] = newWord;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container add(int lower, int upper) {
+			int added = setRange(words, lower, upper);
+			if(added == 0) {
+				return this;
+			}
+			cardinality += added;
+			// counting the runs is only worthwhile when the range is large enough that it may have merged many runs
+			return isLargeRange(lower, upper) ? optimize() : this;
+		}
+
+		@Override
+		Container remove(int lower, int upper) {
+			int removed = clearRange(words, lower, upper);
+			if(removed == 0) {
+				return this;
+			}
+			cardinality -= removed;
+			if(isLargeRange(lower, upper)) {
+				return optimize();
+			} else if(cardinality <= MAX_ARRAY_SIZE) {
+				return ArrayContainer.fromWords(words, cardinality);
+			}
+			return this;
+		}
+
+		private static boolean isLargeRange(int lower, int upper) {
+			return upper - lower >= MAX_ARRAY_SIZE;
+		}
+
+		@Override
+		void orInto(long words[]) {
+			long thisWords[] = this.words;
+			for(int i = 0; i < BITMAP_WORD_COUNT; i++) {
+				words[i] |= thisWords[i];
+			}
+		}
+
+		@Override
+		int getRunCount() {
+			return getRunCount(words);
+		}
+
+		static int getRunCount(long words[]) {
+			// count the set bits whose preceding bit is not set
+			int runs = 0;
+			long previousWord = 0;
+			for(int i = 0; i < BITMAP_WORD_COUNT; i++) {
+				long word = words[i];
+				runs += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+				previousWord = word;
+			}
+			return runs;
+		}
+
+		@Override
+		Container optimize() {
+			return best(words, cardinality);
+		}
+
+		@Override
+		long[] toWords() {
+			return words.clone();
+		}
+
+		@Override
+		boolean equalValues(Container other) {
+			if(other instanceof BitmapContainer) {
+				return cardinality == other.getCardinality() && Arrays.equals(words, ((BitmapContainer) other).words);
+			}
+			return super.equalValues(other);
+		}
+
+		@Override
+		public BitmapContainer clone() {
+			return new BitmapContainer(words.clone(), cardinality);
+		}
+	}
+
+	/**
+	 * A container holding a sorted array of runs of consecutive values, each run being a start value followed by an end value.
+	 */
+	static final class RunContainer extends Container {
+
+		private static final long serialVersionUID = 1L;
+
+		char runs[];
+		int runCount;
+		int cardinality;
+
+		RunContainer(char runs[], int runCount, int cardinality) {
+			this.runs = runs;
+			this.runCount = runCount;
+			this.cardinality = cardinality;
+		}
+
+		RunContainer(int lower, int upper) {
+			this(new char[] {(char) lower, (char) upper}, 1, upper - lower + 1);
+		}
+
+		static RunContainer fromWords(long words[], int runCount, int cardinality) {
+			char runs[] = new char[runCount << 1];
+			BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+			for(int value = bitmap.first(), j = 0; value >= 0; ) {
+				int end = bitmap.rangeEnd(value);
+				runs[j++] = (char) value;
+				runs[j++] = (char) end;
+				value = end == MAX_CONTAINER_VALUE ? -1 : bitmap.ceiling(end + 1);
+			}
+			return new RunContainer(runs, runCount, cardinality);
+		}
+
+		@Override
+		int getCardinality() {
+			return cardinality;
+		}
+
+		// returns the index of the run containing the value, otherwise -(index of the first run following the value) - 1
+		private int search(int value) {
+			int low = 0, high = runCount - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				if(runs[mid << 1] <= value) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			// high is now the last run starting at or below the value
+			if(high >= 0 && runs[(high << 1) + 1] >= value) {
+				return high;
+			}
+			return -(high + 2);
+		}
+
+		// the index of the first run ending at or above the given value
+		private int firstEndingAtOrAbove(int value) {
+			int low = 0, high = runCount - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				if(runs[(mid << 1) + 1] < value) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		// the index of the last run starting at or below the given value
+		private int lastStartingAtOrBelow(int value) {
+			int low = 0, high = runCount - 1;
+			while(low <= high) {
+				int mid = (low + high) >>> 1;
+				if(runs[mid << 1] <= value) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return high;
+		}
+
+		@Override
+		boolean contains(int value) {
+			return search(value) >= 0;
+		}
+
+		@Override
+		boolean containsRange(int lower, int upper) {
+			int index = search(lower);
+			return index >= 0 && runs[(index << 1) + 1] >= upper;
+		}
+
+		@Override
+		int ceiling(int value) {
+			int index = search(value);
+			if(index >= 0) {
+				return value;
+			}
+			index = -(index + 1);
+			return index < runCount ? runs[index << 1] : -1;
+		}
+
+		@Override
+		int floor(int value) {
+			int index = search(value);
+			if(index >= 0) {
+				return value;
+			}
+			index = -(index + 1);
+			return index > 0 ? runs[((index - 1) << 1) + 1] : -1;
+		}
+
+		@Override
+		int rangeEnd(int value) {
+			return runs[(search(value) << 1) + 1];
+		}
+
+		@Override
+		Container add(int value) {
+			return add(value, value);
+		}
+
+		@Override
+		Container add(int lower, int upper) {
+			// the runs from first to last inclusive overlap or adjoin the range and are merged with it
+			int first = firstEndingAtOrAbove(lower - 1);
+			int last = lastStartingAtOrBelow(upper + 1);
+			int newStart = lower, newEnd = upper;
+			int mergedCount = upper - lower + 1;
+			if(first <= last) {
+				newStart = Math.min(lower, runs[first << 1]);
+				newEnd = Math.max(upper, runs[(last << 1) + 1]);
+				mergedCount = newEnd - newStart + 1;
+				for(int i = first; i <= last; i++) {
+					mergedCount -= runs[(i << 1) + 1] - runs[i << 1] + 1;
+				}
+				if(mergedCount == 0) {
+					return this;
+				}
+			}
+			replaceRuns(first, last + 1, newStart, newEnd, -1, -1);
+			cardinality += mergedCount;
+			return fit();
+		}
+
+		@Override
+		Container remove(int lower, int upper) {
+			// the runs from first to last inclusive overlap the range
+			int first = firstEndingAtOrAbove(lower);
+			int last = lastStartingAtOrBelow(upper);
+			if(first > last) {
+				return this;
+			}
+			int removedCount = 0;
+			for(int i = first; i <= last; i++) {
+				removedCount += runs[(i << 1) + 1] - runs[i << 1] + 1;
+			}
+			int firstStart = runs[first << 1], lastEnd = runs[(last << 1) + 1];
+			int lowerStart = -1, lowerEnd = -1, upperStart = -1, upperEnd = -1;
+			if(firstStart < lower) {
+				lowerStart = firstStart;
+				lowerEnd = lower - 1;
+				removedCount -= lowerEnd - lowerStart + 1;
+			}
+			if(lastEnd > upper) {
+				upperStart = upper + 1;
+				upperEnd = lastEnd;
+				removedCount -= upperEnd - upperStart + 1;
+			}
+			if(lowerStart < 0) {
+				replaceRuns(first, last + 1, upperStart, upperEnd, -1, -1);
+			} else {
+				replaceRuns(first, last + 1, lowerStart, lowerEnd, upperStart, upperEnd);
+			}
+			cardinality -= removedCount;
+			return fit();
+		}
+
+		// replaces the runs from index start to end exclusive with up to two runs, with a negative start value indicating no run
+		private void replaceRuns(int start, int end, int start1, int end1, int start2, int end2) {
+			int newRunCount = start1 < 0 ? 0 : (start2 < 0 ? 1 : 2);
+			int runDelta = newRunCount - (end - start);
+			int totalRuns = runCount + runDelta;
+			if(totalRuns << 1 > runs.length) {
+				runs = Arrays.copyOf(runs, Math.max(4, totalRuns + (totalRuns >> 1)) << 1);
+			}
+			System.arraycopy(runs, end << 1, runs, (start + newRunCount) << 1, (runCount - end) << 1);
+			if(newRunCount > 0) {
+				runs[start << 1] = (char) start1;
+				runs[(start << 1) + 1] = (char) end1;
+				if(newRunCount > 1) {
+					runs[(start << 1) + 2] = (char) start2;
+					runs[(start << 1) + 3] = (char) end2;
+				}
+			}
+			runCount = totalRuns;
+		}
+
+		// switches to another form if the runs have become less compact than the alternatives
+		private Container fit() {
+			if(cardinality > 0 && !isRunsSmaller(runCount, cardinality)) {
+				if(cardinality <= MAX_ARRAY_SIZE) {
+					char values[] = new char[cardinality];
+					for(int i = 0, j = 0; i < runCount; i++) {
+						for(int value = runs[i << 1], end = runs[(i << 1) + 1]; value <= end; value++) {
+							values[j++] = (char) value;
+						}
+					}
+					return new ArrayContainer(values, cardinality);
+				}
+				return new BitmapContainer(toWords(), cardinality);
+			}
+			return this;
+		}
+
+		@Override
+		void orInto(long words[]) {
+			for(int i = 0; i < runCount; i++) {
+				setRange(words, runs[i << 1], runs[(i << 1) + 1]);
+			}
+		}
+
+		@Override
+		int getRunCount() {
+			return runCount;
+		}
+
+		@Override
+		Container optimize() {
+			Container result = fit();
+			if(result == this && runs.length > (runCount + 2) << 1) {
+				runs = Arrays.copyOf(runs, runCount << 1);
+			}
+			return result;
+		}
+
+		// combines the runs of two run containers with the given operation, by visiting the boundaries of the runs in order
+		static Container combine(RunContainer one, RunContainer two, int op) {
+			char runs1[] = one.runs, runs2[] = two.runs;
+			int boundaryCount1 = one.runCount << 1, boundaryCount2 = two.runCount << 1;
+			char result[] = new char[boundaryCount1 + boundaryCount2];
+			int resultCount = 0, cardinality = 0;
+			boolean inResult = false;
+			int start = 0;
+			for(int i = 0, j = 0; i < boundaryCount1 || j < boundaryCount2; ) {
+				// even indices are run starts, odd indices are run ends, with the boundary following the end
+				int boundary1 = i < boundaryCount1 ? runs1[i] + (i & 1) : Integer.MAX_VALUE;
+				int boundary2 = j < boundaryCount2 ? runs2[j] + (j & 1) : Integer.MAX_VALUE;
+				int boundary = Math.min(boundary1, boundary2);
+				if(boundary1 == boundary) {
+					i++;
+				}
+				if(boundary2 == boundary) {
+					j++;
+				}
+				boolean inOne = (i & 1) != 0, inTwo = (j & 1) != 0;
+				boolean newInResult = op == OR ? inOne || inTwo : (op == AND ? inOne && inTwo : inOne && !inTwo);
+				if(newInResult != inResult) {
+					if(newInResult) {
+						start = boundary;
+					} else {
+						result[resultCount++] = (char) start;
+						result[resultCount++] = (char) (boundary - 1);
+						cardinality += boundary - start;
+					}
+					inResult = newInResult;
+				}
+			}
+			return new RunContainer(result, resultCount >> 1, cardinality).optimize();
+		}
+
+		@Override
+		boolean equalValues(Container other) {
+			if(other instanceof RunContainer) {
+				RunContainer otherRuns = (RunContainer) other;
+				return runCount == otherRuns.runCount && equalPrefixes(runs, otherRuns.runs, runCount << 1);
+			}
+			return super.equalValues(other);
+		}
+
+		@Override
+		public RunContainer clone() {
+			return new RunContainer(Arrays.copyOf(runs, runCount << 1), runCount, cardinality);
+		}
+	}
+
+	// whether runs take less memory than both an array and a bitmap
+	static boolean isRunsSmaller(int runCount, int cardinality) {
+		// each run takes 4 bytes, each array value 2 bytes, and a bitmap 8192 bytes
+		return runCount << 1 < Math.min(cardinality, MAX_ARRAY_SIZE);
+	}
+
+	// returns the most compact container for the values of the given bitmap
+	static Container best(long words[], int cardinality) {
+		int runs = BitmapContainer.getRunCount(words);
+		if(isRunsSmaller(runs, cardinality)) {
+			return RunContainer.fromWords(words, runs, cardinality);
+		} else if(cardinality <= MAX_ARRAY_SIZE) {
+			return ArrayContainer.fromWords(words, cardinality);
+		}
+		return new BitmapContainer(words, cardinality);
+	}
+
+	// sets the bits from lower to upper inclusive, returning the number of bits that were not already set
+	static int setRange(long words[], int lower, int upper) {
+		int firstWord = lower >>> 6, lastWord = upper >>> 6;
+		int added = 0;
+		for(int i = firstWord; i <= lastWord; i++) {
+			long mask = -1L;
+			if(i == firstWord) {
+				mask &= -1L << lower;
+			}
+			if(i == lastWord) {
+				mask &= -1L >>> (63 - (upper & 63));
+			}
+			long word = words[i];
+			added += Long.bitCount(mask & ~word);
+			words[i] = word | mask;
+		}
+		return added;
+	}
+
+	// clears the bits from lower to upper inclusive, returning the number of bits that were set
+	static int clearRange(long words[], int lower, int upper) {
+		int firstWord = lower >>> 6, lastWord = upper >>> 6;
+		int removed = 0;
+		for(int i = firstWord; i <= lastWord; i++) {
+			long mask = -1L;
+			if(i == firstWord) {
+				mask &= -1L << lower;
+			}
+			if(i == lastWord) {
+				mask &= -1L >>> (63 - (upper & 63));
+			}
+			long word = words[i];
+			removed += Long.bitCount(mask & word);
+			words[i] = word & ~mask;
+		}
+		return removed;
+	}
+
+	static Container combine(Container one, Container two, int op) {
+		if(one instanceof RunContainer && two instanceof RunContainer) {
+			return RunContainer.combine((RunContainer) one, (RunContainer) two, op);
+		}
+		if(op == OR) {
+			if(one instanceof ArrayContainer && two instanceof ArrayContainer &&
+					one.getCardinality() + two.getCardinality() <= MAX_ARRAY_SIZE) {
+				return ArrayContainer.or((ArrayContainer) one, (ArrayContainer) two);
+			}
+			long words[] = one.toWords();
+			two.orInto(words);
+			return best(words, bitCount(words));
+		} else if(one instanceof ArrayContainer) {
+			return ((ArrayContainer) one).filter(two, op == AND);
+		} else if(op == AND && two instanceof ArrayContainer) {
+			return ((ArrayContainer) two).filter(one, true);
+		}
+		long words[] = one.toWords(), otherWords[] = two.toWords();
+		for(int i = 0; i < BITMAP_WORD_COUNT; i++) {
+			words[i] &= op == AND ? otherWords[i] : ~otherWords[i];
+		}
+		return best(words, bitCount(words));
+	}
+
+	// whether the first length elements of the arrays are equal
+	static boolean equalPrefixes(char one[], char two[], int length) {
+		for(int i = 0; i < length; i++) {
+			if(one[i] != two[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int bitCount(long words[]) {
+		int count = 0;
+		for(int i = 0; i < BITMAP_WORD_COUNT; i++) {
+			count += Long.bitCount(words[i]);
+		}
+		return count;
+	}
+
+	private static long toValue(int key, int value) {
+		return ((long) key << 16) | value;
+	}
+
+	private static IPv4Address toAddress(long value) {
+		return new IPv4Address((int) value);
+	}
+
+	private static IPv4AddressSeqRange toRange(long lower, long upper) {
+		return new IPv4AddressSeqRange(toAddress(lower), toAddress(upper));
+	}
+
+	// returns the index of the container with the given key, otherwise -(insertion index) - 1
+	private int search(int key) {
+		int low = 0, high = size - 1;
+		char keys[] = this.keys;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int midKey = keys[mid];
+			if(midKey < key) {
+				low = mid + 1;
+			} else if(midKey > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	// the index of the first container with a key not less than the given key
+	private int lowerBound(int key) {
+		int index = search(key);
+		return index < 0 ? -(index + 1) : index;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(keys.length < capacity) {
+			int newCapacity = Math.max(capacity, keys.length + (keys.length >> 1));
+			keys = Arrays.copyOf(keys, newCapacity);
+			containers = Arrays.copyOf(containers, newCapacity);
+		}
+	}
+
+	private void insertContainer(int index, int key, Container container) {
+		ensureCapacity(size + 1);
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = (char) key;
+		containers[index] = container;
+		size++;
+	}
+
+	private boolean addValue(int value) {
+		int key = value >>> 16;
+		int index = search(key);
+		if(index >= 0) {
+			Container container = containers[index];
+			int oldCardinality = container.getCardinality();
+			container = containers[index] = container.add(value & MAX_CONTAINER_VALUE);
+			if(container.getCardinality() == oldCardinality) {
+				return false;
+			}
+			count++;
+		} else {
+			insertContainer(-(index + 1), key, new ArrayContainer(value & MAX_CONTAINER_VALUE));
+			count++;
+		}
+		changeTracker.changed();
+		return true;
+	}
+
+	// adds the unsigned values from lower to upper inclusive
+	private boolean addRange(int lower, int upper) {
+		if(lower == upper) {
+			return addValue(lower);
+		}
+		int lowKey = lower >>> 16, highKey = upper >>> 16;
+		if(lowKey == highKey) {
+			int index = search(lowKey);
+			if(index < 0) {
+				insertContainer(-(index + 1), lowKey, new RunContainer(lower & MAX_CONTAINER_VALUE, upper & MAX_CONTAINER_VALUE));
+				count += upper - lower + 1;
+				changeTracker.changed();
+				return true;
+			}
+			Container container = containers[index];
+			int oldCardinality = container.getCardinality();
+			container = containers[index] = container.add(lower & MAX_CONTAINER_VALUE, upper & MAX_CONTAINER_VALUE);
+			int added = container.getCardinality() - oldCardinality;
+			if(added == 0) {
+				return false;
+			}
+			count += added;
+			changeTracker.changed();
+			return true;
+		}
+		int from = lowerBound(lowKey), to = lowerBound(highKey + 1);
+		int span = highKey - lowKey + 1, existing = to - from;
+		char existingKeys[] = Arrays.copyOfRange(keys, from, to);
+		Container existingContainers[] = Arrays.copyOfRange(containers, from, to);
+		if(span != existing) {
+			// make room for the new containers, shifting the following containers just once
+			ensureCapacity(size + span - existing);
+			System.arraycopy(keys, to, keys, from + span, size - to);
+			System.arraycopy(containers, to, containers, from + span, size - to);
+			size += span - existing;
+		}
+		long oldCount = count;
+		for(int i = 0, e = 0; i < span; i++) {
+			int key = lowKey + i;
+			int low = i == 0 ? lower & MAX_CONTAINER_VALUE : 0;
+			int high = i == span - 1 ? upper & MAX_CONTAINER_VALUE : MAX_CONTAINER_VALUE;
+			Container container;
+			if(e < existing && existingKeys[e] == key) {
+				container = existingContainers[e++];
+				int oldCardinality = container.getCardinality();
+				container = container.add(low, high);
+				count += container.getCardinality() - oldCardinality;
+			} else {
+				container = low == high ? new ArrayContainer(low) : new RunContainer(low, high);
+				count += high - low + 1;
+			}
+			keys[from + i] = (char) key;
+			containers[from + i] = container;
+		}
+		if(count != oldCount) {
+			changeTracker.changed();
+			return true;
+		}
+		return false;
+	}
+
+	// removes the unsigned values from lower to upper inclusive
+	private boolean removeRange(int lower, int upper) {
+		int lowKey = lower >>> 16, highKey = upper >>> 16;
+		int from = lowerBound(lowKey), to = lowerBound(highKey + 1);
+		long oldCount = count;
+		int dest = from;
+		for(int i = from; i < to; i++) {
+			int key = keys[i];
+			int low = key == lowKey ? lower & MAX_CONTAINER_VALUE : 0;
+			int high = key == highKey ? upper & MAX_CONTAINER_VALUE : MAX_CONTAINER_VALUE;
+			Container container = containers[i];
+			int oldCardinality = container.getCardinality();
+			if(low == 0 && high == MAX_CONTAINER_VALUE) {
+				container = null;
+				count -= oldCardinality;
+			} else {
+				container = container.remove(low, high);
+				int newCardinality = container.getCardinality();
+				count -= oldCardinality - newCardinality;
+				if(newCardinality == 0) {
+					container = null;
+				}
+			}
+			if(container != null) {
+				keys[dest] = (char) key;
+				containers[dest++] = container;
+			}
+		}
+		if(dest < to) {
+			System.arraycopy(keys, to, keys, dest, size - to);
+			System.arraycopy(containers, to, containers, dest, size - to);
+			int newSize = size - (to - dest);
+			Arrays.fill(containers, newSize, size, null);
+			size = newSize;
+		}
+		if(count != oldCount) {
+			changeTracker.changed();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean containsValue(int value) {
+		int index = search(value >>> 16);
+		return index >= 0 && containers[index].contains(value & MAX_CONTAINER_VALUE);
+	}
+
+	// whether all the unsigned values from lower to upper inclusive are in the set
+	private boolean containsRange(int lower, int upper) {
+		int lowKey = lower >>> 16, highKey = upper >>> 16;
+		int index = search(lowKey);
+		if(index < 0) {
+			return false;
+		} else if(lowKey == highKey) {
+			return containers[index].containsRange(lower & MAX_CONTAINER_VALUE, upper & MAX_CONTAINER_VALUE);
+		}
+		// the keys are distinct and increasing, so the range keys are all present if the last is where it would be
+		int lastIndex = index + highKey - lowKey;
+		if(lastIndex >= size || keys[lastIndex] != highKey ||
+				!containers[index].containsRange(lower & MAX_CONTAINER_VALUE, MAX_CONTAINER_VALUE) ||
+				!containers[lastIndex].containsRange(0, upper & MAX_CONTAINER_VALUE)) {
+			return false;
+		}
+		for(int i = index + 1; i < lastIndex; i++) {
+			if(containers[i].getCardinality() != CONTAINER_SIZE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// whether any of the unsigned values from lower to upper inclusive are in the set
+	private boolean overlapsRange(int lower, int upper) {
+		long ceiling = ceilingValue(lower);
+		return ceiling >= 0 && ceiling <= Integer.toUnsignedLong(upper);
+	}
+
+	// the lowest value in the set not less than the given unsigned value, or -1 if there is none
+	private long ceilingValue(int value) {
+		int key = value >>> 16;
+		int index = search(key);
+		if(index >= 0) {
+			int result = containers[index].ceiling(value & MAX_CONTAINER_VALUE);
+			if(result >= 0) {
+				return toValue(key, result);
+			}
+			index++;
+		} else {
+			index = -(index + 1);
+		}
+		if(index < size) {
+			return toValue(keys[index], containers[index].first());
+		}
+		return -1;
+	}
+
+	// the highest value in the set not greater than the given unsigned value, or -1 if there is none
+	private long floorValue(int value) {
+		int key = value >>> 16;
+		int index = search(key);
+		if(index >= 0) {
+			int result = containers[index].floor(value & MAX_CONTAINER_VALUE);
+			if(result >= 0) {
+				return toValue(key, result);
+			}
+			index--;
+		} else {
+			index = -(index + 1) - 1;
+		}
+		if(index >= 0) {
+			return toValue(keys[index], containers[index].last());
+		}
+		return -1;
+	}
+
+	// for a value in the set, the highest value for which all the values from the given value to that value are in the set
+	private long rangeEndValue(long value) {
+		int key = (int) (value >>> 16);
+		int index = search(key);
+		int end = containers[index].rangeEnd((int) value & MAX_CONTAINER_VALUE);
+		while(end == MAX_CONTAINER_VALUE && index + 1 < size && keys[index + 1] == key + 1 && containers[index + 1].contains(0)) {
+			index++;
+			key++;
+			end = containers[index].rangeEnd(0);
+		}
+		return toValue(key, end);
+	}
+
+	/**
+	 * Adds all the addresses in the given subnet, or the single individual address, to the collection.
+	 * Returns true if the collection was changed.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public boolean add(IPv4Address addr) {
+		if(addr.isSequential()) {
+			return addRange(addr.intValue(), addr.upperIntValue());
+		}
+		boolean changed = false;
+		Iterator<IPv4Address> iterator = addr.sequentialBlockIterator();
+		while(iterator.hasNext()) {
+			IPv4Address next = iterator.next();
+			changed |= addRange(next.intValue(), next.upperIntValue());
+		}
+		return changed;
+	}
+
+	/**
+	 * Adds all the addresses in the sequential range to the collection.
+	 * Returns true if the collection was changed.
+	 *
+	 * @param rng
+	 * @return
+	 */
+	@Override
+	public boolean add(IPv4AddressSeqRange rng) {
+		return addRange(rng.getLower().intValue(), rng.getUpper().intValue());
+	}
+
+	/**
+	 * Adds all the addresses in the given collection, which must contain IPv4 addresses if not empty.
+	 * Returns true if the collection was changed.
+	 *
+	 * @param collection
+	 * @return
+	 * @throws AddressConversionException if the collection contains IPv6 addresses
+	 */
+	public boolean addAll(IPAddressCollection<?, ?> collection) throws AddressConversionException {
+		if(collection instanceof IPv4AddressBitmapSet) {
+			IPv4AddressBitmapSet result = combine(this, (IPv4AddressBitmapSet) collection, OR);
+			if(result.count != count) {
+				keys = result.keys;
+				containers = result.containers;
+				size = result.size;
+				count = result.count;
+				changeTracker.changed();
+				return true;
+			}
+			return false;
+		}
+		long oldCount = count;
+		Appender appender = new Appender();
+		if(collection instanceof IPAddressSeqRangeList) {
+			Iterator<? extends IPAddressSeqRange> iterator = ((IPAddressSeqRangeList) collection).seqRangeIterator();
+			while(iterator.hasNext()) {
+				IPAddressSeqRange rng = iterator.next();
+				if(!rng.isIPv4()) {
+					throw new AddressConversionException(rng);
+				}
+				appender.append(rng.getLower().toIPv4().intValue(), rng.getUpper().toIPv4().intValue());
+			}
+		} else {
+			Iterator<? extends IPAddress> iterator = collection instanceof IPAddressContainmentTrieBase ?
+					((IPAddressContainmentTrieBase<?, ?>) collection).prefixBlockIterator() : collection.iterator();
+			while(iterator.hasNext()) {
+				IPAddress addr = iterator.next();
+				if(!addr.isIPv4()) {
+					throw new AddressConversionException(addr);
+				}
+				IPv4Address ipv4Addr = addr.toIPv4();
+				appender.append(ipv4Addr.intValue(), ipv4Addr.upperIntValue());
+			}
+		}
+		appender.flush();
+		if(count != oldCount) {
+			changeTracker.changed();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Appender adds ranges to the set, accumulating the values for each container in a bitmap,
+	 * and choosing the form of the container once the values for the container have been accumulated.
+	 * When the ranges are in increasing order, as they are when taken from another collection, each container is formed just once.
+	 */
+	private class Appender {
+
+		private long words[];
+		private int currentKey = -1;
+
+		void append(int lower, int upper) {
+			int lowKey = lower >>> 16, highKey = upper >>> 16;
+			for(int key = lowKey; ; key++) {
+				if(key != currentKey) {
+					flush();
+					currentKey = key;
+					words = new long[BITMAP_WORD_COUNT];
+				}
+				setRange(words,
+						key == lowKey ? lower & MAX_CONTAINER_VALUE : 0,
+						key == highKey ? upper & MAX_CONTAINER_VALUE : MAX_CONTAINER_VALUE);
+				if(key == highKey) {
+					break;
+				}
+			}
+		}
+
+		void flush() {
+			if(currentKey < 0) {
+				return;
+			}
+			Container container = best(words, bitCount(words));
+			if(size == 0 || currentKey > keys[size - 1]) {
+				insertContainer(size, currentKey, container);
+				count += container.getCardinality();
+			} else {
+				int index = search(currentKey);
+				if(index >= 0) {
+					Container existing = containers[index];
+					int oldCardinality = existing.getCardinality();
+					container = containers[index] = combine(existing, container, OR);
+					count += container.getCardinality() - oldCardinality;
+				} else {
+					insertContainer(-(index + 1), currentKey, container);
+					count += container.getCardinality();
+				}
+			}
+			currentKey = -1;
+		}
+	}
+
+	/**
+	 * Removes all the addresses in the given subnet, or the single individual address, from the collection.
+	 * Returns true if the collection was changed.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public boolean remove(IPv4Address addr) {
+		if(addr.isSequential()) {
+			return removeRange(addr.intValue(), addr.upperIntValue());
+		}
+		boolean changed = false;
+		Iterator<IPv4Address> iterator = addr.sequentialBlockIterator();
+		while(iterator.hasNext()) {
+			IPv4Address next = iterator.next();
+			changed |= removeRange(next.intValue(), next.upperIntValue());
+		}
+		return changed;
+	}
+
+	/**
+	 * Removes all the addresses in the sequential range from the collection.
+	 * Returns true if the collection was changed.
+	 *
+	 * @param rng
+	 * @return
+	 */
+	@Override
+	public boolean remove(IPv4AddressSeqRange rng) {
+		return removeRange(rng.getLower().intValue(), rng.getUpper().intValue());
+	}
+
+	/**
+	 * Removes all addresses from this collection.
+	 */
+	@Override
+	public void clear() {
+		if(size > 0) {
+			Arrays.fill(containers, 0, size, null);
+			size = 0;
+			count = 0;
+			changeTracker.changed();
+		}
+	}
+
+	/**
+	 * Converts each container to the most compact of the three container forms for the addresses it holds.
+	 * <p>
+	 * Containers are converted when ranges are added or removed, and when sets are combined,
+	 * but not necessarily when individual addresses are added or removed, so this method may reduce the memory used
+	 * after adding many individual addresses.
+	 */
+	public void optimize() {
+		for(int i = 0; i < size; i++) {
+			containers[i] = containers[i].optimize();
+		}
+	}
+
+	@Override
+	public boolean contains(IPv4Address addr) {
+		if(addr.isSequential()) {
+			return containsRange(addr.intValue(), addr.upperIntValue());
+		}
+		Iterator<IPv4Address> iterator = addr.sequentialBlockIterator();
+		while(iterator.hasNext()) {
+			IPv4Address next = iterator.next();
+			if(!containsRange(next.intValue(), next.upperIntValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(IPv4AddressSeqRange rng) {
+		return containsRange(rng.getLower().intValue(), rng.getUpper().intValue());
+	}
+
+	@Override
+	public boolean overlaps(IPv4Address addr) {
+		if(addr.isSequential()) {
+			return overlapsRange(addr.intValue(), addr.upperIntValue());
+		}
+		Iterator<IPv4Address> iterator = addr.sequentialBlockIterator();
+		while(iterator.hasNext()) {
+			IPv4Address next = iterator.next();
+			if(overlapsRange(next.intValue(), next.upperIntValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean overlaps(IPv4AddressSeqRange rng) {
+		return overlapsRange(rng.getLower().intValue(), rng.getUpper().intValue());
+	}
+
+	/**
+	 * Returns the highest address in the collection strictly less than all addresses in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public IPv4Address lower(IPv4Address addr) {
+		int value = addr.intValue();
+		if(value == 0) {
+			return null;
+		}
+		long result = floorValue(value - 1);
+		return result < 0 ? null : toAddress(result);
+	}
+
+	/**
+	 * Returns the highest address in the collection less than or equal to the lowest address in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public IPv4Address floor(IPv4Address addr) {
+		long result = floorValue(addr.intValue());
+		return result < 0 ? null : toAddress(result);
+	}
+
+	/**
+	 * Returns the lowest address in the collection greater than or equal to the highest address in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public IPv4Address ceiling(IPv4Address addr) {
+		long result = ceilingValue(addr.upperIntValue());
+		return result < 0 ? null : toAddress(result);
+	}
+
+	/**
+	 * Returns the lowest address in the collection strictly greater than all addresses in the given address or subnet.
+	 *
+	 * @param addr
+	 * @return
+	 */
+	@Override
+	public IPv4Address higher(IPv4Address addr) {
+		int value = addr.upperIntValue();
+		if(value == -1) {
+			return null;
+		}
+		long result = ceilingValue(value + 1);
+		return result < 0 ? null : toAddress(result);
+	}
+
+	@Override
+	public IPv4Address getLower() {
+		if(size == 0) {
+			return null;
+		}
+		return toAddress(toValue(keys[0], containers[0].first()));
+	}
+
+	@Override
+	public IPv4Address getUpper() {
+		if(size == 0) {
+			return null;
+		}
+		return toAddress(toValue(keys[size - 1], containers[size - 1].last()));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public BigInteger getCount() {
+		return BigInteger.valueOf(count);
+	}
+
+	@Override
+	public boolean isMultiple() {
+		return count > 1;
+	}
+
+	@Override
+	public boolean includesZero() {
+		return containsValue(0);
+	}
+
+	@Override
+	public boolean includesMax() {
+		return containsValue(-1);
+	}
+
+	@Override
+	public boolean isSequential() {
+		if(size == 0) {
+			return true;
+		}
+		return rangeEndValue(toValue(keys[0], containers[0].first())) == toValue(keys[size - 1], containers[size - 1].last());
+	}
+
+	@Override
+	public IPv4AddressSeqRange coverWithSequentialRange() {
+		IPv4Address lower = getLower();
+		if(lower == null) {
+			return null;
+		}
+		return lower.spanWithRange(getUpper());
+	}
+
+	@Override
+	public IPv4Address coverWithPrefixBlock() {
+		IPv4Address lower = getLower();
+		if(lower == null) {
+			return null;
+		}
+		return lower.coverWithPrefixBlock(getUpper());
+	}
+
+	/**
+	 * Returns the number of containers, which is the number of /16 blocks containing addresses of this set.
+	 *
+	 * @return
+	 */
+	public int getContainerCount() {
+		return size;
+	}
+
+	private abstract class RangeCursor {
+
+		final Change currentChange = changeTracker.getCurrent();
+
+		// the lower and upper values of the current range, and the lower value of the next range, or -1 if there is no next range
+		long rangeLower, rangeUpper, next = size == 0 ? -1 : toValue(keys[0], containers[0].first());
+
+		boolean hasNextRange() {
+			return next >= 0;
+		}
+
+		void nextRange() {
+			changeTracker.changedSince(currentChange);
+			if(next < 0) {
+				throw new NoSuchElementException();
+			}
+			rangeLower = next;
+			rangeUpper = rangeEndValue(next);
+			next = rangeUpper == MAX_VALUE ? -1 : ceilingValue((int) (rangeUpper + 1));
+		}
+	}
+
+	/**
+	 * Returns an iterator of the maximal sequential ranges of addresses in this set, in increasing order.
+	 * <p>
+	 * Ranges that cross the boundaries of /16 blocks are returned as single ranges.
+	 * This iterator does not support the remove operation.
+	 *
+	 * @return
+	 */
+	public Iterator<IPv4AddressSeqRange> seqRangeIterator() {
+		class SeqRangeIterator extends RangeCursor implements Iterator<IPv4AddressSeqRange> {
+
+			@Override
+			public boolean hasNext() {
+				return hasNextRange();
+			}
+
+			@Override
+			public IPv4AddressSeqRange next() {
+				nextRange();
+				return toRange(rangeLower, rangeUpper);
+			}
+		}
+		return new SeqRangeIterator();
+	}
+
+	/**
+	 * Iterates through the individual IP addresses in this collection, in increasing order.
+	 * This iterator does not support the remove operation.
+	 */
+	@Override
+	public Iterator<IPv4Address> iterator() {
+		class AddressIterator extends RangeCursor implements Iterator<IPv4Address> {
+
+			private long nextValue = 0, rangeEnd = -1;
+
+			@Override
+			public boolean hasNext() {
+				return nextValue <= rangeEnd || hasNextRange();
+			}
+
+			@Override
+			public IPv4Address next() {
+				if(nextValue > rangeEnd) {
+					nextRange();
+					nextValue = rangeLower;
+					rangeEnd = rangeUpper;
+				} else {
+					changeTracker.changedSince(currentChange);
+				}
+				return toAddress(nextValue++);
+			}
+		}
+		return new AddressIterator();
+	}
+
+	/**
+	 * Returns a spliterator of the individual addresses, which splits by batching the addresses of the iterator.
+	 */
+	@Override
+	public Spliterator<IPv4Address> spliterator() {
+		return Spliterators.spliterator(iterator(), count,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	@Override
+	public Stream<IPv4Address> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Returns an iterator of the minimal list of CIDR prefix blocks spanning the addresses of this set, in increasing order.
+	 * The blocks are the prefix blocks spanning each of the ranges of {@link #seqRangeIterator()}.
+	 * This iterator does not support the remove operation.
+	 *
+	 * @return
+	 */
+	public Iterator<IPv4Address> prefixBlockIterator() {
+		class PrefixBlockIterator extends RangeCursor implements Iterator<IPv4Address> {
+
+			private IPv4Address blocks[];
+			private int blockIndex;
+
+			@Override
+			public boolean hasNext() {
+				return (blocks != null && blockIndex < blocks.length) || hasNextRange();
+			}
+
+			@Override
+			public IPv4Address next() {
+				if(blocks == null || blockIndex == blocks.length) {
+					nextRange();
+					blocks = toRange(rangeLower, rangeUpper).spanWithPrefixBlocks();
+					blockIndex = 0;
+				} else {
+					changeTracker.changedSince(currentChange);
+				}
+				return blocks[blockIndex++];
+			}
+		}
+		return new PrefixBlockIterator();
+	}
+
+	/**
+	 * Returns the minimal list of CIDR prefix blocks spanning the addresses of this set, in increasing order.
+	 *
+	 * @return
+	 */
+	public IPv4Address[] spanWithPrefixBlocks() {
+		List<IPv4Address> result = new ArrayList<>();
+		Iterator<IPv4Address> iterator = prefixBlockIterator();
+		while(iterator.hasNext()) {
+			result.add(iterator.next());
+		}
+		return result.toArray(new IPv4Address[result.size()]);
+	}
+
+	/**
+	 * Returns a new sequential range list with the same addresses.
+	 *
+	 * @return
+	 */
+	public IPv4AddressSeqRangeList toSeqRangeList() {
+		IPv4AddressSeqRangeList list = new IPv4AddressSeqRangeList();
+		Iterator<IPv4AddressSeqRange> iterator = seqRangeIterator();
+		while(iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		return list;
+	}
+
+	// returns null if the given collection contains IPv6 addresses
+	private static IPv4AddressBitmapSet toBitmapSet(IPAddressCollection<?, ?> collection) {
+		if(collection instanceof IPv4AddressBitmapSet) {
+			return (IPv4AddressBitmapSet) collection;
+		}
+		IPAddress lower = collection.getLower();
+		if(lower != null && !lower.isIPv4()) {
+			return null;
+		}
+		return new IPv4AddressBitmapSet(collection);
+	}
+
+	private static IPv4AddressBitmapSet combine(IPv4AddressBitmapSet one, IPv4AddressBitmapSet two, int op) {
+		IPv4AddressBitmapSet result = new IPv4AddressBitmapSet();
+		int capacity = op == OR ? one.size + two.size : one.size;
+		result.keys = new char[Math.max(4, capacity)];
+		result.containers = new Container[result.keys.length];
+		int i = 0, j = 0;
+		while(i < one.size || (op == OR && j < two.size)) {
+			int key1 = i < one.size ? one.keys[i] : CONTAINER_SIZE;
+			int key2 = j < two.size ? two.keys[j] : CONTAINER_SIZE;
+			Container container;
+			int key;
+			if(key1 == key2) {
+				key = key1;
+				container = combine(one.containers[i++], two.containers[j++], op);
+			} else if(key1 < key2) {
+				key = key1;
+				container = op == AND ? null : one.containers[i].clone();
+				i++;
+			} else {
+				key = key2;
+				container = op == OR ? two.containers[j].clone() : null;
+				j++;
+			}
+			if(container != null && container.getCardinality() > 0) {
+				result.keys[result.size] = (char) key;
+				result.containers[result.size++] = container;
+				result.count += container.getCardinality();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new set with the addresses in either this set or the given collection, which must contain IPv4 addresses if not empty.
+	 * <p>
+	 * When the given collection is an IPv4AddressBitmapSet, the containers of the two sets are combined block by block.
+	 * Otherwise, the given collection is first converted to an IPv4AddressBitmapSet,
+	 * from the sequential ranges of a sequential range list, the prefix blocks of a containment trie, or the individual addresses of other collections.
+	 * <p>
+	 * Neither collection is modified.
+	 *
+	 * @param other
+	 * @return
+	 * @throws AddressConversionException if the collection contains IPv6 addresses
+	 */
+	public IPv4AddressBitmapSet union(IPAddressCollection<?, ?> other) throws AddressConversionException {
+		IPv4AddressBitmapSet otherSet = toBitmapSet(other);
+		if(otherSet == null) {
+			throw new AddressConversionException(other.getLower());
+		}
+		return combine(this, otherSet, OR);
+	}
+
+	/**
+	 * Returns a new set with the addresses in both this set and the given collection.
+	 * The result is empty if the given collection contains IPv6 addresses.
+	 * <p>
+	 * The given collection is converted as described by {@link #union(IPAddressCollection)}.
+	 * Neither collection is modified.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPv4AddressBitmapSet intersection(IPAddressCollection<?, ?> other) {
+		IPv4AddressBitmapSet otherSet = toBitmapSet(other);
+		if(otherSet == null) {
+			return new IPv4AddressBitmapSet();
+		}
+		return combine(this, otherSet, AND);
+	}
+
+	/**
+	 * Returns a new set with the addresses in this set that are not in the given collection.
+	 * The result has all the addresses of this set if the given collection contains IPv6 addresses.
+	 * <p>
+	 * The given collection is converted as described by {@link #union(IPAddressCollection)}.
+	 * Neither collection is modified.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public IPv4AddressBitmapSet difference(IPAddressCollection<?, ?> other) {
+		IPv4AddressBitmapSet otherSet = toBitmapSet(other);
+		if(otherSet == null) {
+			return clone();
+		}
+		return combine(this, otherSet, AND_NOT);
+	}
+
+	@Override
+	public IPv4AddressBitmapSet clone() {
+		try {
+			IPv4AddressBitmapSet cloned = (IPv4AddressBitmapSet) super.clone();
+			cloned.keys = keys.clone();
+			cloned.containers = new Container[containers.length];
+			for(int i = 0; i < size; i++) {
+				cloned.containers[i] = containers[i].clone();
+			}
+			cloned.changeTracker = new ChangeTracker();
+			return cloned;
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the given argument is an instance of IPAddressCollection containing the same addresses, regardless of the forms of the containers of the two sets.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if(other == this) {
+			return true;
+		} else if(other instanceof IPAddressCollection) {
+			IPv4AddressBitmapSet otherSet = toBitmapSet((IPAddressCollection<?, ?>) other);
+			if(otherSet == null || otherSet.size != size || otherSet.count != count) {
+				return false;
+			}
+			for(int i = 0; i < size; i++) {
+				if(keys[i] != otherSet.keys[i] || !containers[i].equalValues(otherSet.containers[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a hash code of the maximal sequential ranges of this set, which does not depend on the forms of the containers,
+	 * and which matches the hash code of an {@link IPAddressSeqRangeList} with the same addresses.
+	 */
+	@Override
+	public int hashCode() {
+		int result = 1;
+		Iterator<IPv4AddressSeqRange> iterator = seqRangeIterator();
+		while(iterator.hasNext()) {
+			result = 31 * result + iterator.next().hashCode();
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
+		Iterator<IPv4AddressSeqRange> iterator = seqRangeIterator();
+		if(iterator.hasNext()) {
+			builder.append(iterator.next());
+			while(iterator.hasNext()) {
+				builder.append(',').append(' ').append(iterator.next());
+			}
+		}
+		builder.append(']');
+		return builder.toString();
+	}
+}
@@ -33,6 +33,26 @@ public class IPv4AddressContainmentTrie extends IPAddressContainmentTrieBase<IPv
 	
 	private static final long serialVersionUID = 1L;
 
+	@Override
+	public IPv4AddressContainmentTrie union(IPAddressContainmentTrieBase<IPv4Address, IPv4AddressSeqRange> other) {
+		return (IPv4AddressContainmentTrie) super.union(other);
+	}
+
+	@Override
+	public IPv4AddressContainmentTrie intersection(IPAddressContainmentTrieBase<IPv4Address, IPv4AddressSeqRange> other) {
+		return (IPv4AddressContainmentTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv4AddressContainmentTrie difference(IPAddressContainmentTrieBase<IPv4Address, IPv4AddressSeqRange> other) {
+		return (IPv4AddressContainmentTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv4AddressContainmentTrie symmetricDifference(IPAddressContainmentTrieBase<IPv4Address, IPv4AddressSeqRange> other) {
+		return (IPv4AddressContainmentTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv4AddressContainmentTrie clone() {
 		return (IPv4AddressContainmentTrie) super.clone();
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.ipv4;
+
+import java.util.Iterator;
+import java.util.function.IntUnaryOperator;
+
+import inet.ipaddr.format.util.AddedTree;
+import inet.ipaddr.format.util.AddressTrie;
+import inet.ipaddr.format.util.BinaryTreeNode;
+import inet.ipaddr.format.util.IntValuedAddressTrie;
+
+/**
+ * An IPv4 address trie in which each added node is associated with an int value.
+ *
+ * See {@link IntValuedAddressTrie} for more details.
+ *
+ * @author scfoley
+ *
+ */
+public class IPv4AddressIntValuedTrie extends IntValuedAddressTrie<IPv4Address> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final IPv4Address INIT_ROOT = IPv4AddressTrie.INIT_ROOT;
+
+	public IPv4AddressIntValuedTrie() {
+		super(new IPv4IntValuedTrieNode());
+	}
+
+	protected IPv4AddressIntValuedTrie(AddressBounds<IPv4Address> bounds) {
+		super(new IPv4IntValuedTrieNode(), bounds);
+	}
+
+	protected IPv4AddressIntValuedTrie(IPv4IntValuedTrieNode root, AddressBounds<IPv4Address> bounds) {
+		super(root, bounds);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode getRoot() {
+		return (IPv4IntValuedTrieNode) super.getRoot();
+	}
+
+	@Override
+	protected IPv4IntValuedTrieNode absoluteRoot() {
+		return (IPv4IntValuedTrieNode) super.absoluteRoot();
+	}
+
+	@Override
+	protected IPv4AddressIntValuedTrie createNew(AddressBounds<IPv4Address> bounds) {
+		return new IPv4AddressIntValuedTrie(bounds);
+	}
+
+	@Override
+	protected IPv4AddressIntValuedTrie createSubTrie(AddressBounds<IPv4Address> bounds) {
+		return new IPv4AddressIntValuedTrie(absoluteRoot(), bounds);
+	}
+
+	public static class IPv4IntValuedTrieNode extends IntValuedTrieNode<IPv4Address> {
+
+		private static final long serialVersionUID = 1L;
+
+		protected IPv4IntValuedTrieNode(IPv4Address addr) {
+			super(addr);
+		}
+
+		public IPv4IntValuedTrieNode() { // root node
+			super(INIT_ROOT);
+		}
+
+		@Override
+		protected void replaceThisRoot(BinaryTreeNode<IPv4Address> replacement) {
+			super.replaceThisRoot(replacement);
+			if(!FREEZE_ROOT && replacement == null) {
+				setKey(INIT_ROOT);
+			}
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode getUpperSubNode() {
+			return (IPv4IntValuedTrieNode) super.getUpperSubNode();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode getLowerSubNode() {
+			return (IPv4IntValuedTrieNode) super.getLowerSubNode();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode getParent() {
+			return (IPv4IntValuedTrieNode) super.getParent();
+		}
+
+		@Override
+		protected IPv4IntValuedTrieNode createNewImpl(IPv4Address addr) {
+			return new IPv4IntValuedTrieNode(addr);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv4IntValuedTrieNode> nodeIterator(boolean forward) {
+			return (Iterator<IPv4IntValuedTrieNode>) super.nodeIterator(forward);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv4IntValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+			return (Iterator<IPv4IntValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode previousAddedNode() {
+			return (IPv4IntValuedTrieNode) super.previousAddedNode();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode nextAddedNode() {
+			return (IPv4IntValuedTrieNode) super.nextAddedNode();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode firstAddedNode() {
+			return (IPv4IntValuedTrieNode) super.firstAddedNode();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode lastAddedNode() {
+			return (IPv4IntValuedTrieNode) super.lastAddedNode();
+		}
+
+		@Override
+		protected IPv4AddressIntValuedTrie createNewTree() {
+			return new IPv4AddressIntValuedTrie();
+		}
+
+		@Override
+		public IPv4AddressIntValuedTrie asNewTrie() {
+			return (IPv4AddressIntValuedTrie) super.asNewTrie();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode cloneTree() {
+			return (IPv4IntValuedTrieNode) super.cloneTree();
+		}
+
+		@Override
+		public IPv4IntValuedTrieNode clone() {
+			return (IPv4IntValuedTrieNode) super.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IPv4AddressIntValuedTrie.IPv4IntValuedTrieNode && super.equals(o);
+		}
+
+		@Override
+		protected TrieKeyData getTrieKeyCache(IPv4Address addr) {
+			return addr.getTrieKeyCache();
+		}
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode addNode(IPv4Address addr) {
+		return (IPv4IntValuedTrieNode) super.addNode(addr);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode putNode(IPv4Address addr, int value) {
+		return (IPv4IntValuedTrieNode) super.putNode(addr, value);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode getAddedNode(IPv4Address addr) {
+		return (IPv4IntValuedTrieNode) super.getAddedNode(addr);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode getNode(IPv4Address addr) {
+		return (IPv4IntValuedTrieNode) super.getNode(addr);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode longestPrefixMatchNode(IPv4Address addr) {
+		return (IPv4IntValuedTrieNode) super.longestPrefixMatchNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv4IntValuedTrieNode> nodeIterator(boolean forward) {
+		return (Iterator<IPv4IntValuedTrieNode>) super.nodeIterator(forward);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv4IntValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return (Iterator<IPv4IntValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode firstAddedNode() {
+		return (IPv4IntValuedTrieNode) super.firstAddedNode();
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode lastAddedNode() {
+		return (IPv4IntValuedTrieNode) super.lastAddedNode();
+	}
+
+	@Override
+	public IPv4IntValuedTrieNode remap(IPv4Address addr, IntUnaryOperator remapper) {
+		return (IPv4IntValuedTrieNode) super.remap(addr, remapper);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof IPv4AddressIntValuedTrie && super.equals(o);
+	}
+
+	@Override
+	public IPv4AddressIntValuedTrie union(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressIntValuedTrie) super.union(other);
+	}
+
+	@Override
+	public IPv4AddressIntValuedTrie intersection(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressIntValuedTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv4AddressIntValuedTrie difference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressIntValuedTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv4AddressIntValuedTrie symmetricDifference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressIntValuedTrie) super.symmetricDifference(other);
+	}
+
+	@Override
+	public IPv4AddressIntValuedTrie clone() {
+		return (IPv4AddressIntValuedTrie) super.clone();
+	}
+
+	@Override
+	public AddedTree<IPv4Address> constructAddedNodesTree() {
+		IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>> trie = new IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>>();
+		contructAddedTree(trie);
+		return new AddedTree<IPv4Address>(trie);
+	}
+
+	@Override
+	public String toAddedNodesTreeString() {
+		IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>> trie = new IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>>();
+		contructAddedTree(trie);
+		return toAddedNodesTreeString(trie);
+	}
+}
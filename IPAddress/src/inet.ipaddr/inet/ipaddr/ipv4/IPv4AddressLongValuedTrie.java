@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.ipv4;
+
+import java.util.Iterator;
+import java.util.function.LongUnaryOperator;
+
+import inet.ipaddr.format.util.AddedTree;
+import inet.ipaddr.format.util.AddressTrie;
+import inet.ipaddr.format.util.BinaryTreeNode;
+import inet.ipaddr.format.util.LongValuedAddressTrie;
+
+/**
+ * An IPv4 address trie in which each added node is associated with a long value.
+ *
+ * See {@link LongValuedAddressTrie} for more details.
+ *
+ * @author scfoley
+ *
+ */
+public class IPv4AddressLongValuedTrie extends LongValuedAddressTrie<IPv4Address> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final IPv4Address INIT_ROOT = IPv4AddressTrie.INIT_ROOT;
+
+	public IPv4AddressLongValuedTrie() {
+		super(new IPv4LongValuedTrieNode());
+	}
+
+	protected IPv4AddressLongValuedTrie(AddressBounds<IPv4Address> bounds) {
+		super(new IPv4LongValuedTrieNode(), bounds);
+	}
+
+	protected IPv4AddressLongValuedTrie(IPv4LongValuedTrieNode root, AddressBounds<IPv4Address> bounds) {
+		super(root, bounds);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode getRoot() {
+		return (IPv4LongValuedTrieNode) super.getRoot();
+	}
+
+	@Override
+	protected IPv4LongValuedTrieNode absoluteRoot() {
+		return (IPv4LongValuedTrieNode) super.absoluteRoot();
+	}
+
+	@Override
+	protected IPv4AddressLongValuedTrie createNew(AddressBounds<IPv4Address> bounds) {
+		return new IPv4AddressLongValuedTrie(bounds);
+	}
+
+	@Override
+	protected IPv4AddressLongValuedTrie createSubTrie(AddressBounds<IPv4Address> bounds) {
+		return new IPv4AddressLongValuedTrie(absoluteRoot(), bounds);
+	}
+
+	public static class IPv4LongValuedTrieNode extends LongValuedTrieNode<IPv4Address> {
+
+		private static final long serialVersionUID = 1L;
+
+		protected IPv4LongValuedTrieNode(IPv4Address addr) {
+			super(addr);
+		}
+
+		public IPv4LongValuedTrieNode() { // root node
+			super(INIT_ROOT);
+		}
+
+		@Override
+		protected void replaceThisRoot(BinaryTreeNode<IPv4Address> replacement) {
+			super.replaceThisRoot(replacement);
+			if(!FREEZE_ROOT && replacement == null) {
+				setKey(INIT_ROOT);
+			}
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode getUpperSubNode() {
+			return (IPv4LongValuedTrieNode) super.getUpperSubNode();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode getLowerSubNode() {
+			return (IPv4LongValuedTrieNode) super.getLowerSubNode();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode getParent() {
+			return (IPv4LongValuedTrieNode) super.getParent();
+		}
+
+		@Override
+		protected IPv4LongValuedTrieNode createNewImpl(IPv4Address addr) {
+			return new IPv4LongValuedTrieNode(addr);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv4LongValuedTrieNode> nodeIterator(boolean forward) {
+			return (Iterator<IPv4LongValuedTrieNode>) super.nodeIterator(forward);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv4LongValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+			return (Iterator<IPv4LongValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode previousAddedNode() {
+			return (IPv4LongValuedTrieNode) super.previousAddedNode();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode nextAddedNode() {
+			return (IPv4LongValuedTrieNode) super.nextAddedNode();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode firstAddedNode() {
+			return (IPv4LongValuedTrieNode) super.firstAddedNode();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode lastAddedNode() {
+			return (IPv4LongValuedTrieNode) super.lastAddedNode();
+		}
+
+		@Override
+		protected IPv4AddressLongValuedTrie createNewTree() {
+			return new IPv4AddressLongValuedTrie();
+		}
+
+		@Override
+		public IPv4AddressLongValuedTrie asNewTrie() {
+			return (IPv4AddressLongValuedTrie) super.asNewTrie();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode cloneTree() {
+			return (IPv4LongValuedTrieNode) super.cloneTree();
+		}
+
+		@Override
+		public IPv4LongValuedTrieNode clone() {
+			return (IPv4LongValuedTrieNode) super.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IPv4AddressLongValuedTrie.IPv4LongValuedTrieNode && super.equals(o);
+		}
+
+		@Override
+		protected TrieKeyData getTrieKeyCache(IPv4Address addr) {
+			return addr.getTrieKeyCache();
+		}
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode addNode(IPv4Address addr) {
+		return (IPv4LongValuedTrieNode) super.addNode(addr);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode putNode(IPv4Address addr, long value) {
+		return (IPv4LongValuedTrieNode) super.putNode(addr, value);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode getAddedNode(IPv4Address addr) {
+		return (IPv4LongValuedTrieNode) super.getAddedNode(addr);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode getNode(IPv4Address addr) {
+		return (IPv4LongValuedTrieNode) super.getNode(addr);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode longestPrefixMatchNode(IPv4Address addr) {
+		return (IPv4LongValuedTrieNode) super.longestPrefixMatchNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv4LongValuedTrieNode> nodeIterator(boolean forward) {
+		return (Iterator<IPv4LongValuedTrieNode>) super.nodeIterator(forward);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv4LongValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return (Iterator<IPv4LongValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode firstAddedNode() {
+		return (IPv4LongValuedTrieNode) super.firstAddedNode();
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode lastAddedNode() {
+		return (IPv4LongValuedTrieNode) super.lastAddedNode();
+	}
+
+	@Override
+	public IPv4LongValuedTrieNode remap(IPv4Address addr, LongUnaryOperator remapper) {
+		return (IPv4LongValuedTrieNode) super.remap(addr, remapper);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof IPv4AddressLongValuedTrie && super.equals(o);
+	}
+
+	@Override
+	public IPv4AddressLongValuedTrie union(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressLongValuedTrie) super.union(other);
+	}
+
+	@Override
+	public IPv4AddressLongValuedTrie intersection(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressLongValuedTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv4AddressLongValuedTrie difference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressLongValuedTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv4AddressLongValuedTrie symmetricDifference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressLongValuedTrie) super.symmetricDifference(other);
+	}
+
+	@Override
+	public IPv4AddressLongValuedTrie clone() {
+		return (IPv4AddressLongValuedTrie) super.clone();
+	}
+
+	@Override
+	public AddedTree<IPv4Address> constructAddedNodesTree() {
+		IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>> trie = new IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>>();
+		contructAddedTree(trie);
+		return new AddedTree<IPv4Address>(trie);
+	}
+
+	@Override
+	public String toAddedNodesTreeString() {
+		IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>> trie = new IPv4AddressAssociativeTrie<SubNodesMappingBasic<IPv4Address>>();
+		contructAddedTree(trie);
+		return toAddedNodesTreeString(trie);
+	}
+}
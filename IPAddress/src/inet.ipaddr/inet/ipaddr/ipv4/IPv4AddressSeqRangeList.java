@@ -38,6 +38,48 @@ public class IPv4AddressSeqRangeList extends IPAddressSeqRangeList implements It
 		super(initialCapacity);
 	}
 
+	/**
+	 * A builder for IPv4 sequential range lists, see {@link IPAddressSeqRangeList.Builder}.
+	 *
+	 * @author scfoley
+	 *
+	 */
+	public static class Builder extends IPAddressSeqRangeList.Builder {
+
+		public Builder() {}
+
+		public Builder(int initialCapacity) {
+			super(initialCapacity);
+		}
+
+		@Override
+		public Builder add(IPAddress address) {
+			return (Builder) super.add(address);
+		}
+
+		@Override
+		public Builder add(IPAddressSeqRange seqRange) {
+			return (Builder) super.add(seqRange);
+		}
+
+		@Override
+		protected void checkVersion(IPAddress address) {
+			if(!address.isIPv4()) {
+				throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+		}
+
+		@Override
+		protected IPv4AddressSeqRangeList createList(int initialCapacity) {
+			return new IPv4AddressSeqRangeList(initialCapacity);
+		}
+
+		@Override
+		public IPv4AddressSeqRangeList toList() {
+			return (IPv4AddressSeqRangeList) super.toList();
+		}
+	}
+
 	/**
 	 * Returns the list of sequential ranges in order.
 	 * 
@@ -93,6 +135,42 @@ public class IPv4AddressSeqRangeList extends IPAddressSeqRangeList implements It
 		return result;
 	}
 
+	@Override
+	public IPv4AddressSeqRangeList parallelComplementIntoList() {
+		IPv4AddressNetwork network = isEmpty() ? IPv4Address.defaultIpv4Network() : getLowerSeqRange().getLower().getNetwork();
+		IPv4Address zero = network.getNetworkMask(0, false);
+		IPv4Address max = network.getNetworkMask(zero.getBitCount(), false);
+		IPv4AddressSeqRangeList result = new IPv4AddressSeqRangeList();
+		parallelComplement(result, zero, max);
+		return result;
+	}
+
+	@Override
+	public IPv4AddressSeqRangeList parallelRemoveIntoList(IPAddressSeqRangeList list) {
+		IPv4AddressSeqRangeList result = new IPv4AddressSeqRangeList();
+		super.parallelRemove(list, result);
+		return result;
+	}
+
+	@Override
+	public IPv4AddressSeqRangeList parallelIntersectIntoList(IPAddressSeqRangeList list) {
+		IPv4AddressSeqRangeList result = new IPv4AddressSeqRangeList();
+		super.parallelIntersect(list, result);
+		return result;
+	}
+
+	@Override
+	public IPv4AddressSeqRangeList parallelJoinIntoList(IPAddressSeqRangeList list) {
+		if(list.getSeqRangeCount() == 0) {
+			return clone();
+		} else if(!list.getSeqRange(0).isIPv4()) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		IPv4AddressSeqRangeList result = new IPv4AddressSeqRangeList();
+		super.parallelJoin(list, result);
+		return result;
+	}
+
 	@Override
 	public boolean add(IPAddress address) {
 		if(!address.isIPv4()) {
@@ -504,6 +504,26 @@ public class IPv4AddressTrie extends AddressTrie<IPv4Address> {
 		return (IPv4TrieNode) super.lastNode();
 	}
 
+	@Override
+	public IPv4AddressTrie union(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressTrie) super.union(other);
+	}
+
+	@Override
+	public IPv4AddressTrie intersection(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv4AddressTrie difference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv4AddressTrie symmetricDifference(AddressTrie<IPv4Address> other) {
+		return (IPv4AddressTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv4AddressTrie clone() {
 		return (IPv4AddressTrie) super.clone();
@@ -22,6 +22,7 @@ import java.util.Spliterator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import inet.ipaddr.format.util.AddressTrie;
 import inet.ipaddr.format.util.AssociativeAddedTree;
 import inet.ipaddr.format.util.AssociativeAddressTrie;
 import inet.ipaddr.format.util.BinaryTreeNode;
@@ -529,6 +530,26 @@ public class IPv6AddressAssociativeTrie<V> extends AssociativeAddressTrie<IPv6Ad
 		return o instanceof IPv6AddressAssociativeTrie && super.equals(o);
 	}
 	
+	@Override
+	public IPv6AddressAssociativeTrie<V> union(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressAssociativeTrie<V>) super.union(other);
+	}
+
+	@Override
+	public IPv6AddressAssociativeTrie<V> intersection(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressAssociativeTrie<V>) super.intersection(other);
+	}
+
+	@Override
+	public IPv6AddressAssociativeTrie<V> difference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressAssociativeTrie<V>) super.difference(other);
+	}
+
+	@Override
+	public IPv6AddressAssociativeTrie<V> symmetricDifference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressAssociativeTrie<V>) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv6AddressAssociativeTrie<V> clone() {
 		return (IPv6AddressAssociativeTrie<V>) super.clone();
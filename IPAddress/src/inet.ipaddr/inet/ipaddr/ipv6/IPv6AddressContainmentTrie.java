@@ -33,6 +33,26 @@ public class IPv6AddressContainmentTrie extends IPAddressContainmentTrieBase<IPv
 	
 	private static final long serialVersionUID = 1L;
 
+	@Override
+	public IPv6AddressContainmentTrie union(IPAddressContainmentTrieBase<IPv6Address, IPv6AddressSeqRange> other) {
+		return (IPv6AddressContainmentTrie) super.union(other);
+	}
+
+	@Override
+	public IPv6AddressContainmentTrie intersection(IPAddressContainmentTrieBase<IPv6Address, IPv6AddressSeqRange> other) {
+		return (IPv6AddressContainmentTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv6AddressContainmentTrie difference(IPAddressContainmentTrieBase<IPv6Address, IPv6AddressSeqRange> other) {
+		return (IPv6AddressContainmentTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv6AddressContainmentTrie symmetricDifference(IPAddressContainmentTrieBase<IPv6Address, IPv6AddressSeqRange> other) {
+		return (IPv6AddressContainmentTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv6AddressContainmentTrie clone() {
 		return (IPv6AddressContainmentTrie) super.clone();
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.ipv6;
+
+import java.util.Iterator;
+import java.util.function.IntUnaryOperator;
+
+import inet.ipaddr.format.util.AddedTree;
+import inet.ipaddr.format.util.AddressTrie;
+import inet.ipaddr.format.util.BinaryTreeNode;
+import inet.ipaddr.format.util.IntValuedAddressTrie;
+import inet.ipaddr.ipv6.IPv6AddressTrie.IPv6TrieNode.IPv6TrieKeyData;
+
+/**
+ * An IPv6 address trie in which each added node is associated with an int value.
+ *
+ * See {@link IntValuedAddressTrie} for more details.
+ *
+ * @author scfoley
+ *
+ */
+public class IPv6AddressIntValuedTrie extends IntValuedAddressTrie<IPv6Address> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final IPv6Address INIT_ROOT = IPv6AddressTrie.INIT_ROOT;
+
+	public IPv6AddressIntValuedTrie() {
+		super(new IPv6IntValuedTrieNode());
+	}
+
+	protected IPv6AddressIntValuedTrie(AddressBounds<IPv6Address> bounds) {
+		super(new IPv6IntValuedTrieNode(), bounds);
+	}
+
+	protected IPv6AddressIntValuedTrie(IPv6IntValuedTrieNode root, AddressBounds<IPv6Address> bounds) {
+		super(root, bounds);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode getRoot() {
+		return (IPv6IntValuedTrieNode) super.getRoot();
+	}
+
+	@Override
+	protected IPv6IntValuedTrieNode absoluteRoot() {
+		return (IPv6IntValuedTrieNode) super.absoluteRoot();
+	}
+
+	@Override
+	protected IPv6AddressIntValuedTrie createNew(AddressBounds<IPv6Address> bounds) {
+		return new IPv6AddressIntValuedTrie(bounds);
+	}
+
+	@Override
+	protected IPv6AddressIntValuedTrie createSubTrie(AddressBounds<IPv6Address> bounds) {
+		return new IPv6AddressIntValuedTrie(absoluteRoot(), bounds);
+	}
+
+	public static class IPv6IntValuedTrieNode extends IntValuedTrieNode<IPv6Address> {
+
+		private static final long serialVersionUID = 1L;
+
+		protected IPv6IntValuedTrieNode(IPv6Address addr) {
+			super(addr);
+		}
+
+		public IPv6IntValuedTrieNode() { // root node
+			super(INIT_ROOT);
+		}
+
+		@Override
+		protected void replaceThisRoot(BinaryTreeNode<IPv6Address> replacement) {
+			super.replaceThisRoot(replacement);
+			if(!FREEZE_ROOT && replacement == null) {
+				setKey(INIT_ROOT);
+			}
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode getUpperSubNode() {
+			return (IPv6IntValuedTrieNode) super.getUpperSubNode();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode getLowerSubNode() {
+			return (IPv6IntValuedTrieNode) super.getLowerSubNode();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode getParent() {
+			return (IPv6IntValuedTrieNode) super.getParent();
+		}
+
+		@Override
+		protected IPv6IntValuedTrieNode createNewImpl(IPv6Address addr) {
+			return new IPv6IntValuedTrieNode(addr);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv6IntValuedTrieNode> nodeIterator(boolean forward) {
+			return (Iterator<IPv6IntValuedTrieNode>) super.nodeIterator(forward);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv6IntValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+			return (Iterator<IPv6IntValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode previousAddedNode() {
+			return (IPv6IntValuedTrieNode) super.previousAddedNode();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode nextAddedNode() {
+			return (IPv6IntValuedTrieNode) super.nextAddedNode();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode firstAddedNode() {
+			return (IPv6IntValuedTrieNode) super.firstAddedNode();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode lastAddedNode() {
+			return (IPv6IntValuedTrieNode) super.lastAddedNode();
+		}
+
+		@Override
+		protected IPv6AddressIntValuedTrie createNewTree() {
+			return new IPv6AddressIntValuedTrie();
+		}
+
+		@Override
+		public IPv6AddressIntValuedTrie asNewTrie() {
+			return (IPv6AddressIntValuedTrie) super.asNewTrie();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode cloneTree() {
+			return (IPv6IntValuedTrieNode) super.cloneTree();
+		}
+
+		@Override
+		public IPv6IntValuedTrieNode clone() {
+			return (IPv6IntValuedTrieNode) super.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IPv6AddressIntValuedTrie.IPv6IntValuedTrieNode && super.equals(o);
+		}
+
+		@Override
+		protected IPv6TrieKeyData getTrieKeyCache(IPv6Address addr) {
+			return addr.getTrieKeyCache();
+		}
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode addNode(IPv6Address addr) {
+		return (IPv6IntValuedTrieNode) super.addNode(addr);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode putNode(IPv6Address addr, int value) {
+		return (IPv6IntValuedTrieNode) super.putNode(addr, value);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode getAddedNode(IPv6Address addr) {
+		return (IPv6IntValuedTrieNode) super.getAddedNode(addr);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode getNode(IPv6Address addr) {
+		return (IPv6IntValuedTrieNode) super.getNode(addr);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode longestPrefixMatchNode(IPv6Address addr) {
+		return (IPv6IntValuedTrieNode) super.longestPrefixMatchNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv6IntValuedTrieNode> nodeIterator(boolean forward) {
+		return (Iterator<IPv6IntValuedTrieNode>) super.nodeIterator(forward);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv6IntValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return (Iterator<IPv6IntValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode firstAddedNode() {
+		return (IPv6IntValuedTrieNode) super.firstAddedNode();
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode lastAddedNode() {
+		return (IPv6IntValuedTrieNode) super.lastAddedNode();
+	}
+
+	@Override
+	public IPv6IntValuedTrieNode remap(IPv6Address addr, IntUnaryOperator remapper) {
+		return (IPv6IntValuedTrieNode) super.remap(addr, remapper);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof IPv6AddressIntValuedTrie && super.equals(o);
+	}
+
+	@Override
+	public IPv6AddressIntValuedTrie union(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressIntValuedTrie) super.union(other);
+	}
+
+	@Override
+	public IPv6AddressIntValuedTrie intersection(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressIntValuedTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv6AddressIntValuedTrie difference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressIntValuedTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv6AddressIntValuedTrie symmetricDifference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressIntValuedTrie) super.symmetricDifference(other);
+	}
+
+	@Override
+	public IPv6AddressIntValuedTrie clone() {
+		return (IPv6AddressIntValuedTrie) super.clone();
+	}
+
+	@Override
+	public AddedTree<IPv6Address> constructAddedNodesTree() {
+		IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>> trie = new IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>>();
+		contructAddedTree(trie);
+		return new AddedTree<IPv6Address>(trie);
+	}
+
+	@Override
+	public String toAddedNodesTreeString() {
+		IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>> trie = new IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>>();
+		contructAddedTree(trie);
+		return toAddedNodesTreeString(trie);
+	}
+}
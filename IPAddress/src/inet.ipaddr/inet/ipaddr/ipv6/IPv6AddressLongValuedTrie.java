@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Sean C Foley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     or at
+ *     https://github.com/seancfoley/IPAddress/blob/master/LICENSE
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inet.ipaddr.ipv6;
+
+import java.util.Iterator;
+import java.util.function.LongUnaryOperator;
+
+import inet.ipaddr.format.util.AddedTree;
+import inet.ipaddr.format.util.AddressTrie;
+import inet.ipaddr.format.util.BinaryTreeNode;
+import inet.ipaddr.format.util.LongValuedAddressTrie;
+import inet.ipaddr.ipv6.IPv6AddressTrie.IPv6TrieNode.IPv6TrieKeyData;
+
+/**
+ * An IPv6 address trie in which each added node is associated with a long value.
+ *
+ * See {@link LongValuedAddressTrie} for more details.
+ *
+ * @author scfoley
+ *
+ */
+public class IPv6AddressLongValuedTrie extends LongValuedAddressTrie<IPv6Address> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final IPv6Address INIT_ROOT = IPv6AddressTrie.INIT_ROOT;
+
+	public IPv6AddressLongValuedTrie() {
+		super(new IPv6LongValuedTrieNode());
+	}
+
+	protected IPv6AddressLongValuedTrie(AddressBounds<IPv6Address> bounds) {
+		super(new IPv6LongValuedTrieNode(), bounds);
+	}
+
+	protected IPv6AddressLongValuedTrie(IPv6LongValuedTrieNode root, AddressBounds<IPv6Address> bounds) {
+		super(root, bounds);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode getRoot() {
+		return (IPv6LongValuedTrieNode) super.getRoot();
+	}
+
+	@Override
+	protected IPv6LongValuedTrieNode absoluteRoot() {
+		return (IPv6LongValuedTrieNode) super.absoluteRoot();
+	}
+
+	@Override
+	protected IPv6AddressLongValuedTrie createNew(AddressBounds<IPv6Address> bounds) {
+		return new IPv6AddressLongValuedTrie(bounds);
+	}
+
+	@Override
+	protected IPv6AddressLongValuedTrie createSubTrie(AddressBounds<IPv6Address> bounds) {
+		return new IPv6AddressLongValuedTrie(absoluteRoot(), bounds);
+	}
+
+	public static class IPv6LongValuedTrieNode extends LongValuedTrieNode<IPv6Address> {
+
+		private static final long serialVersionUID = 1L;
+
+		protected IPv6LongValuedTrieNode(IPv6Address addr) {
+			super(addr);
+		}
+
+		public IPv6LongValuedTrieNode() { // root node
+			super(INIT_ROOT);
+		}
+
+		@Override
+		protected void replaceThisRoot(BinaryTreeNode<IPv6Address> replacement) {
+			super.replaceThisRoot(replacement);
+			if(!FREEZE_ROOT && replacement == null) {
+				setKey(INIT_ROOT);
+			}
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode getUpperSubNode() {
+			return (IPv6LongValuedTrieNode) super.getUpperSubNode();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode getLowerSubNode() {
+			return (IPv6LongValuedTrieNode) super.getLowerSubNode();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode getParent() {
+			return (IPv6LongValuedTrieNode) super.getParent();
+		}
+
+		@Override
+		protected IPv6LongValuedTrieNode createNewImpl(IPv6Address addr) {
+			return new IPv6LongValuedTrieNode(addr);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv6LongValuedTrieNode> nodeIterator(boolean forward) {
+			return (Iterator<IPv6LongValuedTrieNode>) super.nodeIterator(forward);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Iterator<IPv6LongValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+			return (Iterator<IPv6LongValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode previousAddedNode() {
+			return (IPv6LongValuedTrieNode) super.previousAddedNode();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode nextAddedNode() {
+			return (IPv6LongValuedTrieNode) super.nextAddedNode();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode firstAddedNode() {
+			return (IPv6LongValuedTrieNode) super.firstAddedNode();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode lastAddedNode() {
+			return (IPv6LongValuedTrieNode) super.lastAddedNode();
+		}
+
+		@Override
+		protected IPv6AddressLongValuedTrie createNewTree() {
+			return new IPv6AddressLongValuedTrie();
+		}
+
+		@Override
+		public IPv6AddressLongValuedTrie asNewTrie() {
+			return (IPv6AddressLongValuedTrie) super.asNewTrie();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode cloneTree() {
+			return (IPv6LongValuedTrieNode) super.cloneTree();
+		}
+
+		@Override
+		public IPv6LongValuedTrieNode clone() {
+			return (IPv6LongValuedTrieNode) super.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IPv6AddressLongValuedTrie.IPv6LongValuedTrieNode && super.equals(o);
+		}
+
+		@Override
+		protected IPv6TrieKeyData getTrieKeyCache(IPv6Address addr) {
+			return addr.getTrieKeyCache();
+		}
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode addNode(IPv6Address addr) {
+		return (IPv6LongValuedTrieNode) super.addNode(addr);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode putNode(IPv6Address addr, long value) {
+		return (IPv6LongValuedTrieNode) super.putNode(addr, value);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode getAddedNode(IPv6Address addr) {
+		return (IPv6LongValuedTrieNode) super.getAddedNode(addr);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode getNode(IPv6Address addr) {
+		return (IPv6LongValuedTrieNode) super.getNode(addr);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode longestPrefixMatchNode(IPv6Address addr) {
+		return (IPv6LongValuedTrieNode) super.longestPrefixMatchNode(addr);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv6LongValuedTrieNode> nodeIterator(boolean forward) {
+		return (Iterator<IPv6LongValuedTrieNode>) super.nodeIterator(forward);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterator<IPv6LongValuedTrieNode> containingFirstIterator(boolean forwardSubNodeOrder) {
+		return (Iterator<IPv6LongValuedTrieNode>) super.containingFirstIterator(forwardSubNodeOrder);
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode firstAddedNode() {
+		return (IPv6LongValuedTrieNode) super.firstAddedNode();
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode lastAddedNode() {
+		return (IPv6LongValuedTrieNode) super.lastAddedNode();
+	}
+
+	@Override
+	public IPv6LongValuedTrieNode remap(IPv6Address addr, LongUnaryOperator remapper) {
+		return (IPv6LongValuedTrieNode) super.remap(addr, remapper);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof IPv6AddressLongValuedTrie && super.equals(o);
+	}
+
+	@Override
+	public IPv6AddressLongValuedTrie union(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressLongValuedTrie) super.union(other);
+	}
+
+	@Override
+	public IPv6AddressLongValuedTrie intersection(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressLongValuedTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv6AddressLongValuedTrie difference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressLongValuedTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv6AddressLongValuedTrie symmetricDifference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressLongValuedTrie) super.symmetricDifference(other);
+	}
+
+	@Override
+	public IPv6AddressLongValuedTrie clone() {
+		return (IPv6AddressLongValuedTrie) super.clone();
+	}
+
+	@Override
+	public AddedTree<IPv6Address> constructAddedNodesTree() {
+		IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>> trie = new IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>>();
+		contructAddedTree(trie);
+		return new AddedTree<IPv6Address>(trie);
+	}
+
+	@Override
+	public String toAddedNodesTreeString() {
+		IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>> trie = new IPv6AddressAssociativeTrie<SubNodesMappingBasic<IPv6Address>>();
+		contructAddedTree(trie);
+		return toAddedNodesTreeString(trie);
+	}
+}
@@ -37,6 +37,48 @@ public class IPv6AddressSeqRangeList extends IPAddressSeqRangeList implements It
 		super(initialCapacity);
 	}
 
+	/**
+	 * A builder for IPv6 sequential range lists, see {@link IPAddressSeqRangeList.Builder}.
+	 *
+	 * @author scfoley
+	 *
+	 */
+	public static class Builder extends IPAddressSeqRangeList.Builder {
+
+		public Builder() {}
+
+		public Builder(int initialCapacity) {
+			super(initialCapacity);
+		}
+
+		@Override
+		public Builder add(IPAddress address) {
+			return (Builder) super.add(address);
+		}
+
+		@Override
+		public Builder add(IPAddressSeqRange seqRange) {
+			return (Builder) super.add(seqRange);
+		}
+
+		@Override
+		protected void checkVersion(IPAddress address) {
+			if(!address.isIPv6()) {
+				throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+			}
+		}
+
+		@Override
+		protected IPv6AddressSeqRangeList createList(int initialCapacity) {
+			return new IPv6AddressSeqRangeList(initialCapacity);
+		}
+
+		@Override
+		public IPv6AddressSeqRangeList toList() {
+			return (IPv6AddressSeqRangeList) super.toList();
+		}
+	}
+
 	/**
 	 * Returns the list of sequential ranges in order.
 	 * 
@@ -88,6 +130,42 @@ public class IPv6AddressSeqRangeList extends IPAddressSeqRangeList implements It
 		return result;
 	}
 
+	@Override
+	public IPv6AddressSeqRangeList parallelComplementIntoList() {
+		IPv6AddressNetwork network = isEmpty() ? IPv6Address.defaultIpv6Network() : getLowerSeqRange().getLower().getNetwork();
+		IPv6Address zero = network.getNetworkMask(0, false);
+		IPv6Address max = network.getNetworkMask(zero.getBitCount(), false);
+		IPv6AddressSeqRangeList result = new IPv6AddressSeqRangeList();
+		parallelComplement(result, zero, max);
+		return result;
+	}
+
+	@Override
+	public IPv6AddressSeqRangeList parallelRemoveIntoList(IPAddressSeqRangeList list) {
+		IPv6AddressSeqRangeList result = new IPv6AddressSeqRangeList();
+		super.parallelRemove(list, result);
+		return result;
+	}
+
+	@Override
+	public IPv6AddressSeqRangeList parallelIntersectIntoList(IPAddressSeqRangeList list) {
+		IPv6AddressSeqRangeList result = new IPv6AddressSeqRangeList();
+		super.parallelIntersect(list, result);
+		return result;
+	}
+
+	@Override
+	public IPv6AddressSeqRangeList parallelJoinIntoList(IPAddressSeqRangeList list) {
+		if(list.getSeqRangeCount() == 0) {
+			return clone();
+		} else if(!list.getSeqRange(0).isIPv6()) {
+			throw new IllegalArgumentException(getMessage("ipaddress.error.mismatched.bit.size"));
+		}
+		IPv6AddressSeqRangeList result = new IPv6AddressSeqRangeList();
+		super.parallelJoin(list, result);
+		return result;
+	}
+
 	@Override
 	public boolean add(IPAddress address) {
 		if(!address.isIPv6()) {
@@ -540,6 +540,26 @@ public class IPv6AddressTrie extends AddressTrie<IPv6Address> {
 		return o instanceof IPv6AddressTrie && super.equals(o);
 	}
 
+	@Override
+	public IPv6AddressTrie union(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressTrie) super.union(other);
+	}
+
+	@Override
+	public IPv6AddressTrie intersection(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressTrie) super.intersection(other);
+	}
+
+	@Override
+	public IPv6AddressTrie difference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressTrie) super.difference(other);
+	}
+
+	@Override
+	public IPv6AddressTrie symmetricDifference(AddressTrie<IPv6Address> other) {
+		return (IPv6AddressTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public IPv6AddressTrie clone() {
 		return (IPv6AddressTrie) super.clone();
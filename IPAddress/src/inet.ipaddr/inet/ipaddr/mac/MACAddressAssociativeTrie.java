@@ -22,6 +22,7 @@ import java.util.Spliterator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import inet.ipaddr.format.util.AddressTrie;
 import inet.ipaddr.format.util.AssociativeAddedTree;
 import inet.ipaddr.format.util.AssociativeAddressTrie;
 import inet.ipaddr.format.util.BinaryTreeNode;
@@ -545,6 +546,26 @@ public class MACAddressAssociativeTrie<V> extends AssociativeAddressTrie<MACAddr
 		return o instanceof MACAddressAssociativeTrie && super.equals(o);
 	}
 
+	@Override
+	public MACAddressAssociativeTrie<V> union(AddressTrie<MACAddress> other) {
+		return (MACAddressAssociativeTrie<V>) super.union(other);
+	}
+
+	@Override
+	public MACAddressAssociativeTrie<V> intersection(AddressTrie<MACAddress> other) {
+		return (MACAddressAssociativeTrie<V>) super.intersection(other);
+	}
+
+	@Override
+	public MACAddressAssociativeTrie<V> difference(AddressTrie<MACAddress> other) {
+		return (MACAddressAssociativeTrie<V>) super.difference(other);
+	}
+
+	@Override
+	public MACAddressAssociativeTrie<V> symmetricDifference(AddressTrie<MACAddress> other) {
+		return (MACAddressAssociativeTrie<V>) super.symmetricDifference(other);
+	}
+
 	@Override
 	public MACAddressAssociativeTrie<V> clone() {
 		return (MACAddressAssociativeTrie<V>) super.clone();
@@ -521,6 +521,26 @@ public class MACAddressTrie extends AddressTrie<MACAddress> {
 		return o instanceof MACAddressTrie && super.equals(o);
 	}
 
+	@Override
+	public MACAddressTrie union(AddressTrie<MACAddress> other) {
+		return (MACAddressTrie) super.union(other);
+	}
+
+	@Override
+	public MACAddressTrie intersection(AddressTrie<MACAddress> other) {
+		return (MACAddressTrie) super.intersection(other);
+	}
+
+	@Override
+	public MACAddressTrie difference(AddressTrie<MACAddress> other) {
+		return (MACAddressTrie) super.difference(other);
+	}
+
+	@Override
+	public MACAddressTrie symmetricDifference(AddressTrie<MACAddress> other) {
+		return (MACAddressTrie) super.symmetricDifference(other);
+	}
+
 	@Override
 	public MACAddressTrie clone() {
 		return (MACAddressTrie) super.clone();
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.concurrent.ExecutionException;
@@ -42,18 +43,26 @@ import java.util.function.Predicate;
 import java.util.function.ToIntBiFunction;
 import java.util.function.UnaryOperator;
 
+import inet.ipaddr.AdaptiveIPAddressCollection;
+import inet.ipaddr.Address;
 import inet.ipaddr.AddressValueException;
 import inet.ipaddr.IPAddress;
 import inet.ipaddr.IPAddressCollection;
 import inet.ipaddr.IPAddressContainmentTrie;
 import inet.ipaddr.IPAddressContainmentTrieBase;
+import inet.ipaddr.IPAddressPackedSeqRangeList;
 import inet.ipaddr.IPAddressSeqRange;
 import inet.ipaddr.IPAddressSeqRangeList;
+import inet.ipaddr.IPAddressSeqRangeListHolder;
+import inet.ipaddr.IPAddressSeqRangeMerger;
 import inet.ipaddr.IPAddressString;
 import inet.ipaddr.IPAddressStringParameters;
 import inet.ipaddr.IncompatibleAddressException;
+import inet.ipaddr.format.IPAddressRange;
 import inet.ipaddr.format.util.BigSpliterator;
 import inet.ipaddr.ipv4.IPv4Address;
+import inet.ipaddr.ipv4.IPv4AddressBitmapSet;
+import inet.ipaddr.ipv4.IPv4AddressContainmentTrie;
 import inet.ipaddr.ipv4.IPv4AddressSeqRange;
 import inet.ipaddr.ipv4.IPv4AddressSeqRangeList;
 import inet.ipaddr.ipv6.IPv6Address;
@@ -327,6 +336,60 @@ public class IPAddressSeqRangeListTest extends TestBase {
 			// A intersect (B union C) = (A intersect B) union (A intersect C)
 			
 			testRangeListSpans(expectedUnion, range1, range2);
+
+			testContainmentTrieOps(range1, range2, expectedIntersection, expectedUnion, range1RemoveRange2, range2RemoveRange1);
+		}
+
+		private void testContainmentTrieOps(
+				IPAddressSeqRangeList range1,
+				IPAddressSeqRangeList range2,
+				IPAddressSeqRangeList expectedIntersection,
+				IPAddressSeqRangeList expectedUnion,
+				IPAddressSeqRangeList range1RemoveRange2,
+				IPAddressSeqRangeList range2RemoveRange1) {
+			IPAddressContainmentTrie trie1 = createContainmentTrie(range1), trie2 = createContainmentTrie(range2);
+			IPAddressSeqRangeList expectedSymmetricDifference = range1RemoveRange2.joinIntoList(range2RemoveRange1);
+			testContainmentTrieOp(trie1, trie2, IPAddressContainmentTrie::union, "union", expectedUnion);
+			testContainmentTrieOp(trie2, trie1, IPAddressContainmentTrie::union, "union", expectedUnion);
+			testContainmentTrieOp(trie1, trie2, IPAddressContainmentTrie::intersection, "intersection", expectedIntersection);
+			testContainmentTrieOp(trie2, trie1, IPAddressContainmentTrie::intersection, "intersection", expectedIntersection);
+			testContainmentTrieOp(trie1, trie2, IPAddressContainmentTrie::difference, "difference", range1RemoveRange2);
+			testContainmentTrieOp(trie2, trie1, IPAddressContainmentTrie::difference, "difference", range2RemoveRange1);
+			testContainmentTrieOp(trie1, trie2, IPAddressContainmentTrie::symmetricDifference, "symmetric difference", expectedSymmetricDifference);
+			testContainmentTrieOp(trie2, trie1, IPAddressContainmentTrie::symmetricDifference, "symmetric difference", expectedSymmetricDifference);
+			testContainmentTrieOp(trie1, trie1, IPAddressContainmentTrie::union, "union", range1);
+			testContainmentTrieOp(trie1, trie1, IPAddressContainmentTrie::difference, "difference", new IPAddressSeqRangeList());
+
+			// collections of different versions have no addresses in common, and no collection can have the addresses of both
+			if(range1.getSeqRangeCount() > 0) {
+				IPAddressContainmentTrie otherVersion = new IPAddressContainmentTrie();
+				otherVersion.add(createAddress(range1.getSeqRange(0).getLower().isIPv4() ? "1::/64" : "1.2.0.0/16").getAddress());
+				testContainmentTrieOp(trie1, otherVersion, IPAddressContainmentTrie::intersection, "intersection", new IPAddressSeqRangeList());
+				testContainmentTrieOp(trie1, otherVersion, IPAddressContainmentTrie::difference, "difference", range1);
+				rangeListTestCount++;
+				try {
+					IPAddressContainmentTrie res = trie1.union(otherVersion);
+					addRangeFailure("fail trie union of versions for trie 1: "+ trie1 + " and trie 2: " + otherVersion + " actual: " + res, res);
+				} catch(IllegalArgumentException e) {}
+			}
+		}
+
+		private void testContainmentTrieOp(IPAddressContainmentTrie trie1, IPAddressContainmentTrie trie2, BinaryOperator<IPAddressContainmentTrie> op, String opName, IPAddressSeqRangeList expected) {
+			rangeListTestCount++;
+			IPAddressContainmentTrie original1 = trie1.clone(), original2 = trie2.clone();
+			IPAddressContainmentTrie res = op.apply(trie1, trie2);
+			if(!res.equals(expected) || !res.getCount().equals(expected.getCount())) {
+				addRangeFailure("fail trie " + opName + " for trie 1: "+ trie1 + " and trie 2: " + trie2 +  " expected: " + expected + " actual: " + res, res);
+			} else if(!res.equals(createContainmentTrie(expected))) {
+				// the resulting trie should have the same minimal shape as if the addresses had been added individually
+				addRangeFailure("fail trie shape " + opName + " for trie 1: "+ trie1 + " and trie 2: " + trie2 +  " expected: " + createContainmentTrie(expected) + " actual: " + res, res);
+			} else if(!trie1.equals(original1) || !trie2.equals(original2)) {
+				addRangeFailure("fail trie " + opName + " modified operands: "+ trie1 + " and " + trie2, res);
+			} else {
+				if(printPass) {
+					System.out.println("pass trie " + opName);
+				}
+			}
 		}
 		
 		void testRangeListSpans(IPAddressSeqRangeList list, IPAddressSeqRangeList joined1, IPAddressSeqRangeList joined2) {
@@ -1576,6 +1639,10 @@ public class IPAddressSeqRangeListTest extends TestBase {
 			testEdges(list, listTrie, isIPv6);
 			
 			testCover(list, listTrie, rng);
+
+			testPacked(list, rng);
+
+			testBuilder(list, rng);
 		}		
 		
 		void testRangeListAndRangeSpans(IPAddressSeqRangeList list, IPAddressSeqRangeList joined1, IPAddressSeqRange joined2, IPAddressContainmentTrie joined1Trie) {
@@ -1838,6 +1905,146 @@ public class IPAddressSeqRangeListTest extends TestBase {
 		rangeListTestCount++;
 	}
 
+	void testBuilder(IPAddressSeqRangeList list, IPAddressRange other) {
+		IPAddressSeqRangeList expected = list.clone();
+		IPAddressSeqRangeList.Builder builder, reverseBuilder;
+		if(list instanceof IPv4AddressSeqRangeList) {
+			builder = new IPv4AddressSeqRangeList.Builder();
+			reverseBuilder = new IPv4AddressSeqRangeList.Builder(1);
+		} else if(list instanceof IPv6AddressSeqRangeList) {
+			builder = new IPv6AddressSeqRangeList.Builder();
+			reverseBuilder = new IPv6AddressSeqRangeList.Builder(1);
+		} else {
+			builder = new IPAddressSeqRangeList.Builder();
+			reverseBuilder = new IPAddressSeqRangeList.Builder(1);
+		}
+		int rangeCount = list.getSeqRangeCount();
+		try {
+			// add the ranges out of order, with the other address or range in the middle
+			for(int i = 1; i < rangeCount; i += 2) {
+				builder.add(list.getSeqRange(i));
+			}
+			if(other instanceof IPAddress) {
+				IPAddress addr = (IPAddress) other;
+				expected.add(addr);
+				builder.add(addr);
+				reverseBuilder.add(addr).add(addr);
+			} else {
+				IPAddressSeqRange rng = (IPAddressSeqRange) other;
+				expected.add(rng);
+				builder.add(rng);
+				reverseBuilder.add(rng).add(rng);
+			}
+			for(int i = 0; i < rangeCount; i += 2) {
+				builder.add(list.getSeqRange(i));
+			}
+			for(int i = rangeCount - 1; i >= 0; i--) {
+				reverseBuilder.add(list.getSeqRange(i));
+			}
+		} catch(IllegalArgumentException e) {
+			// mismatched versions
+			try {
+				expected.add(other instanceof IPAddress ? ((IPAddress) other).coverWithSequentialRange() : (IPAddressSeqRange) other);
+				addRangeFailure("builder unexpected version failure " + e, list);
+			} catch(IllegalArgumentException e2) {}
+			rangeListTestCount++;
+			return;
+		}
+		IPAddressSeqRangeList built = builder.toList();
+		matches(built, expected);
+		matches(reverseBuilder.toList(), expected);
+		if(built.getClass() != list.getClass()) {
+			addRangeFailure("builder list type mismatch, " + built.getClass() + " and " + list.getClass(), list);
+		}
+		// the builder remains usable after creating a list
+		matches(builder.toList(), expected);
+		if(!expected.isEmpty()) {
+			IPAddress mismatched = expected.getLower().isIPv4() ? new IPAddressString("::1").getAddress() : new IPAddressString("1.2.3.4").getAddress();
+			try {
+				builder.add(mismatched);
+				addRangeFailure("builder accepted mismatched version " + mismatched, list);
+			} catch(IllegalArgumentException e) {}
+		}
+		rangeListTestCount++;
+	}
+
+	void testPacked(IPAddressSeqRangeList list, IPAddressRange other) {
+		IPAddressPackedSeqRangeList packed = list.toPackedList();
+		int rangeCount = list.getSeqRangeCount();
+		if(packed.getSeqRangeCount() != rangeCount) {
+			addRangeFailure("packed range count mismatch, " + packed.getSeqRangeCount() +  " and " + rangeCount, list);
+		} else if(!packed.getCount().equals(list.getCount())) {
+			addRangeFailure("packed count mismatch, " + packed.getCount() +  " and " + list.getCount(), list);
+		} else if(!packed.toSeqRangeList().equals(list)) {
+			addRangeFailure("packed list mismatch, " + packed.toSeqRangeList() +  " and " + list, list);
+		} else if(!packed.equals(packed.toSeqRangeList().toPackedList())) {
+			addRangeFailure("packed equality mismatch, " + packed, list);
+		} else if(!packed.toString().equals(list.toString())) {
+			addRangeFailure("packed string mismatch, " + packed +  " and " + list, list);
+		}
+		IPAddressSeqRange otherRange = other.coverWithSequentialRange();
+		if(other instanceof IPAddress) {
+			IPAddress otherAddr = (IPAddress) other;
+			if(packed.indexOfContainingSeqRange(otherAddr) != list.indexOfContainingSeqRange(otherAddr)) {
+				addRangeFailure("packed containment mismatch for " + otherAddr + ", " + packed.indexOfContainingSeqRange(otherAddr) +  " and " + list.indexOfContainingSeqRange(otherAddr), list);
+			} else if(packed.indexOfOverlappingSeqRange(otherAddr) != list.indexOfOverlappingSeqRange(otherAddr)) {
+				addRangeFailure("packed overlap mismatch for " + otherAddr + ", " + packed.indexOfOverlappingSeqRange(otherAddr) +  " and " + list.indexOfOverlappingSeqRange(otherAddr), list);
+			} else if(!Objects.equals(packed.lower(otherAddr), list.lower(otherAddr)) || !Objects.equals(packed.floor(otherAddr), list.floor(otherAddr)) ||
+					!Objects.equals(packed.ceiling(otherAddr), list.ceiling(otherAddr)) || !Objects.equals(packed.higher(otherAddr), list.higher(otherAddr))) {
+				// the prefix length of the given address may be retained, so the results are compared with equals rather than with matches
+				addRangeFailure("packed edges mismatch for " + otherAddr, list);
+			}
+		}
+		if(packed.indexOfContainingSeqRange(otherRange) != list.indexOfContainingSeqRange(otherRange)) {
+			addRangeFailure("packed containment mismatch for " + otherRange + ", " + packed.indexOfContainingSeqRange(otherRange) +  " and " + list.indexOfContainingSeqRange(otherRange), list);
+		} else if(packed.indexOfOverlappingSeqRange(otherRange) != list.indexOfOverlappingSeqRange(otherRange)) {
+			addRangeFailure("packed overlap mismatch for " + otherRange + ", " + packed.indexOfOverlappingSeqRange(otherRange) +  " and " + list.indexOfOverlappingSeqRange(otherRange), list);
+		}
+		BigInteger count = list.getCount();
+		for(int i = 0; i < rangeCount; i++) {
+			IPAddressSeqRange rng = list.getSeqRange(i);
+			if(!packed.getSeqRange(i).equals(rng)) {
+				addRangeFailure("packed range mismatch, " + packed.getSeqRange(i) +  " and " + rng, list);
+			}
+			IPAddress lowerAddr = rng.getLower(), upperAddr = rng.getUpper();
+			IPAddress addrs[] = {
+					lowerAddr, upperAddr, lowerAddr.isZero() ? null : lowerAddr.decrement(), upperAddr.isMax() ? null : upperAddr.increment()
+			};
+			for(IPAddress addr : addrs) {
+				if(addr == null) {
+					continue;
+				}
+				if(packed.contains(addr) != list.contains(addr)) {
+					addRangeFailure("packed containment mismatch for " + addr, list);
+				} else if(packed.indexOfContainingSeqRange(addr) != list.indexOfContainingSeqRange(addr)) {
+					addRangeFailure("packed containment index mismatch for " + addr, list);
+				} else if(!Objects.equals(packed.enumerate(addr), list.enumerate(addr))) {
+					addRangeFailure("packed enumerate mismatch for " + addr + ", " + packed.enumerate(addr) +  " and " + list.enumerate(addr), list);
+				}
+				matches(packed.lower(addr), list.lower(addr), list);
+				matches(packed.floor(addr), list.floor(addr), list);
+				matches(packed.ceiling(addr), list.ceiling(addr), list);
+				matches(packed.higher(addr), list.higher(addr), list);
+				BigInteger addressIndex = list.enumerate(addr);
+				if(addressIndex != null && addressIndex.signum() >= 0 && addressIndex.compareTo(count) < 0) {
+					matches(packed.get(addressIndex), list.get(addressIndex), list);
+					if(addressIndex.bitLength() < Long.SIZE) {
+						matches(packed.get(addressIndex.longValue()), list.get(addressIndex.longValue()), list);
+					}
+				}
+			}
+		}
+		try {
+			packed.get(count);
+			addRangeFailure("packed get beyond count " + count, list);
+		} catch(IndexOutOfBoundsException e) {}
+		try {
+			packed.get(-1);
+			addRangeFailure("packed get of negative index", list);
+		} catch(IndexOutOfBoundsException e) {}
+		rangeListTestCount++;
+	}
+
 	void testEdges(IPAddressSeqRangeList list, IPAddressContainmentTrie listTrie, boolean isIPv6) {
 		int rangeCount = list.getSeqRangeCount();
 		if(rangeCount == 0) {
@@ -2122,6 +2329,10 @@ public class IPAddressSeqRangeListTest extends TestBase {
 			testEdges(list, listTrie, isIPv6);
 			
 			testCover(list, listTrie, addr);
+
+			testPacked(list, addr);
+
+			testBuilder(list, addr);
 		}
 		
 		void testRangeListAndAddressSpans(IPAddressSeqRangeList list, IPAddressSeqRangeList joined1, IPAddress joined2, IPAddressContainmentTrie joined1Trie) {
@@ -2545,6 +2756,505 @@ public class IPAddressSeqRangeListTest extends TestBase {
 		}
 	}
 
+	// interleaves changes to lists with lookups by address index, checking the lookups against the range counts
+	void testRangeSizes() {
+		Random random = new Random(2);
+		IPAddressSeqRangeList lists[] = {new IPAddressSeqRangeList(), new IPv6AddressSeqRangeList()};
+		for(IPAddressSeqRangeList list : lists) {
+			boolean isIPv6 = list instanceof IPv6AddressSeqRangeList;
+			IPAddress base = createAddress(isIPv6 ? "ffff:ffff:ffff:ffff:ffff:ffff:ffff:0" : "255.255.0.0").getAddress();
+			for(int i = 0; i < 600; i++) {
+				int offset = random.nextInt(0x10000);
+				IPAddress addr = base.increment(offset);
+				switch(random.nextInt(9)) {
+				case 0:
+				case 1:
+					list.add(addr);
+					break;
+				case 2:
+					list.add(addr.spanWithRange(addr.increment(random.nextInt(0x10000 - offset))));
+					break;
+				case 3:
+					list.remove(addr.spanWithRange(addr.increment(random.nextInt(0x10000 - offset) >> 4)));
+					break;
+				case 4:
+					if(!list.isEmpty()) {
+						list.remove(random.nextInt(list.getCount().intValue()));
+					}
+					break;
+				case 5:
+					// trims the ranges at both ends
+					list.intersect(base.increment(random.nextInt(0x100)).spanWithRange(base.increment(0xffff - random.nextInt(0x100))));
+					break;
+				case 6:
+					Iterator<? extends IPAddressSeqRange> rangeIterator = list.seqRangeIterator();
+					for(int j = random.nextInt(8); rangeIterator.hasNext(); j--) {
+						rangeIterator.next();
+						if(j <= 0) {
+							rangeIterator.remove();
+							break;
+						}
+					}
+					break;
+				case 7:
+					int rangeIndex = random.nextInt(list.getSeqRangeCount() + 1);
+					list.removeSeqRanges(rangeIndex, Math.min(rangeIndex + random.nextInt(3), list.getSeqRangeCount()));
+					break;
+				default:
+					Iterator<? extends IPAddress> iterator = list.iterator();
+					for(int j = random.nextInt(40); iterator.hasNext(); j--) {
+						iterator.next();
+						if(j <= 0) {
+							iterator.remove();
+							break;
+						}
+					}
+				}
+				// check the counts and the lookups by index
+				BigInteger count = BigInteger.ZERO;
+				int rangeCount = list.getSeqRangeCount();
+				for(int j = 0; j < rangeCount; j++) {
+					IPAddressSeqRange rng = list.getSeqRange(j);
+					if(j == 0 || j == rangeCount - 1 || random.nextInt(8) == 0) {
+						IPAddress lower = list.get(count);
+						if(!lower.equals(rng.getLower()) || !count.equals(list.enumerate(lower)) || list.getContainingSeqRange(count.longValue()) != rng) {
+							addRangeFailure("mismatched lookup of index " + count + " in range " + rng + ", got " + lower, list);
+							return;
+						}
+					}
+					count = count.add(rng.getCount());
+					if(j == rangeCount - 1 || random.nextInt(8) == 0) {
+						IPAddress upper = list.get(count.longValue() - 1);
+						if(!upper.equals(rng.getUpper()) || !count.subtract(BigInteger.ONE).equals(list.enumerate(upper))) {
+							addRangeFailure("mismatched lookup of index " + (count.longValue() - 1) + " in range " + rng + ", got " + upper, list);
+							return;
+						}
+					}
+				}
+				if(!count.equals(list.getCount())) {
+					addRangeFailure("mismatched count " + list.getCount() + ", expected " + count, list);
+					return;
+				}
+				rangeListTestCount++;
+			}
+		}
+		// the count of the full IPv6 address space does not fit in 128 bits
+		IPAddressSeqRangeList list = new IPAddressSeqRangeList();
+		list.add(createAddress("::").getAddress().spanWithRange(createAddress("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff").getAddress()));
+		BigInteger expected = BigInteger.ONE.shiftLeft(128);
+		if(!list.getCount().equals(expected)) {
+			addRangeFailure("mismatched count " + list.getCount() + ", expected " + expected, list);
+		}
+		list.remove(expected.subtract(BigInteger.ONE));
+		list.remove(1);
+		if(!list.getCount().equals(expected.subtract(BigInteger.valueOf(2))) || !list.get(expected.subtract(BigInteger.valueOf(3))).equals(createAddress("ffff:ffff:ffff:ffff:ffff:ffff:ffff:fffe").getAddress()) ||
+				!list.get(1).equals(createAddress("::2").getAddress())) {
+			addRangeFailure("mismatched count " + list.getCount(), list);
+		}
+		rangeListTestCount++;
+	}
+
+	// compares a bitmap set with a sequential range list after each batch of random changes, mostly to dense blocks of addresses
+	void testBitmapSet() {
+		Random random = new Random(3);
+		IPv4Address base = createAddress("10.0.0.0").getAddress().toIPv4();
+		IPv4AddressBitmapSet set = new IPv4AddressBitmapSet();
+		IPv4AddressSeqRangeList list = new IPv4AddressSeqRangeList();
+		for(int i = 0; i < 30; i++) {
+			for(int j = 0; j < 200; j++) {
+				IPv4Address addr = base.increment(random.nextInt(0x30000));
+				IPv4AddressSeqRange rng = addr.spanWithRange(addr.increment(random.nextInt(random.nextBoolean() ? 8 : 0x18000)));
+				boolean changed, listChanged;
+				switch(random.nextInt(6)) {
+				case 0:
+				case 1:
+					changed = set.add(addr);
+					listChanged = list.add(addr);
+					break;
+				case 2:
+					changed = set.add(rng);
+					listChanged = list.add(rng);
+					break;
+				case 3:
+					addr = addr.toPrefixBlock(16 + random.nextInt(17));
+					changed = set.add(addr);
+					listChanged = list.add(addr);
+					break;
+				case 4:
+					changed = set.remove(addr);
+					listChanged = list.remove(addr);
+					break;
+				default:
+					rng = addr.spanWithRange(addr.increment(random.nextInt(0x2000)));
+					changed = set.remove(rng);
+					listChanged = list.remove(rng);
+				}
+				if(changed != listChanged) {
+					addRangeFailure("mismatched change to bitmap set " + set, list);
+					return;
+				}
+			}
+			if(i % 3 == 0) {
+				set.optimize();
+			}
+			if(!set.toSeqRangeList().equals(list) || !set.equals(list) || !list.equals(set) || set.hashCode() != list.hashCode() || !set.getCount().equals(list.getCount()) ||
+					!Objects.equals(set.getLower(), list.getLower()) || !Objects.equals(set.getUpper(), list.getUpper()) ||
+					!Arrays.equals(set.spanWithPrefixBlocks(), list.spanWithPrefixBlocks())) {
+				addRangeFailure("mismatched bitmap set " + set, list);
+				return;
+			}
+			for(int j = 0; j < 100; j++) {
+				IPv4Address addr = base.increment(random.nextInt(0x30000));
+				IPv4AddressSeqRange rng = addr.spanWithRange(addr.increment(random.nextInt(0x100)));
+				if(set.contains(addr) != list.contains(addr) || set.contains(rng) != list.contains(rng) || set.overlaps(rng) != list.overlaps(rng) ||
+						!Objects.equals(set.floor(addr), list.floor(addr)) || !Objects.equals(set.lower(addr), list.lower(addr)) ||
+						!Objects.equals(set.ceiling(addr), list.ceiling(addr)) || !Objects.equals(set.higher(addr), list.higher(addr))) {
+					addRangeFailure("mismatched lookup of " + addr + " in bitmap set " + set, list);
+					return;
+				}
+			}
+			// combine with another set, with the other set given as a bitmap set, a list, or a containment trie
+			IPv4AddressSeqRangeList otherList = new IPv4AddressSeqRangeList();
+			for(int j = 0; j < 100; j++) {
+				IPv4Address addr = base.increment(random.nextInt(0x30000));
+				otherList.add(addr.spanWithRange(addr.increment(random.nextInt(0x1000))));
+			}
+			IPv4AddressContainmentTrie otherTrie = new IPv4AddressContainmentTrie();
+			for(IPAddress block : otherList.spanWithPrefixBlocks()) {
+				otherTrie.add(block.toIPv4());
+			}
+			IPv4AddressBitmapSet otherSet = new IPv4AddressBitmapSet(otherTrie);
+			if(!set.union(otherSet).equals(list.joinIntoList(otherList)) ||
+					!set.intersection(otherList).equals(list.intersectIntoList(otherList)) ||
+					!set.difference(otherTrie).equals(list.removeIntoList(otherList))) {
+				addRangeFailure("mismatched set operation with " + otherList + " on bitmap set " + set, list);
+				return;
+			}
+			rangeListTestCount++;
+		}
+	}
+
+	IPAddressSeqRangeList createRandomList(IPAddressSeqRangeList.Builder builder, IPAddress base, int count, int spacing, int maxSize, Random random) {
+		for(int i = 0; i < count; i++) {
+			IPAddress lower = base.increment(random.nextInt(count * spacing));
+			builder.add(lower.spanWithRange(lower.increment(random.nextInt(maxSize))));
+		}
+		return builder.toList();
+	}
+
+	// compares the parallel set operations to the sequential ones, with lists large enough to be partitioned
+	void testParallelSetOperations() {
+		Random random = new Random(5);
+		IPAddress bases[] = {createAddress("1.0.0.0").getAddress(), createAddress("2001:db8::").getAddress()};
+		for(IPAddress base : bases) {
+			IPAddressSeqRangeList many = createRandomList(base.isIPv4() ? new IPv4AddressSeqRangeList.Builder() : new IPv6AddressSeqRangeList.Builder(), base, 60000, 64, 32, random);
+			IPAddressSeqRangeList others[] = {
+				createRandomList(new IPAddressSeqRangeList.Builder(), base, 40000, 96, 64, random), // partitioned by both lists
+				createRandomList(new IPAddressSeqRangeList.Builder(), base, 2000, 2000, 3000, random), // large ranges spanning the boundaries
+				createRandomList(new IPAddressSeqRangeList.Builder(), base, 3, 1000000, 1000000, random), // ranges spanning many boundaries
+				new IPAddressSeqRangeList()
+			};
+			for(IPAddressSeqRangeList other : others) {
+				IPAddressSeqRangeList lists[][] = {{many, other}, {other, many}};
+				for(IPAddressSeqRangeList pair[] : lists) {
+					IPAddressSeqRangeList one = pair[0], two = pair[1];
+					IPAddressSeqRangeList parallelJoin = one.parallelJoinIntoList(two);
+					if(!parallelJoin.equals(one.joinIntoList(two)) || parallelJoin.getClass() != one.getClass() ||
+							!one.parallelIntersectIntoList(two).equals(one.intersectIntoList(two)) ||
+							!one.parallelRemoveIntoList(two).equals(one.removeIntoList(two)) ||
+							!Objects.equals(one.parallelComplementIntoList(), one.complementIntoList())) {
+						addRangeFailure("mismatched parallel set operation with " + two.getSeqRangeCount() + " ranges", one);
+						return;
+					}
+					if(!Arrays.equals(parallelJoin.getSeqRanges(), one.joinIntoList(two).getSeqRanges())) {
+						addRangeFailure("mismatched parallel join ranges with " + two.getSeqRangeCount() + " ranges", one);
+						return;
+					}
+					rangeListTestCount++;
+				}
+			}
+		}
+	}
+
+	// checks that the merged ranges are the ranges of the expected list
+	boolean checkMerged(Iterator<IPAddressSeqRange> merged, IPAddressSeqRangeList expected, String operation) {
+		List<IPAddressSeqRange> ranges = new ArrayList<>();
+		merged.forEachRemaining(ranges::add);
+		if(!ranges.equals(Arrays.asList(expected.getSeqRanges()))) {
+			addRangeFailure("mismatched lazy " + operation + ": " + ranges, expected);
+			return false;
+		}
+		rangeListTestCount++;
+		return true;
+	}
+
+	// merges sorted sources whose ranges may overlap, comparing the results with those of range lists
+	void testRangeMerger() {
+		Random random = new Random(6);
+		IPAddress bases[] = {createAddress("1.0.0.0").getAddress(), createAddress("2001:db8::").getAddress()};
+		for(IPAddress base : bases) {
+			for(int sourceCount : new int[] {1, 2, 5, 24}) {
+				List<IPAddressSeqRange[]> sources = new ArrayList<>();
+				List<IPAddressSeqRangeList> lists = new ArrayList<>();
+				for(int i = 0; i < sourceCount; i++) {
+					int rangeCount = random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(3000);
+					int maxSize = 1 + random.nextInt(random.nextBoolean() ? 16 : 4000);
+					IPAddressSeqRange ranges[] = new IPAddressSeqRange[rangeCount];
+					for(int j = 0; j < rangeCount; j++) {
+						IPAddress lower = base.increment(random.nextInt(1 << 20));
+						ranges[j] = lower.spanWithRange(lower.increment(random.nextInt(maxSize)));
+					}
+					Arrays.sort(ranges, Address.ADDRESS_LOW_VALUE_COMPARATOR);
+					sources.add(ranges);
+					IPAddressSeqRangeList.Builder builder = new IPAddressSeqRangeList.Builder();
+					for(IPAddressSeqRange rng : ranges) {
+						builder.add(rng);
+					}
+					lists.add(builder.toList());
+				}
+				IPAddressSeqRangeList union = new IPAddressSeqRangeList(), intersection = lists.get(0), difference = lists.get(0);
+				for(IPAddressSeqRangeList list : lists) {
+					union = union.joinIntoList(list);
+					intersection = intersection.intersectIntoList(list);
+				}
+				for(IPAddressSeqRangeList list : lists.subList(1, lists.size())) {
+					difference = difference.removeIntoList(list);
+				}
+				List<Iterator<IPAddressSeqRange>> iterators = new ArrayList<>();
+				sources.forEach(ranges -> iterators.add(Arrays.asList(ranges).iterator()));
+				if(!checkMerged(IPAddressSeqRangeMerger.union(iterators), union, "union")) {
+					return;
+				}
+				iterators.clear();
+				sources.forEach(ranges -> iterators.add(Arrays.asList(ranges).iterator()));
+				if(!checkMerged(IPAddressSeqRangeMerger.intersection(iterators), intersection, "intersection")) {
+					return;
+				}
+				iterators.clear();
+				sources.forEach(ranges -> iterators.add(Arrays.asList(ranges).iterator()));
+				if(!checkMerged(IPAddressSeqRangeMerger.difference(iterators.get(0), iterators.subList(1, iterators.size())), difference, "difference")) {
+					return;
+				}
+			}
+		}
+		// IPv4 ranges precede IPv6 ranges, and do not overlap them
+		IPAddressSeqRange ipv4Range = createAddress("1.2.3.4").getAddress().spanWithRange(createAddress("1.2.3.10").getAddress());
+		IPAddressSeqRange ipv6Range = createAddress("::1").getAddress().spanWithRange(createAddress("::10").getAddress());
+		Iterator<IPAddressSeqRange> merged = IPAddressSeqRangeMerger.union(Collections.singletonList(ipv6Range).iterator(), Collections.singletonList(ipv4Range).iterator());
+		if(!merged.next().equals(ipv4Range) || !merged.next().equals(ipv6Range) || merged.hasNext() ||
+				IPAddressSeqRangeMerger.intersection(Collections.singletonList(ipv6Range).iterator(), Collections.singletonList(ipv4Range).iterator()).hasNext() ||
+				!IPAddressSeqRangeMerger.difference(Collections.singletonList(ipv6Range).iterator(), Collections.singletonList(ipv4Range).iterator()).next().equals(ipv6Range)) {
+			addRangeFailure("mismatched lazy merge of IPv4 and IPv6 ranges", new IPAddressSeqRangeList());
+		}
+		rangeListTestCount++;
+	}
+
+	// applies random changes and lookups to an adaptive collection and a range list, checking that they agree and that the representation follows the workload
+	boolean testAdaptiveCollection(AdaptiveIPAddressCollection coll, IPAddressSeqRangeList list, IPAddress base, int span, int ops, int lookupsPerChange, Random random) {
+		for(int i = 0; i < ops; i++) {
+			IPAddress addr = base.increment(random.nextInt(span));
+			boolean changed, listChanged;
+			if(random.nextInt(10) == 0) {
+				changed = coll.remove(addr);
+				listChanged = list.remove(addr);
+			} else if(random.nextInt(10) == 0) {
+				IPAddressSeqRange rng = addr.spanWithRange(addr.increment(random.nextInt(0x100)));
+				changed = coll.add(rng);
+				listChanged = list.add(rng);
+			} else {
+				changed = coll.add(addr);
+				listChanged = list.add(addr);
+			}
+			if(changed != listChanged) {
+				addRangeFailure("mismatched change of " + addr + " to adaptive collection " + coll.getRepresentation(), list);
+				return false;
+			}
+			for(int j = 0; j < lookupsPerChange; j++) {
+				addr = base.increment(random.nextInt(span));
+				if(coll.contains(addr) != list.contains(addr) || !Objects.equals(coll.floor(addr), list.floor(addr)) ||
+						!Objects.equals(coll.higher(addr), list.higher(addr))) {
+					addRangeFailure("mismatched lookup of " + addr + " in adaptive collection " + coll.getRepresentation(), list);
+					return false;
+				}
+			}
+		}
+		if(!coll.toSeqRangeList().equals(list) || !coll.equals(list) || coll.hashCode() != list.hashCode() || !coll.getCount().equals(list.getCount()) ||
+				!Objects.equals(coll.getLower(), list.getLower()) || !Objects.equals(coll.getUpper(), list.getUpper())) {
+			addRangeFailure("mismatched adaptive collection " + coll.getRepresentation(), list);
+			return false;
+		}
+		rangeListTestCount++;
+		return true;
+	}
+
+	void testAdaptiveCollection() {
+		Random random = new Random(4);
+		List<AdaptiveIPAddressCollection.Decision> decisions = new ArrayList<>();
+
+		// scattered IPv4 addresses are held in bitmaps
+		AdaptiveIPAddressCollection coll = new AdaptiveIPAddressCollection();
+		coll.setDecisionListener(decisions::add);
+		IPAddressSeqRangeList list = new IPAddressSeqRangeList();
+		if(!testAdaptiveCollection(coll, list, createAddress("10.0.0.0").getAddress(), (1 << 20) - 0x100, 20000, 0, random)) {
+			return;
+		}
+		coll.evaluate();
+		if(coll.getRepresentation() != AdaptiveIPAddressCollection.Representation.BITMAP || decisions.isEmpty() ||
+				decisions.get(decisions.size() - 1) != coll.getLastDecision() || coll.getLastDecision().getContainerCount() != 16 ||
+				!coll.getLastDecision().getAddressCount().equals(list.getCount()) || coll.getLastDecision().getRangeCount() != list.getSeqRangeCount()) {
+			addRangeFailure("expected bitmap representation, decision " + coll.getLastDecision(), list);
+			return;
+		}
+		AdaptiveIPAddressCollection cloned = coll.clone();
+		if(!cloned.equals(coll) || cloned.hashCode() != coll.hashCode() || cloned.getRepresentation() != coll.getRepresentation()) {
+			addRangeFailure("mismatched clone of adaptive collection", list);
+			return;
+		}
+		try {
+			coll.add(createAddress("::1").getAddress());
+			addRangeFailure("added IPv6 to IPv4 adaptive collection", list);
+			return;
+		} catch(IllegalArgumentException e) {}
+		coll.clear();
+		coll.add(createAddress("::1").getAddress());
+		if(coll.getRepresentation() != AdaptiveIPAddressCollection.Representation.SEQUENTIAL_RANGE_LIST || !coll.contains(createAddress("::1").getAddress())) {
+			addRangeFailure("expected range list representation after adding IPv6, decision " + coll.getLastDecision(), list);
+			return;
+		}
+
+		// a collection that is mostly changed is held in a trie, and then in a list once it is mostly queried
+		coll = new AdaptiveIPAddressCollection();
+		list = new IPAddressSeqRangeList();
+		IPAddress base = createAddress("2001:db8::").getAddress();
+		if(!testAdaptiveCollection(coll, list, base, 1 << 20, 8000, 0, random)) {
+			return;
+		}
+		if(coll.getRepresentation() != AdaptiveIPAddressCollection.Representation.CONTAINMENT_TRIE) {
+			addRangeFailure("expected trie representation, decision " + coll.getLastDecision(), list);
+			return;
+		}
+		Iterator<? extends IPAddress> iterator = coll.iterator();
+		if(!testAdaptiveCollection(coll, list, base, 1 << 20, 4000, 4, random)) {
+			return;
+		}
+		coll.evaluate();
+		if(coll.getRepresentation() != AdaptiveIPAddressCollection.Representation.SEQUENTIAL_RANGE_LIST ||
+				coll.getRepresentationChangeCount() != 2) {
+			addRangeFailure("expected range list representation, decision " + coll.getLastDecision(), list);
+			return;
+		}
+		try {
+			iterator.next();
+			addRangeFailure("expected concurrent modification of adaptive collection", list);
+			return;
+		} catch(ConcurrentModificationException e) {}
+		if(!new AdaptiveIPAddressCollection(list).equals(coll)) {
+			addRangeFailure("mismatched copy of adaptive collection", list);
+		}
+	}
+
+	// readers check that each snapshot they see holds the result of a complete batch while a writer applies batches
+	void testHolder() {
+		IPAddressSeqRangeListHolder holder = new IPAddressSeqRangeListHolder(new IPv4AddressSeqRangeList());
+		IPAddress base = createAddress("10.0.0.0").getAddress();
+		int batchCount = 300;
+		AtomicInteger batchesDone = new AtomicInteger();
+		List<Future<String>> jobs = new ArrayList<>();
+		for(int i = 0; i < 3; i++) {
+			jobs.add(threadPool.submit(() -> {
+				while(batchesDone.get() < batchCount) {
+					IPAddressPackedSeqRangeList snapshot = holder.getSnapshot();
+					if(snapshot.isEmpty()) {
+						continue;
+					}
+					// each batch replaces the two ranges of the previous batch with two ranges 10 addresses long, 10 addresses apart
+					IPAddress lower = snapshot.getLower();
+					IPAddress gap = lower.increment(15);
+					if(snapshot.getSeqRangeCount() != 2 || snapshot.getCount().intValue() != 20 ||
+							!snapshot.contains(lower.increment(9)) || snapshot.contains(gap) ||
+							snapshot.indexOfContainingSeqRange(lower.increment(25)) != 1 ||
+							!lower.increment(9).equals(snapshot.floor(gap)) || !lower.increment(20).equals(snapshot.ceiling(gap)) ||
+							snapshot.overlaps(gap.spanWithRange(lower.increment(19))) || !snapshot.overlaps(gap.spanWithRange(lower.increment(20)))) {
+						return "incomplete snapshot " + snapshot;
+					}
+				}
+				return null;
+			}));
+		}
+		for(int i = 0; i < batchCount; i++) {
+			IPAddress lower = base.increment(i << 6);
+			holder.update(list -> {
+				list.clear();
+				list.add(lower.spanWithRange(lower.increment(29)));
+				list.remove(lower.increment(10).spanWithRange(lower.increment(19)));
+			});
+			batchesDone.incrementAndGet();
+		}
+		try {
+			for(Future<String> job : jobs) {
+				String failure = job.get();
+				if(failure != null) {
+					addRangeFailure(failure, holder.getList());
+				}
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			addRangeFailure("unexpected interruption " + e, holder.getList());
+		}
+
+		// a failed batch changes nothing
+		IPAddressPackedSeqRangeList snapshot = holder.getSnapshot();
+		try {
+			holder.update(list -> {
+				list.clear();
+				list.add(createAddress("1::").getAddress());
+			});
+			addRangeFailure("mixed versions were added", holder.getList());
+		} catch(IllegalArgumentException e) {}
+		if(holder.getSnapshot() != snapshot || !holder.getList().equals(snapshot.toSeqRangeList())) {
+			addRangeFailure("failed batch changed snapshot to " + holder.getSnapshot(), holder.getList());
+		}
+		rangeListTestCount++;
+	}
+
+	void testBuilder() {
+		String strs[][] = {
+			{"255.0.0.1", "1.2.3.4", "128.0.0.0-10", "127.255.255.255", "128.0.0.11", "0.0.0.0", "255.255.255.255", "1.2.3.0/24", "1-2.0-1.3.4", "128.0.0.5-20"},
+			{"ffff::1", "1:2::", "8000::-a", "7fff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "8000::b", "::", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "1:2::/120", "1-2:0-1::", "8000::5-20"},
+		};
+		Random random = new Random(1);
+		for(String addrStrs[] : strs) {
+			List<IPAddressRange> addrs = new ArrayList<>();
+			for(String str : addrStrs) {
+				addrs.add(createAddress(str).getAddress());
+			}
+			// more addresses spread across the address space, including addresses with the upper bit set
+			IPAddress first = (IPAddress) addrs.get(0);
+			byte bytes[] = new byte[first.getByteCount()];
+			for(int i = 0; i < 200; i++) {
+				random.nextBytes(bytes);
+				IPAddress addr = first.getNetwork().getAddressCreator().createAddress(bytes);
+				addrs.add(addr);
+				random.nextBytes(bytes);
+				addrs.add(addr.spanWithRange(first.getNetwork().getAddressCreator().createAddress(bytes)));
+			}
+			for(int j = 0; j < 3; j++) {
+				Collections.shuffle(addrs, random);
+				IPAddressSeqRangeList expected = new IPAddressSeqRangeList();
+				IPAddressSeqRangeList.Builder builder = new IPAddressSeqRangeList.Builder();
+				for(IPAddressRange addr : addrs) {
+					if(addr instanceof IPAddress) {
+						expected.add((IPAddress) addr);
+						builder.add((IPAddress) addr);
+					} else {
+						expected.add((IPAddressSeqRange) addr);
+						builder.add((IPAddressSeqRange) addr);
+					}
+				}
+				matches(builder.toList(), expected);
+			}
+		}
+	}
+
 	void testRangeListIncrement() {
 		IPAddressSeqRangeList list = new IPAddressSeqRangeList();
 		IPAddress last = new IPAddressString("2.255.3.4").getAddress();
@@ -4952,6 +5662,20 @@ public class IPAddressSeqRangeListTest extends TestBase {
 		
 		testRangeListIncrement();
 
+		testBuilder();
+
+		testRangeSizes();
+
+		testHolder();
+
+		testBitmapSet();
+
+		testAdaptiveCollection();
+
+		testParallelSetOperations();
+
+		testRangeMerger();
+
 		if(printResults) {
 			System.out.println();
 			System.out.println("IPAddressSeqRangeList multi list tests: " + multiListTestCount);
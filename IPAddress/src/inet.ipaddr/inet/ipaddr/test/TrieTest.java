@@ -18,14 +18,21 @@
 
 package inet.ipaddr.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
@@ -38,6 +45,7 @@ import java.util.Map.Entry;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.Spliterator;
@@ -56,39 +64,59 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import inet.ipaddr.Address;
 import inet.ipaddr.AddressNetwork.PrefixConfiguration;
 import inet.ipaddr.IPAddress;
+import inet.ipaddr.IPAddressConverter;
+import inet.ipaddr.IPAddressConverter.DefaultAddressConverter;
+import inet.ipaddr.IPAddressConverter.EmbeddedIPv4AddressConverter;
 import inet.ipaddr.IPAddressString;
 import inet.ipaddr.IPAddressStringParameters;
 import inet.ipaddr.MACAddressString;
 import inet.ipaddr.MACAddressStringParameters;
+import inet.ipaddr.format.util.AddedNodesTreeView;
 import inet.ipaddr.format.util.AddedTree;
 import inet.ipaddr.format.util.AddedTree.AddedTreeNode;
 import inet.ipaddr.format.util.AddressTrie;
 import inet.ipaddr.format.util.AddressTrie.TrieNode;
+import inet.ipaddr.format.util.AddressTrieChangeLog;
+import inet.ipaddr.format.util.AddressTrieChangeLog.ChangeEvent;
 import inet.ipaddr.format.util.AddressTrieMap;
 import inet.ipaddr.format.util.AddressTrieMap.EntrySet;
+import inet.ipaddr.format.util.AddressTrieMetrics;
 import inet.ipaddr.format.util.AddressTrieSet;
+import inet.ipaddr.format.util.ArenaAddressTrie;
 import inet.ipaddr.format.util.AssociativeAddedTree;
 import inet.ipaddr.format.util.AssociativeAddedTree.AssociativeAddedTreeNode;
 import inet.ipaddr.format.util.AssociativeAddressTrie;
 import inet.ipaddr.format.util.AssociativeAddressTrie.AssociativeTrieNode;
+import inet.ipaddr.format.util.AssociativeAddressTrie.ValueCodec;
 import inet.ipaddr.format.util.BaseDualIPv4v6Tries;
 import inet.ipaddr.format.util.BinaryTreeNode;
 import inet.ipaddr.format.util.BinaryTreeNode.CachingIterator;
+import inet.ipaddr.format.util.ConcurrentAddressTrie;
+import inet.ipaddr.format.util.ConcurrentCounterAddressTrie;
+import inet.ipaddr.format.util.ContainingNodeCursor;
 import inet.ipaddr.format.util.DualIPv4v6AssociativeTries;
 import inet.ipaddr.format.util.DualIPv4v6Tries;
 import inet.ipaddr.format.util.IPAddressAssociativeTrie;
 import inet.ipaddr.format.util.IPAddressTrie;
+import inet.ipaddr.format.util.IntValuedAddressTrie;
+import inet.ipaddr.format.util.LongValuedAddressTrie;
+import inet.ipaddr.format.util.LongValuedAddressTrie.LongValuedTrieNode;
 import inet.ipaddr.format.util.Partition;
 import inet.ipaddr.format.util.TreeOps;
 import inet.ipaddr.ipv4.IPv4Address;
 import inet.ipaddr.ipv4.IPv4AddressAssociativeTrie;
+import inet.ipaddr.ipv4.IPv4AddressIntValuedTrie;
+import inet.ipaddr.ipv4.IPv4AddressLongValuedTrie;
 import inet.ipaddr.ipv4.IPv4AddressTrie;
 import inet.ipaddr.ipv6.IPv6Address;
 import inet.ipaddr.ipv6.IPv6AddressAssociativeTrie;
+import inet.ipaddr.ipv6.IPv6AddressIntValuedTrie;
+import inet.ipaddr.ipv6.IPv6AddressLongValuedTrie;
 import inet.ipaddr.ipv6.IPv6AddressTrie;
 import inet.ipaddr.mac.MACAddress;
 import inet.ipaddr.mac.MACAddressAssociativeTrie;
@@ -493,6 +521,10 @@ public class TrieTest extends TestBase {
 		if(!addedString.contentEquals(strs.addedNodeString)) {
 			addFailure("trie string not right, got " + addedString + " instead of expected " + strs.addedNodeString, ipv6Tree);
 		}
+		addedString = ipv6Tree.addedNodesTreeView().toString();
+		if(!addedString.contentEquals(strs.addedNodeString)) {
+			addFailure("added nodes view string not right, got " + addedString + " instead of expected " + strs.addedNodeString, ipv6Tree);
+		}
 		
 		AddedTreeNode<IPv6Address> troot = addedT.getRoot();
 		class TCounter {
@@ -536,6 +568,10 @@ public class TrieTest extends TestBase {
 		if(!addedString.contentEquals(strs.addedNodeToIndexString)) {
 			addFailure("trie string not right, got " + addedString + " instead of expected " + strs.addedNodeToIndexString, ipv6Tree);
 		}
+		addedString = assocTrie.addedNodesTreeView().toString();
+		if(!addedString.contentEquals(strs.addedNodeToIndexString)) {
+			addFailure("added nodes view string not right, got " + addedString + " instead of expected " + strs.addedNodeToIndexString, ipv6Tree);
+		}
 		
 		AssociativeAddedTreeNode<IPv6Address, Integer> root = addedTree.getRoot();
 		class Counter {
@@ -579,6 +615,10 @@ public class TrieTest extends TestBase {
 		if(!addedString.contentEquals(strs.addedNodeString)) {
 			addFailure("trie string not right, got " + addedString + " instead of expected " + strs.addedNodeString, ipv4Tree);
 		}
+		addedString = ipv4Tree.addedNodesTreeView().toString();
+		if(!addedString.contentEquals(strs.addedNodeString)) {
+			addFailure("added nodes view string not right, got " + addedString + " instead of expected " + strs.addedNodeString, ipv4Tree);
+		}
 		
 		
 		AddedTreeNode<IPv4Address> troot = addedT.getRoot();
@@ -624,6 +664,10 @@ public class TrieTest extends TestBase {
 		if(!addedString.contentEquals(strs.addedNodeToIndexString)) {
 			addFailure("trie string not right, got " + addedString + " instead of expected " + strs.addedNodeToIndexString, ipv4Tree);
 		}
+		addedString = assocTrie.addedNodesTreeView().toString();
+		if(!addedString.contentEquals(strs.addedNodeToIndexString)) {
+			addFailure("added nodes view string not right, got " + addedString + " instead of expected " + strs.addedNodeToIndexString, ipv4Tree);
+		}
 		
 		AssociativeAddedTreeNode<IPv4Address, Integer> root = addedTree.getRoot();
 		class Counter {
@@ -1011,6 +1055,76 @@ public class TrieTest extends TestBase {
 		}
 	}
 	
+	<R extends BaseDualIPv4v6Tries<?,?>> void testDualStack(R tries) {
+		ArrayList<IPAddress> addrs = new ArrayList<>();
+		for(IPAddress key : tries) {
+			IPAddress addr = key.getLower().withoutPrefixLength();
+			addrs.add(addr);
+			if(addr.isIPv4()) {
+				String str = addr.toCanonicalString();
+				for(String prefix : new String[] {"::ffff:", "::ffff:0:", "64:ff9b::", "1::"}) {
+					addrs.add(new IPAddressString(prefix + str).getAddress());
+				}
+			}
+		}
+		Collections.shuffle(addrs, new Random(addrs.size()));
+		IPAddress addrArray[] = addrs.toArray(new IPAddress[addrs.size()]);
+		for(IPAddressConverter converter : new IPAddressConverter[] {null, new DefaultAddressConverter(), new EmbeddedIPv4AddressConverter()}) {
+			tries.setDualStackConverter(converter);
+			IPAddress matches[] = new IPAddress[addrArray.length];
+			tries.longestPrefixMatches(addrArray, matches);
+			for(int i = 0; i < addrArray.length; i++) {
+				IPAddress addr = addrArray[i];
+				IPAddress expected = addr.isIPv4() ? tries.getIPv4Trie().longestPrefixMatch(addr.toIPv4()) : tries.getIPv6Trie().longestPrefixMatch(addr.toIPv6());
+				if(converter != null && addr.isIPv6() && converter.isIPv4Convertible(addr)) {
+					IPv4Address ipv4Match = tries.getIPv4Trie().longestPrefixMatch(converter.toIPv4(addr));
+					if(ipv4Match != null && (expected == null || 
+							ipv4Match.getBitCount() - ipv4Match.getBlockMaskPrefixLength(true) <= expected.getBitCount() - expected.getBlockMaskPrefixLength(true))) {
+						expected = ipv4Match;
+					}
+				}
+				IPAddress match = tries.longestPrefixMatch(addr);
+				if(!Objects.equals(match, expected) || !Objects.equals(matches[i], expected) || tries.elementContains(addr) != (expected != null)) {
+					addFailure("dual-stack match of " + addr + " is " + match + " and " + matches[i] + ", expected " + expected + " with " + converter, tries.getIPv4Trie());
+				}
+				if(addr.toCanonicalString().startsWith("64:ff9b") && addr.toIPv6().getEmbeddedIPv4Address().equals(expected) && !(converter instanceof EmbeddedIPv4AddressConverter)) {
+					addFailure("translated address " + addr + " matched " + expected + " with " + converter, tries.getIPv4Trie());
+				}
+			}
+		}
+		tries.setDualStackConverter(null);
+
+		// splitting preserves order and covers both tries
+		for(boolean forward : new boolean[] {true, false}) {
+			ArrayList<Object> expected = new ArrayList<>(), split = new ArrayList<>();
+			tries.nodeIterator(forward).forEachRemaining(expected::add);
+			collectSplits(tries.nodeSpliterator(forward), split);
+			if(!expected.equals(split)) {
+				addFailure("split dual spliterator " + split + " does not match " + expected, tries.getIPv4Trie());
+			}
+			Spliterator<? extends TrieNode<? extends IPAddress>> spliterator = tries.nodeSpliterator(forward);
+			long total = spliterator.estimateSize();
+			Spliterator<? extends TrieNode<? extends IPAddress>> prefix = spliterator.trySplit();
+			if(prefix != null) {
+				long prefixSize = prefix.estimateSize(), sizeDiff = Math.abs(tries.getIPv4Trie().size() - tries.getIPv6Trie().size());
+				if(Math.abs(total - 2 * prefixSize) > Math.max(sizeDiff, 1) || prefixSize + spliterator.estimateSize() != total) {
+					addFailure("uneven dual split of " + total + " into " + prefixSize + " and " + spliterator.estimateSize(), tries.getIPv4Trie());
+				}
+			}
+		}
+		incrementTestCount();
+	}
+
+	static <T> void collectSplits(Spliterator<? extends T> spliterator, List<Object> result) {
+		Spliterator<? extends T> prefix = spliterator.trySplit();
+		if(prefix == null) {
+			spliterator.forEachRemaining(result::add);
+		} else {
+			collectSplits(prefix, result);
+			collectSplits(spliterator, result);
+		}
+	}
+
 	<R extends BaseDualIPv4v6Tries<?,?>, T extends Address> void testDualIterate(R tree) {
 		testIterate(tree, trie -> trie.blockSizeNodeIterator(true), true);
 		testIterate(tree, trie -> trie.blockSizeNodeIterator(false), true);
@@ -1492,6 +1606,682 @@ public class TrieTest extends TestBase {
 		addFailure(new Failure(str, address));
 	}
 	
+	// Most real-world prefixes are concentrated in a few address blocks, making for a lopsided trie
+	static IPv4AddressTrie createSkewedIPv4Trie(int count, long seed) {
+		Random random = new Random(seed);
+		IPv4AddressTrie trie = new IPv4AddressTrie();
+		int denseBlocks[] = {10, 100, 172, 192};
+		while(trie.size() < count) {
+			int value = random.nextInt();
+			if(random.nextInt(10) != 0) {
+				value = (denseBlocks[random.nextInt(denseBlocks.length)] << 24) | (value & 0xffffff);
+			}
+			int prefixLength = 16 + random.nextInt(17);
+			trie.add(new IPv4Address(value, prefixLength).toPrefixBlock());
+		}
+		return trie;
+	}
+
+	void testSkewedSpliterate() {
+		IPv4AddressTrie trie = createSkewedIPv4Trie(5000, 31);
+		testSkewedSpliterate(trie, trie.spliterator());
+		testSkewedSpliterate(trie, trie.descendingSpliterator());
+		testSkewedSpliterate(trie, trie.nodeSpliterator(true));
+		testSkewedSpliterate(trie, trie.nodeSpliterator(false));
+		
+		// sub-tries and bounded tries
+		IPv4AddressTrie.IPv4TrieNode subNode = trie.getRoot().getUpperSubNode();
+		testSkewedSpliterate(trie, subNode.nodeSpliterator(true));
+		testSkewedSpliterate(trie, subNode.nodeSpliterator(false));
+		AddressTrieSet<IPv4Address> subSet = trie.asSet().subSet(
+				new IPAddressString("10.128.0.0").getAddress().toIPv4(), new IPAddressString("172.64.0.0").getAddress().toIPv4());
+		testSkewedSpliterate(trie, subSet.spliterator());
+		testSkewedSpliterate(trie, subSet.descendingSet().spliterator());
+	}
+
+	void testBoundedSeek() {
+		IPv4AddressTrie trie = createSkewedIPv4Trie(2000, 47);
+		AddressTrieSet<IPv4Address> set = trie.asSet();
+		ArrayList<IPv4Address> ordered = new ArrayList<>(set);
+		int size = ordered.size();
+		// bounds in the trie, both inclusive and both exclusive
+		testBoundedSeek(trie, ordered.get(size / 3), true, ordered.get(size / 3 + 20), true);
+		testBoundedSeek(trie, ordered.get(size / 4), false, ordered.get(3 * size / 4), false);
+		// bounds that are not in the trie, one inclusive and one exclusive
+		testBoundedSeek(trie, ordered.get(size / 5).getLower().increment(1).withoutPrefixLength(), true,
+				ordered.get(size / 2).getLower().withoutPrefixLength(), false);
+		// bounds outside the addresses of the trie
+		testBoundedSeek(trie, new IPAddressString("0.0.0.0").getAddress().toIPv4(), false,
+				new IPAddressString("255.255.255.255").getAddress().toIPv4(), true);
+		incrementTestCount();
+	}
+
+	void testBoundedSeek(IPv4AddressTrie trie, IPv4Address from, boolean fromInclusive, IPv4Address to, boolean toInclusive) {
+		AddressTrieSet<IPv4Address> set = trie.asSet();
+		testBoundedSeek(trie, set.subSet(from, fromInclusive, to, toInclusive));
+		testBoundedSeek(trie, set.headSet(to, toInclusive));
+		testBoundedSeek(trie, set.tailSet(from, fromInclusive));
+		testBoundedSeek(trie, set.descendingSet().subSet(to, toInclusive, from, fromInclusive));
+	}
+
+	void testBoundedSeek(IPv4AddressTrie trie, AddressTrieSet<IPv4Address> subSet) {
+		AddressTrieSet<IPv4Address> set = trie.asSet();
+		if(subSet.comparator() != set.comparator()) {
+			set = set.descendingSet();
+		}
+		// the elements of the sub-set, found with a single pass through the unbounded set
+		HashSet<IPv4Address> expected = new HashSet<>();
+		for(IPv4Address addr : set) {
+			if(subSet.contains(addr)) {
+				expected.add(addr);
+			}
+		}
+		if(subSet.size() != expected.size()) {
+			addFailure(new Failure("bounded size " + subSet.size() + " expected " + expected.size() + " for " + subSet, trie));
+		}
+		compareBoundedSeek(trie, "iterator", subSet, expected, subSet.iterator(), set.iterator());
+		compareBoundedSeek(trie, "containing first", subSet, expected, subSet.containingFirstIterator(), set.containingFirstIterator());
+		compareBoundedSeek(trie, "contained first", subSet, expected, subSet.containedFirstIterator(), set.containedFirstIterator());
+		compareBoundedSeek(trie, "block size", subSet, expected, subSet.blockSizeIterator(), set.blockSizeIterator());
+	}
+
+	void compareBoundedSeek(IPv4AddressTrie trie, String name, AddressTrieSet<IPv4Address> subSet, HashSet<IPv4Address> elements, Iterator<IPv4Address> iterator, Iterator<IPv4Address> unboundedIterator) {
+		ArrayList<IPv4Address> expected = new ArrayList<>(elements.size()), iterated = new ArrayList<>();
+		unboundedIterator.forEachRemaining(addr -> {
+			if(elements.contains(addr)) {
+				expected.add(addr);
+			}
+		});
+		iterator.forEachRemaining(iterated::add);
+		if(!iterated.equals(expected)) {
+			addFailure(new Failure(name + " iterated " + iterated + " expected " + expected + " for " + subSet, trie));
+		}
+	}
+
+	<T> void testSkewedSpliterate(IPv4AddressTrie trie, Spliterator<T> spliterator) {
+		ArrayList<T> iterated = new ArrayList<>();
+		ArrayList<Spliterator<T>> list = new ArrayList<>();
+		list.add(spliterator);
+		long originalSize = spliterator.estimateSize();
+		while(true) {
+			ArrayList<Spliterator<T>> newList = new ArrayList<>();
+			for(Spliterator<T> toSplit : list) {
+				Spliterator<T> split = toSplit.trySplit();
+				if(split != null) {
+					long size1 = split.estimateSize(), size2 = toSplit.estimateSize();
+					if(size1 > size2 || size2 - size1 > 1) {
+						addFailure(new Failure("unequal split " + size1 + " and " + size2 + " of " + toSplit, trie));
+					}
+					newList.add(split);
+				} else if(toSplit.estimateSize() > 1) {
+					addFailure(new Failure("unable to split " + toSplit + " of size " + toSplit.estimateSize(), trie));
+				}
+				newList.add(toSplit);
+			}
+			if(newList.size() == list.size()) {
+				break;
+			}
+			list = newList;
+		}
+		long newSize = 0;
+		for(Spliterator<T> splitter : list) {
+			long size = splitter.estimateSize();
+			newSize += size;
+			splitter.forEachRemaining(iterated::add);
+			if(size != 0 && size != 1) {
+				addFailure(new Failure("split size " + size, trie));
+			}
+		}
+		if(newSize != originalSize || iterated.size() != originalSize) {
+			addFailure(new Failure("split size differs, got " + newSize + " and " + iterated.size() + " but size is " + originalSize, trie));
+		}
+		incrementTestCount();
+	}
+
+	// With splits based on sub-trie sizes, the first split of a skewed trie divides the elements evenly,
+	// and a parallel stream produces the same results as a sequential stream.
+	void testSkewedParallelStream() {
+		IPv4AddressTrie trie = createSkewedIPv4Trie(20000, 17);
+		Spliterator<IPv4Address> spliterator = trie.spliterator(), split = spliterator.trySplit();
+		ArrayList<IPv4Address> first = new ArrayList<>(), second = new ArrayList<>();
+		if(split != null) {
+			split.forEachRemaining(first::add);
+		}
+		spliterator.forEachRemaining(second::add);
+		int size = trie.size();
+		if(first.size() + second.size() != size || Math.min(first.size(), second.size()) < size / 4) {
+			addFailure(new Failure("uneven split of " + size + " into " + first.size() + " and " + second.size(), trie));
+		}
+		List<IPv4Address> sequential = trie.asSet().stream().filter(TrieTest::isSkewedMatch).collect(Collectors.toList());
+		List<IPv4Address> parallel = trie.asSet().parallelStream().filter(TrieTest::isSkewedMatch).collect(Collectors.toList());
+		if(!parallel.equals(sequential)) {
+			addFailure(new Failure("parallel stream of " + parallel.size() + " elements does not match sequential stream of " + sequential.size(), trie));
+		}
+		incrementTestCount();
+	}
+
+	// a little work per element, so that the stream is not bound by the speed of iteration alone
+	private static boolean isSkewedMatch(IPv4Address addr) {
+		return addr.toCanonicalString().hashCode() % 3 == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testFreeze(R trie) {
+		R frozen = (R) trie.clone();
+		frozen.freeze();
+		if(!frozen.isFrozen() || trie.isFrozen()) {
+			addFailure("frozen mismatch for " + trie, trie);
+		}
+		if(!frozen.equals(trie) || frozen.size() != trie.size() || !frozen.getMatchingAddressCount().equals(trie.getMatchingAddressCount())) {
+			addFailure("frozen trie " + frozen + " does not match " + trie, trie);
+		}
+		Iterator<? extends TrieNode<T>> nodes = trie.allNodeIterator(true), frozenNodes = frozen.allNodeIterator(true);
+		while(nodes.hasNext()) {
+			TrieNode<T> node = nodes.next(), frozenNode = frozenNodes.next();
+			if(node.size() != frozenNode.size() || !node.getMatchingAddressCount().equals(frozenNode.getMatchingAddressCount())) {
+				addFailure("frozen node " + frozenNode + " with size " + frozenNode.size() + " and count " + frozenNode.getMatchingAddressCount() + 
+						" does not match " + node + " with size " + node.size() + " and count " + node.getMatchingAddressCount(), trie);
+			}
+		}
+		T first = trie.isEmpty() ? null : trie.firstAddedNode().getKey();
+		List<Runnable> modifications = new ArrayList<>();
+		modifications.add(() -> frozen.clear());
+		if(first != null) {
+			modifications.add(() -> frozen.add(first));
+			modifications.add(() -> frozen.remove(first));
+			modifications.add(() -> frozen.removeElementsContainedBy(first));
+			modifications.add(() -> frozen.asSet().pollFirst());
+			modifications.add(() -> frozen.firstAddedNode().remove());
+			modifications.add(() -> frozen.getRoot().removeChildren());
+			Iterator<T> iterator = frozen.iterator();
+			iterator.next();
+			modifications.add(() -> iterator.remove());
+			if(frozen instanceof AssociativeAddressTrie) {
+				modifications.add(() -> ((AssociativeAddressTrie<T, Object>) frozen).put(first, null));
+				modifications.add(() -> ((AssociativeAddressTrie<T, Object>) frozen).firstAddedNode().setValue(null));
+			}
+		}
+		for(Runnable modification : modifications) {
+			try {
+				modification.run();
+				addFailure("frozen trie was modified: " + frozen, trie);
+			} catch(UnsupportedOperationException e) {}
+		}
+		if(!frozen.equals(trie)) {
+			addFailure("frozen trie " + frozen + " was changed from " + trie, trie);
+		}
+		R cloned = (R) frozen.clone();
+		if(cloned.isFrozen() || !cloned.equals(trie) || !cloned.getMatchingAddressCount().equals(trie.getMatchingAddressCount()) ||
+				!cloned.toString(true, true, true).equals(trie.toString(true, true, true))) {
+			addFailure("clone of frozen trie " + cloned + " does not match " + trie, trie);
+		}
+		if(first != null) {
+			R expected = (R) trie.clone();
+			expected.remove(first);
+			cloned.remove(first);
+			if(!cloned.equals(expected) || !cloned.getMatchingAddressCount().equals(expected.getMatchingAddressCount())) {
+				addFailure("modified clone of frozen trie " + cloned + " does not match " + expected, trie);
+			}
+		}
+		incrementTestCount();
+	}
+
+	// writes values that are null, integers or strings
+	static final ValueCodec<Object> TEST_VALUE_CODEC = new ValueCodec<Object>() {
+		@Override
+		public void write(Object value, DataOutput out) throws IOException {
+			if(value == null) {
+				out.writeByte(0);
+			} else if(value instanceof Integer) {
+				out.writeByte(1);
+				out.writeInt((Integer) value);
+			} else {
+				out.writeByte(2);
+				out.writeUTF(value.toString());
+			}
+		}
+
+		@Override
+		public Object read(DataInput in) throws IOException {
+			int type = in.readByte();
+			return type == 0 ? null : (type == 1 ? (Object) in.readInt() : in.readUTF());
+		}
+	};
+
+	@SuppressWarnings("unchecked")
+	static <T extends Address> void readTrieData(AddressTrie<T> trie, InputStream in) throws IOException {
+		if(trie instanceof AssociativeAddressTrie) {
+			((AssociativeAddressTrie<T, Object>) trie).readFrom(in, TEST_VALUE_CODEC);
+		} else {
+			trie.readFrom(in);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testTrieData(R trie) {
+		boolean isAssociative = trie instanceof AssociativeAddressTrie;
+		try {
+			ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+			if(isAssociative) {
+				((AssociativeAddressTrie<T, Object>) trie).writeTo(bytesOut, TEST_VALUE_CODEC);
+			} else {
+				trie.writeTo(bytesOut);
+			}
+			byte data[] = bytesOut.toByteArray();
+			
+			// read from a stream into a non-empty trie
+			R read = (R) trie.clone();
+			if(!trie.isEmpty()) {
+				read.remove(trie.firstAddedNode().getKey());
+			}
+			readTrieData(read, new ByteArrayInputStream(data));
+			if(!read.equals(trie) || read.nodeSize() != trie.nodeSize() || !read.getMatchingAddressCount().equals(trie.getMatchingAddressCount()) ||
+					!read.toString(true, true, true).equals(trie.toString(true, true, true))) {
+				addFailure("trie read from data " + read + " does not match " + trie, trie);
+			}
+			
+			// read from a buffer, followed by other data
+			ByteBuffer buffer = ByteBuffer.allocate(data.length + 3);
+			buffer.put(data).put(new byte[] {1, 2, 3}).flip();
+			R readBuffer = (R) trie.clone();
+			readBuffer.clear();
+			if(isAssociative) {
+				((AssociativeAddressTrie<T, Object>) readBuffer).readFrom(buffer, TEST_VALUE_CODEC);
+			} else {
+				readBuffer.readFrom(buffer);
+			}
+			if(buffer.position() != data.length || !readBuffer.toString(true, true, true).equals(trie.toString(true, true, true))) {
+				addFailure("trie read from buffer " + readBuffer + " at position " + buffer.position() + " does not match " + trie, trie);
+			}
+			
+			if(!trie.isEmpty()) {
+				// the data must be more compact than serialization
+				ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+				ObjectOutputStream objectOut = new ObjectOutputStream(serialized);
+				objectOut.writeObject(trie);
+				objectOut.close();
+				if(data.length >= serialized.size()) {
+					addFailure("trie data of " + data.length + " bytes exceeds serialized size " + serialized.size(), trie);
+				}
+				
+				// truncated data
+				try {
+					readTrieData(read, new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1)));
+					addFailure("truncated trie data was read into " + read, trie);
+				} catch(IOException e) {
+					if(!read.isEmpty()) {
+						addFailure("trie not cleared after failed read " + read, trie);
+					}
+				}
+				
+				// the data is for a different address type, so the other trie is left unchanged
+				AddressTrie<?> otherTrie;
+				if(trie.getRoot().getKey().getBitCount() == IPv4Address.BIT_COUNT) {
+					IPv6AddressTrie ipv6Trie = new IPv6AddressTrie();
+					ipv6Trie.add(new IPAddressString("1::/64").getAddress().toIPv6());
+					otherTrie = ipv6Trie;
+				} else {
+					IPv4AddressTrie ipv4Trie = new IPv4AddressTrie();
+					ipv4Trie.add(new IPAddressString("1.2.0.0/16").getAddress().toIPv4());
+					otherTrie = ipv4Trie;
+				}
+				String otherStr = otherTrie.toString();
+				try {
+					otherTrie.readFrom(new ByteArrayInputStream(data));
+					addFailure("trie data read into trie of different type " + otherTrie, trie);
+				} catch(IllegalArgumentException e) {
+					if(!otherTrie.toString().equals(otherStr)) {
+						addFailure("trie " + otherTrie + " changed by failed read, expected " + otherStr, trie);
+					}
+				}
+				
+				if(isAssociative) {
+					// the values are skipped when read without a codec
+					buffer.rewind();
+					R readKeys = (R) trie.clone();
+					readKeys.clear();
+					readKeys.readFrom(buffer);
+					if(buffer.position() != data.length || !new ArrayList<>(readKeys.asSet()).equals(new ArrayList<>(trie.asSet()))) {
+						addFailure("trie read without values " + readKeys + " at position " + buffer.position() + " does not match " + trie, trie);
+					}
+				}
+			}
+		} catch(IOException e) {
+			addFailure("unexpected failure reading trie data " + e, trie);
+		}
+		incrementTestCount();
+	}
+
+	void testInvalidTrieData() {
+		IPv4AddressTrie trie = new IPv4AddressTrie();
+		trie.add(new IPAddressString("0.0.0.0/1").getAddress().toPrefixBlock().toIPv4());
+		try {
+			ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+			trie.writeTo(bytesOut);
+			byte data[] = bytesOut.toByteArray();
+			// the root flags 010, the prefix length difference 1 in gamma coding, and the sub-node flags 100 for an added leaf
+			if(data[data.length - 1] != 0x58) {
+				addFailure("unexpected trie data " + Arrays.toString(data), trie);
+			} else {
+				// the leaf is no longer added
+				data[data.length - 1] = 0x50;
+				IPv4AddressTrie read = new IPv4AddressTrie();
+				try {
+					read.readFrom(new ByteArrayInputStream(data));
+					addFailure("trie data with a leaf that is not added was read into " + read, trie);
+				} catch(IOException e) {
+					if(!read.isEmpty()) {
+						addFailure("trie not cleared after failed read " + read, trie);
+					}
+				}
+			}
+		} catch(IOException e) {
+			addFailure("unexpected failure reading trie data " + e, trie);
+		}
+		incrementTestCount();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testChangeLog(R trie) {
+		boolean isAssociative = trie instanceof AssociativeAddressTrie;
+		ArrayList<T> keys = new ArrayList<>(trie.asSet());
+		for(int capacity : new int[] {1 << 20, 4}) {
+			R master = (R) trie.clone();
+			AddressTrieChangeLog<T> log = master.enableChangeLog(capacity);
+			if(master.getChangeLog() != log || trie.getChangeLog() != null || master.clone().getChangeLog() != null) {
+				addFailure("unexpected change log " + log, trie);
+			}
+			ArrayList<ChangeEvent<T>> heard = new ArrayList<>();
+			log.addListener(heard::add);
+			R replica = (R) master.clone();
+			long version = log.getVersion();
+			Runnable sync = () -> {
+				List<ChangeEvent<T>> changes = log.getChangesSince(0);
+				long ver = log.getVersion();
+				if(capacity >= ver && (changes == null || changes.size() != ver)) {
+					addFailure("changes not retained " + changes, master);
+				}
+				if(heard.size() != ver || (ver > 0 && heard.get(heard.size() - 1).getVersion() != ver)) {
+					addFailure("listener heard " + heard.size() + " changes, expected " + ver, master);
+				}
+				if(log.getChangesSince(ver + 1) != null || !log.getChangesSince(ver).isEmpty()) {
+					addFailure("unexpected changes following " + ver, master);
+				}
+			};
+			BiFunction<R, Long, Long> update = (rep, since) -> {
+				List<ChangeEvent<T>> changes = log.getChangesSince(since);
+				if(changes == null) {
+					if(log.getVersion() - since <= capacity) {
+						addFailure("changes since " + since + " not retained in " + log, master);
+					}
+					// the changes are no longer retained, so reload in full
+					rep.clear();
+					rep.addTrie(master.getRoot());
+					if(isAssociative) {
+						((AssociativeAddressTrie<T, Object>) rep).putTrie(((AssociativeAddressTrie<T, Object>) master).getRoot());
+					}
+				} else {
+					rep.applyChanges(changes);
+				}
+				if(!rep.equals(master) || !rep.toString(true, true, true).equals(master.toString(true, true, true))) {
+					addFailure("replica " + rep + " does not match " + master, master);
+				}
+				return log.getVersion();
+			};
+			for(int i = 0; i < keys.size(); i++) {
+				T key = keys.get(i);
+				if(i % 3 == 0) {
+					master.remove(key);
+				} else if(isAssociative) {
+					((AssociativeAddressTrie<T, Object>) master).put(key, "value" + i);
+				}
+			}
+			version = update.apply(replica, version);
+			if(!keys.isEmpty()) {
+				master.removeElementsContainedBy(keys.get(keys.size() / 2));
+				master.add(keys.get(0));
+				TrieNode<T> last = master.lastAddedNode();
+				if(last != null) {
+					last.remove();
+				}
+				if(isAssociative) {
+					((AssociativeAddressTrie<T, Object>) master).remap(keys.get(0), v -> "remapped");
+					((AssociativeAddressTrie<T, Object>) master).asMap().replaceAll((k, v) -> v + "replaced");
+				}
+			}
+			version = update.apply(replica, version);
+			master.clear();
+			master.addAll((T[]) keys.toArray(new Address[keys.size()]));
+			version = update.apply(replica, version);
+			sync.run();
+			try {
+				ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+				if(isAssociative) {
+					((AssociativeAddressTrie<T, Object>) trie).writeTo(bytesOut, TEST_VALUE_CODEC);
+				} else {
+					trie.writeTo(bytesOut);
+				}
+				readTrieData(master, new ByteArrayInputStream(bytesOut.toByteArray()));
+			} catch(IOException e) {
+				addFailure("unexpected exception " + e, trie);
+			}
+			version = update.apply(replica, version);
+			sync.run();
+			if(!master.toString(true, true, true).equals(trie.toString(true, true, true))) {
+				addFailure("trie read with change log " + master + " does not match " + trie, trie);
+			}
+			master.disableChangeLog();
+			master.clear();
+			if(master.getChangeLog() != null || log.getVersion() != version) {
+				addFailure("change log not disabled " + log, trie);
+			}
+		}
+		try {
+			trie.clone().enableChangeLog(0);
+			addFailure("enabled change log with no capacity", trie);
+		} catch(IllegalArgumentException e) {}
+		incrementTestCount();
+	}
+
+	<T extends Address> void testPrimitiveValued(IntValuedAddressTrie<T> intTrie, LongValuedAddressTrie<T> longTrie, AddressTrie<T> keyTrie) {
+		ArrayList<T> keys = new ArrayList<>(keyTrie.asSet());
+		HashMap<T, Integer> expected = new HashMap<>();
+		long longOffset = 1L << 40;
+		AddressTrieChangeLog<T> intLog = intTrie.enableChangeLog(1 << 20), longLog = longTrie.enableChangeLog(1 << 20);
+		IntValuedAddressTrie<T> intReplica = intTrie.clone();
+		LongValuedAddressTrie<T> longReplica = longTrie.clone();
+		for(int i = 0; i < keys.size(); i++) {
+			T key = keys.get(i);
+			if(intTrie.put(key, i) != 0 || intTrie.putNew(key, i) || longTrie.putNode(key, i + longOffset).getValue() != i + longOffset) {
+				addFailure("unexpected put result for " + key, intTrie);
+			}
+			if(intTrie.merge(key, 5, Integer::sum) != i + 5 || longTrie.merge(key, 5, Long::sum) != i + 5 + longOffset) {
+				addFailure("unexpected merge result for " + key, intTrie);
+			}
+			intTrie.remap(key, v -> v * 2);
+			longTrie.remap(key, v -> v * 2);
+			expected.put(key, 2 * (i + 5));
+		}
+		if(intTrie.size() != keys.size() || longTrie.size() != keys.size() || !new ArrayList<>(intTrie.asSet()).equals(keys)) {
+			addFailure("primitive valued trie " + intTrie + " does not match " + keyTrie, intTrie);
+		}
+		for(T key : keys) {
+			int value = expected.get(key);
+			if(intTrie.getOrDefault(key, -1) != value || longTrie.getOrDefault(key, -1) != value + 2 * longOffset ||
+					intTrie.longestPrefixMatchValue(key, -1) != value || intTrie.getAddedNode(key).getValue() != value) {
+				addFailure("unexpected value for " + key + " expected " + value + " got " + intTrie.getOrDefault(key, -1) + " and " + longTrie.getOrDefault(key, -1), intTrie);
+			}
+		}
+		IntValuedAddressTrie<T> cloned = intTrie.clone();
+		if(!cloned.equals(intTrie) || !cloned.toString().equals(intTrie.toString()) || !intTrie.union(keyTrie).equals(intTrie)) {
+			addFailure("copy of primitive valued trie " + cloned + " does not match " + intTrie, intTrie);
+		}
+		if(!keys.isEmpty()) {
+			T key = keys.get(keys.size() - 1);
+			cloned.getAddedNode(key).setValue(-1);
+			if(cloned.equals(intTrie)) {
+				addFailure("changed value in " + cloned + " matches " + intTrie, intTrie);
+			}
+			intTrie.remove(key);
+			AddressTrie<T> removedTrie = keyTrie.clone();
+			removedTrie.remove(key);
+			T longestMatch = removedTrie.longestPrefixMatch(key);
+			int expectedMatch = longestMatch == null ? -1 : expected.get(longestMatch);
+			if(intTrie.getOrDefault(key, -1) != -1 || intTrie.remap(key, v -> v + 1) != null || intTrie.longestPrefixMatchValue(key, -1) != expectedMatch) {
+				addFailure("unexpected value for removed " + key, intTrie);
+			}
+			if(!intTrie.add(key) || intTrie.getOrDefault(key, -1) != 0) {
+				addFailure("unexpected value for re-added " + key, intTrie);
+			}
+			intReplica.applyChanges(intLog.getChangesSince(0));
+			longReplica.applyChanges(longLog.getChangesSince(0));
+			if(!intReplica.equals(intTrie) || !longReplica.equals(longTrie)) {
+				addFailure("replica " + intReplica + " does not match " + intTrie, intTrie);
+			}
+			intTrie.freeze();
+			try {
+				intTrie.put(key, 1);
+				addFailure("frozen trie was modified " + intTrie, intTrie);
+			} catch(UnsupportedOperationException e) {}
+			try {
+				intTrie.getAddedNode(key).setValue(1);
+				addFailure("frozen trie was modified " + intTrie, intTrie);
+			} catch(UnsupportedOperationException e) {}
+		}
+		incrementTestCount();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends LongValuedAddressTrie<T>, T extends Address> void testConcurrentCounters(R prefixes, AddressTrie<T> keyTrie) {
+		ArrayList<T> keys = new ArrayList<>(keyTrie.asSet());
+		for(T key : keys) {
+			prefixes.add(key);
+		}
+		ConcurrentCounterAddressTrie<T, R> counters = new ConcurrentCounterAddressTrie<>(prefixes);
+		ArrayList<T> addrs = new ArrayList<>();
+		HashMap<T, Long> expected = new HashMap<>();
+		for(T key : keys) {
+			addrs.add((T) key.getLower().withoutPrefixLength());
+		}
+		int threadCount = 2, rounds = 20;
+		for(T addr : addrs) {
+			T match = keyTrie.longestPrefixMatch(addr);
+			if(match != null) {
+				expected.merge(match, (long) threadCount * rounds * 3, Long::sum);
+			}
+		}
+		List<Future<?>> jobs = new ArrayList<Future<?>>();
+		for(int j = 0; j < threadCount; j++) {
+			jobs.add(threadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for(int r = 0; r < rounds; r++) {
+						for(T addr : addrs) {
+							if(!counters.increment(addr, 2) | !counters.increment(addr)) {
+								addFailure("no counter for " + addr, keyTrie);
+							}
+						}
+					}
+				}
+			}));
+		}
+		HashMap<T, Long> totals = new HashMap<>();
+		boolean done = false;
+		while(!done) {
+			done = true;
+			for(Future<?> job : jobs) {
+				done &= job.isDone();
+			}
+			R counts = counters.getCountsAndReset();
+			if(counts.size() != keys.size() || counts.isFrozen()) {
+				addFailure("unexpected exported counts " + counts, keyTrie);
+			}
+			Iterator<? extends LongValuedTrieNode<T>> iterator = counts.nodeIterator(true);
+			while(iterator.hasNext()) {
+				LongValuedTrieNode<T> node = iterator.next();
+				if(node.getValue() != 0) {
+					totals.merge(node.getKey(), node.getValue(), Long::sum);
+				}
+			}
+		}
+		try {
+			for(Future<?> job : jobs) {
+				job.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			addFailure("unexpected interruption " + e, keyTrie);
+		}
+		if(!totals.equals(expected)) {
+			addFailure("counted " + totals + " expected " + expected, keyTrie);
+		}
+		if(!keys.isEmpty()) {
+			T first = keys.get(0), last = keys.get(keys.size() - 1);
+			counters.increment(last, 5);
+			if(!counters.removePrefix(first) || counters.removePrefix(first) || counters.getCount(first) != 0 ||
+					counters.size() != keys.size() - 1 || counters.getCount(last) != (keys.size() == 1 ? 0 : 5)) {
+				addFailure("unexpected counts after removing " + first + ": " + counters, keyTrie);
+			}
+			if(!counters.addPrefix(first) || counters.addPrefix(first) || counters.getCount(first) != 0 || counters.getPrefixes().size() != keys.size()) {
+				addFailure("unexpected counts after adding " + first + ": " + counters, keyTrie);
+			}
+			counters.increment(first, 1);
+			counters.removePrefix(first);
+			counters.update(t -> t.putNode(first, 3));
+			counters.increment(first, 4);
+			if(counters.getCount(first) != 7 || counters.getCounts().getOrDefault(first, -1) != 7) {
+				addFailure("unexpected count for " + first + ": " + counters, keyTrie);
+			}
+			counters.reset();
+			if(counters.getCount(first) != 0 || counters.getCount(last) != 0) {
+				addFailure("reset failed: " + counters, keyTrie);
+			}
+		}
+		incrementTestCount();
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	<R extends AddressTrie<T>, T extends Address> void testLongestPrefixMatches(R trie) {
+		ArrayList<T> addrs = new ArrayList<>();
+		Iterator<? extends TrieNode<T>> iterator = trie.allNodeIterator(false);
+		while(iterator.hasNext()) {
+			T key = iterator.next().getKey();
+			if(key != null) {
+				addrs.add(key);
+				addrs.add((T) key.getLower().withoutPrefixLength());
+				addrs.add((T) key.getUpper().withoutPrefixLength());
+			}
+		}
+		if(addrs.size() > 0) {
+			addrs.add(addrs.get(0));
+		}
+		T unsorted[] = (T[]) addrs.toArray(new Address[addrs.size()]);
+		Collections.sort(addrs, trie.getComparator());
+		T sorted[] = (T[]) addrs.toArray(new Address[addrs.size()]);
+		for(T addrArray[] : (T[][]) new Address[][] {unsorted, sorted}) {
+			TrieNode<T> nodes[] = new TrieNode[addrArray.length];
+			T matches[] = (T[]) new Address[addrArray.length];
+			trie.longestPrefixMatchNodes(addrArray, nodes);
+			trie.longestPrefixMatches(addrArray, matches);
+			Object values[] = null;
+			if(trie instanceof AssociativeAddressTrie) {
+				values = new Object[addrArray.length];
+				((AssociativeAddressTrie<T, Object>) trie).longestPrefixMatchValues(addrArray, values);
+			}
+			for(int i = 0; i < addrArray.length; i++) {
+				T addr = addrArray[i];
+				TrieNode<T> expected = trie.longestPrefixMatchNode(addr);
+				if(nodes[i] != expected) {
+					addFailure("batch match for " + addr + " was " + nodes[i] + " instead of " + expected, trie);
+				} else if(!Objects.equals(matches[i], trie.longestPrefixMatch(addr))) {
+					addFailure("batch match for " + addr + " was " + matches[i] + " instead of " + trie.longestPrefixMatch(addr), trie);
+				} else if(values != null && !Objects.equals(values[i], expected == null ? null : ((AssociativeTrieNode<T, ?>) expected).getValue())) {
+					addFailure("batch match value for " + addr + " was " + values[i], trie);
+				}
+			}
+		}
+		incrementTestCount();
+	}
+
 	@SuppressWarnings("unchecked")
 	<R extends AddressTrie<T>, T extends Address> void testContains(R trie) {
 		if(trie.size() > 0) {
@@ -1609,6 +2399,365 @@ public class TrieTest extends TestBase {
 		incrementTestCount();
 	}
 
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testVisitContaining(R trie) {
+		ArrayList<T> lookups = new ArrayList<>();
+		Iterator<? extends TrieNode<T>> iterator = trie.allNodeIterator(true);
+		while(iterator.hasNext()) {
+			T key = iterator.next().getKey();
+			if(key == null) {
+				continue;
+			}
+			lookups.add(key);
+			lookups.add((T) key.getLower().withoutPrefixLength());
+			lookups.add((T) key.getUpper().withoutPrefixLength());
+			Integer prefLen = key.getPrefixLength();
+			if(prefLen != null && prefLen > 0) {
+				lookups.add((T) key.setPrefixLength(prefLen - 1).toPrefixBlock());
+			}
+		}
+		ContainingNodeCursor<T> containingCursor = trie.containingNodeCursor(true), containedCursor = trie.containingNodeCursor(false);
+		for(T addr : lookups) {
+			// the expected nodes, shortest prefix first
+			ArrayList<TrieNode<T>> expected = new ArrayList<>();
+			TrieNode<T> containing = trie.elementsContaining(addr);
+			if(containing != null) {
+				containing.containingFirstIterator(true).forEachRemaining(node -> expected.add(trie.getAddedNode(node.getKey())));
+			}
+			ArrayList<TrieNode<T>> reversed = new ArrayList<>(expected);
+			Collections.reverse(reversed);
+
+			ArrayList<TrieNode<T>> visited = new ArrayList<>();
+			trie.visitElementsContaining(addr, true, visited::add);
+			checkVisitContaining(trie, addr, "visitor", expected, visited);
+			visited.clear();
+			trie.visitElementsContaining(addr, false, visited::add);
+			checkVisitContaining(trie, addr, "reverse visitor", reversed, visited);
+			visited.clear();
+			containingCursor.reset(addr).forEachRemaining(visited::add);
+			checkVisitContaining(trie, addr, "cursor", expected, visited);
+			visited.clear();
+			containedCursor.reset(addr).forEachRemaining(visited::add);
+			checkVisitContaining(trie, addr, "reverse cursor", reversed, visited);
+			if(containedCursor.size() != expected.size()) {
+				addFailure("cursor size " + containedCursor.size() + " for " + addr + " expected " + expected.size(), trie);
+			}
+
+			// primitive keys
+			if(!addr.isPrefixed() && (addr instanceof IPv4Address || addr instanceof IPv6Address)) {
+				visited.clear();
+				if(addr instanceof IPv4Address) {
+					int val = ((IPv4Address) addr).intValue();
+					trie.visitElementsContaining(val, false, visited::add);
+					checkVisitContaining(trie, addr, "int visitor", reversed, visited);
+					visited.clear();
+					containingCursor.reset(val).forEachRemaining(visited::add);
+				} else {
+					long vals[] = ((IPv6Address) addr).longValues();
+					trie.visitElementsContaining(vals[0], vals[1], false, visited::add);
+					checkVisitContaining(trie, addr, "long visitor", reversed, visited);
+					visited.clear();
+					containingCursor.reset(vals[0], vals[1]).forEachRemaining(visited::add);
+				}
+				checkVisitContaining(trie, addr, "primitive cursor", expected, visited);
+			}
+
+			// stopping early, at the longest prefix match
+			TrieNode<T> stopped = trie.visitElementsContaining(addr, false, node -> false);
+			if(stopped != trie.longestPrefixMatchNode(addr)) {
+				addFailure("visit stopped at " + stopped + " for " + addr + " expected " + trie.longestPrefixMatchNode(addr), trie);
+			}
+		}
+		if(trie instanceof IPv4AddressTrie) {
+			try {
+				trie.visitElementsContaining(1L, 1L, true, node -> true);
+				addFailure("expected failure for IPv6 lookup in IPv4 trie", trie);
+			} catch(IllegalArgumentException e) {
+				// expected
+			}
+		}
+		incrementTestCount();
+	}
+
+	<T extends Address> void checkVisitContaining(AddressTrie<T> trie, T addr, String name, List<TrieNode<T>> expected, List<TrieNode<T>> visited) {
+		if(visited.size() != expected.size()) {
+			addFailure(name + " visited " + visited + " for " + addr + " expected " + expected, trie);
+			return;
+		}
+		for(int i = 0; i < expected.size(); i++) {
+			if(visited.get(i) != expected.get(i)) {
+				addFailure(name + " visited " + visited + " for " + addr + " expected " + expected, trie);
+				return;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testArena(R trie) {
+		ArenaAddressTrie<T> arena = new ArenaAddressTrie<>(trie);
+		if(arena.size() != trie.size() || arena.nodeSize() != trie.nodeSize()) {
+			addFailure("arena size " + arena.size() + " nodes " + arena.nodeSize() + " expected " + trie.size() + " nodes " + trie.nodeSize(), trie);
+		}
+
+		// the elements in the same order
+		Iterator<T> arenaIterator = arena.iterator();
+		for(T addr : trie) {
+			if(!arenaIterator.hasNext()) {
+				addFailure("arena iterator ended before " + addr, trie);
+				break;
+			}
+			T arenaAddr = arenaIterator.next();
+			if(!arenaAddr.equals(addr) || !Objects.equals(arenaAddr.getPrefixLength(), addr.getPrefixLength())) {
+				addFailure("arena iterated " + arenaAddr + " expected " + addr, trie);
+				break;
+			}
+		}
+		if(arenaIterator.hasNext()) {
+			addFailure("arena iterator has extra element " + arenaIterator.next(), trie);
+		}
+
+		// the same nodes, structurally, although an empty arena trie has no root since it has no key type
+		Iterator<? extends TrieNode<T>> nodeIterator = trie.allNodeIterator(true);
+		while(!trie.isEmpty() && nodeIterator.hasNext()) {
+			TrieNode<T> node = nodeIterator.next();
+			T key = node.getKey();
+			ArenaAddressTrie.ArenaNode<T> arenaNode = arena.getNode(key);
+			if(arenaNode == null || arenaNode.isAdded() != node.isAdded() || !arenaNode.getKey().equals(key) || arenaNode.size() != node.size()) {
+				addFailure("arena node " + arenaNode + " expected " + node, trie);
+				continue;
+			}
+			checkArenaSubNode(trie, node.getLowerSubNode(), arenaNode.getLowerSubNode());
+			checkArenaSubNode(trie, node.getUpperSubNode(), arenaNode.getUpperSubNode());
+			checkArenaSubNode(trie, node.getParent(), arenaNode.getParent());
+		}
+
+		// lookups
+		ArrayList<T> lookups = new ArrayList<>();
+		for(T key : trie) {
+			lookups.add(key);
+			lookups.add((T) key.getUpper().withoutPrefixLength());
+			Integer prefLen = key.getPrefixLength();
+			if(prefLen != null && prefLen > 0) {
+				lookups.add((T) key.setPrefixLength(prefLen - 1).toPrefixBlock());
+			}
+		}
+		for(T addr : lookups) {
+			if(arena.contains(addr) != trie.contains(addr)) {
+				addFailure("arena contains " + arena.contains(addr) + " for " + addr, trie);
+			}
+			if(arena.elementContains(addr) != trie.elementContains(addr)) {
+				addFailure("arena element contains " + arena.elementContains(addr) + " for " + addr, trie);
+			}
+			if(!Objects.equals(arena.longestPrefixMatch(addr), trie.longestPrefixMatch(addr))) {
+				addFailure("arena longest prefix match " + arena.longestPrefixMatch(addr) + " for " + addr + " expected " + trie.longestPrefixMatch(addr), trie);
+			}
+			if((arena.getAddedNode(addr) == null) != (trie.getAddedNode(addr) == null)) {
+				addFailure("arena added node " + arena.getAddedNode(addr) + " for " + addr, trie);
+			}
+		}
+
+		// the node views
+		ArenaAddressTrie.ArenaNode<T> arenaRoot = arena.getRoot();
+		if(arenaRoot != null) {
+			Iterator<? extends TrieNode<T>> viewIterator = arenaRoot.nodeIterator(true);
+			for(T addr : trie) {
+				if(!viewIterator.hasNext() || !viewIterator.next().getKey().equals(addr)) {
+					addFailure("arena view iterator does not match at " + addr, trie);
+					break;
+				}
+			}
+			for(T addr : lookups) {
+				if(!Objects.equals(arenaRoot.longestPrefixMatch(addr), trie.longestPrefixMatch(addr)) ||
+						arenaRoot.elementsContainedBy(addr) == null != (trie.elementsContainedBy(addr) == null)) {
+					addFailure("arena view lookups of " + addr + " do not match", trie);
+				}
+			}
+			if(!arenaRoot.asNewTrie().equals(trie) || !arenaRoot.getMatchingAddressCount().equals(trie.getRoot().getMatchingAddressCount()) ||
+					arenaRoot.nodeSize() != trie.getRoot().nodeSize() || arenaRoot.size() != trie.size()) {
+				addFailure("arena view " + arenaRoot.toTreeString(true, true) + " does not match", trie);
+			}
+			try {
+				arenaRoot.firstAddedNode().remove();
+				addFailure("arena view was modified", trie);
+			} catch(UnsupportedOperationException e) {}
+		}
+
+		// back to an address trie
+		AddressTrie<T> copy = trie.clone();
+		copy.clear();
+		arena.addTo(copy);
+		if(!copy.equals(trie) || copy.nodeSize() != trie.nodeSize()) {
+			addFailure("arena copy " + copy + " expected " + trie, trie);
+		}
+
+		// adding an existing element is not a change, then clearing is
+		Iterator<T> unchangedIterator = arena.iterator();
+		if(!trie.isEmpty() && arena.add(trie.firstAddedNode().getKey())) {
+			addFailure("arena re-added " + trie.firstAddedNode(), trie);
+		}
+		try {
+			unchangedIterator.hasNext();
+			if(!trie.isEmpty()) {
+				unchangedIterator.next();
+			}
+		} catch(ConcurrentModificationException e) {
+			addFailure("re-adding an existing element changed the arena", trie);
+		}
+		Iterator<T> iterator = arena.iterator();
+		arena.clear();
+		try {
+			iterator.next();
+			addFailure("expected concurrent modification failure after clear", trie);
+		} catch(ConcurrentModificationException e) {
+			// expected
+		}
+		if(!arena.isEmpty() || arena.getRoot() != null || arena.iterator().hasNext()) {
+			addFailure("arena not empty after clear", trie);
+		}
+		incrementTestCount();
+	}
+
+	<T extends Address> void checkArenaSubNode(AddressTrie<T> trie, TrieNode<T> node, ArenaAddressTrie.ArenaNode<T> arenaNode) {
+		if(node == null ? arenaNode != null : arenaNode == null || !arenaNode.getKey().equals(node.getKey())) {
+			addFailure("arena node " + arenaNode + " expected " + node, trie);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testMetrics(R trie) {
+		AddressTrieMetrics metrics = trie.getMetrics();
+		if(metrics.getNodeCount() != trie.nodeSize() || metrics.getAddedCount() != trie.size()) {
+			addFailure("metrics " + metrics + " expected nodes " + trie.nodeSize() + " added " + trie.size(), trie);
+		}
+
+		// compute the expected depths from the parents of each node
+		int depthCounts[] = new int[metrics.getMaxDepth() + 1];
+		int prefixLengthCounts[] = new int[metrics.getPrefixLengthDistribution().length];
+		long totalPathLength = 0;
+		Iterator<? extends TrieNode<T>> iterator = trie.allNodeIterator(true);
+		while(iterator.hasNext()) {
+			TrieNode<T> node = iterator.next();
+			int depth = 0;
+			for(TrieNode<T> parent = node.getParent(); parent != null; parent = parent.getParent()) {
+				depth++;
+			}
+			if(depth >= depthCounts.length) {
+				addFailure("node " + node + " at depth " + depth + " exceeds max depth " + metrics.getMaxDepth(), trie);
+				return;
+			}
+			depthCounts[depth]++;
+			if(node.isAdded()) {
+				totalPathLength += depth + 1;
+				T key = node.getKey();
+				prefixLengthCounts[key.isPrefixed() ? key.getPrefixLength() : key.getBitCount()]++;
+			}
+		}
+		if(!Arrays.equals(depthCounts, metrics.getDepthHistogram()) || (depthCounts.length > 0 && depthCounts[depthCounts.length - 1] == 0)) {
+			addFailure("depth histogram " + Arrays.toString(metrics.getDepthHistogram()) + " expected " + Arrays.toString(depthCounts), trie);
+		}
+		if(!Arrays.equals(prefixLengthCounts, metrics.getPrefixLengthDistribution())) {
+			addFailure("prefix length distribution " + Arrays.toString(metrics.getPrefixLengthDistribution()) + " expected " + Arrays.toString(prefixLengthCounts), trie);
+		}
+		double expectedAverage = trie.isEmpty() ? 0 : totalPathLength / (double) trie.size();
+		if(metrics.getAverageLookupPathLength() != expectedAverage) {
+			addFailure("average lookup path length " + metrics.getAverageLookupPathLength() + " expected " + expectedAverage, trie);
+		}
+		Map<String, Number> map = metrics.toMap();
+		if(!map.get(AddressTrieMetrics.NODE_COUNT).equals(trie.nodeSize()) ||
+				!map.get(AddressTrieMetrics.ESTIMATED_BYTES).equals(metrics.getEstimatedBytes()) ||
+				metrics.getEstimatedBytes() != trie.nodeSize() * (long) metrics.getEstimatedBytesPerNode()) {
+			addFailure("metrics map " + map, trie);
+		}
+
+		// snapshots are recomputed only after changes
+		Supplier<AddressTrieMetrics> supplier = trie.metricsSupplier();
+		AddressTrieMetrics snapshot = supplier.get();
+		if(supplier.get() != snapshot) {
+			addFailure("metrics recomputed for unchanged trie", trie);
+		}
+		if(!trie.isEmpty()) {
+			R copy = (R) trie.clone();
+			supplier = copy.metricsSupplier();
+			snapshot = supplier.get();
+			copy.remove(copy.firstAddedNode().getKey());
+			AddressTrieMetrics changed = supplier.get();
+			if(changed == snapshot || changed.getAddedCount() != trie.size() - 1 || changed.getNodeCount() != copy.nodeSize()) {
+				addFailure("metrics " + changed + " after removal, expected added " + (trie.size() - 1), trie);
+			}
+			
+			// frozen nodes do not store contained counts
+			copy.freeze();
+			AddressTrieMetrics frozen = copy.getMetrics();
+			if(frozen.getNodeCount() != changed.getNodeCount() || (!copy.isEmpty() && frozen.getEstimatedBytesPerNode() >= changed.getEstimatedBytesPerNode())) {
+				addFailure("frozen metrics " + frozen + " expected fewer bytes per node than " + changed, trie);
+			}
+		}
+		incrementTestCount();
+	}
+
+	<R extends AddressTrie<T>, T extends Address> void testAddedNodesTreeView(R trie) {
+		AddedNodesTreeView<T> view = trie.addedNodesTreeView();
+		if(!view.toString().equals(trie.toAddedNodesTreeString())) {
+			addFailure("added nodes view " + view + " expected " + trie.toAddedNodesTreeString(), trie);
+		}
+
+		// the sub-nodes of each added node are its nearest added descendants in the trie
+		Iterator<? extends TrieNode<T>> iterator = trie.nodeIterator(true);
+		while(iterator.hasNext()) {
+			TrieNode<T> node = iterator.next();
+			AddedNodesTreeView.AddedNodeView<T> viewNode = view.getAddedNode(node.getKey());
+			if(viewNode == null || viewNode.getTrieNode() != node) {
+				addFailure("added nodes view node " + viewNode + " expected " + node, trie);
+				continue;
+			}
+			ArrayList<TrieNode<T>> expected = new ArrayList<>();
+			Iterator<? extends TrieNode<T>> subIterator = node.containingFirstIterator(true);
+			subIterator.next(); // the node itself
+			while(subIterator.hasNext()) {
+				TrieNode<T> sub = subIterator.next();
+				TrieNode<T> parent = sub.getParent();
+				while(!parent.isAdded()) {
+					parent = parent.getParent();
+				}
+				if(parent == node) {
+					expected.add(sub);
+				}
+			}
+			AddedNodesTreeView.AddedNodeView<T> subNodes[] = viewNode.getSubNodes();
+			int count = subNodes == null ? 0 : subNodes.length;
+			if(count != expected.size()) {
+				addFailure("added nodes view sub-nodes " + Arrays.toString(subNodes) + " expected " + expected, trie);
+				continue;
+			}
+			for(int i = 0; i < count; i++) {
+				if(subNodes[i].getTrieNode() != expected.get(i) || !subNodes[i].getParent().equals(viewNode)) {
+					addFailure("added nodes view sub-nodes " + Arrays.toString(subNodes) + " expected " + expected, trie);
+					break;
+				}
+			}
+		}
+
+		// the view reflects changes, while nodes obtained before the change fail
+		if(!trie.isEmpty()) {
+			@SuppressWarnings("unchecked")
+			R copy = (R) trie.clone();
+			view = copy.addedNodesTreeView();
+			AddedNodesTreeView.AddedNodeView<T> root = view.getRoot();
+			T first = copy.firstAddedNode().getKey();
+			copy.remove(first);
+			try {
+				root.getSubNodes();
+				addFailure("expected concurrent modification failure from added nodes view", trie);
+			} catch(ConcurrentModificationException e) {
+				// expected
+			}
+			if(view.getAddedNode(first) != null || !view.toString().equals(copy.toAddedNodesTreeString())) {
+				addFailure("added nodes view " + view + " after removing " + first + " expected " + copy.toAddedNodesTreeString(), trie);
+			}
+		}
+		incrementTestCount();
+	}
+
 	@SuppressWarnings("unchecked")
 	<R extends AddressTrie<T>, T extends Address> void testEdges(R trie, List<? extends T> addrs) {
 		trie.clear();
@@ -1749,9 +2898,302 @@ public class TrieTest extends TestBase {
 		if(!trie3.equals(trie4)) {
 			addFailure("tries not equal: " + trie3 + " and " + trie4, trie);
 		}
+
+		// bulk construction, from both unsorted and sorted addresses, must produce the same structure as adding individually
+		R trie5 = (R) trie.clone(), trie6 = (R) trie.clone();
+		trie5.clear();
+		trie6.clear();
+		T unsorted[] = (T[]) addrs.toArray(new Address[addrs.size()]);
+		T sorted[] = unsorted.clone();
+		Arrays.sort(sorted, Address.ADDRESS_LOW_VALUE_COMPARATOR);
+		boolean changed = trie5.addAll(unsorted);
+		trie6.addAll(sorted);
+		String expected = trie.toString(true, true, true);
+		if(changed != (addrs.size() > 0) || trie5.size() != trie.size() || trie5.nodeSize() != trie.nodeSize() ||
+				!trie5.getMatchingAddressCount().equals(trie.getMatchingAddressCount()) || !expected.equals(trie5.toString(true, true, true))) {
+			addFailure("bulk trie not equal: " + trie5 + " and " + trie, trie);
+		} else if(!expected.equals(trie6.toString(true, true, true))) {
+			addFailure("bulk trie not equal: " + trie6 + " and " + trie, trie);
+		} else if(!trie5.equals(trie)) {
+			addFailure("bulk trie not equal: " + trie5 + " and " + trie, trie);
+		}
+		for(T addr : addrs) {
+			if(trie5.getAddedNode(addr) == null || !trie5.getAddedNode(addr).getKey().equals(trie.getAddedNode(addr).getKey())) {
+				addFailure("bulk trie missing " + addr, trie5);
+			}
+		}
+		trie6.clear();
+		int half = addrs.size() / 2;
+		for(i = 0; i < half; i++) {
+			trie6.add(addrs.get(i));
+		}
+		if(trie6.addAll(unsorted) != (addrs.size() > half) || !trie6.equals(trie)) {
+			addFailure("tries not equal: " + trie6 + " and " + trie, trie);
+		}
+
+		// an address with a different bit count prevents all the addresses from being added, whether the trie is empty or not
+		if(trie instanceof IPAddressTrie && addrs.size() > 0) {
+			IPAddress other = new IPAddressString(((IPAddress) addrs.get(0)).isIPv4() ? "::1" : "1.2.3.4").getAddress();
+			T mixed[] = Arrays.copyOf(unsorted, unsorted.length + 1);
+			mixed[unsorted.length] = (T) other;
+			trie5.clear();
+			for(R bulkTrie : Arrays.asList(trie5, trie6)) {
+				R original = (R) bulkTrie.clone();
+				try {
+					bulkTrie.addAll(mixed);
+					addFailure("mixed bit counts added: " + bulkTrie, trie);
+				} catch(IllegalArgumentException e) {
+					if(!bulkTrie.equals(original)) {
+						addFailure("trie changed by failed bulk add: " + bulkTrie + " and " + original, trie);
+					}
+				}
+			}
+		}
 		incrementTestCount();
 	}
-	
+
+	void testMixedSetAlgebra(IPv4AddressTrie ipv4Trie, IPv6AddressTrie ipv6Trie) {
+		IPAddressTrie one = new IPAddressTrie(), two = new IPAddressTrie();
+		for(IPv4Address addr : ipv4Trie) {
+			one.add(addr);
+		}
+		for(IPv6Address addr : ipv6Trie) {
+			two.add(addr);
+		}
+		// tries of different versions have no elements in common
+		if(!one.intersection(two).isEmpty() || !one.difference(two).equals(one) || !two.difference(one).equals(two)) {
+			addFailure("mixed version set algebra failed: " + one + " and " + two, one);
+		}
+		// no trie can have the elements of both
+		if(!one.isEmpty() && !two.isEmpty()) {
+			try {
+				addFailure("mixed version union: " + one.union(two), one);
+			} catch(IllegalArgumentException e) {}
+			try {
+				addFailure("mixed version symmetric difference: " + one.symmetricDifference(two), one);
+			} catch(IllegalArgumentException e) {}
+		}
+		incrementTestCount();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testSetAlgebra(R one, R two) {
+		R original1 = (R) one.clone(), original2 = (R) two.clone();
+
+		R expectedUnion = (R) one.clone();
+		for(T addr : two) {
+			expectedUnion.add(addr);
+		}
+		R expectedIntersection = (R) one.clone();
+		R expectedDifference = (R) one.clone();
+		R expectedSymmetricDifference = (R) expectedUnion.clone();
+		for(T addr : one) {
+			if(two.contains(addr)) {
+				expectedDifference.remove(addr);
+				expectedSymmetricDifference.remove(addr);
+			} else {
+				expectedIntersection.remove(addr);
+			}
+		}
+		testSetAlgebraOp(one, two, one.union(two), "union", expectedUnion);
+		testSetAlgebraOp(two, one, two.union(one), "union", expectedUnion);
+		testSetAlgebraOp(one, two, one.intersection(two), "intersection", expectedIntersection);
+		testSetAlgebraOp(two, one, two.intersection(one), "intersection", expectedIntersection);
+		testSetAlgebraOp(one, two, one.difference(two), "difference", expectedDifference);
+		testSetAlgebraOp(one, two, one.symmetricDifference(two), "symmetric difference", expectedSymmetricDifference);
+		testSetAlgebraOp(two, one, two.symmetricDifference(one), "symmetric difference", expectedSymmetricDifference);
+		testSetAlgebraOp(one, one, one.intersection(one), "intersection", one);
+		R empty = (R) one.clone();
+		empty.clear();
+		testSetAlgebraOp(one, one, one.difference(one), "difference", empty);
+		if(!one.equals(original1) || !two.equals(original2)) {
+			addFailure("operands modified: " + one + " and " + two, one);
+		}
+		if(one instanceof AssociativeAddressTrie) {
+			testSetAlgebraValues((AssociativeAddressTrie<T, Object>) one, (AssociativeAddressTrie<T, Object>) two);
+		}
+	}
+
+	<R extends AddressTrie<T>, T extends Address> void testSetAlgebraOp(R one, R two, AddressTrie<T> result, String opName, AddressTrie<T> expected) {
+		boolean matches = result.size() == expected.size() && result.nodeSize() == expected.nodeSize();
+		if(matches) {
+			// compare keys only, since the expected associative tries are not populated with values
+			Iterator<? extends TrieNode<T>> resultNodes = result.allNodeIterator(true), expectedNodes = expected.allNodeIterator(true);
+			while(matches && resultNodes.hasNext()) {
+				TrieNode<T> resultNode = resultNodes.next(), expectedNode = expectedNodes.next();
+				matches = resultNode.isAdded() == expectedNode.isAdded() && Objects.equals(resultNode.getKey(), expectedNode.getKey());
+			}
+		}
+		if(!matches) {
+			addFailure(opName + " of " + one + " and " + two + " expected: " + expected + " actual: " + result, result);
+		}
+		incrementTestCount();
+	}
+
+	<T extends Address, V> void testSetAlgebraValues(AssociativeAddressTrie<T, V> one, AssociativeAddressTrie<T, V> two) {
+		AssociativeAddressTrie<T, V> union = one.union(two);
+		for(T addr : union) {
+			V expected = one.contains(addr) ? one.get(addr) : two.get(addr);
+			if(!Objects.equals(union.get(addr), expected)) {
+				addFailure("union value for " + addr + " expected: " + expected + " actual: " + union.get(addr), union);
+			}
+		}
+		AssociativeAddressTrie<T, V> symmetricDifference = two.symmetricDifference(one);
+		for(T addr : symmetricDifference) {
+			V expected = two.contains(addr) ? two.get(addr) : one.get(addr);
+			if(!Objects.equals(symmetricDifference.get(addr), expected)) {
+				addFailure("symmetric difference value for " + addr + " expected: " + expected + " actual: " + symmetricDifference.get(addr), symmetricDifference);
+			}
+		}
+		incrementTestCount();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AddressTrie<T>, T extends Address> void testConcurrent(R trie, List<? extends T> addrs) {
+		trie.clear();
+		ConcurrentAddressTrie<T, R> concurrentTrie = new ConcurrentAddressTrie<>(trie);
+		R emptySnapshot = concurrentTrie.snapshot();
+
+		// the addresses may include duplicates, and addresses that are the same trie element
+		R reference = (R) trie.clone();
+		Set<T> expected = new HashSet<>();
+		for(T addr : addrs) {
+			reference.add(addr);
+		}
+		for(T addr : reference) {
+			expected.add(addr);
+		}
+		int expectedSize = expected.size();
+		AtomicInteger readCount = new AtomicInteger();
+		List<Future<?>> jobs = new ArrayList<Future<?>>();
+		for(int j = 0; j < 2; j++) {
+			jobs.add(threadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					int lastSize = 0;
+					while(lastSize < expectedSize) {
+						R snapshot = concurrentTrie.snapshot();
+						int size = snapshot.size(), count = 0;
+						for(T addr : snapshot) {
+							if(!expected.contains(addr)) {
+								addFailure("unexpected element " + addr, snapshot);
+							}
+							count++;
+						}
+						if(count != size) {
+							addFailure("snapshot size " + size + " does not match iterated count " + count, snapshot);
+						} else if(size < lastSize) {
+							addFailure("snapshot size " + size + " decreased from " + lastSize, snapshot);
+						}
+						lastSize = size;
+						readCount.incrementAndGet();
+					}
+				}
+			}));
+		}
+		Set<T> added = new HashSet<>();
+		int k = 0;
+		for(T addr : addrs) {
+			boolean isNew = added.add(reference.getNode(addr).getKey());
+			if(++k % 3 == 0) {
+				concurrentTrie.update(t -> t.add(addr));
+			} else if(concurrentTrie.add(addr) != isNew) {
+				addFailure("adding " + addr + " should " + (isNew ? "" : "not ") + "succeed ", trie);
+			}
+			if(concurrentTrie.add(addr)) {
+				addFailure("adding " + addr + " twice should not succeed ", trie);
+			}
+		}
+		try {
+			for(Future<?> job : jobs) {
+				job.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			addFailure("unexpected interruption " + e, trie);
+		}
+		if(!emptySnapshot.isEmpty()) {
+			addFailure("snapshot modified: " + emptySnapshot, trie);
+		}
+		for(T addr : addrs) {
+			trie.add(addr);
+		}
+		if(!concurrentTrie.snapshot().equals(trie) || concurrentTrie.size() != trie.size()) {
+			addFailure("tries not equal: " + trie + " and " + concurrentTrie, trie);
+		}
+		for(T addr : addrs) {
+			if(!concurrentTrie.contains(addr) || !Objects.equals(concurrentTrie.longestPrefixMatch(addr), trie.longestPrefixMatch(addr))) {
+				addFailure("lookup of " + addr + " does not match", trie);
+			}
+		}
+		ConcurrentAddressTrie<T, R> cloned = concurrentTrie.clone();
+		R fullSnapshot = concurrentTrie.snapshot();
+		Iterator<T> iterator = concurrentTrie.iterator();
+		k = 0;
+		while(iterator.hasNext()) {
+			T addr = iterator.next();
+			if(++k % 2 == 0) {
+				iterator.remove();
+				trie.remove(addr);
+			}
+		}
+		if(!concurrentTrie.snapshot().equals(trie) || !fullSnapshot.equals(cloned.snapshot()) || !cloned.equals(new ConcurrentAddressTrie<>(fullSnapshot))) {
+			addFailure("tries not equal after removal: " + trie + " and " + concurrentTrie, trie);
+		} else if(addrs.size() > 1 && fullSnapshot.size() == concurrentTrie.size()) {
+			addFailure("removal did not change size " + concurrentTrie.size(), trie);
+		}
+		concurrentTrie.update(t -> t.clear());
+		if(!concurrentTrie.isEmpty() || cloned.size() != expectedSize) {
+			addFailure("clear failed: " + concurrentTrie, trie);
+		}
+		trie.clear();
+		incrementTestCount();
+	}
+
+	@SuppressWarnings("unchecked")
+	<R extends AssociativeAddressTrie<T, Integer>, T extends Address> void testBatchRemap(R trie, List<? extends T> addrs) {
+		trie.clear();
+		for(int i = 0; i < addrs.size(); i += 2) {
+			trie.put(addrs.get(i), i);
+		}
+		BiFunction<Integer, Integer, Integer> merger = (existing, supplied) -> (existing + supplied) % 3 == 0 ? null : existing + supplied;
+		Map<T, Integer> toMerge = new HashMap<>();
+		for(int i = 0; i < addrs.size(); i++) {
+			toMerge.put(addrs.get(i), i + 1);
+		}
+		R expected = (R) trie.clone();
+		toMerge.forEach((key, value) -> expected.asMap().merge(key, value, merger));
+		R merged = (R) trie.clone();
+		merged.asMap().mergeAll(toMerge, merger);
+		if(!merged.asMap().equals(expected.asMap()) || merged.nodeSize() != expected.nodeSize()) {
+			addFailure("mergeAll produced " + merged + " expected " + expected, trie);
+		}
+
+		// keys appearing more than once are computed once for each appearance
+		ArrayList<T> toCompute = new ArrayList<>(addrs);
+		for(int i = 0; i < addrs.size(); i += 3) {
+			toCompute.add(addrs.get(i));
+		}
+		Collections.shuffle(toCompute, new Random(addrs.size()));
+		BiFunction<T, Integer, Integer> computer = (key, existing) -> existing == null ? Integer.valueOf(Math.abs(key.hashCode() % 7)) : (existing % 5 == 0 ? null : existing + 1);
+		R expectedComputed = (R) merged.clone();
+		for(T key : toCompute) {
+			expectedComputed.asMap().compute(key, computer);
+		}
+		merged.asMap().computeAll(toCompute, computer);
+		if(!merged.asMap().equals(expectedComputed.asMap()) || merged.nodeSize() != expectedComputed.nodeSize()) {
+			addFailure("computeAll produced " + merged + " expected " + expectedComputed, trie);
+		}
+		incrementTestCount();
+	}
+
+	void testSkewedBatchRemap() {
+		IPv4AddressTrie keys = createSkewedIPv4Trie(5000, 53);
+		ArrayList<IPv4Address> addrs = new ArrayList<>();
+		keys.forEach(addrs::add);
+		Collections.shuffle(addrs, new Random(53));
+		testBatchRemap(new IPv4AddressAssociativeTrie<Integer>(), addrs);
+	}
+
 	@SuppressWarnings("unchecked")
 	<R extends AssociativeAddressTrie<T,V>, T extends Address, V> void testMap(R trie, List<? extends T> addrs,
 			IntFunction<V> valueProducer, Function<V,V> mapper) {
@@ -3817,6 +5259,9 @@ public class TrieTest extends TestBase {
 				testIterate(ipTree);
 				testSpliterate(ipTree);
 				testContains(ipTree);
+				testLongestPrefixMatches(ipTree);
+				testFreeze(ipTree);
+				testTrieData(ipTree);
 				testSerialize(ipTree);
 				
 //				System.out.println(ipTree);
@@ -3833,6 +5278,9 @@ public class TrieTest extends TestBase {
 				testIterate(ipTree);
 				testSpliterate(ipTree);
 				testContains(ipTree);
+				testLongestPrefixMatches(ipTree);
+				testFreeze(ipTree);
+				testTrieData(ipTree);
 				testSerialize(ipTree);
 				
 //				System.out.println(ipTree);
@@ -3856,6 +5304,16 @@ public class TrieTest extends TestBase {
 				testIterate(ipv6Tree);
 				testSpliterate(ipv6Tree);
 				testContains(ipv6Tree);
+				testVisitContaining(ipv6Tree);
+				testArena(ipv6Tree);
+				testMetrics(ipv6Tree);
+				testAddedNodesTreeView(ipv6Tree);
+				testLongestPrefixMatches(ipv6Tree);
+				testFreeze(ipv6Tree);
+				testTrieData(ipv6Tree);
+				testPrimitiveValued(new IPv6AddressIntValuedTrie(), new IPv6AddressLongValuedTrie(), ipv6Tree);
+				testChangeLog(ipv6Tree);
+				testConcurrentCounters(new IPv6AddressLongValuedTrie(), ipv6Tree);
 				testSerialize(ipv6Tree);
 			}
 			
@@ -3872,6 +5330,24 @@ public class TrieTest extends TestBase {
 				testIterate(ipv4Tree);
 				testSpliterate(ipv4Tree);
 				testContains(ipv4Tree);
+				testVisitContaining(ipv4Tree);
+				testArena(ipv4Tree);
+				testMetrics(ipv4Tree);
+				testAddedNodesTreeView(ipv4Tree);
+				testLongestPrefixMatches(ipv4Tree);
+				testFreeze(ipv4Tree);
+				testTrieData(ipv4Tree);
+				IPv4AddressAssociativeTrie<Integer> ipv4AssocTrie = new IPv4AddressAssociativeTrie<>();
+				createIPv4SampleAssocTree(ipv4AssocTrie, treeAddrs);
+				testLongestPrefixMatches(ipv4AssocTrie);
+				testVisitContaining(ipv4AssocTrie);
+				testAddedNodesTreeView(ipv4AssocTrie);
+				testFreeze(ipv4AssocTrie);
+				testTrieData(ipv4AssocTrie);
+				testPrimitiveValued(new IPv4AddressIntValuedTrie(), new IPv4AddressLongValuedTrie(), ipv4Tree);
+				testChangeLog(ipv4Tree);
+				testChangeLog(ipv4AssocTrie);
+				testConcurrentCounters(new IPv4AddressLongValuedTrie(), ipv4Tree);
 				testSerialize(ipv4Tree);
 			}
 
@@ -3889,6 +5365,17 @@ public class TrieTest extends TestBase {
 				createIPv4SampleTree(ipv4Tree, treeAddrs2);
 				DualIPv4v6Tries dualTries = new DualIPv4v6Tries(ipv4Tree, ipv6Tree);
 				testDualIterate(dualTries);
+				testDualStack(dualTries);
+
+				IPv4AddressTrie ipv4Tree1 = new IPv4AddressTrie(), ipv4Tree2 = new IPv4AddressTrie();
+				createIPv4SampleTree(ipv4Tree1, treeAddrs);
+				createIPv4SampleTree(ipv4Tree2, treeAddrs2);
+				testSetAlgebra(ipv4Tree1, ipv4Tree2);
+				IPv6AddressTrie ipv6Tree1 = new IPv6AddressTrie(), ipv6Tree2 = new IPv6AddressTrie();
+				createIPv6SampleTree(ipv6Tree1, treeAddrs);
+				createIPv6SampleTree(ipv6Tree2, treeAddrs2);
+				testSetAlgebra(ipv6Tree1, ipv6Tree2);
+				testMixedSetAlgebra(ipv4Tree1, ipv6Tree2);
 				
 			}
 			
@@ -3905,6 +5392,12 @@ public class TrieTest extends TestBase {
 				
 				//System.out.println(dualTries);
 				testDualIterate(dualTries);	
+				testDualStack(dualTries);
+
+				IPv4AddressAssociativeTrie<Integer> ipv4Trie1 = new IPv4AddressAssociativeTrie<>(), ipv4Trie2 = new IPv4AddressAssociativeTrie<>();
+				createIPv4SampleAssocTree(ipv4Trie1, treeAddrs);
+				createIPv4SampleAssocTree(ipv4Trie2, treeAddrs2);
+				testSetAlgebra(ipv4Trie1, ipv4Trie2);
 			}
 			
 		}
@@ -3922,9 +5415,11 @@ public class TrieTest extends TestBase {
 			if(size > 0 || notYetDoneEmptyIPv4) {
 				// the first step in each test is to populate the trie, so we don't bother clearing the trie after each test
 				testAdd(ipTree, addrsv4);
+				testConcurrent(ipTree, addrsv4);
 				testEdges(ipTree, addrsv4);
 				testSet(ipTree, addrsv4);
 				testMap(ipAssociativeTreeInteger, addrsv4, i -> i, i -> 2 * 1);
+				testBatchRemap(ipAssociativeTreeInteger, addrsv4);
 				testSetEdges(ipTree, addrsv4);
 				
 				ipTree.clear();
@@ -3938,6 +5433,7 @@ public class TrieTest extends TestBase {
 				testEdges(ipTree, addrsv6);
 				testSet(ipTree, addrsv6);
 				testMap(ipAssociativeTreeInteger, addrsv6, i -> i, i -> 2 * 1);
+				testBatchRemap(ipAssociativeTreeInteger, addrsv6);
 				testSetEdges(ipTree, addrsv6);
 				testMapEdges(ipAssociativeTreeString, addrsv6, i -> ("foo" + i));
 				
@@ -3954,9 +5450,11 @@ public class TrieTest extends TestBase {
 					notYetDoneEmptyIPv4 = size != 0;
 				}
 				testAdd(new IPv4AddressTrie(), addrsv4);
+				testConcurrent(new IPv4AddressTrie(), addrsv4);
 				testEdges(new IPv4AddressTrie(), addrsv4);
 				testSet(new IPv4AddressTrie(), addrsv4);
 				testMap(new IPv4AddressAssociativeTrie<Integer>(), addrsv4, i -> i, i -> 2 * 1);
+				testBatchRemap(new IPv4AddressAssociativeTrie<Integer>(), addrsv4);
 				testSetEdges(new IPv4AddressTrie(), addrsv4);
 				testMapEdges(new IPv4AddressAssociativeTrie<String>(), addrsv4, i -> ("foo" + i));
 			}
@@ -3969,11 +5467,13 @@ public class TrieTest extends TestBase {
 					notYetDoneEmptyIPv6 = size != 0;
 				}
 				testAdd(new IPv6AddressTrie(), addrsv6);
+				testConcurrent(new IPv6AddressTrie(), addrsv6);
 				testEdges(new IPv6AddressTrie(), addrsv6);
 				testSet(new IPv6AddressTrie(), addrsv6);
 				testMap(new IPv6AddressAssociativeTrie<String>(), addrsv6, i -> ("bla" + i), str -> str + "foo");
 				testSetEdges(new IPv6AddressTrie(), addrsv6);
 				testMapEdges(new IPv6AddressAssociativeTrie<Integer>(), addrsv6, i -> i);
+				testBatchRemap(new IPv6AddressAssociativeTrie<Integer>(), addrsv6);
 			}
 		}
 		
@@ -3989,6 +5489,9 @@ public class TrieTest extends TestBase {
 				testIterate(macTree);
 				testSpliterate(macTree);
 				testContains(macTree);
+				testLongestPrefixMatches(macTree);
+				testFreeze(macTree);
+				testTrieData(macTree);
 			}
 		}
 		notDoneEmptyMAC = true;
@@ -4059,6 +5562,11 @@ public class TrieTest extends TestBase {
 				ipTree.clear();
 			}
 		}
+		testSkewedSpliterate();
+		testSkewedParallelStream();
+		testInvalidTrieData();
+		testBoundedSeek();
+		testSkewedBatchRemap();
 		IPAddress addr = createAddress("::").getAddress();
 		PrefixConfiguration prefCon = addr.getNetwork().getPrefixConfiguration();
 		if(prefCon.zeroHostsAreSubnets()) {